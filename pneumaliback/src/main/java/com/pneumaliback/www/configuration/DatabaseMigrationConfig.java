@@ -1,5 +1,7 @@
 package com.pneumaliback.www.configuration;
 
+import com.pneumaliback.www.entity.EntiteAuditableSequencee;
+import com.pneumaliback.www.enums.OrderStatus;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
@@ -7,6 +9,9 @@ import org.springframework.core.annotation.Order;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
 /**
  * Configuration pour les migrations de base de données
  * S'exécute avant DataInitializationService (Order = 0)
@@ -23,6 +28,10 @@ public class DatabaseMigrationConfig implements CommandLineRunner {
     public void run(String... args) throws Exception {
         log.info("Début des migrations de base de données...");
         fixRoleConstraint();
+        syncCheckoutSequence();
+        dropRefreshTokenUserUnique();
+        hashLegacyRefreshTokens();
+        fixOrderStatusConstraint();
         log.info("Migrations de base de données terminées.");
     }
 
@@ -45,4 +54,80 @@ public class DatabaseMigrationConfig implements CommandLineRunner {
             // Ne pas bloquer le démarrage si la contrainte est déjà correcte
         }
     }
+
+    /**
+     * Aligne la contrainte orders_status_check sur OrderStatus (ajout de PAYMENT_REVIEW) :
+     * ddl-auto=update ne modifie pas une contrainte CHECK existante.
+     */
+    private void fixOrderStatusConstraint() {
+        try {
+            String values = Arrays.stream(OrderStatus.values())
+                    .map(s -> "'" + s.name() + "'")
+                    .collect(Collectors.joining(", "));
+            jdbcTemplate.execute("ALTER TABLE orders DROP CONSTRAINT IF EXISTS orders_status_check");
+            jdbcTemplate.execute("ALTER TABLE orders ADD CONSTRAINT orders_status_check CHECK (status IN (" + values + "))");
+        } catch (Exception e) {
+            log.warn("Erreur lors de la mise à jour de la contrainte orders_status_check: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Supprime la contrainte d'unicité sur refresh_tokens.user_id héritée de l'ancienne
+     * relation OneToOne : un utilisateur a désormais une session par appareil.
+     */
+    private void dropRefreshTokenUserUnique() {
+        try {
+            jdbcTemplate.execute("DO $$ DECLARE c record; BEGIN " +
+                    "FOR c IN SELECT con.conname FROM pg_constraint con " +
+                    "JOIN pg_class t ON t.oid = con.conrelid " +
+                    "JOIN pg_attribute a ON a.attrelid = t.oid AND a.attnum = con.conkey[1] " +
+                    "WHERE t.relname = 'refresh_tokens' AND con.contype = 'u' " +
+                    "AND array_length(con.conkey, 1) = 1 AND a.attname = 'user_id' LOOP " +
+                    "EXECUTE 'ALTER TABLE refresh_tokens DROP CONSTRAINT ' || quote_ident(c.conname); " +
+                    "END LOOP; END $$");
+        } catch (Exception e) {
+            log.warn("Erreur lors de la suppression de l'unicité refresh_tokens.user_id: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Remplace les refresh tokens antérieurs aux empreintes (UUID en clair, sans famille)
+     * par leur empreinte SHA-256 hex, comme RefreshTokenService.fingerprint : la
+     * recherche ne se fait plus que par empreinte.
+     */
+    private void hashLegacyRefreshTokens() {
+        try {
+            int hashed = jdbcTemplate.update("UPDATE refresh_tokens SET token = encode(sha256(convert_to(token, 'UTF8')), 'hex') "
+                    + "WHERE family_id IS NULL AND char_length(token) = 36");
+            if (hashed > 0) log.info("Refresh tokens hérités convertis en empreintes: {}", hashed);
+        } catch (Exception e) {
+            log.warn("Erreur lors de la conversion des refresh tokens hérités: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Place la séquence des entités du checkout au-dessus des ids déjà attribués par
+     * les anciennes colonnes IDENTITY (l'optimiseur pooled consomme des blocs de
+     * ALLOCATION_SIZE ids sous la valeur renvoyée par la séquence).
+     */
+    private void syncCheckoutSequence() {
+        try {
+            Long maxId = jdbcTemplate.queryForObject(
+                    "SELECT GREATEST((SELECT COALESCE(MAX(id), 0) FROM orders), " +
+                            "(SELECT COALESCE(MAX(id), 0) FROM order_items), " +
+                            "(SELECT COALESCE(MAX(id), 0) FROM deliveries), " +
+                            "(SELECT COALESCE(MAX(id), 0) FROM stock_reservations), " +
+                            "(SELECT COALESCE(MAX(id), 0) FROM cart_items), " +
+                            "(SELECT COALESCE(MAX(id), 0) FROM idempotency_keys))", Long.class);
+            Long last = jdbcTemplate.queryForObject(
+                    "SELECT last_value FROM " + EntiteAuditableSequencee.SEQUENCE, Long.class);
+            long target = (maxId != null ? maxId : 0) + EntiteAuditableSequencee.ALLOCATION_SIZE;
+            if (last == null || last < target) {
+                jdbcTemplate.queryForObject("SELECT setval(?, ?)", Long.class, EntiteAuditableSequencee.SEQUENCE, target);
+                log.info("Séquence {} recalée à {}", EntiteAuditableSequencee.SEQUENCE, target);
+            }
+        } catch (Exception e) {
+            log.warn("Erreur lors du recalage de la séquence {}: {}", EntiteAuditableSequencee.SEQUENCE, e.getMessage());
+        }
+    }
 }
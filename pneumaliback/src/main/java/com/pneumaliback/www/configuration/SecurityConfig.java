@@ -49,6 +49,7 @@ public class SecurityConfig {
 
         private static final String[] PUBLIC_ENDPOINTS = {
                         "/api/auth/**",
+                        "/api/guest-cart/**",
                         "/v3/api-docs/**",
                         "/swagger-ui/**",
                         "/swagger-ui.html",
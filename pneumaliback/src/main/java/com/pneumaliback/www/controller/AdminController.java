@@ -5,11 +5,16 @@ import com.pneumaliback.www.enums.Role;
 import com.pneumaliback.www.repository.UserRepository;
 import com.pneumaliback.www.entity.Order;
 import com.pneumaliback.www.entity.Commission;
-import com.pneumaliback.www.enums.CommissionStatus;
 import com.pneumaliback.www.repository.OrderRepository;
 import com.pneumaliback.www.repository.CommissionRepository;
 import com.pneumaliback.www.service.OrderService;
 import com.pneumaliback.www.service.CommissionService;
+import com.pneumaliback.www.service.StockAlertService;
+import com.pneumaliback.www.service.delivery.ShippingTariff;
+import com.pneumaliback.www.service.payment.PaymentReconciliationService;
+import com.pneumaliback.www.service.commission.CommissionLedgerService;
+import com.pneumaliback.www.security.TokenVersionRegistry;
+import com.pneumaliback.www.service.auth.PrincipalCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -19,6 +24,7 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -43,6 +49,12 @@ public class AdminController {
     private final CommissionRepository commissionRepository;
     private final OrderService orderService;
     private final CommissionService commissionService;
+    private final StockAlertService stockAlertService;
+    private final ShippingTariff shippingTariff;
+    private final PaymentReconciliationService paymentReconciliationService;
+    private final CommissionLedgerService commissionLedgerService;
+    private final TokenVersionRegistry tokenVersions;
+    private final PrincipalCache principalCache;
 
     private ResponseEntity<?> handleException(Exception e) {
         if (e instanceof IllegalArgumentException) {
@@ -122,8 +134,10 @@ public class AdminController {
             Optional<User> userOpt = userRepository.findById(id);
             if (userOpt.isPresent()) {
                 User user = userOpt.get();
+                if (user.getRole() != newRole) tokenVersions.revokeTokens(user);
                 user.setRole(newRole);
                 User savedUser = userRepository.save(user);
+                principalCache.evict(savedUser);
                 log.info("Rôle de l'utilisateur {} modifié vers: {}", user.getEmail(), newRole);
                 return ResponseEntity.ok(savedUser);
             }
@@ -149,6 +163,7 @@ public class AdminController {
                 User user = userOpt.get();
                 user.setEnabled(enabled);
                 User savedUser = userRepository.save(user);
+                principalCache.evict(savedUser);
                 log.info("Statut de l'utilisateur {} modifié vers: {}", user.getEmail(), enabled);
                 return ResponseEntity.ok(savedUser);
             }
@@ -178,9 +193,11 @@ public class AdminController {
                     user.setLockTime(null);
                     log.info("Compte de l'utilisateur {} déverrouillé", user.getEmail());
                 } else {
+                    tokenVersions.revokeTokens(user);
                     log.info("Compte de l'utilisateur {} verrouillé", user.getEmail());
                 }
                 User savedUser = userRepository.save(user);
+                principalCache.evict(savedUser);
                 return ResponseEntity.ok(savedUser);
             }
             return ResponseEntity.status(404).body(Map.of("error", "Utilisateur non trouvé"));
@@ -221,6 +238,65 @@ public class AdminController {
             long lockedUsers) {
     }
 
+    @GetMapping("/stock/alerts")
+    @Operation(summary = "Alertes de stock", description = "Produits actifs en rupture ou sous leur seuil de stock faible (état tenu en mémoire, sans requête)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Alertes récupérées"),
+            @ApiResponse(responseCode = "500", description = "Erreur interne", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<?> stockAlerts() {
+        try {
+            return ResponseEntity.ok(stockAlertService.current());
+        } catch (Exception e) {
+            return handleException(e);
+        }
+    }
+
+    @GetMapping("/auth/principal-cache")
+    @Operation(summary = "Cache des utilisateurs", description = "Taille, succès et échecs du cache des utilisateurs authentifiés")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Statistiques récupérées"),
+            @ApiResponse(responseCode = "500", description = "Erreur interne", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<?> principalCacheStats() {
+        try {
+            return ResponseEntity.ok(principalCache.stats());
+        } catch (Exception e) {
+            return handleException(e);
+        }
+    }
+
+    @GetMapping("/payments/reconciliation")
+    @Operation(summary = "Dernière réconciliation des paiements", description = "Paiements examinés, confirmés, échoués et débit par prestataire lors du dernier passage")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Résumé récupéré"),
+            @ApiResponse(responseCode = "204", description = "Aucun passage effectué"),
+            @ApiResponse(responseCode = "500", description = "Erreur interne", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<?> paymentReconciliation() {
+        try {
+            var summary = paymentReconciliationService.lastRun();
+            return summary != null ? ResponseEntity.ok(summary) : ResponseEntity.noContent().build();
+        } catch (Exception e) {
+            return handleException(e);
+        }
+    }
+
+    @PostMapping("/shipping/reload")
+    @Operation(summary = "Recharger la grille de livraison", description = "Relit shipping_zones / shipping_rates sans attendre le rechargement périodique")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Grille rechargée"),
+            @ApiResponse(responseCode = "500", description = "Erreur interne", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<?> reloadShippingTariff() {
+        try {
+            shippingTariff.reload();
+            return ResponseEntity.ok(Map.of("message", "Grille de livraison rechargée"));
+        } catch (Exception e) {
+            return handleException(e);
+        }
+    }
+
     @PutMapping("/orders/{orderId}/confirm")
     @Operation(summary = "Confirmer une commande")
     @ApiResponses(value = {
@@ -233,7 +309,7 @@ public class AdminController {
             Optional<Order> opt = orderRepository.findById(orderId);
             if (opt.isEmpty()) return ResponseEntity.status(404).body(Map.of("error", "Commande non trouvée"));
             Order order = opt.get();
-            orderService.confirm(order);
+            orderService.confirmReserved(order);
             Order saved = orderRepository.save(order);
             return ResponseEntity.ok(saved);
         } catch (Exception e) {
@@ -247,9 +323,9 @@ public class AdminController {
             @ApiResponse(responseCode = "200", description = "Liste récupérée"),
             @ApiResponse(responseCode = "500", description = "Erreur interne", content = @Content(mediaType = "application/json"))
     })
-    public ResponseEntity<?> listAllCommissions() {
+    public ResponseEntity<?> listAllCommissions(Pageable pageable) {
         try {
-            return ResponseEntity.ok(commissionRepository.findAll());
+            return ResponseEntity.ok(commissionRepository.findAll(pageable));
         } catch (Exception e) {
             return handleException(e);
         }
@@ -277,10 +353,9 @@ public class AdminController {
     })
     public ResponseEntity<?> getInfluenceurBalance(@PathVariable Long influenceurId) {
         try {
-            BigDecimal total = commissionRepository.sumByInfluenceur(influenceurId);
-            BigDecimal paid = commissionRepository.sumByInfluenceurAndStatus(influenceurId, CommissionStatus.PAID);
-            BigDecimal pending = commissionRepository.sumByInfluenceurAndStatus(influenceurId, CommissionStatus.PENDING);
-            return ResponseEntity.ok(new BalanceDTO(total, paid, pending));
+            return ResponseEntity.ok(commissionLedgerService.balance(influenceurId)
+                    .map(b -> new BalanceDTO(b.getTotalAmount(), b.getPaidAmount(), b.getPendingAmount(), b.getOrderCount()))
+                    .orElse(new BalanceDTO(BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, 0)));
         } catch (Exception e) {
             return handleException(e);
         }
@@ -305,5 +380,5 @@ public class AdminController {
         }
     }
 
-    public record BalanceDTO(BigDecimal total, BigDecimal paid, BigDecimal pending) {}
+    public record BalanceDTO(BigDecimal total, BigDecimal paid, BigDecimal pending, long orderCount) {}
 }
@@ -186,15 +186,16 @@ public class AuthController {
     }
 
     @PostMapping("/magic/verify")
-    @Operation(summary = "Vérifier le code et connecter", description = "Valide le code 6 chiffres (2 minutes, 5 essais puis blocage 2 minutes)")
+    @Operation(summary = "Vérifier le code et connecter", description = "Valide le code 6 chiffres (2 minutes, 5 essais puis blocage 2 minutes). L'en-tête X-Guest-Cart fusionne le panier invité dans celui du compte")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Authentification réussie", content = @Content(mediaType = "application/json", schema = @Schema(implementation = AuthResponse.class))),
             @ApiResponse(responseCode = "400", description = "Requête invalide", content = @Content(mediaType = "application/json")),
             @ApiResponse(responseCode = "500", description = "Erreur interne", content = @Content(mediaType = "application/json"))
     })
-    public ResponseEntity<?> magicVerify(@Valid @RequestBody VerificationRequest request) {
+    public ResponseEntity<?> magicVerify(@Valid @RequestBody VerificationRequest request,
+                                         @RequestHeader(value = "X-Guest-Cart", required = false) String guestCartToken) {
         try {
-            AuthResponse response = authService.magicVerify(request.email(), request.code());
+            AuthResponse response = authService.magicVerify(request.email(), request.code(), guestCartToken);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             return handleException(e);
@@ -267,7 +268,7 @@ public class AuthController {
     }
 
     @PostMapping("/logout")
-    @Operation(summary = "Déconnexion", description = "Permet à un utilisateur de se déconnecter")
+    @Operation(summary = "Déconnexion", description = "Révoque le jeton présenté (jeton d'accès ou refresh token) et les refresh tokens de l'utilisateur")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Déconnexion réussie", content = @Content(mediaType = "application/json")),
             @ApiResponse(responseCode = "400", description = "Requête invalide", content = @Content(mediaType = "application/json"))
@@ -275,8 +276,7 @@ public class AuthController {
     public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authHeader) {
         try {
             if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                String refreshToken = authHeader.substring(7);
-                authService.logout(refreshToken);
+                authService.logout(authHeader.substring(7));
                 log.info("Déconnexion réussie");
             }
             return ResponseEntity.ok(java.util.Map.of("message", "Déconnexion réussie"));
@@ -286,10 +286,10 @@ public class AuthController {
     }
 
     @PostMapping("/verify-email-change")
-    @Operation(summary = "Vérifier le changement d'email", description = "Vérifie le code envoyé après un changement d'email et génère un nouveau token")
+    @Operation(summary = "Vérifier le changement d'email", description = "Vérifie le code envoyé après un changement d'email, avec le défi renvoyé par la mise à jour du profil (obligatoire : le code seul est refusé), et génère un nouveau token")
     public ResponseEntity<?> verifyEmailChange(@Valid @RequestBody VerifyCodeRequest request) {
         try {
-            AuthResponse response = authService.verifyEmailChange(request.code());
+            AuthResponse response = authService.verifyEmailChange(request.challenge(), request.code());
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             return handleException(e);
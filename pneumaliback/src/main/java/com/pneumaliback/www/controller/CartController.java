@@ -1,9 +1,11 @@
 package com.pneumaliback.www.controller;
 
+import com.pneumaliback.www.dto.CartQuoteDTO;
 import com.pneumaliback.www.entity.Cart;
 import com.pneumaliback.www.entity.User;
 import com.pneumaliback.www.repository.UserRepository;
 import com.pneumaliback.www.service.CartService;
+import com.pneumaliback.www.service.cart.CartQuoteService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -23,6 +25,7 @@ public class CartController {
 
     private final CartService cartService;
     private final UserRepository userRepository;
+    private final CartQuoteService cartQuoteService;
 
     private User getUser(Long userId) {
         return userRepository.findById(userId).orElseThrow(() -> new IllegalArgumentException("Utilisateur non trouvé"));
@@ -55,6 +58,23 @@ public class CartController {
         }
     }
 
+    @GetMapping("/quote")
+    @Operation(summary = "Récapitulatif chiffré du panier", description = "Sous-total, remise prévisionnelle et frais de livraison, servis depuis le cache sans recharger le panier")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Récapitulatif calculé", content = @Content(mediaType = "application/json", schema = @Schema(implementation = CartQuoteDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Paramètres invalides", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "500", description = "Erreur interne", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<?> quote(@RequestParam Long userId,
+                                   @RequestParam(required = false) String promoCode,
+                                   @RequestParam(required = false) String zone) {
+        try {
+            return ResponseEntity.ok(cartQuoteService.quote(userId, promoCode, zone));
+        } catch (Exception e) {
+            return handleException(e);
+        }
+    }
+
     @PostMapping("/items")
     @Operation(summary = "Ajouter un article au panier")
     @ApiResponses(value = {
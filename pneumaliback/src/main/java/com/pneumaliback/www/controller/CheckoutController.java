@@ -6,6 +6,7 @@ import com.pneumaliback.www.entity.User;
 import com.pneumaliback.www.repository.AddressRepository;
 import com.pneumaliback.www.repository.OrderRepository;
 import com.pneumaliback.www.repository.UserRepository;
+import com.pneumaliback.www.service.CheckoutIdempotencyService;
 import com.pneumaliback.www.service.CheckoutService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -28,18 +29,20 @@ public class CheckoutController {
     private final UserRepository userRepository;
     private final AddressRepository addressRepository;
     private final OrderRepository orderRepository;
+    private final CheckoutIdempotencyService idempotencyService;
 
     public record CheckoutRequest(Long userId, Long addressId, String zone, String promoCode) {}
 
     @PostMapping
-    @Operation(summary = "Créer une commande à partir du panier")
+    @Operation(summary = "Créer une commande à partir du panier", description = "Avec l'en-tête Idempotency-Key, une nouvelle tentative renvoie la commande déjà créée")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Commande créée", content = @Content(mediaType = "application/json", schema = @Schema(implementation = Order.class))),
             @ApiResponse(responseCode = "400", description = "Paramètres invalides", content = @Content(mediaType = "application/json")),
             @ApiResponse(responseCode = "404", description = "Utilisateur ou adresse introuvable", content = @Content(mediaType = "application/json")),
             @ApiResponse(responseCode = "500", description = "Erreur interne", content = @Content(mediaType = "application/json"))
     })
-    public ResponseEntity<?> createOrder(@RequestBody CheckoutRequest req) {
+    public ResponseEntity<?> createOrder(@RequestBody CheckoutRequest req,
+                                         @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         try {
             if (req == null || req.userId() == null || req.addressId() == null) {
                 return ResponseEntity.badRequest().body(java.util.Map.of("error", "Paramètres de checkout invalides"));
@@ -48,7 +51,15 @@ public class CheckoutController {
                     .orElseThrow(() -> new IllegalArgumentException("Utilisateur non trouvé"));
             Address address = addressRepository.findById(req.addressId())
                     .orElseThrow(() -> new IllegalArgumentException("Adresse non trouvée"));
-            Order order = checkoutService.createOrder(user, address, req.zone(), req.promoCode());
+            Order order;
+            if (idempotencyKey == null) {
+                order = checkoutService.createOrder(user, address, req.zone(), req.promoCode());
+            } else {
+                String key = idempotencyKey.trim();
+                CheckoutIdempotencyService.validate(key);
+                order = idempotencyService.execute(user.getId(), key,
+                        () -> checkoutService.createOrder(user, address, req.zone(), req.promoCode(), key));
+            }
             return ResponseEntity.ok(order);
         } catch (IllegalArgumentException e) {
             String msg = e.getMessage() != null ? e.getMessage() : "Requête invalide";
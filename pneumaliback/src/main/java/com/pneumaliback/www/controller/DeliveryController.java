@@ -7,6 +7,7 @@ import com.pneumaliback.www.repository.DeliveryRepository;
 import com.pneumaliback.www.repository.AddressRepository;
 import com.pneumaliback.www.repository.OrderRepository;
 import com.pneumaliback.www.service.DeliveryService;
+import com.pneumaliback.www.service.delivery.ShippingTariff;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -19,6 +20,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.util.List;
 import com.pneumaliback.www.dto.DeliveryCreateDTO;
 
 @RestController
@@ -33,6 +35,8 @@ public class DeliveryController {
     private final AddressRepository addressRepository;
     private final OrderRepository orderRepository;
 
+    private static final int MAX_BATCH_QUOTES = 500;
+
     private ResponseEntity<?> handleException(Exception e) {
         if (e instanceof IllegalArgumentException) {
             String msg = e.getMessage() != null ? e.getMessage() : "Requête invalide";
@@ -45,15 +49,34 @@ public class DeliveryController {
     }
 
     @GetMapping("/quote")
-    @Operation(summary = "Devis des frais de livraison pour une zone")
+    @Operation(summary = "Devis des frais de livraison pour une zone", description = "Frais selon la zone et le nombre d'articles (1 par défaut)")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Devis calculé", content = @Content(mediaType = "application/json", schema = @Schema(implementation = BigDecimal.class))),
             @ApiResponse(responseCode = "400", description = "Paramètres invalides", content = @Content(mediaType = "application/json")),
             @ApiResponse(responseCode = "500", description = "Erreur interne", content = @Content(mediaType = "application/json"))
     })
-    public ResponseEntity<?> quote(@RequestParam String zone) {
+    public ResponseEntity<?> quote(@RequestParam String zone, @RequestParam(defaultValue = "1") int quantity) {
+        try {
+            if (quantity <= 0) throw new IllegalArgumentException("Quantité invalide");
+            return ResponseEntity.ok(deliveryService.quoteShippingFee(zone, quantity));
+        } catch (Exception e) {
+            return handleException(e);
+        }
+    }
+
+    @PostMapping("/quote/batch")
+    @Operation(summary = "Devis groupés des frais de livraison", description = "Jusqu'à " + MAX_BATCH_QUOTES + " couples zone / nombre d'articles, dans l'ordre de la requête")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Devis calculés", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ShippingTariff.Quote.class))),
+            @ApiResponse(responseCode = "400", description = "Paramètres invalides", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "500", description = "Erreur interne", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<?> quoteBatch(@RequestBody List<ShippingTariff.Request> requests) {
         try {
-            return ResponseEntity.ok(deliveryService.quoteShippingFee(zone));
+            if (requests == null || requests.isEmpty() || requests.size() > MAX_BATCH_QUOTES) {
+                throw new IllegalArgumentException("Entre 1 et " + MAX_BATCH_QUOTES + " devis par requête");
+            }
+            return ResponseEntity.ok(deliveryService.quoteAll(requests));
         } catch (Exception e) {
             return handleException(e);
         }
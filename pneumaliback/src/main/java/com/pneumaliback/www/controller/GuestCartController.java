@@ -0,0 +1,135 @@
+package com.pneumaliback.www.controller;
+
+import com.pneumaliback.www.dto.CartQuoteDTO;
+import com.pneumaliback.www.service.cart.GuestCartService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/guest-cart")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+@Tag(name = "Panier invité", description = "Panier des visiteurs non connectés, fusionné à la connexion")
+public class GuestCartController {
+
+    private final GuestCartService guestCartService;
+
+    private ResponseEntity<?> handleException(Exception e) {
+        if (e instanceof IllegalArgumentException) {
+            String msg = e.getMessage() != null ? e.getMessage() : "Requête invalide";
+            if (msg.toLowerCase().contains("introuvable") || msg.toLowerCase().contains("non trouv")) {
+                return ResponseEntity.status(404).body(java.util.Map.of("error", msg));
+            }
+            if (msg.toLowerCase().contains("trop de paniers")) {
+                return ResponseEntity.status(429).body(java.util.Map.of("error", msg));
+            }
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", msg));
+        }
+        return ResponseEntity.internalServerError().body(java.util.Map.of("error", "Erreur interne du serveur", "message", e.getMessage()));
+    }
+
+    @PostMapping
+    @Operation(summary = "Créer un panier invité", description = "Renvoie le jeton à rappeler sur chaque requête, puis dans l'en-tête X-Guest-Cart à la connexion. Le panier n'est enregistré qu'au premier article ajouté")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Panier créé", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "500", description = "Erreur interne", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<?> create() {
+        try {
+            return ResponseEntity.ok(java.util.Map.of("token", guestCartService.create()));
+        } catch (Exception e) {
+            return handleException(e);
+        }
+    }
+
+    @GetMapping("/{token}")
+    @Operation(summary = "Récapitulatif chiffré du panier invité")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Récapitulatif calculé", content = @Content(mediaType = "application/json", schema = @Schema(implementation = CartQuoteDTO.class))),
+            @ApiResponse(responseCode = "404", description = "Panier introuvable ou expiré", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "500", description = "Erreur interne", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<?> quote(@PathVariable String token,
+                                   @RequestParam(required = false) String promoCode,
+                                   @RequestParam(required = false) String zone) {
+        try {
+            return ResponseEntity.ok(guestCartService.quote(token, promoCode, zone));
+        } catch (Exception e) {
+            return handleException(e);
+        }
+    }
+
+    @PostMapping("/{token}/items")
+    @Operation(summary = "Ajouter un article au panier invité")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Article ajouté", content = @Content(mediaType = "application/json", schema = @Schema(implementation = CartQuoteDTO.class))),
+            @ApiResponse(responseCode = "404", description = "Panier ou produit introuvable", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "400", description = "Paramètres invalides", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "429", description = "Trop de paniers créés depuis cette adresse", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "500", description = "Erreur interne", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<?> addItem(@PathVariable String token,
+                                     @RequestParam Long productId,
+                                     @RequestParam int quantity,
+                                     HttpServletRequest request) {
+        try {
+            return ResponseEntity.ok(guestCartService.addItem(token, productId, quantity, clientIp(request)));
+        } catch (Exception e) {
+            return handleException(e);
+        }
+    }
+
+    @PutMapping("/{token}/items")
+    @Operation(summary = "Mettre à jour la quantité d'un article du panier invité")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Article mis à jour", content = @Content(mediaType = "application/json", schema = @Schema(implementation = CartQuoteDTO.class))),
+            @ApiResponse(responseCode = "404", description = "Panier ou produit introuvable", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "400", description = "Paramètres invalides", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "429", description = "Trop de paniers créés depuis cette adresse", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "500", description = "Erreur interne", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<?> updateItem(@PathVariable String token,
+                                        @RequestParam Long productId,
+                                        @RequestParam int quantity,
+                                        HttpServletRequest request) {
+        try {
+            return ResponseEntity.ok(guestCartService.updateItem(token, productId, quantity, clientIp(request)));
+        } catch (Exception e) {
+            return handleException(e);
+        }
+    }
+
+    @DeleteMapping("/{token}")
+    @Operation(summary = "Supprimer le panier invité")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Panier supprimé", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "500", description = "Erreur interne", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<?> clear(@PathVariable String token) {
+        try {
+            guestCartService.clear(token);
+            return ResponseEntity.noContent().build();
+        } catch (Exception e) {
+            return handleException(e);
+        }
+    }
+
+    private static String clientIp(HttpServletRequest request) {
+        String ip = request.getHeader("X-Forwarded-For");
+        if (ip != null && !ip.isBlank()) {
+            int comma = ip.indexOf(',');
+            return comma > 0 ? ip.substring(0, comma).trim() : ip.trim();
+        }
+        String realIp = request.getHeader("X-Real-IP");
+        if (realIp != null && !realIp.isBlank()) return realIp.trim();
+        return request.getRemoteAddr();
+    }
+}
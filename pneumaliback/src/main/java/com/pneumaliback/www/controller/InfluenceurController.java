@@ -1,7 +1,9 @@
 package com.pneumaliback.www.controller;
 
 import com.pneumaliback.www.entity.User;
+import com.pneumaliback.www.entity.InfluenceurBalance;
 import com.pneumaliback.www.repository.UserRepository;
+import com.pneumaliback.www.service.commission.CommissionLedgerService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -17,6 +19,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
 import java.util.Map;
 import java.util.Optional;
 
@@ -31,6 +34,7 @@ import java.util.Optional;
 public class InfluenceurController {
 
     private final UserRepository userRepository;
+    private final CommissionLedgerService commissionLedgerService;
 
     private ResponseEntity<Map<String, String>> handleException(Exception e) {
         if (e instanceof IllegalArgumentException) {
@@ -103,13 +107,9 @@ public class InfluenceurController {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             String email = authentication.getName();
             log.info("Récupération des statistiques de l'influenceur: {}", email);
-            InfluenceurStats stats = new InfluenceurStats(
-                    email,
-                    0L,
-                    0L,
-                    0L,
-                    0L
-            );
+            InfluenceurStats stats = commissionLedgerService.balanceOf(email)
+                    .map(b -> InfluenceurStats.of(email, b))
+                    .orElse(new InfluenceurStats(email, 0L, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO));
             return ResponseEntity.ok(stats);
         } catch (Exception e) {
             return handleException(e);
@@ -118,9 +118,13 @@ public class InfluenceurController {
 
     public record InfluenceurStats(
             String email,
-            long followers,
-            long posts,
-            long likes,
-            long comments) {
+            long orderCount,
+            BigDecimal totalCommission,
+            BigDecimal pendingCommission,
+            BigDecimal paidCommission) {
+
+        static InfluenceurStats of(String email, InfluenceurBalance b) {
+            return new InfluenceurStats(email, b.getOrderCount(), b.getTotalAmount(), b.getPendingAmount(), b.getPaidAmount());
+        }
     }
 }
@@ -106,6 +106,24 @@ public class MessageController {
         }
     }
 
+    @GetMapping("/conversation/cursor")
+    @Operation(summary = "Conversation entre deux utilisateurs (curseur)", description = "Historique par curseur sans total, plus récents d'abord")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Conversation récupérée"),
+            @ApiResponse(responseCode = "400", description = "Curseur ou taille invalide", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "500", description = "Erreur interne", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<?> conversationCursor(@RequestParam Long u1,
+            @RequestParam Long u2,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(messageService.conversation(u1, u2, cursor, size));
+        } catch (Exception e) {
+            return handleException(e);
+        }
+    }
+
     @PostMapping("/conversation/lire")
     @Operation(summary = "Marquer comme lue la conversation reçue d'un interlocuteur")
     @ApiResponses(value = {
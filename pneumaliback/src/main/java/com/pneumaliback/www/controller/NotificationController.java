@@ -56,6 +56,23 @@ public class NotificationController {
         }
     }
 
+    @GetMapping("/{userId}/cursor")
+    @Operation(summary = "Liste des notifications d'un utilisateur (curseur)", description = "Pagination par curseur sans total, plus récentes d'abord")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page récupérée"),
+            @ApiResponse(responseCode = "400", description = "Curseur ou taille invalide", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "500", description = "Erreur interne", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<?> listCursor(@PathVariable Long userId,
+                                        @RequestParam(required = false) String cursor,
+                                        @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(notificationService.list(userId, cursor, size));
+        } catch (Exception e) {
+            return handleException(e);
+        }
+    }
+
     @GetMapping("/{userId}/non-lues")
     @Operation(summary = "Liste des notifications non lues d'un utilisateur")
     @ApiResponses(value = {
@@ -98,7 +115,7 @@ public class NotificationController {
     public ResponseEntity<?> marquerLu(@PathVariable Long id, @RequestParam Long userId) {
         try {
             notificationService.markAsRead(id, userId);
-            notificationService.sendUnreadCount(notificationService.findUserById(userId));
+            notificationService.sendUnreadCount(userId);
             return ResponseEntity.ok().build();
         } catch (Exception e) {
             return handleException(e);
@@ -115,7 +132,7 @@ public class NotificationController {
     public ResponseEntity<?> marquerToutesCommeLues(@PathVariable Long userId) {
         try {
             int count = notificationService.markAllAsRead(userId);
-            notificationService.sendUnreadCount(notificationService.findUserById(userId));
+            notificationService.sendUnreadCount(userId);
             return ResponseEntity.ok(count);
         } catch (Exception e) {
             return handleException(e);
@@ -200,8 +217,7 @@ public class NotificationController {
             notificationService.markAsRead(notificationId, userId);
 
             // Envoyer le nouveau count via WebSocket
-            notificationService.sendUnreadCount(
-                    notificationService.findUserById(userId));
+            notificationService.sendUnreadCount(userId);
         } catch (Exception e) {
             log.error("Erreur lors du marquage de notification via WebSocket: {}", e.getMessage());
         }
@@ -220,8 +236,7 @@ public class NotificationController {
             notificationService.markAllAsRead(userId);
 
             // Envoyer le nouveau count via WebSocket (0 car toutes marquées comme lues)
-            notificationService.sendUnreadCount(
-                    notificationService.findUserById(userId));
+            notificationService.sendUnreadCount(userId);
         } catch (Exception e) {
             log.error("Erreur lors du marquage de toutes les notifications via WebSocket: {}", e.getMessage());
         }
@@ -238,8 +253,7 @@ public class NotificationController {
             log.debug("WebSocket: Demande count notifications non lues pour utilisateur {}", userId);
 
             // Envoyer le count actuel via WebSocket
-            notificationService.sendUnreadCount(
-                    notificationService.findUserById(userId));
+            notificationService.sendUnreadCount(userId);
         } catch (Exception e) {
             log.error("Erreur lors de la demande de count via WebSocket: {}", e.getMessage());
         }
@@ -256,8 +270,7 @@ public class NotificationController {
             log.info("WebSocket: Souscription aux notifications pour utilisateur {}", userId);
 
             // Envoyer immédiatement le count actuel
-            notificationService.sendUnreadCount(
-                    notificationService.findUserById(userId));
+            notificationService.sendUnreadCount(userId);
         } catch (Exception e) {
             log.error("Erreur lors de la souscription aux notifications via WebSocket: {}", e.getMessage());
         }
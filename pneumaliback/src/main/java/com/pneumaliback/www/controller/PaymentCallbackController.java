@@ -1,6 +1,6 @@
 package com.pneumaliback.www.controller;
 
-import com.pneumaliback.www.service.PaymentService;
+import com.pneumaliback.www.service.payment.PaymentCallbackService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -17,18 +17,18 @@ import org.springframework.web.bind.annotation.*;
 @Tag(name = "Paiements - Callback", description = "Callbacks des prestataires de paiement")
 public class PaymentCallbackController {
 
-    private final PaymentService paymentService;
+    private final PaymentCallbackService paymentCallbackService;
 
     @PostMapping("/callback/success")
-    @Operation(summary = "Callback succès paiement", description = "Confirme le paiement et la commande via la référence transaction")
+    @Operation(summary = "Callback succès paiement", description = "Enregistre le callback et l'acquitte aussitôt ; le paiement et la commande sont confirmés en arrière-plan. Les doublons (même référence) sont ignorés")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "204", description = "Callback traité"),
+            @ApiResponse(responseCode = "204", description = "Callback enregistré (ou déjà reçu)"),
             @ApiResponse(responseCode = "400", description = "Paramètres invalides", content = @Content(mediaType = "application/json")),
             @ApiResponse(responseCode = "500", description = "Erreur interne", content = @Content(mediaType = "application/json"))
     })
     public ResponseEntity<?> handleSuccessCallback(@RequestParam("txRef") String transactionReference) {
         try {
-            paymentService.confirmSuccessByTransaction(transactionReference);
+            paymentCallbackService.receive(transactionReference);
             return ResponseEntity.noContent().build();
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage() != null ? e.getMessage() : "Requête invalide"));
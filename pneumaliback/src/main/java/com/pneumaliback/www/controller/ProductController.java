@@ -1,8 +1,10 @@
 package com.pneumaliback.www.controller;
 
+import com.pneumaliback.www.dto.ProductSummaryDTO;
 import com.pneumaliback.www.entity.Category;
 import com.pneumaliback.www.entity.Product;
 import com.pneumaliback.www.repository.CategoryRepository;
+import com.pneumaliback.www.service.PopularityService;
 import com.pneumaliback.www.service.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -42,7 +44,7 @@ public class ProductController {
     @GetMapping("/active")
     @Operation(summary = "Lister produits actifs (page)")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Liste récupérée", content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class))),
+            @ApiResponse(responseCode = "200", description = "Liste récupérée", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductSummaryDTO.class))),
             @ApiResponse(responseCode = "500", description = "Erreur interne", content = @Content(mediaType = "application/json"))
     })
     public ResponseEntity<?> listActive(Pageable pageable) {
@@ -53,6 +55,23 @@ public class ProductController {
         }
     }
 
+    @GetMapping("/active/cursor")
+    @Operation(summary = "Lister produits actifs (curseur)", description = "Pagination par curseur sans total : sort=recent|price_asc|price_desc, cursor = nextCursor de la page précédente")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page récupérée"),
+            @ApiResponse(responseCode = "400", description = "Curseur, tri ou taille invalide", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "500", description = "Erreur interne", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<?> listActiveCursor(@RequestParam(defaultValue = "recent") String sort,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(productService.listActive(sort, cursor, size));
+        } catch (Exception e) {
+            return handleException(e);
+        }
+    }
+
     @GetMapping("/search")
     @Operation(summary = "Rechercher dans les produits actifs")
     @ApiResponses(value = {
@@ -68,6 +87,21 @@ public class ProductController {
         }
     }
 
+    @GetMapping("/autocomplete")
+    @Operation(summary = "Suggestions de saisie", description = "Marques, tailles et produits actifs commençant par le texte saisi, les plus courants d'abord")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Suggestions récupérées"),
+            @ApiResponse(responseCode = "400", description = "Paramètres invalides", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "500", description = "Erreur interne", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<?> autocomplete(@RequestParam String q, @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(productService.autocomplete(q, limit));
+        } catch (Exception e) {
+            return handleException(e);
+        }
+    }
+
     @GetMapping("/filter")
     @Operation(summary = "Filtrer les produits actifs")
     @ApiResponses(value = {
@@ -112,14 +146,19 @@ public class ProductController {
     }
 
     @GetMapping("/popular")
-    @Operation(summary = "Produits populaires", description = "Les plus vendus")
+    @Operation(summary = "Produits populaires", description = "Les plus vendus sur 7 ou 30 jours (window=7d|30d)")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Liste récupérée", content = @Content(mediaType = "application/json", schema = @Schema(implementation = Product.class))),
+            @ApiResponse(responseCode = "200", description = "Liste récupérée", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductSummaryDTO.class))),
             @ApiResponse(responseCode = "500", description = "Erreur interne", content = @Content(mediaType = "application/json"))
     })
-    public ResponseEntity<?> popular(Pageable pageable) {
+    public ResponseEntity<?> popular(@RequestParam(defaultValue = "30d") String window, Pageable pageable) {
         try {
-            return ResponseEntity.ok(productService.popular(pageable));
+            PopularityService.Window w = switch (window) {
+                case "7d" -> PopularityService.Window.WEEK;
+                case "30d" -> PopularityService.Window.MONTH;
+                default -> throw new IllegalArgumentException("Fenêtre invalide (7d ou 30d)");
+            };
+            return ResponseEntity.ok(productService.popular(w, pageable));
         } catch (Exception e) {
             return handleException(e);
         }
@@ -156,5 +195,21 @@ public class ProductController {
             return handleException(e);
         }
     }
-}
 
+    @GetMapping("/dimensions/equivalents")
+    @Operation(summary = "Dimensions équivalentes", description = "Pneus dont le diamètre extérieur est proche de la dimension donnée (ex: 205/55R16, tolérance 3 %)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Résultats récupérés"),
+            @ApiResponse(responseCode = "400", description = "Paramètres invalides", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "500", description = "Erreur interne", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<?> equivalentSizes(@RequestParam String size,
+                                             @RequestParam(defaultValue = "3") double tolerance,
+                                             Pageable pageable) {
+        try {
+            return ResponseEntity.ok(productService.findEquivalentSizes(size, tolerance, pageable));
+        } catch (Exception e) {
+            return handleException(e);
+        }
+    }
+}
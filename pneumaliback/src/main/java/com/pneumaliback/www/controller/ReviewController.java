@@ -1,5 +1,6 @@
 package com.pneumaliback.www.controller;
 
+import com.pneumaliback.www.dto.ProductRatingDTO;
 import com.pneumaliback.www.entity.Review;
 import com.pneumaliback.www.entity.User;
 import com.pneumaliback.www.repository.UserRepository;
@@ -14,6 +15,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 
 @RestController
 @RequestMapping("/api/reviews")
@@ -40,6 +43,21 @@ public class ReviewController {
         return ResponseEntity.internalServerError().body(java.util.Map.of("error", "Erreur interne du serveur", "message", e.getMessage()));
     }
 
+    @GetMapping("/ratings")
+    @Operation(summary = "Notes d'un lot de produits", description = "Nombre d'avis, moyenne et répartition par étoile pour une page de produits (max 100 identifiants)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Notes récupérées", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductRatingDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Paramètres invalides", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "500", description = "Erreur interne", content = @Content(mediaType = "application/json"))
+    })
+    public ResponseEntity<?> ratings(@RequestParam List<Long> productIds) {
+        try {
+            return ResponseEntity.ok(reviewService.ratings(productIds));
+        } catch (Exception e) {
+            return handleException(e);
+        }
+    }
+
     @GetMapping("/product/{productId}")
     @Operation(summary = "Lister les avis d'un produit")
     @ApiResponses(value = {
@@ -1,7 +1,6 @@
 package com.pneumaliback.www.controller;
 
 import com.pneumaliback.www.dto.UpdateProfileRequest;
-import com.pneumaliback.www.entity.User;
 import com.pneumaliback.www.service.AuthService;
 import com.pneumaliback.www.service.UserService;
 import lombok.RequiredArgsConstructor;
@@ -28,10 +27,12 @@ public class UserController {
             @AuthenticationPrincipal UserDetails userDetails,
             @RequestBody UpdateProfileRequest request) {
         try {
-            User updatedUser = userService.updateProfile(userDetails.getUsername(), request);
-            return ResponseEntity.ok(Map.of(
-                    "message", "Profile updated successfully",
-                    "user", updatedUser));
+            UserService.ProfileUpdate update = userService.updateProfile(userDetails.getUsername(), request);
+            Map<String, Object> body = new java.util.LinkedHashMap<>();
+            body.put("message", "Profile updated successfully");
+            body.put("user", update.user());
+            if (update.emailChallenge() != null) body.put("challenge", update.emailChallenge());
+            return ResponseEntity.ok(body);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
         }
@@ -0,0 +1,39 @@
+package com.pneumaliback.www.dto;
+
+import com.pneumaliback.www.service.pricing.Money;
+import com.pneumaliback.www.service.pricing.PriceQuote;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Récapitulatif chiffré du panier : sous-total, remise prévisionnelle, frais de
+ * livraison estimés et total.
+ */
+public record CartQuoteDTO(BigDecimal subtotal,
+                           BigDecimal discount,
+                           BigDecimal shippingFee,
+                           BigDecimal total,
+                           int itemCount,
+                           boolean promotionApplied,
+                           List<Line> lines) {
+
+    public record Line(Long productId, int quantity, BigDecimal unitPrice, BigDecimal lineTotal, BigDecimal discount) {
+    }
+
+    public static CartQuoteDTO from(PriceQuote quote, boolean promotionApplied) {
+        int count = 0;
+        for (PriceQuote.Line l : quote.lines()) count += l.quantity();
+        return new CartQuoteDTO(
+                Money.toAmount(quote.subtotal()),
+                Money.toAmount(quote.discount()),
+                Money.toAmount(quote.shipping()),
+                Money.toAmount(quote.total()),
+                count,
+                promotionApplied,
+                quote.lines().stream()
+                        .map(l -> new Line(l.productId(), l.quantity(), Money.toAmount(l.unitPrice()),
+                                Money.toAmount(l.total()), Money.toAmount(l.discount())))
+                        .toList());
+    }
+}
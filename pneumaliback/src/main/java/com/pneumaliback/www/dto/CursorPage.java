@@ -0,0 +1,26 @@
+package com.pneumaliback.www.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Page obtenue par curseur : pas de total, seulement le jeton de la page suivante
+ * (null sur la dernière page).
+ */
+public record CursorPage<T>(List<T> items, String nextCursor, boolean hasNext) {
+
+    public <R> CursorPage<R> map(Function<T, R> mapper) {
+        return new CursorPage<>(items.stream().map(mapper).toList(), nextCursor, hasNext);
+    }
+
+    /**
+     * Construit la page à partir de size + 1 lignes lues : la ligne en trop ne sert
+     * qu'à savoir s'il existe une suite.
+     */
+    public static <T> CursorPage<T> of(List<T> fetched, int size, Function<T, String> cursorOf) {
+        boolean hasNext = fetched.size() > size;
+        List<T> items = hasNext ? List.copyOf(fetched.subList(0, size)) : fetched;
+        String next = hasNext ? cursorOf.apply(items.get(items.size() - 1)) : null;
+        return new CursorPage<>(items, next, hasNext);
+    }
+}
@@ -0,0 +1,14 @@
+package com.pneumaliback.www.dto;
+
+import java.util.List;
+
+/**
+ * Note d'un produit telle qu'exposée par l'API ; histogram[i] = nombre d'avis à i+1 étoiles.
+ */
+public record ProductRatingDTO(Long productId, long count, double average, List<Long> histogram) {
+    public static ProductRatingDTO from(RatingAggregate a) {
+        double average = a.count() == 0 ? 0 : (double) a.sum() / a.count();
+        return new ProductRatingDTO(a.productId(), a.count(), average,
+                List.of(a.rating1(), a.rating2(), a.rating3(), a.rating4(), a.rating5()));
+    }
+}
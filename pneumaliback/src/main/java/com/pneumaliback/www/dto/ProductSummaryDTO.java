@@ -0,0 +1,42 @@
+package com.pneumaliback.www.dto;
+
+import com.pneumaliback.www.entity.Product;
+import com.pneumaliback.www.enums.TireSeason;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Vue allégée d'un produit pour les listes du catalogue : pas de collections,
+ * catégorie réduite à son nom, note lue dans les agrégats dénormalisés.
+ */
+public record ProductSummaryDTO(
+        Long id,
+        String name,
+        BigDecimal price,
+        int stock,
+        String brand,
+        String size,
+        TireSeason season,
+        String imageUrl,
+        String categoryName,
+        double averageRating,
+        long ratingCount,
+        LocalDateTime createdAt
+) {
+    /**
+     * Constructeur utilisé par les projections JPQL (la moyenne est calculée ici).
+     */
+    public ProductSummaryDTO(Long id, String name, BigDecimal price, int stock, String brand, String size,
+                             TireSeason season, String imageUrl, String categoryName, long ratingCount, long ratingSum,
+                             LocalDateTime createdAt) {
+        this(id, name, price, stock, brand, size, season, imageUrl, categoryName,
+                ratingCount == 0 ? 0 : (double) ratingSum / ratingCount, ratingCount, createdAt);
+    }
+
+    public static ProductSummaryDTO from(Product p) {
+        return new ProductSummaryDTO(p.getId(), p.getName(), p.getPrice(), p.getStock(), p.getBrand(), p.getSize(),
+                p.getSeason(), p.getImageUrl(), p.getCategory() != null ? p.getCategory().getName() : null,
+                p.getRatingCount(), p.getRatingSum(), p.getCreatedAt());
+    }
+}
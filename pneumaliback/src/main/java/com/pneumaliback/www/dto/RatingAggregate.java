@@ -0,0 +1,25 @@
+package com.pneumaliback.www.dto;
+
+/**
+ * Agrégat des notes d'un produit : nombre, somme et répartition par étoile.
+ */
+public record RatingAggregate(
+        Long productId,
+        long count,
+        long sum,
+        long rating1,
+        long rating2,
+        long rating3,
+        long rating4,
+        long rating5
+) {
+    public static RatingAggregate empty(Long productId) {
+        return new RatingAggregate(productId, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    public boolean sameValues(RatingAggregate other) {
+        return count == other.count && sum == other.sum
+                && rating1 == other.rating1 && rating2 == other.rating2 && rating3 == other.rating3
+                && rating4 == other.rating4 && rating5 == other.rating5;
+    }
+}
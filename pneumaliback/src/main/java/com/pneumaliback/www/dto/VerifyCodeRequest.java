@@ -2,7 +2,9 @@ package com.pneumaliback.www.dto;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 
 public record VerifyCodeRequest(
+        @NotBlank(message = "Le défi est obligatoire (champ challenge renvoyé par la mise à jour du profil)") @Size(max = 64, message = "Défi invalide") String challenge,
         @NotBlank(message = "Le code est obligatoire") @Pattern(regexp = "^\\d{6}$", message = "Le code doit contenir 6 chiffres") String code) {
 }
@@ -11,7 +11,7 @@ import lombok.EqualsAndHashCode;
 @Table(name = "cart_items")
 @Data
 @EqualsAndHashCode(callSuper = true)
-public class CartItem extends EntiteAuditable {
+public class CartItem extends EntiteAuditableSequencee {
 
     @Column(nullable = false)
     private int quantity;
@@ -0,0 +1,51 @@
+package com.pneumaliback.www.entity;
+
+import java.math.BigDecimal;
+
+import org.hibernate.annotations.Immutable;
+
+import com.pneumaliback.www.enums.LedgerEntryType;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Écriture du grand livre des commissions (ajout seul) : une commission est acquise
+ * (EARNED) puis payée (PAID), chaque mouvement au plus une fois.
+ */
+@Entity
+@Immutable
+@Table(name = "commission_ledger", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_commission_ledger_entry", columnNames = {"commission_id", "type"})
+}, indexes = {
+        @Index(name = "idx_commission_ledger_influenceur", columnList = "influenceur_id, id")
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class CommissionLedgerEntry extends EntiteAuditable {
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "influenceur_id", nullable = false)
+    private Influenceur influenceur;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "commission_id", nullable = false)
+    private Commission commission;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private LedgerEntryType type;
+
+    @Column(precision = 10, scale = 2, nullable = false)
+    private BigDecimal amount;
+}
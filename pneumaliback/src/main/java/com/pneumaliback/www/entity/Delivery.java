@@ -13,14 +13,16 @@ import jakarta.persistence.Table;
 import jakarta.persistence.Index;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 @Entity
 @Table(name = "deliveries", indexes = {
     @Index(name = "idx_deliveries_zone", columnList = "zone")
 })
 @Data
-@EqualsAndHashCode(callSuper = true)
-public class Delivery extends EntiteAuditable {
+@EqualsAndHashCode(callSuper = true, exclude = "order")
+@ToString(exclude = "order")
+public class Delivery extends EntiteAuditableSequencee {
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
@@ -0,0 +1,30 @@
+package com.pneumaliback.www.entity;
+
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.SequenceGenerator;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Variante d'EntiteAuditable pour les entités écrites en masse au checkout (commande,
+ * lignes, livraison, réservations, clé d'idempotence) et à la fusion d'un panier invité (lignes de panier). Les ids viennent d'une séquence allouée par blocs
+ * (optimiseur pooled) : Hibernate connaît l'id sans INSERT immédiat et peut grouper
+ * les INSERT en lots (hibernate.jdbc.batch_size), ce qu'interdit IDENTITY.
+ * La séquence est recalée au-dessus des ids existants par DatabaseMigrationConfig.
+ */
+@MappedSuperclass
+@Data
+@EqualsAndHashCode(callSuper = true)
+public abstract class EntiteAuditableSequencee extends EntiteHorodatee {
+
+    public static final String SEQUENCE = "checkout_id_seq";
+    public static final int ALLOCATION_SIZE = 50;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "checkout_id_gen")
+    @SequenceGenerator(name = "checkout_id_gen", sequenceName = SEQUENCE, allocationSize = ALLOCATION_SIZE)
+    private Long id;
+}
@@ -0,0 +1,31 @@
+package com.pneumaliback.www.entity;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.Version;
+import lombok.Data;
+
+/**
+ * Dates de création / modification et version optimiste, sans l'identifiant :
+ * la stratégie de génération d'id est choisie par la sous-classe.
+ */
+@MappedSuperclass
+@Data
+public abstract class EntiteHorodatee {
+    @CreationTimestamp
+    @Column(updatable = false, nullable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Version
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    private Integer version = 0;
+}
@@ -0,0 +1,39 @@
+package com.pneumaliback.www.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Clé d'idempotence d'un checkout : la même clé envoyée par le même utilisateur
+ * renvoie la commande déjà créée au lieu d'en créer une nouvelle. Id de séquence,
+ * comme la commande : l'INSERT part dans le flush groupé du checkout.
+ */
+@Entity
+@Table(name = "idempotency_keys", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_idempotency_user_key", columnNames = {"user_id", "idem_key"})
+}, indexes = {
+        @Index(name = "idx_idempotency_expires", columnList = "expiresAt")
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class IdempotencyKey extends EntiteAuditableSequencee {
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "idem_key", nullable = false, length = 100)
+    private String key;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,39 @@
+package com.pneumaliback.www.entity;
+
+import java.math.BigDecimal;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.OneToOne;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Solde matérialisé des commissions d'un influenceur, tenu à jour par le grand livre
+ * (une ligne par influenceur).
+ */
+@Entity
+@Table(name = "influenceur_balances")
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class InfluenceurBalance extends EntiteAuditable {
+
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "influenceur_id", nullable = false, unique = true)
+    private Influenceur influenceur;
+
+    @Column(name = "total_amount", precision = 12, scale = 2, nullable = false)
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+
+    @Column(name = "pending_amount", precision = 12, scale = 2, nullable = false)
+    private BigDecimal pendingAmount = BigDecimal.ZERO;
+
+    @Column(name = "paid_amount", precision = 12, scale = 2, nullable = false)
+    private BigDecimal paidAmount = BigDecimal.ZERO;
+
+    @Column(name = "order_count", nullable = false)
+    private long orderCount = 0;
+}
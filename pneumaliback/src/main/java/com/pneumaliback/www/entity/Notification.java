@@ -7,7 +7,9 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+    @Index(name = "idx_notifications_user_created", columnList = "user_id, createdAt, id")
+})
 @Data
 @EqualsAndHashCode(callSuper = true)
 public class Notification extends EntiteAuditable {
@@ -26,7 +26,7 @@ import lombok.EqualsAndHashCode;
 })
 @Data
 @EqualsAndHashCode(callSuper = true)
-public class Order extends EntiteAuditable {
+public class Order extends EntiteAuditableSequencee {
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
@@ -13,7 +13,7 @@ import lombok.EqualsAndHashCode;
 @Table(name = "order_items")
 @Data
 @EqualsAndHashCode(callSuper = true)
-public class OrderItem extends EntiteAuditable {
+public class OrderItem extends EntiteAuditableSequencee {
 
     @Column(nullable = false)
     private int quantity;
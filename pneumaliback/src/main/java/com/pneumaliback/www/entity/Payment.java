@@ -14,13 +14,16 @@ import jakarta.persistence.Table;
 import jakarta.persistence.Index;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 @Entity
 @Table(name = "payments", indexes = {
-    @Index(name = "idx_payments_tx_ref", columnList = "transactionReference")
+    @Index(name = "idx_payments_tx_ref", columnList = "transactionReference"),
+    @Index(name = "idx_payments_status_id", columnList = "status, id")
 })
 @Data
-@EqualsAndHashCode(callSuper = true)
+@EqualsAndHashCode(callSuper = true, exclude = "order")
+@ToString(exclude = "order")
 public class Payment extends EntiteAuditable {
 
     @Enumerated(EnumType.STRING)
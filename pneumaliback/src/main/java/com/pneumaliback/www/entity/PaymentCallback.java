@@ -0,0 +1,45 @@
+package com.pneumaliback.www.entity;
+
+import java.time.LocalDateTime;
+
+import com.pneumaliback.www.enums.CallbackStatus;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Boîte de réception des callbacks de paiement : un callback est enregistré une seule
+ * fois par référence de transaction, acquitté aussitôt, puis traité en arrière-plan.
+ */
+@Entity
+@Table(name = "payment_callbacks", indexes = {
+        @Index(name = "idx_payment_callbacks_status", columnList = "status, createdAt")
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class PaymentCallback extends EntiteAuditable {
+
+    @Column(name = "transaction_reference", nullable = false, unique = true, length = 100)
+    private String transactionReference;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private CallbackStatus status = CallbackStatus.RECEIVED;
+
+    @Column(length = 30)
+    private String outcome;
+
+    @Column(nullable = false)
+    private int attempts = 0;
+
+    @Column(length = 500)
+    private String lastError;
+
+    private LocalDateTime processedAt;
+}
@@ -11,14 +11,20 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import org.hibernate.annotations.ColumnDefault;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+    @Index(name = "idx_products_dimensions", columnList = "rimDiameter, width, aspectRatio"),
+    @Index(name = "idx_products_active_created", columnList = "active, createdAt, id"),
+    @Index(name = "idx_products_active_price", columnList = "active, price, id")
+})
 @Data
 @EqualsAndHashCode(callSuper = true)
 public class Product extends EntiteAuditable {
@@ -31,12 +37,28 @@ public class Product extends EntiteAuditable {
     @Column(nullable = false)
     private int stock;
 
+    // Seuil d'alerte stock faible propre au produit (null = seuil global app.stock.low-threshold)
+    private Integer lowStockThreshold;
+
     @Column(length = 50)
     private String brand;
 
     @Column(length = 50)
     private String size;
 
+    // Dimensions structurées, dérivées de size par ProductService (voir TireSize)
+    private Integer width;
+
+    private Integer aspectRatio;
+
+    @Column(precision = 4, scale = 1)
+    private BigDecimal rimDiameter;
+
+    private Integer loadIndex;
+
+    @Column(length = 2)
+    private String speedRating;
+
     @Enumerated(EnumType.STRING)
     @Column(length = 20)
     private TireSeason season;
@@ -54,6 +76,36 @@ public class Product extends EntiteAuditable {
     @Column(nullable = false)
     private boolean active = true;
 
+    // Agrégats des avis : écrits uniquement par les UPDATE de ReviewService, jamais par save() (la base les initialise à 0).
+    // @ColumnDefault plutôt que columnDefinition : Hibernate reprend columnDefinition dans les cast des paramètres.
+    @Column(nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private long ratingCount;
+
+    @Column(nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private long ratingSum;
+
+    @Column(name = "rating_1", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private long rating1;
+
+    @Column(name = "rating_2", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private long rating2;
+
+    @Column(name = "rating_3", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private long rating3;
+
+    @Column(name = "rating_4", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private long rating4;
+
+    @Column(name = "rating_5", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private long rating5;
+
     @ManyToOne(optional = false)
     private Category category;
 
@@ -65,4 +117,8 @@ public class Product extends EntiteAuditable {
 
     @OneToMany(mappedBy = "product")
     private List<Favori> favoris = new ArrayList<>();
+
+    public double getAverageRating() {
+        return ratingCount == 0 ? 0 : (double) ratingSum / ratingCount;
+    }
 }
@@ -0,0 +1,47 @@
+package com.pneumaliback.www.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.OneToOne;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Compteurs de ventes par produit, mis à jour à la confirmation des commandes.
+ * Les compteurs 7j/30j décroissent exponentiellement et sont exprimés à la date lastSaleAt.
+ */
+@Entity
+@Table(name = "product_sales_stats")
+@Data
+@EqualsAndHashCode(callSuper = true)
+@ToString(exclude = "product")
+public class ProductSalesStats extends EntiteAuditable {
+
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "product_id", nullable = false, unique = true)
+    private Product product;
+
+    @Column(nullable = false)
+    private long unitsTotal;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenueTotal = BigDecimal.ZERO;
+
+    @Column(name = "units_7d", nullable = false)
+    private double units7d;
+
+    @Column(name = "units_30d", nullable = false)
+    private double units30d;
+
+    @Column(name = "revenue_30d", nullable = false)
+    private double revenue30d;
+
+    private LocalDateTime lastSaleAt;
+}
@@ -8,8 +8,16 @@ import lombok.NoArgsConstructor;
 
 import java.time.Instant;
 
+/**
+ * Refresh token d'une session (famille) : chaque appareil connecté a sa propre
+ * famille, et chaque renouvellement remplace le jeton courant par un successeur de la
+ * même famille. Seule l'empreinte du jeton est stockée.
+ */
 @Entity
-@Table(name = "refresh_tokens")
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_tokens_family", columnList = "family_id"),
+        @Index(name = "idx_refresh_tokens_expiry", columnList = "expiryDate")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -21,21 +29,30 @@ public class RefreshToken {
     private Long id;
 
     @Column(nullable = false, unique = true)
-    private String token;
+    private String token; // empreinte SHA-256 (hex) du jeton remis au client
+
+    @Column(name = "family_id", length = 36)
+    private String familyId;
 
     @Column(nullable = false)
     private Instant expiryDate;
 
-    @OneToOne
+    @ManyToOne
     @JoinColumn(name = "user_id", referencedColumnName = "id")
     private User user;
 
     @Column(nullable = false)
     private boolean revoked;
 
+    @Column
+    private Instant rotatedAt; // renseigné quand le jeton a été échangé contre son successeur
+
     @Column(nullable = false)
     private Instant createdAt;
 
+    @Transient
+    private String plainToken; // jeton en clair, connu seulement à l'émission
+
     @PrePersist
     protected void onCreate() {
         createdAt = Instant.now();
@@ -0,0 +1,32 @@
+package com.pneumaliback.www.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Jeton d'accès révoqué avant son expiration (déconnexion). La ligne n'a plus
+ * d'utilité une fois le jeton expiré.
+ */
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+        @Index(name = "idx_revoked_tokens_expires", columnList = "expiresAt")
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class RevokedToken extends EntiteAuditable {
+
+    @Column(nullable = false, unique = true, length = 36)
+    private String jti;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+}
@@ -0,0 +1,35 @@
+package com.pneumaliback.www.entity;
+
+import java.math.BigDecimal;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Tranche tarifaire d'une zone : frais applicables à partir de minQuantity articles
+ * (jusqu'à la tranche suivante).
+ */
+@Entity
+@Table(name = "shipping_rates", indexes = {
+        @Index(name = "idx_shipping_rates_zone", columnList = "zone_id")
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class ShippingRate extends EntiteAuditable {
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "zone_id")
+    private ShippingZone zone;
+
+    @Column(nullable = false)
+    private int minQuantity = 1;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal fee;
+}
@@ -0,0 +1,34 @@
+package com.pneumaliback.www.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Zone de livraison. Une zone saisie par le client y est rattachée si elle vaut
+ * l'un des mots-clés (séparés par des virgules) ou, à défaut, en contient un.
+ * La zone marquée par défaut s'applique quand aucune ne correspond.
+ */
+@Entity
+@Table(name = "shipping_zones")
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class ShippingZone extends EntiteAuditable {
+
+    @Column(nullable = false, unique = true, length = 50)
+    private String code;
+
+    @Column(nullable = false, length = 100)
+    private String name;
+
+    @Column(length = 500)
+    private String keywords;
+
+    @Column(nullable = false)
+    private boolean defaultZone = false;
+
+    @Column(nullable = false)
+    private boolean active = true;
+}
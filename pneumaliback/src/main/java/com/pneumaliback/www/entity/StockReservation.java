@@ -0,0 +1,51 @@
+package com.pneumaliback.www.entity;
+
+import java.time.LocalDateTime;
+
+import com.pneumaliback.www.enums.ReservationStatus;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Stock retenu pour une commande en attente de paiement. Le stock du produit est
+ * décrémenté dès la réservation ; il est rendu si la réservation expire ou est libérée.
+ */
+@Entity
+@Table(name = "stock_reservations", indexes = {
+    @Index(name = "idx_stock_reservations_status_expires", columnList = "status, expiresAt"),
+    @Index(name = "idx_stock_reservations_order", columnList = "order_id")
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+@ToString(exclude = {"order", "product"})
+public class StockReservation extends EntiteAuditableSequencee {
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "order_id", nullable = false)
+    private Order order;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "product_id", nullable = false)
+    private Product product;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ReservationStatus status = ReservationStatus.HELD;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
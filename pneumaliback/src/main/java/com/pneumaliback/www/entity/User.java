@@ -21,7 +21,10 @@ import com.pneumaliback.www.enums.Country;
 import com.pneumaliback.www.enums.Role;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_verification_lookup", columnList = "verification_lookup"),
+        @Index(name = "idx_users_updated_at", columnList = "updated_at")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -77,9 +80,16 @@ public class User extends EntiteAuditable implements UserDetails {
     @Column
     private Instant lockTime;
 
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    @Builder.Default
+    private int tokenVersion = 0; // incrémentée pour invalider les jetons d'accès émis
+
     @Column(length = 120)
     private String verificationCode;
 
+    @Column(length = 64)
+    private String verificationLookup; // HMAC du défi de vérification, clé de recherche indexée
+
     @Column
     private Instant verificationExpiry;
 
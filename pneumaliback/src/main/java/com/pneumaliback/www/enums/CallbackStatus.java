@@ -0,0 +1,8 @@
+package com.pneumaliback.www.enums;
+
+public enum CallbackStatus {
+    RECEIVED,
+    PROCESSED,
+    IGNORED,
+    FAILED
+}
@@ -0,0 +1,6 @@
+package com.pneumaliback.www.enums;
+
+public enum LedgerEntryType {
+    EARNED,
+    PAID
+}
@@ -5,5 +5,7 @@ public enum OrderStatus {
     CONFIRMED,
     SHIPPED,
     DELIVERED,
-    CANCELED
+    CANCELED,
+    // Payée mais stock insuffisant après expiration de la réservation : à rembourser ou compléter
+    PAYMENT_REVIEW
 }
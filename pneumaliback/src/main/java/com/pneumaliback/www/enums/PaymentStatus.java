@@ -21,4 +21,17 @@ public enum PaymentStatus {
     public boolean isCompleted() {
         return this == SUCCESS || this == FAILED || this == REFUNDED;
     }
+
+    /**
+     * Transitions autorisées ; un paiement expiré peut encore aboutir (paiement tardif).
+     */
+    public boolean canTransitionTo(PaymentStatus next) {
+        return switch (this) {
+            case PENDING -> next == PROCESSING || next == SUCCESS || next == FAILED || next == EXPIRED;
+            case PROCESSING -> next == SUCCESS || next == FAILED || next == EXPIRED;
+            case EXPIRED -> next == SUCCESS;
+            case SUCCESS -> next == REFUNDED;
+            case FAILED, REFUNDED -> false;
+        };
+    }
 }
@@ -0,0 +1,7 @@
+package com.pneumaliback.www.enums;
+
+public enum ReservationStatus {
+    HELD,
+    COMMITTED,
+    EXPIRED
+}
@@ -27,6 +27,20 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     @Query("DELETE FROM CartItem ci WHERE ci.cart.id = :cartId")
     void deleteByCartId(@Param("cartId") Long cartId);
     
+    /**
+     * Vide un panier en un seul DELETE. Les écritures en attente sont envoyées avant et le
+     * contexte de persistance est vidé après (le panier chargé y serait périmé).
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM CartItem ci WHERE ci.cart.id = :cartId")
+    int purgeByCartId(@Param("cartId") Long cartId);
+    
+    /**
+     * Lignes d'un panier pour le chiffrage : [productId, quantité, prix courant].
+     */
+    @Query("SELECT ci.product.id, ci.quantity, ci.product.price FROM CartItem ci WHERE ci.cart.user.id = :userId ORDER BY ci.id")
+    List<Object[]> findQuoteLinesByUserId(@Param("userId") Long userId);
+
     @Modifying
     @Query("UPDATE CartItem ci SET ci.quantity = :quantity WHERE ci.id = :itemId")
     void updateQuantity(@Param("itemId") Long itemId, @Param("quantity") int quantity);
@@ -0,0 +1,27 @@
+package com.pneumaliback.www.repository;
+
+import com.pneumaliback.www.entity.CommissionLedgerEntry;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CommissionLedgerRepository extends JpaRepository<CommissionLedgerEntry, Long> {
+
+    Page<CommissionLedgerEntry> findByInfluenceurIdOrderByIdDesc(Long influenceurId, Pageable pageable);
+
+    /**
+     * Reprise de l'historique : une écriture EARNED par commission, plus une PAID pour
+     * les commissions déjà payées.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO commission_ledger (influenceur_id, commission_id, type, amount, created_at, updated_at, version) "
+            + "SELECT c.influenceur_id, c.id, 'EARNED', c.amount, c.created_at, now(), 0 FROM commissions c "
+            + "UNION ALL "
+            + "SELECT c.influenceur_id, c.id, 'PAID', c.amount, COALESCE(c.paid_at, c.updated_at), now(), 0 FROM commissions c WHERE c.status = 'PAID' "
+            + "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int backfillFromCommissions();
+}
@@ -0,0 +1,52 @@
+package com.pneumaliback.www.repository;
+
+import com.pneumaliback.www.entity.InfluenceurBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+@Repository
+public interface InfluenceurBalanceRepository extends JpaRepository<InfluenceurBalance, Long> {
+
+    Optional<InfluenceurBalance> findByInfluenceurId(Long influenceurId);
+
+    @Query("SELECT b FROM InfluenceurBalance b WHERE b.influenceur.user.email = :email")
+    Optional<InfluenceurBalance> findByUserEmail(@Param("email") String email);
+
+    /**
+     * Applique un mouvement au solde en une instruction (ligne créée au premier mouvement).
+     */
+    @Modifying
+    @Query(value = "INSERT INTO influenceur_balances (influenceur_id, total_amount, pending_amount, paid_amount, order_count, created_at, updated_at, version) "
+            + "VALUES (:infId, :total, :pending, :paid, :orders, now(), now(), 0) "
+            + "ON CONFLICT (influenceur_id) DO UPDATE SET "
+            + "total_amount = influenceur_balances.total_amount + EXCLUDED.total_amount, "
+            + "pending_amount = influenceur_balances.pending_amount + EXCLUDED.pending_amount, "
+            + "paid_amount = influenceur_balances.paid_amount + EXCLUDED.paid_amount, "
+            + "order_count = influenceur_balances.order_count + EXCLUDED.order_count, "
+            + "updated_at = now(), version = influenceur_balances.version + 1", nativeQuery = true)
+    int apply(@Param("infId") Long influenceurId,
+              @Param("total") BigDecimal total,
+              @Param("pending") BigDecimal pending,
+              @Param("paid") BigDecimal paid,
+              @Param("orders") long orders);
+
+    /**
+     * Recalcule tous les soldes depuis les commissions (reprise initiale).
+     */
+    @Modifying
+    @Query(value = "INSERT INTO influenceur_balances (influenceur_id, total_amount, pending_amount, paid_amount, order_count, created_at, updated_at, version) "
+            + "SELECT c.influenceur_id, SUM(c.amount), "
+            + "SUM(CASE WHEN c.status = 'PENDING' THEN c.amount ELSE 0 END), "
+            + "SUM(CASE WHEN c.status = 'PAID' THEN c.amount ELSE 0 END), "
+            + "COUNT(*), now(), now(), 0 FROM commissions c GROUP BY c.influenceur_id "
+            + "ON CONFLICT (influenceur_id) DO UPDATE SET total_amount = EXCLUDED.total_amount, "
+            + "pending_amount = EXCLUDED.pending_amount, paid_amount = EXCLUDED.paid_amount, "
+            + "order_count = EXCLUDED.order_count, updated_at = now()", nativeQuery = true)
+    int rebuildFromCommissions();
+}
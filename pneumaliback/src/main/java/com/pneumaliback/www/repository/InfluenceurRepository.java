@@ -17,6 +17,8 @@ import java.util.Optional;
 public interface InfluenceurRepository extends JpaRepository<Influenceur, Long> {
     
     Optional<Influenceur> findByUser(User user);
+
+    Optional<Influenceur> findFirstByPromoCodeIgnoreCase(String promoCode);
     
     @Query("SELECT i FROM Influenceur i WHERE i.user.id = :userId")
     Optional<Influenceur> findByUserId(@Param("userId") Long userId);
@@ -21,6 +21,16 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     @Query("SELECT m FROM Message m WHERE (m.author.id = :u1 AND m.recipient.id = :u2) OR (m.author.id = :u2 AND m.recipient.id = :u1) ORDER BY m.sentAt DESC")
     Page<Message> conversation(@Param("u1") Long utilisateur1, @Param("u2") Long utilisateur2, Pageable pageable);
 
+    // Pagination par curseur (idx_messages_conversation)
+    @Query("SELECT m FROM Message m WHERE ((m.author.id = :u1 AND m.recipient.id = :u2) OR (m.author.id = :u2 AND m.recipient.id = :u1)) " +
+            "ORDER BY m.sentAt DESC, m.id DESC")
+    java.util.List<Message> conversationRecent(@Param("u1") Long utilisateur1, @Param("u2") Long utilisateur2, Pageable limit);
+
+    @Query("SELECT m FROM Message m WHERE ((m.author.id = :u1 AND m.recipient.id = :u2) OR (m.author.id = :u2 AND m.recipient.id = :u1)) " +
+            "AND m.sentAt <= :sentAt AND (m.sentAt < :sentAt OR m.id < :id) ORDER BY m.sentAt DESC, m.id DESC")
+    java.util.List<Message> conversationBefore(@Param("u1") Long utilisateur1, @Param("u2") Long utilisateur2,
+            @Param("sentAt") java.time.LocalDateTime sentAt, @Param("id") Long id, Pageable limit);
+
     @Modifying
     @Query("UPDATE Message m SET m.isRead = true WHERE m.author.id = :auteurId AND m.recipient.id = :destinataireId AND m.isRead = false")
     int marquerConversationLue(@Param("destinataireId") Long destinataireId, @Param("auteurId") Long auteurId);
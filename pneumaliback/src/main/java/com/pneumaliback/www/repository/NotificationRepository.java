@@ -17,6 +17,15 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
 
     Page<Notification> findByRecipientIdOrderByCreatedAtDesc(Long utilisateurId, Pageable pageable);
 
+    // Pagination par curseur (idx_notifications_user_created)
+    @Query("SELECT n FROM Notification n WHERE n.recipient.id = :userId ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findRecent(@Param("userId") Long userId, Pageable limit);
+
+    @Query("SELECT n FROM Notification n WHERE n.recipient.id = :userId AND n.createdAt <= :createdAt AND " +
+           "(n.createdAt < :createdAt OR n.id < :id) ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findRecentAfter(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("id") Long id, Pageable limit);
+
     long countByRecipientIdAndIsReadFalse(Long utilisateurId);
 
     @Query("SELECT n FROM Notification n WHERE n.recipient.id = :userId AND n.isRead = false ORDER BY n.createdAt DESC")
@@ -0,0 +1,62 @@
+package com.pneumaliback.www.repository;
+
+import com.pneumaliback.www.entity.PaymentCallback;
+import com.pneumaliback.www.enums.CallbackStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PaymentCallbackRepository extends JpaRepository<PaymentCallback, Long> {
+
+    /**
+     * Enregistre un callback s'il est nouveau ; renvoie 0 pour un doublon (même référence).
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO payment_callbacks (transaction_reference, status, attempts, created_at, updated_at, version) "
+            + "VALUES (:ref, 'RECEIVED', 0, now(), now(), 0) ON CONFLICT (transaction_reference) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("ref") String transactionReference);
+
+    /**
+     * Comme insertIfAbsent, mais rouvre un callback déjà écarté (IGNORED) ou en échec
+     * (FAILED) : le prestataire confirme le paiement, il doit être retraité. Renvoie 0 si
+     * le callback est déjà en attente ou traité.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO payment_callbacks (transaction_reference, status, attempts, created_at, updated_at, version) "
+            + "VALUES (:ref, 'RECEIVED', 0, now(), now(), 0) ON CONFLICT (transaction_reference) DO UPDATE "
+            + "SET status = 'RECEIVED', attempts = 0, updated_at = now(), version = payment_callbacks.version + 1 "
+            + "WHERE payment_callbacks.status IN ('IGNORED', 'FAILED')", nativeQuery = true)
+    int insertOrReopen(@Param("ref") String transactionReference);
+
+    /**
+     * Callbacks à (re)traiter : reçus et jamais aboutis, ou en échec sous le plafond de tentatives.
+     */
+    @Query("SELECT c.transactionReference FROM PaymentCallback c WHERE "
+            + "(c.status = com.pneumaliback.www.enums.CallbackStatus.RECEIVED AND c.createdAt < :receivedBefore) "
+            + "OR (c.status = com.pneumaliback.www.enums.CallbackStatus.FAILED AND c.attempts < :maxAttempts AND c.updatedAt < :failedBefore) "
+            + "ORDER BY c.id")
+    List<String> findPending(@Param("receivedBefore") LocalDateTime receivedBefore,
+                             @Param("failedBefore") LocalDateTime failedBefore,
+                             @Param("maxAttempts") int maxAttempts,
+                             Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE PaymentCallback c SET c.status = :status, c.outcome = :outcome, c.attempts = c.attempts + 1, "
+            + "c.lastError = :error, c.processedAt = :now, c.updatedAt = :now WHERE c.transactionReference = :ref")
+    int markAttempt(@Param("ref") String transactionReference,
+                    @Param("status") CallbackStatus status,
+                    @Param("outcome") String outcome,
+                    @Param("error") String error,
+                    @Param("now") LocalDateTime now);
+}
@@ -4,15 +4,19 @@ import com.pneumaliback.www.entity.Payment;
 import com.pneumaliback.www.entity.Order;
 import com.pneumaliback.www.enums.PaymentMethod;
 import com.pneumaliback.www.enums.PaymentStatus;
+import com.pneumaliback.www.service.payment.PendingPayment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,6 +25,29 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     Optional<Payment> findByOrder(Order order);
     Optional<Payment> findByOrderId(Long orderId);
     Optional<Payment> findByTransactionReference(String transactionReference);
+
+    /**
+     * Paiements non aboutis, par id croissant à partir de afterId (pagination par clé).
+     */
+    @Query("SELECT new com.pneumaliback.www.service.payment.PendingPayment(p.id, p.transactionReference, p.method, p.provider, p.createdAt) "
+            + "FROM Payment p WHERE p.status IN :statuses AND p.createdAt < :cutoff AND p.id > :afterId "
+            + "AND p.transactionReference IS NOT NULL ORDER BY p.id")
+    List<PendingPayment> findPendingAfter(@Param("statuses") Collection<PaymentStatus> statuses,
+                                          @Param("cutoff") LocalDateTime cutoff,
+                                          @Param("afterId") Long afterId,
+                                          Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = :to, p.updatedAt = :now, p.version = p.version + 1 "
+            + "WHERE p.id IN :ids AND p.status IN :from")
+    int transitionAll(@Param("ids") Collection<Long> ids,
+                      @Param("from") Collection<PaymentStatus> from,
+                      @Param("to") PaymentStatus to,
+                      @Param("now") LocalDateTime now);
+
+    @Query("SELECT p.order.id FROM Payment p WHERE p.transactionReference = :ref")
+    Optional<Long> findOrderIdByTransactionReference(@Param("ref") String transactionReference);
     
     List<Payment> findByStatus(PaymentStatus status);
     Page<Payment> findByStatus(PaymentStatus status, Pageable pageable);
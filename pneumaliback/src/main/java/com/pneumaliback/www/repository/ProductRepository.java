@@ -1,5 +1,7 @@
 package com.pneumaliback.www.repository;
 
+import com.pneumaliback.www.dto.ProductSummaryDTO;
+import com.pneumaliback.www.dto.RatingAggregate;
 import com.pneumaliback.www.entity.Product;
 import com.pneumaliback.www.enums.TireSeason;
 import com.pneumaliback.www.entity.Category;
@@ -13,6 +15,7 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -76,48 +79,109 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("UPDATE Product p SET p.stock = p.stock + :quantity WHERE p.id = :productId")
     void increaseStock(@Param("productId") Long productId, @Param("quantity") int quantity);
     
+    // === Projections catalogue (une requête par page, sans charger le graphe Product) ===
+    String SUMMARY_SELECT = "SELECT new com.pneumaliback.www.dto.ProductSummaryDTO(p.id, p.name, p.price, p.stock, " +
+           "p.brand, p.size, p.season, p.imageUrl, c.name, p.ratingCount, p.ratingSum, p.createdAt) FROM Product p JOIN p.category c ";
+
+    @Query(value = SUMMARY_SELECT + "WHERE p.active = true",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.active = true")
+    Page<ProductSummaryDTO> findActiveSummaries(Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE p.active = true AND p.id IN :ids")
+    List<ProductSummaryDTO> findActiveSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
     // === Recherche combinée avancée ===
-    @Query("SELECT p FROM Product p WHERE p.active = true AND " +
+    String FILTERS = "WHERE p.active = true AND " +
            "(:category IS NULL OR p.category = :category) AND " +
            "(:brand IS NULL OR LOWER(p.brand) = LOWER(:brand)) AND " +
            "(:size IS NULL OR p.size = :size) AND " +
            "(:season IS NULL OR LOWER(p.season) = LOWER(:season)) AND " +
            "(:minPrice IS NULL OR p.price >= :minPrice) AND " +
            "(:maxPrice IS NULL OR p.price <= :maxPrice) AND " +
-           "p.stock > 0")
-    Page<Product> findWithFilters(@Param("category") Category category,
-                                 @Param("brand") String brand,
-                                 @Param("size") String size, 
-                                 @Param("season") String season,
-                                 @Param("minPrice") BigDecimal minPrice,
-                                 @Param("maxPrice") BigDecimal maxPrice,
-                                 Pageable pageable);
-    
+           "p.stock > 0";
+
+    @Query(value = SUMMARY_SELECT + FILTERS, countQuery = "SELECT COUNT(p) FROM Product p " + FILTERS)
+    Page<ProductSummaryDTO> findWithFilters(@Param("category") Category category,
+                                            @Param("brand") String brand,
+                                            @Param("size") String size,
+                                            @Param("season") String season,
+                                            @Param("minPrice") BigDecimal minPrice,
+                                            @Param("maxPrice") BigDecimal maxPrice,
+                                            Pageable pageable);
+
     // === Recherche textuelle ===
-    @Query("SELECT p FROM Product p WHERE p.active = true AND " +
+    String SEARCH = "WHERE p.active = true AND (" +
            "LOWER(p.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
            "LOWER(p.brand) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-           "LOWER(p.size) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
-    Page<Product> searchProducts(@Param("searchTerm") String searchTerm, Pageable pageable);
+           "LOWER(p.size) LIKE LOWER(CONCAT('%', :searchTerm, '%')))";
+
+    @Query(value = SUMMARY_SELECT + SEARCH, countQuery = "SELECT COUNT(p) FROM Product p " + SEARCH)
+    Page<ProductSummaryDTO> searchProducts(@Param("searchTerm") String searchTerm, Pageable pageable);
     
     // === Statistiques et recommandations ===
-    @Query("SELECT p FROM Product p WHERE p.active = true ORDER BY SIZE(p.orderItems) DESC")
-    Page<Product> findPopular(Pageable pageable);
-    
     @Query("SELECT p FROM Product p WHERE p.active = true AND p.createdAt >= :date")
     List<Product> findRecentProducts(@Param("date") LocalDateTime date);
     
-    // === Statistiques et recommandations ===
-    @Query("SELECT AVG(r.rating) FROM Review r WHERE r.product.id = :productId")
-    Double getAverageRating(@Param("productId") Long productId);
-
-    // === Dimensions (width/profile/diameter) sur la base du champ size ===
-    @Query("SELECT p FROM Product p WHERE p.active = true AND p.stock > 0 AND " +
-           "(:width IS NULL OR LOWER(p.size) LIKE LOWER(CONCAT('%', :width, '%'))) AND " +
-           "(:profile IS NULL OR LOWER(p.size) LIKE LOWER(CONCAT('%', :profile, '%'))) AND " +
-           "(:diameter IS NULL OR LOWER(p.size) LIKE LOWER(CONCAT('%', :diameter, '%')))")
-    Page<Product> findByDimensions(@Param("width") String width,
-                                   @Param("profile") String profile,
-                                   @Param("diameter") String diameter,
-                                   Pageable pageable);
+    // === Pagination par curseur (idx_products_active_created, idx_products_active_price) ===
+    @Query(SUMMARY_SELECT + "WHERE p.active = true ORDER BY p.createdAt DESC, p.id DESC")
+    List<ProductSummaryDTO> findActiveRecent(Pageable limit);
+
+    @Query(SUMMARY_SELECT + "WHERE p.active = true AND p.createdAt <= :createdAt AND " +
+           "(p.createdAt < :createdAt OR p.id < :id) ORDER BY p.createdAt DESC, p.id DESC")
+    List<ProductSummaryDTO> findActiveRecentAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable limit);
+
+    @Query(SUMMARY_SELECT + "WHERE p.active = true ORDER BY p.price ASC, p.id ASC")
+    List<ProductSummaryDTO> findActiveByPriceAsc(Pageable limit);
+
+    @Query(SUMMARY_SELECT + "WHERE p.active = true AND p.price >= :price AND " +
+           "(p.price > :price OR p.id > :id) ORDER BY p.price ASC, p.id ASC")
+    List<ProductSummaryDTO> findActiveByPriceAscAfter(@Param("price") BigDecimal price, @Param("id") Long id, Pageable limit);
+
+    @Query(SUMMARY_SELECT + "WHERE p.active = true ORDER BY p.price DESC, p.id DESC")
+    List<ProductSummaryDTO> findActiveByPriceDesc(Pageable limit);
+
+    @Query(SUMMARY_SELECT + "WHERE p.active = true AND p.price <= :price AND " +
+           "(p.price < :price OR p.id < :id) ORDER BY p.price DESC, p.id DESC")
+    List<ProductSummaryDTO> findActiveByPriceDescAfter(@Param("price") BigDecimal price, @Param("id") Long id, Pageable limit);
+
+    // === Agrégats de notes (colonnes dénormalisées, maintenues par ReviewService) ===
+    @Modifying
+    @Query("UPDATE Product p SET p.ratingCount = p.ratingCount + 1, p.ratingSum = p.ratingSum + :rating, " +
+           "p.rating1 = p.rating1 + CASE WHEN :rating = 1 THEN 1 ELSE 0 END, " +
+           "p.rating2 = p.rating2 + CASE WHEN :rating = 2 THEN 1 ELSE 0 END, " +
+           "p.rating3 = p.rating3 + CASE WHEN :rating = 3 THEN 1 ELSE 0 END, " +
+           "p.rating4 = p.rating4 + CASE WHEN :rating = 4 THEN 1 ELSE 0 END, " +
+           "p.rating5 = p.rating5 + CASE WHEN :rating = 5 THEN 1 ELSE 0 END " +
+           "WHERE p.id = :productId")
+    int addRating(@Param("productId") Long productId, @Param("rating") int rating);
+
+    @Query("SELECT new com.pneumaliback.www.dto.RatingAggregate(p.id, p.ratingCount, p.ratingSum, " +
+           "p.rating1, p.rating2, p.rating3, p.rating4, p.rating5) FROM Product p WHERE p.id IN :ids")
+    List<RatingAggregate> findRatingAggregates(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.pneumaliback.www.dto.RatingAggregate(p.id, p.ratingCount, p.ratingSum, " +
+           "p.rating1, p.rating2, p.rating3, p.rating4, p.rating5) FROM Product p WHERE p.ratingCount > 0")
+    List<RatingAggregate> findRatedAggregates();
+
+    @Modifying
+    @Query("UPDATE Product p SET p.ratingCount = :count, p.ratingSum = :sum, p.rating1 = :r1, p.rating2 = :r2, " +
+           "p.rating3 = :r3, p.rating4 = :r4, p.rating5 = :r5 WHERE p.id = :productId")
+    int setRatingAggregate(@Param("productId") Long productId, @Param("count") long count, @Param("sum") long sum,
+                           @Param("r1") long r1, @Param("r2") long r2, @Param("r3") long r3,
+                           @Param("r4") long r4, @Param("r5") long r5);
+
+    // === Dimensions structurées (colonnes dérivées de size, index idx_products_dimensions) ===
+    String DIMENSIONS = "WHERE p.active = true AND p.stock > 0 AND " +
+           "(:width IS NULL OR p.width = :width) AND " +
+           "(:aspectRatio IS NULL OR p.aspectRatio = :aspectRatio) AND " +
+           "(:rimDiameter IS NULL OR p.rimDiameter = :rimDiameter)";
+
+    @Query(value = SUMMARY_SELECT + DIMENSIONS, countQuery = "SELECT COUNT(p) FROM Product p " + DIMENSIONS)
+    Page<ProductSummaryDTO> findByDimensions(@Param("width") Integer width,
+                                             @Param("aspectRatio") Integer aspectRatio,
+                                             @Param("rimDiameter") BigDecimal rimDiameter,
+                                             Pageable pageable);
+
+    @Query("SELECT p FROM Product p WHERE p.size IS NOT NULL AND p.width IS NULL AND p.id > :afterId ORDER BY p.id")
+    List<Product> findUnparsedSizes(@Param("afterId") Long afterId, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.pneumaliback.www.repository;
+
+import com.pneumaliback.www.entity.ProductSalesStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProductSalesStatsRepository extends JpaRepository<ProductSalesStats, Long> {
+
+    List<ProductSalesStats> findByProductIdIn(Collection<Long> productIds);
+
+    /**
+     * Ajoute une vente aux compteurs en une instruction (ligne créée à la première vente).
+     * Les compteurs glissants existants sont d'abord décrus de last_sale_at jusqu'à :soldAt
+     * (constantes de temps :tauWeek et :tauMonth, en secondes).
+     */
+    @Modifying
+    @Query(value = "INSERT INTO product_sales_stats AS s (product_id, units_total, revenue_total, units_7d, units_30d, "
+            + "revenue_30d, last_sale_at, created_at, updated_at, version) "
+            + "VALUES (:productId, :units, :revenue, :units, :units, CAST(:revenue AS double precision), :soldAt, now(), now(), 0) "
+            + "ON CONFLICT (product_id) DO UPDATE SET "
+            + "units_total = s.units_total + EXCLUDED.units_total, "
+            + "revenue_total = s.revenue_total + EXCLUDED.revenue_total, "
+            + "units_7d = s.units_7d * exp(-GREATEST(0, CAST(EXTRACT(EPOCH FROM (EXCLUDED.last_sale_at - "
+            + "COALESCE(s.last_sale_at, EXCLUDED.last_sale_at))) AS double precision)) / :tauWeek) + EXCLUDED.units_7d, "
+            + "units_30d = s.units_30d * exp(-GREATEST(0, CAST(EXTRACT(EPOCH FROM (EXCLUDED.last_sale_at - "
+            + "COALESCE(s.last_sale_at, EXCLUDED.last_sale_at))) AS double precision)) / :tauMonth) + EXCLUDED.units_30d, "
+            + "revenue_30d = s.revenue_30d * exp(-GREATEST(0, CAST(EXTRACT(EPOCH FROM (EXCLUDED.last_sale_at - "
+            + "COALESCE(s.last_sale_at, EXCLUDED.last_sale_at))) AS double precision)) / :tauMonth) + EXCLUDED.revenue_30d, "
+            + "last_sale_at = GREATEST(s.last_sale_at, EXCLUDED.last_sale_at), "
+            + "updated_at = now(), version = s.version + 1", nativeQuery = true)
+    int addSale(@Param("productId") Long productId,
+                @Param("units") long units,
+                @Param("revenue") BigDecimal revenue,
+                @Param("soldAt") LocalDateTime soldAt,
+                @Param("tauWeek") double tauWeek,
+                @Param("tauMonth") double tauMonth);
+}
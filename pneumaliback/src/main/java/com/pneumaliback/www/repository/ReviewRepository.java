@@ -1,5 +1,6 @@
 package com.pneumaliback.www.repository;
 
+import com.pneumaliback.www.dto.RatingAggregate;
 import com.pneumaliback.www.entity.Product;
 import com.pneumaliback.www.entity.Review;
 import com.pneumaliback.www.entity.User;
@@ -68,6 +69,12 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     @Query("SELECT r FROM Review r WHERE LOWER(r.comment) LIKE LOWER(CONCAT('%', :keyword, '%'))")
     List<Review> findByCommentContainingIgnoreCase(@Param("keyword") String keyword);
     
+    @Query("SELECT new com.pneumaliback.www.dto.RatingAggregate(r.product.id, COUNT(r), SUM(r.rating), " +
+           "SUM(CASE WHEN r.rating = 1 THEN 1 ELSE 0 END), SUM(CASE WHEN r.rating = 2 THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN r.rating = 3 THEN 1 ELSE 0 END), SUM(CASE WHEN r.rating = 4 THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN r.rating = 5 THEN 1 ELSE 0 END)) FROM Review r GROUP BY r.product.id")
+    List<RatingAggregate> aggregateByProduct();
+    
     void deleteByUser(User user);
     
     void deleteByProduct(Product product);
@@ -0,0 +1,51 @@
+package com.pneumaliback.www.repository;
+
+import com.pneumaliback.www.entity.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+
+    interface ActiveRevocationProjection {
+        Long getId();
+
+        String getJti();
+
+        Instant getExpiresAt();
+    }
+
+    @Query("SELECT r.id AS id, r.jti AS jti, r.expiresAt AS expiresAt FROM RevokedToken r WHERE r.expiresAt > :now")
+    List<ActiveRevocationProjection> findActive(@Param("now") Instant now);
+
+    /**
+     * Révocations actives ajoutées depuis le dernier chargement : identifiant au-delà
+     * du dernier vu, ou créées récemment (un id plus petit peut être validé plus tard).
+     */
+    @Query("SELECT r.id AS id, r.jti AS jti, r.expiresAt AS expiresAt FROM RevokedToken r "
+            + "WHERE (r.id > :afterId OR r.createdAt > :createdAfter) AND r.expiresAt > :now")
+    List<ActiveRevocationProjection> findActiveSince(@Param("afterId") long afterId,
+                                                     @Param("createdAfter") LocalDateTime createdAfter,
+                                                     @Param("now") Instant now);
+
+    boolean existsByJti(String jti);
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO revoked_tokens (jti, user_id, expires_at, created_at, updated_at, version) "
+            + "VALUES (:jti, :userId, :expiresAt, now(), now(), 0) ON CONFLICT (jti) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("jti") String jti, @Param("userId") Long userId, @Param("expiresAt") Instant expiresAt);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -0,0 +1,15 @@
+package com.pneumaliback.www.repository;
+
+import com.pneumaliback.www.entity.ShippingRate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ShippingRateRepository extends JpaRepository<ShippingRate, Long> {
+
+    @Query("SELECT r FROM ShippingRate r JOIN FETCH r.zone z WHERE z.active = true ORDER BY z.id, r.minQuantity")
+    List<ShippingRate> findActiveRates();
+}
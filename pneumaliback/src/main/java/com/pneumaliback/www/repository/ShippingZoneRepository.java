@@ -0,0 +1,12 @@
+package com.pneumaliback.www.repository;
+
+import com.pneumaliback.www.entity.ShippingZone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ShippingZoneRepository extends JpaRepository<ShippingZone, Long> {
+    List<ShippingZone> findByActiveTrue();
+}
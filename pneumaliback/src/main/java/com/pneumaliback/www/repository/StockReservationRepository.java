@@ -0,0 +1,35 @@
+package com.pneumaliback.www.repository;
+
+import com.pneumaliback.www.entity.StockReservation;
+import com.pneumaliback.www.enums.ReservationStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    @Query("SELECT r FROM StockReservation r JOIN FETCH r.product WHERE r.order.id = :orderId AND r.status IN :statuses")
+    List<StockReservation> findByOrderIdAndStatusIn(@Param("orderId") Long orderId,
+                                                   @Param("statuses") List<ReservationStatus> statuses);
+
+    @Query("SELECT r FROM StockReservation r JOIN FETCH r.product JOIN FETCH r.order " +
+           "WHERE r.status = com.pneumaliback.www.enums.ReservationStatus.HELD AND r.expiresAt < :now ORDER BY r.expiresAt")
+    List<StockReservation> findExpired(@Param("now") LocalDateTime now, Pageable limit);
+
+    @Query("SELECT r.status FROM StockReservation r WHERE r.order.id = :orderId")
+    List<ReservationStatus> findStatusesByOrderId(@Param("orderId") Long orderId);
+
+    /**
+     * Transition conditionnelle : 0 si une autre transaction a déjà changé le statut.
+     */
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.status = :to WHERE r.id = :id AND r.status = :from")
+    int transition(@Param("id") Long id, @Param("from") ReservationStatus from, @Param("to") ReservationStatus to);
+}
@@ -10,8 +10,11 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -102,6 +105,29 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
        Optional<User> findByVerificationCode(String verificationCode);
 
+       @Query("SELECT u.id, u.tokenVersion FROM User u WHERE u.tokenVersion > 0")
+       List<Object[]> findTokenVersions();
+
+       @Query("SELECT u.id, u.tokenVersion FROM User u WHERE u.tokenVersion > 0 AND u.updatedAt > :since")
+       List<Object[]> findTokenVersionsUpdatedSince(@Param("since") LocalDateTime since);
+
+       @Query("SELECT u FROM User u WHERE u.verificationLookup = :lookup AND u.verificationExpiry > :now")
+       List<User> findByVerificationLookup(@Param("lookup") String lookup, @Param("now") Instant now);
+
+       /**
+        * Compte un code OTP erroné et verrouille au-delà de maxAttempts. Transaction
+        * propre : l'échec est conservé même si l'appelant annule la sienne.
+        */
+       @Transactional(propagation = Propagation.REQUIRES_NEW)
+       @Modifying
+       @Query("UPDATE User u SET "
+                     + "u.otpLockedUntil = CASE WHEN COALESCE(u.otpAttempts, 0) + 1 >= :maxAttempts THEN :lockUntil ELSE u.otpLockedUntil END, "
+                     + "u.otpAttempts = CASE WHEN COALESCE(u.otpAttempts, 0) + 1 >= :maxAttempts THEN 0 ELSE COALESCE(u.otpAttempts, 0) + 1 END "
+                     + "WHERE u.id = :userId")
+       int recordOtpFailure(@Param("userId") Long userId,
+                     @Param("maxAttempts") int maxAttempts,
+                     @Param("lockUntil") Instant lockUntil);
+
        @Query("SELECT u FROM User u WHERE u.email = :email AND u.accountNonLocked = true")
        Optional<User> findByEmailAndAccountNonLocked(@Param("email") String email);
 
@@ -1,7 +1,8 @@
 package com.pneumaliback.www.security;
 
 import com.pneumaliback.www.service.JwtService;
-import com.pneumaliback.www.service.CustomUserDetailsService;
+import com.pneumaliback.www.service.auth.PrincipalCache;
+import com.pneumaliback.www.service.auth.UserSnapshot;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -18,13 +19,25 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+/**
+ * Authentification par jeton d'accès.
+ *
+ * Un jeton révoqué à la déconnexion est écarté par TokenRevocationList, en mémoire.
+ * Chemin rapide : un jeton portant identifiant, rôle et version, à jour au regard de
+ * TokenVersionRegistry, suffit à authentifier sans requête ; un jeton que le registre
+ * signale comme périmé est rejeté. L'utilisateur n'est relu (via PrincipalCache) que
+ * pour les jetons sans ces claims (émis avant leur ajout) ou tant que le registre
+ * n'est pas chargé.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
-    private final CustomUserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
+    private final TokenVersionRegistry tokenVersions;
+    private final TokenRevocationList revocations;
 
     @Override
     protected void doFilterInternal(
@@ -33,8 +46,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             @NonNull FilterChain filterChain) throws ServletException, IOException {
 
         final String authHeader = request.getHeader("Authorization");
-        final String jwt;
-        final String userEmail;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -42,20 +53,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         try {
-            jwt = authHeader.substring(7);
-            userEmail = jwtService.extractUsername(jwt);
+            ParsedToken token = jwtService.parse(authHeader.substring(7));
 
-            if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-
-                if (jwtService.isTokenValid(jwt, userDetails)) {
+            if (token.subject() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                UserDetails principal = resolve(token);
+                if (principal != null) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
+                            principal,
                             null,
-                            userDetails.getAuthorities());
+                            principal.getAuthorities());
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
-                    log.debug("Utilisateur authentifié: {}", userEmail);
+                    log.debug("Utilisateur authentifié: {}", token.subject());
                 }
             }
         } catch (Exception e) {
@@ -64,4 +73,33 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Principal du jeton, ou null si le jeton ne doit plus être accepté.
+     */
+    private UserDetails resolve(ParsedToken token) {
+        if (revocations.isRevoked(token.jti())) {
+            log.debug("Jeton déconnecté rejeté pour l'utilisateur: {}", token.subject());
+            return null;
+        }
+        if (token.isSelfContained() && tokenVersions.isReady()) {
+            // Le registre ne connaît que des versions validées : un jeton plus ancien
+            // est rejeté sans relire un snapshot peut-être périmé
+            if (!tokenVersions.isCurrent(token.userId(), token.version())) {
+                log.debug("Jeton révoqué pour l'utilisateur: {}", token.subject());
+                return null;
+            }
+            return new JwtPrincipal(token.userId(), token.subject(), token.role());
+        }
+        UserSnapshot user = principalCache.byEmail(token.subject()).orElse(null);
+        if (user == null || !user.accountNonLocked()) {
+            log.debug("Utilisateur introuvable ou verrouillé: {}", token.subject());
+            return null;
+        }
+        if (token.version() != null && user.tokenVersion() != token.version()) {
+            log.debug("Jeton révoqué pour l'utilisateur: {}", token.subject());
+            return null;
+        }
+        return new JwtPrincipal(user.id(), user.email(), user.role());
+    }
 }
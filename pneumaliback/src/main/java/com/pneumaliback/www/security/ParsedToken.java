@@ -0,0 +1,28 @@
+package com.pneumaliback.www.security;
+
+import com.pneumaliback.www.enums.Role;
+
+import java.time.Instant;
+
+/**
+ * Jeton d'accès déjà vérifié (signature, expiration), lu une seule fois.
+ * jti, userId, role, version et familyId (session de refresh token) sont absents
+ * (null) des jetons émis avant leur ajout.
+ */
+public record ParsedToken(
+        String jti,
+        String subject,
+        Long userId,
+        Role role,
+        Integer version,
+        Instant issuedAt,
+        Instant expiresAt,
+        String familyId) {
+
+    /**
+     * Le jeton porte de quoi authentifier sans recharger l'utilisateur.
+     */
+    public boolean isSelfContained() {
+        return subject != null && userId != null && role != null && version != null;
+    }
+}
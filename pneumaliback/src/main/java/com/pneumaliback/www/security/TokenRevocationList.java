@@ -0,0 +1,217 @@
+package com.pneumaliback.www.security;
+
+import com.pneumaliback.www.repository.RevokedTokenRepository;
+import com.pneumaliback.www.service.TransactionHooks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Liste des jetons d'accès révoqués (jti), consultée à chaque requête authentifiée.
+ *
+ * Un filtre de Bloom écarte en quelques nanosecondes l'immense majorité des jetons,
+ * jamais révoqués ; un positif est confirmé dans l'ensemble exact, en mémoire lui
+ * aussi. Les révocations sont persistées dans revoked_tokens et rechargées au
+ * démarrage, puis par delta (id > dernier vu) pour reprendre celles des autres
+ * instances ; les entrées expirées sont purgées et le filtre reconstruit chaque heure
+ * (un filtre de Bloom ne permet pas de retirer un élément).
+ */
+@Component
+@Slf4j
+public class TokenRevocationList implements CommandLineRunner {
+
+    private static final int HASHES = 7;
+
+    private final RevokedTokenRepository repository;
+    private final int capacity;
+    private final long reloadMillis;
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private volatile Bloom bloom;
+    private volatile boolean ready = false;
+    private long lastSeenId = 0L;
+
+    public TokenRevocationList(RevokedTokenRepository repository,
+                               @Value("${app.auth.revocation-capacity:100000}") int capacity,
+                               @Value("${app.auth.revocation-reload-ms:30000}") long reloadMillis) {
+        this.repository = repository;
+        this.capacity = capacity;
+        this.reloadMillis = reloadMillis;
+        this.bloom = new Bloom(capacity);
+    }
+
+    @Override
+    public void run(String... args) {
+        try {
+            var active = repository.findActive(Instant.now());
+            synchronized (writeLock) {
+                active.forEach(this::record);
+                rebuild();
+            }
+            ready = true;
+            log.info("Liste de révocation chargée: {} jetons", active.size());
+        } catch (Exception e) {
+            log.error("Impossible de charger la liste de révocation des jetons", e);
+        }
+    }
+
+    /**
+     * Le jeton a été révoqué. Avant le chargement initial, la base est interrogée.
+     */
+    public boolean isRevoked(String jti) {
+        if (jti == null) return false;
+        if (!ready) return repository.existsByJti(jti);
+        if (!bloom.mightContain(jti)) return false;
+        Instant expiresAt = revoked.get(jti);
+        return expiresAt != null && expiresAt.isAfter(Instant.now());
+    }
+
+    /**
+     * Révoque le jeton jusqu'à son expiration ; la liste en mémoire n'est mise à jour
+     * qu'après le commit de la transaction appelante.
+     */
+    public void revoke(ParsedToken token) {
+        if (token.jti() == null || token.expiresAt() == null || !token.expiresAt().isAfter(Instant.now())) return;
+        repository.insertIfAbsent(token.jti(), token.userId(), token.expiresAt());
+        String jti = token.jti();
+        Instant expiresAt = token.expiresAt();
+        TransactionHooks.afterCommit(() -> {
+            synchronized (writeLock) {
+                revoked.put(jti, expiresAt);
+                bloom.add(jti);
+            }
+        });
+        log.debug("Jeton révoqué: {} ({})", token.jti(), token.subject());
+    }
+
+    /**
+     * Reprend les révocations enregistrées depuis le dernier chargement, notamment par
+     * les autres instances.
+     */
+    @Scheduled(fixedDelayString = "${app.auth.revocation-reload-ms:30000}",
+            initialDelayString = "${app.auth.revocation-reload-ms:30000}")
+    public void reload() {
+        if (!ready) return;
+        try {
+            long afterId;
+            synchronized (writeLock) {
+                afterId = lastSeenId;
+            }
+            // Fenêtre de recouvrement : un id attribué plus tôt peut n'être validé qu'après
+            var recent = repository.findActiveSince(afterId,
+                    LocalDateTime.now().minus(Duration.ofMillis(2 * reloadMillis)), Instant.now());
+            if (recent.isEmpty()) return;
+            int added = 0;
+            synchronized (writeLock) {
+                for (var r : recent) {
+                    if (revoked.put(r.getJti(), r.getExpiresAt()) == null) added++;
+                    bloom.add(r.getJti());
+                    lastSeenId = Math.max(lastSeenId, r.getId());
+                }
+            }
+            if (added > 0) log.debug("Révocations reprises de la base: {}", added);
+        } catch (Exception e) {
+            log.error("Rechargement de la liste de révocation interrompu", e);
+        }
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    @Scheduled(fixedDelay = 3_600_000L, initialDelay = 3_600_000L)
+    public void purgeExpired() {
+        try {
+            Instant now = Instant.now();
+            int deleted = repository.deleteExpired(now);
+            synchronized (writeLock) {
+                revoked.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+                rebuild();
+            }
+            if (deleted > 0) log.info("Révocations expirées purgées: {}", deleted);
+        } catch (Exception e) {
+            log.error("Purge des révocations de jetons interrompue", e);
+        }
+    }
+
+    /** À appeler sous writeLock. */
+    private void record(RevokedTokenRepository.ActiveRevocationProjection r) {
+        revoked.put(r.getJti(), r.getExpiresAt());
+        lastSeenId = Math.max(lastSeenId, r.getId());
+    }
+
+    /** À appeler sous writeLock. */
+    private void rebuild() {
+        Bloom fresh = new Bloom(Math.max(capacity, 2 * revoked.size()));
+        revoked.keySet().forEach(fresh::add);
+        bloom = fresh;
+    }
+
+    /**
+     * Filtre de Bloom à ~1 % de faux positifs pour la capacité donnée ; lectures sans
+     * verrou, bits posés atomiquement.
+     */
+    static final class Bloom {
+        private final AtomicLongArray words;
+        private final int bits;
+
+        Bloom(int expected) {
+            // m = n * ln(1/p) / ln(2)^2, soit ~9,6 bits par élément pour p = 1 %
+            long m = Math.max(64, (long) Math.ceil(expected * 9.6));
+            int wordCount = (int) Math.min(Integer.MAX_VALUE / 64, (m + 63) / 64);
+            this.words = new AtomicLongArray(wordCount);
+            this.bits = wordCount * 64;
+        }
+
+        void add(String key) {
+            long h = hash(key);
+            int h1 = (int) h;
+            int h2 = (int) (h >>> 32);
+            for (int i = 0; i < HASHES; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bits);
+                long mask = 1L << bit;
+                int word = bit >>> 6;
+                long current;
+                do {
+                    current = words.get(word);
+                    if ((current & mask) != 0) break;
+                } while (!words.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        boolean mightContain(String key) {
+            long h = hash(key);
+            int h1 = (int) h;
+            int h2 = (int) (h >>> 32);
+            for (int i = 0; i < HASHES; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bits);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) return false;
+            }
+            return true;
+        }
+
+        /** FNV-1a 64 bits suivi d'un brassage final (murmur3 fmix64). */
+        private static long hash(String key) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < key.length(); i++) {
+                h ^= key.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb53a87d62fe5L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.pneumaliback.www.security;
+
+import com.pneumaliback.www.entity.User;
+import com.pneumaliback.www.repository.UserRepository;
+import com.pneumaliback.www.service.TransactionHooks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Version courante des jetons par utilisateur, en mémoire.
+ *
+ * Chaque jeton d'accès porte la version de l'utilisateur à son émission ; verrouiller
+ * le compte, changer son rôle ou son email incrémente cette version et invalide les
+ * jetons existants. Seuls les utilisateurs dont la version a changé au moins une fois
+ * sont gardés : pour tous les autres, la version vaut 0.
+ *
+ * Les versions incrémentées par les autres instances sont reprises périodiquement
+ * (utilisateurs modifiés depuis le dernier chargement) : un rôle retiré ou un compte
+ * verrouillé ailleurs est pris en compte ici au plus tard après
+ * app.auth.token-version-reload-ms.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TokenVersionRegistry implements CommandLineRunner {
+
+    private final UserRepository userRepository;
+
+    @Value("${app.auth.token-version-reload-ms:30000}")
+    private long reloadMillis;
+
+    private final Map<Long, Integer> versions = new ConcurrentHashMap<>();
+    private volatile boolean ready = false;
+    private volatile LocalDateTime loadedAt;
+
+    @Override
+    public void run(String... args) {
+        try {
+            LocalDateTime startedAt = LocalDateTime.now();
+            List<Object[]> rows = userRepository.findTokenVersions();
+            apply(rows);
+            loadedAt = startedAt;
+            ready = true;
+            log.info("Versions de jetons chargées: {} utilisateurs", rows.size());
+        } catch (Exception e) {
+            log.error("Impossible de charger les versions de jetons", e);
+        }
+    }
+
+    /**
+     * Reprend les versions modifiées depuis le dernier chargement, notamment par les
+     * autres instances. La fenêtre remonte de deux intervalles avant ce chargement : une
+     * modification horodatée plus tôt peut n'avoir été validée qu'après.
+     */
+    @Scheduled(fixedDelayString = "${app.auth.token-version-reload-ms:30000}",
+            initialDelayString = "${app.auth.token-version-reload-ms:30000}")
+    public void reload() {
+        if (!ready) return;
+        try {
+            LocalDateTime startedAt = LocalDateTime.now();
+            List<Object[]> rows = userRepository.findTokenVersionsUpdatedSince(
+                    loadedAt.minus(Duration.ofMillis(2 * reloadMillis)));
+            apply(rows);
+            loadedAt = startedAt;
+        } catch (Exception e) {
+            log.error("Rechargement des versions de jetons interrompu", e);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Le jeton est à jour au regard des révocations connues de cette instance.
+     */
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        return tokenVersion >= versions.getOrDefault(userId, 0);
+    }
+
+    /**
+     * Invalide les jetons déjà émis pour l'utilisateur (sans sauvegarder). La nouvelle
+     * version n'est publiée qu'après le commit.
+     */
+    public void revokeTokens(User user) {
+        int next = user.getTokenVersion() + 1;
+        user.setTokenVersion(next);
+        Long userId = user.getId();
+        TransactionHooks.afterCommit(() -> versions.merge(userId, next, Math::max));
+    }
+
+    private void apply(List<Object[]> rows) {
+        for (Object[] row : rows) {
+            versions.merge((Long) row[0], ((Number) row[1]).intValue(), Math::max);
+        }
+    }
+}
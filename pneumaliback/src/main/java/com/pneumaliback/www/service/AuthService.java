@@ -14,6 +14,12 @@ import com.pneumaliback.www.entity.User;
 import com.pneumaliback.www.enums.Role;
 import com.pneumaliback.www.repository.UserRepository;
 import com.pneumaliback.www.exception.CodeVerificationRequiredException;
+import com.pneumaliback.www.security.ParsedToken;
+import com.pneumaliback.www.security.TokenRevocationList;
+import com.pneumaliback.www.security.TokenVersionRegistry;
+import com.pneumaliback.www.service.auth.PrincipalCache;
+import com.pneumaliback.www.service.auth.VerificationCodes;
+import com.pneumaliback.www.service.cart.GuestCartService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -44,6 +50,11 @@ public class AuthService {
     private final CustomUserDetailsService userDetailsService;
     private final MailService mailService;
     private final AuditService auditService;
+    private final GuestCartService guestCartService;
+    private final VerificationCodes verificationCodes;
+    private final TokenVersionRegistry tokenVersions;
+    private final PrincipalCache principalCache;
+    private final TokenRevocationList revocations;
 
     @Transactional
     public MessageResponse register(RegisterRequest request) {
@@ -100,23 +111,74 @@ public class AuthService {
         }
     }
 
+    /**
+     * Renouvelle la session : le refresh token présenté est échangé contre un nouveau
+     * (rotation) et un jeton d'accès est émis pour la même famille.
+     */
     public AuthResponse refreshToken(String refreshToken) {
-        RefreshToken token = refreshTokenService.findByToken(refreshToken)
-                .orElseThrow(() -> new RuntimeException("Refresh token invalide"));
-
-        token = refreshTokenService.verifyExpiration(token);
+        RefreshToken next = refreshTokenService.rotate(refreshToken);
+        User user = next.getUser();
+        if (!user.isAccountNonLocked()) {
+            refreshTokenService.revokeFamily(next.getFamilyId());
+            throw new RuntimeException("Compte verrouillé. Réessayez plus tard.");
+        }
 
-        UserDetails userDetails = userDetailsService.loadUserByUsername(token.getUser().getEmail());
-        String newAccessToken = jwtService.generateToken(userDetails);
+        return buildAuthResponse(accessToken(user, next), next.getPlainToken(), user);
+    }
 
-        return buildAuthResponse(newAccessToken, refreshToken, token.getUser());
+    /**
+     * Jeton d'accès rattaché à la session (famille) du refresh token.
+     */
+    private String accessToken(UserDetails userDetails, RefreshToken refreshToken) {
+        return jwtService.generateToken(java.util.Map.of(JwtService.CLAIM_FAMILY, refreshToken.getFamilyId()), userDetails);
     }
 
-    public void logout(String refreshToken) {
-        RefreshToken token = refreshTokenService.findByToken(refreshToken)
+    /**
+     * Déconnexion de l'appareil à partir du jeton présenté :
+     * - jeton d'accès : il est révoqué jusqu'à son expiration, ainsi que la session
+     * (famille de refresh tokens) dont il est issu ;
+     * - refresh token : sa session est révoquée et, faute de connaître le jeton
+     * d'accès, tous les jetons d'accès émis pour l'utilisateur sont invalidés (les
+     * autres appareils les renouvellent avec leur propre refresh token).
+     * Les jetons émis avant les familles révoquent toutes les sessions.
+     */
+    @Transactional
+    public void logout(String bearerToken) {
+        ParsedToken access = parseAccessToken(bearerToken);
+        if (access != null) {
+            revocations.revoke(access);
+            if (access.familyId() != null) {
+                refreshTokenService.revokeFamily(access.familyId());
+                return;
+            }
+            User user = access.userId() != null
+                    ? userRepository.getReferenceById(access.userId())
+                    : userRepository.findByEmail(access.subject())
+                            .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
+            refreshTokenService.revokeByUser(user);
+            return;
+        }
+
+        RefreshToken token = refreshTokenService.findByToken(bearerToken)
                 .orElseThrow(() -> new RuntimeException("Refresh token invalide"));
 
-        refreshTokenService.revokeByUser(token.getUser());
+        User user = token.getUser();
+        if (token.getFamilyId() != null) {
+            refreshTokenService.revokeFamily(token.getFamilyId());
+        } else {
+            refreshTokenService.revokeByUser(user);
+        }
+        tokenVersions.revokeTokens(user);
+        userRepository.save(user);
+        principalCache.evict(user);
+    }
+
+    private ParsedToken parseAccessToken(String token) {
+        try {
+            return jwtService.parse(token);
+        } catch (Exception e) {
+            return null; // refresh token opaque, ou jeton d'accès expiré
+        }
     }
 
     /**
@@ -252,9 +314,7 @@ public class AuthService {
 
         // Étape 4 : Vérifier l'expiration du code
         if (Instant.now().isAfter(user.getVerificationExpiry())) {
-            user.setVerificationCode(null);
-            user.setVerificationExpiry(null);
-            user.setVerificationSentAt(null);
+            VerificationCodes.clear(user);
             user.setOtpAttempts(0);
             user.setOtpLockedUntil(null);
             user.setOtpResendCount(0);
@@ -263,7 +323,7 @@ public class AuthService {
         }
 
         // Étape 5 : Vérifier la validité du code
-        boolean codeOk = passwordEncoder.matches(request.code(), user.getVerificationCode());
+        boolean codeOk = verificationCodes.matches(user, request.code());
         if (!codeOk) {
             int attempts = user.getOtpAttempts() == null ? 0 : user.getOtpAttempts();
             attempts++;
@@ -281,21 +341,20 @@ public class AuthService {
 
         // Étape 6 : Code valide → Activer le compte et nettoyer les données OTP
         user.setEnabled(true);
-        user.setVerificationCode(null);
-        user.setVerificationExpiry(null);
-        user.setVerificationSentAt(null);
+        VerificationCodes.clear(user);
         user.setOtpAttempts(0);
         user.setOtpLockedUntil(null);
         user.setOtpResendCount(0);
         userRepository.saveAndFlush(user);
+        principalCache.evict(user);
 
         // Étape 7 : Générer un nouveau token JWT (que ce soit première connexion ou
         // reconnexion)
         UserDetails userDetails = userDetailsService.loadUserByUsername(user.getEmail());
-        String accessToken = jwtService.generateToken(userDetails);
         RefreshToken refreshToken = refreshTokenService.createRefreshToken(user);
+        String accessToken = accessToken(userDetails, refreshToken);
 
-        AuthResponse auth = buildAuthResponse(accessToken, refreshToken.getToken(), user);
+        AuthResponse auth = buildAuthResponse(accessToken, refreshToken.getPlainToken(), user);
         auditService.logAuthEvent("CODE_VERIFIED", user.getEmail(), null, null, null);
         log.info("Connexion réussie pour l'utilisateur : {}", user.getEmail());
         return auth;
@@ -308,9 +367,11 @@ public class AuthService {
             if (user.getFailedAttempts() >= 5) {
                 user.setAccountNonLocked(false);
                 user.setLockTime(Instant.now());
+                tokenVersions.revokeTokens(user);
             }
 
             userRepository.saveAndFlush(user);
+            principalCache.evict(user);
         });
     }
 
@@ -342,11 +403,7 @@ public class AuthService {
             user.setOtpResendCount(0);
         }
         String code = generateVerificationCode();
-        Instant expiry = now.plus(2, ChronoUnit.MINUTES);
-        String hash = passwordEncoder.encode(code);
-        user.setVerificationCode(hash);
-        user.setVerificationExpiry(expiry);
-        user.setVerificationSentAt(now);
+        verificationCodes.assign(user, code, now.plus(2, ChronoUnit.MINUTES));
         userRepository.saveAndFlush(user);
         mailService.sendVerificationEmail(user.getEmail(), code);
         auditService.logAuthEvent("MAGIC_CODE_SENT", user.getEmail(), null, null, null);
@@ -428,7 +485,6 @@ public class AuthService {
 
         // Étape 6 : Générer et envoyer le code
         String code = generateVerificationCode();
-        String hash = passwordEncoder.encode(code);
         Instant expiry = now.plus(2, ChronoUnit.MINUTES);
 
         // Mise à jour de tous les champs en une seule fois
@@ -440,9 +496,7 @@ public class AuthService {
             user.setOtpResendCount(count + 1); // Incrémenter uniquement pour les renvois
         }
 
-        user.setVerificationCode(hash);
-        user.setVerificationExpiry(expiry);
-        user.setVerificationSentAt(now);
+        verificationCodes.assign(user, code, expiry);
 
         // UNE SEULE sauvegarde
         userRepository.saveAndFlush(user);
@@ -462,6 +516,23 @@ public class AuthService {
         return verifyEmail(req);
     }
 
+    /**
+     * Connexion par code puis fusion du panier invité éventuel dans le panier de
+     * l'utilisateur. Un échec de fusion n'empêche pas la connexion.
+     */
+    public AuthResponse magicVerify(String email, String code, String guestCartToken) {
+        AuthResponse auth = magicVerify(email, code);
+        if (guestCartToken != null && !guestCartToken.isBlank()) {
+            try {
+                userRepository.findById(auth.userInfo().id())
+                        .ifPresent(user -> guestCartService.mergeInto(guestCartToken, user));
+            } catch (Exception e) {
+                log.warn("Fusion du panier invité impossible pour {}: {}", email, e.getMessage());
+            }
+        }
+        return auth;
+    }
+
     @Transactional
     public StartLoginResponse startLogin(String email) {
         String normalized = email == null ? "" : email.trim().toLowerCase();
@@ -581,43 +652,43 @@ public class AuthService {
      * Retourne l'utilisateur pour générer un nouveau token
      * 
      * Important : Cette méthode NE CRÉE JAMAIS d'utilisateur
-     * Elle cherche parmi les utilisateurs existants celui qui correspond au code
-     * fourni
+     * Elle retrouve l'utilisateur par l'identifiant de défi renvoyé à l'émission du
+     * code, puis vérifie le code sous le même compteur de tentatives que verifyEmail
      * Utilisée principalement lors du changement d'email où on ne connaît pas
      * encore le nouvel email
      */
     @Transactional
-    public User verifyCode(String code) {
-        // Récupérer tous les utilisateurs existants avec un code de vérification actif
-        java.util.List<User> usersWithCode = userRepository.findAll().stream()
-                .filter(u -> u.getVerificationCode() != null && u.getVerificationExpiry() != null)
-                .filter(u -> Instant.now().isBefore(u.getVerificationExpiry()))
-                .toList();
-
-        // Chercher l'utilisateur dont le code hash correspond
-        User user = null;
-        for (User u : usersWithCode) {
-            if (passwordEncoder.matches(code, u.getVerificationCode())) {
-                user = u;
-                break;
-            }
-        }
+    public User verifyCode(String challenge, String code) {
+        // Recherche indexée par clé HMAC du défi ; un défi ambigu est refusé
+        User user = verificationCodes.findHolder(challenge)
+                .orElseThrow(() -> new RuntimeException("Code invalide ou expiré"));
 
-        if (user == null) {
+        // Anti-bruteforce : verrou temporaire après 5 codes erronés
+        if (user.getOtpLockedUntil() != null && Instant.now().isBefore(user.getOtpLockedUntil())) {
+            throw new RuntimeException("Trop de tentatives. Réessayez plus tard");
+        }
+        if (!verificationCodes.matches(user, code)) {
+            int attempts = (user.getOtpAttempts() == null ? 0 : user.getOtpAttempts()) + 1;
+            userRepository.recordOtpFailure(user.getId(), 5, Instant.now().plus(2, ChronoUnit.MINUTES));
+            if (attempts >= 5) {
+                auditService.logAuthEvent("CODE_LOCK", user.getEmail(), null, null,
+                        java.util.Map.of("reason", "TOO_MANY_ATTEMPTS"));
+            }
+            auditService.logAuthEvent("CODE_INVALID", user.getEmail(), null, null, null);
             throw new RuntimeException("Code invalide ou expiré");
         }
 
         // Réactiver le compte et nettoyer les données OTP
         user.setEnabled(true);
-        user.setVerificationCode(null);
-        user.setVerificationExpiry(null);
-        user.setVerificationSentAt(null);
+        VerificationCodes.clear(user);
         user.setOtpAttempts(0);
         user.setOtpResendCount(0);
         user.setOtpLockedUntil(null);
 
         log.info("Code vérifié avec succès pour l'utilisateur : {}", user.getEmail());
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        principalCache.evict(saved);
+        return saved;
     }
 
     /**
@@ -634,9 +705,9 @@ public class AuthService {
      * restent associées au MÊME compte utilisateur, seul l'email change
      */
     @Transactional
-    public AuthResponse verifyEmailChange(String code) {
+    public AuthResponse verifyEmailChange(String challenge, String code) {
         // Vérifier le code (utilisateur existant uniquement)
-        User user = verifyCode(code);
+        User user = verifyCode(challenge, code);
 
         // Envoyer l'email de notification au nouveau compte
         if (user.getPreviousEmail() != null && !user.getPreviousEmail().isEmpty()) {
@@ -650,16 +721,16 @@ public class AuthService {
         UserDetails userDetails = userDetailsService.loadUserByUsername(user.getEmail());
 
         // Générer un nouveau token pour le MÊME utilisateur (pas de nouveau compte)
-        // Note: createRefreshToken supprime automatiquement les anciens tokens
-        String accessToken = jwtService.generateToken(userDetails);
+        // Nouvelle session ; celles des autres appareils sont conservées
         RefreshToken refreshToken = refreshTokenService.createRefreshToken(user);
+        String accessToken = accessToken(userDetails, refreshToken);
 
         log.info("Email changé avec succès pour l'utilisateur ID: {} - Ancien: {} - Nouveau: {}",
                 user.getId(), user.getPreviousEmail(), user.getEmail());
 
         return new AuthResponse(
                 accessToken,
-                refreshToken.getToken(),
+                refreshToken.getPlainToken(),
                 "Bearer",
                 86400L,
                 new AuthResponse.UserInfo(
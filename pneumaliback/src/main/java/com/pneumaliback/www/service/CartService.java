@@ -7,10 +7,14 @@ import com.pneumaliback.www.entity.User;
 import com.pneumaliback.www.repository.CartItemRepository;
 import com.pneumaliback.www.repository.CartRepository;
 import com.pneumaliback.www.repository.ProductRepository;
+import com.pneumaliback.www.service.cart.CartQuoteService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @Service
 @RequiredArgsConstructor
 public class CartService {
@@ -18,6 +22,7 @@ public class CartService {
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
     private final ProductRepository productRepository;
+    private final CartQuoteService cartQuoteService;
 
     @Transactional
     public Cart getOrCreate(User user) {
@@ -46,7 +51,8 @@ public class CartService {
         } else {
             item.setQuantity(item.getQuantity() + quantity);
         }
-        cartRepository.save(cart);
+        // Panier géré : les modifications partent au flush, sans re-sauvegarder tout le graphe
+        cartQuoteService.itemChanged(user.getId(), productId, item.getQuantity(), p.getPrice());
         return cart;
     }
 
@@ -63,13 +69,52 @@ public class CartService {
         } else {
             item.setQuantity(quantity);
         }
-        return cartRepository.save(cart);
+        cartQuoteService.itemChanged(user.getId(), productId, quantity, item.getProduct().getPrice());
+        return cart;
+    }
+
+    /**
+     * Vide le panier par un DELETE groupé. Envoie les écritures en attente puis vide le
+     * contexte de persistance : à appeler en dernière étape d'une transaction.
+     */
+    @Transactional
+    public void purge(Cart cart) {
+        cartItemRepository.purgeByCartId(cart.getId());
+        if (cart.getUser() != null) cartQuoteService.cleared(cart.getUser().getId());
+    }
+
+    /**
+     * Ajoute les lignes d'un panier invité (productId → quantité) au panier de
+     * l'utilisateur : une lecture groupée des produits, puis des INSERT envoyés en lot
+     * au commit (ids de séquence). Les produits inactifs sont ignorés.
+     */
+    @Transactional
+    public Cart mergeGuestCart(User user, Map<Long, Integer> quantities) {
+        Cart cart = getOrCreate(user);
+        Map<Long, CartItem> existing = new HashMap<>();
+        for (CartItem item : cart.getItems()) existing.put(item.getProduct().getId(), item);
+        for (Product p : productRepository.findAllById(quantities.keySet())) {
+            if (!p.isActive()) continue;
+            CartItem item = existing.get(p.getId());
+            if (item == null) {
+                item = new CartItem();
+                item.setCart(cart);
+                item.setProduct(p);
+                item.setQuantity(quantities.get(p.getId()));
+                cart.getItems().add(item);
+            } else {
+                item.setQuantity(item.getQuantity() + quantities.get(p.getId()));
+            }
+            cartQuoteService.itemChanged(user.getId(), p.getId(), item.getQuantity(), p.getPrice());
+        }
+        return cart;
     }
 
     @Transactional
     public Cart clear(User user) {
         Cart cart = getOrCreate(user);
         cart.getItems().clear();
-        return cartRepository.save(cart);
+        cartQuoteService.cleared(user.getId());
+        return cart;
     }
 }
@@ -0,0 +1,182 @@
+package com.pneumaliback.www.service;
+
+import com.pneumaliback.www.entity.IdempotencyKey;
+import com.pneumaliback.www.entity.Order;
+import com.pneumaliback.www.repository.IdempotencyKeyRepository;
+import com.pneumaliback.www.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Déduplication des checkouts par clé d'idempotence (en-tête Idempotency-Key).
+ *
+ * Une clé déjà traitée renvoie la commande créée la première fois. Les résultats
+ * récents sont gardés dans un cache LRU borné, adossé à la table idempotency_keys
+ * (unicité utilisateur + clé, durée de vie limitée) qui fait foi entre redémarrages
+ * et entre instances. Les tentatives concurrentes d'une même clé attendent la
+ * première au lieu de rejouer le checkout.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CheckoutIdempotencyService {
+
+    public static final int MAX_KEY_LENGTH = 100;
+    private static final int CACHE_SIZE = 10_000;
+    private static final long WAIT_SECONDS = 30;
+
+    private record Entry(Long orderId, LocalDateTime expiresAt) {
+    }
+
+    private final IdempotencyKeyRepository keyRepository;
+    private final OrderRepository orderRepository;
+
+    @Value("${app.checkout.idempotency-ttl-hours:24}")
+    private long ttlHours;
+
+    private final Map<String, Entry> recent = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private final ConcurrentHashMap<String, CompletableFuture<Long>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Vérifie le format d'une clé fournie par le client.
+     */
+    public static void validate(String key) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Clé d'idempotence invalide (1 à " + MAX_KEY_LENGTH + " caractères)");
+        }
+    }
+
+    /**
+     * Exécute le checkout une seule fois par (utilisateur, clé) : renvoie la commande
+     * déjà créée si la clé est connue, attend la tentative en cours si une autre
+     * requête la traite, sinon lance checkout.
+     */
+    public Order execute(Long userId, String key, Supplier<Order> checkout) {
+        String cacheKey = userId + ":" + key;
+        Long known = lookup(userId, key, cacheKey);
+        if (known != null) return reload(known);
+
+        CompletableFuture<Long> mine = new CompletableFuture<>();
+        CompletableFuture<Long> leader = inFlight.putIfAbsent(cacheKey, mine);
+        if (leader != null) {
+            return reload(await(leader));
+        }
+        try {
+            // Une tentative a pu se terminer entre la recherche et l'inscription
+            known = lookup(userId, key, cacheKey);
+            if (known != null) {
+                mine.complete(known);
+                return reload(known);
+            }
+            Order order;
+            try {
+                order = checkout.get();
+            } catch (DataIntegrityViolationException e) {
+                // Même clé enregistrée au même moment par une autre instance
+                Long winner = keyRepository.findByUserIdAndKeyAndExpiresAtAfter(userId, key, LocalDateTime.now())
+                        .map(IdempotencyKey::getOrderId)
+                        .orElseThrow(() -> e);
+                mine.complete(winner);
+                return reload(winner);
+            }
+            remember(cacheKey, order.getId());
+            mine.complete(order.getId());
+            return order;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(cacheKey, mine);
+        }
+    }
+
+    /**
+     * Enregistre la clé dans la transaction du checkout : si la commande est annulée,
+     * la clé l'est aussi et la tentative suivante repart de zéro. L'INSERT part avec
+     * le flush groupé du checkout ; une clé en double y échoue (contrainte unique) et
+     * annule toute la transaction, réservations de stock comprises.
+     */
+    @Transactional
+    public void record(Long userId, String key, Long orderId) {
+        IdempotencyKey k = new IdempotencyKey();
+        k.setUserId(userId);
+        k.setKey(key);
+        k.setOrderId(orderId);
+        k.setExpiresAt(LocalDateTime.now().plusHours(ttlHours));
+        keyRepository.save(k);
+    }
+
+    @Scheduled(cron = "0 15 * * * ?")
+    @Transactional
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int deleted = keyRepository.deleteExpired(now);
+        synchronized (recent) {
+            recent.values().removeIf(e -> e.expiresAt().isBefore(now));
+        }
+        if (deleted > 0) log.info("{} clés d'idempotence expirées supprimées", deleted);
+    }
+
+    // ===== Internes =====
+
+    private Long lookup(Long userId, String key, String cacheKey) {
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (recent) {
+            Entry e = recent.get(cacheKey);
+            if (e != null && e.expiresAt().isAfter(now)) return e.orderId();
+        }
+        Optional<IdempotencyKey> stored = keyRepository.findByUserIdAndKeyAndExpiresAtAfter(userId, key, now);
+        stored.ifPresent(k -> {
+            synchronized (recent) {
+                recent.put(cacheKey, new Entry(k.getOrderId(), k.getExpiresAt()));
+            }
+        });
+        return stored.map(IdempotencyKey::getOrderId).orElse(null);
+    }
+
+    private void remember(String cacheKey, Long orderId) {
+        synchronized (recent) {
+            recent.put(cacheKey, new Entry(orderId, LocalDateTime.now().plusHours(ttlHours)));
+        }
+    }
+
+    private Long await(CompletableFuture<Long> leader) {
+        try {
+            return leader.get(WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException("Checkout concurrent en échec", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Checkout concurrent toujours en cours, réessayez plus tard");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Attente du checkout interrompue");
+        }
+    }
+
+    private Order reload(Long orderId) {
+        return orderRepository.findWithItemsById(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("Commande introuvable"));
+    }
+}
@@ -3,7 +3,6 @@ package com.pneumaliback.www.service;
 import com.pneumaliback.www.entity.*;
 import com.pneumaliback.www.enums.OrderStatus;
 import com.pneumaliback.www.repository.CartRepository;
-import com.pneumaliback.www.repository.OrderItemRepository;
 import com.pneumaliback.www.repository.OrderRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -17,34 +16,46 @@ public class CheckoutService {
 
     private final CartRepository cartRepository;
     private final OrderRepository orderRepository;
-    private final OrderItemRepository orderItemRepository;
     private final PromotionService promotionService;
     private final DeliveryService deliveryService;
     private final OrderService orderService;
     private final CartService cartService;
+    private final StockReservationService stockReservationService;
+    private final CheckoutIdempotencyService idempotencyService;
 
     @Transactional
     public Order createOrder(User user, Address shippingAddress, String zone, String promoCode) {
+        return createOrder(user, shippingAddress, zone, promoCode, null);
+    }
+
+    /**
+     * Checkout avec clé d'idempotence : la clé est enregistrée avec la commande et
+     * part dans le même flush ; un doublon concurrent y viole la contrainte unique et
+     * toute la transaction est annulée, réservations comprises.
+     */
+    @Transactional
+    public Order createOrder(User user, Address shippingAddress, String zone, String promoCode, String idempotencyKey) {
         Cart cart = cartRepository.findByUser(user)
                 .orElseThrow(() -> new RuntimeException("Panier introuvable"));
         if (cart.getItems().isEmpty()) {
             throw new RuntimeException("Panier vide");
         }
 
-        // Construire la commande
+        // Construire la commande entière avant de la persister : l'INSERT part avec son état
+        // final (pas d'UPDATE de rattrapage). Les ids viennent d'une séquence
+        // (EntiteAuditableSequencee) : aucun INSERT n'est émis avant le flush final, qui les
+        // envoie en lots.
         Order order = new Order();
         order.setUser(user);
         order.setStatus(OrderStatus.PENDING);
-        orderRepository.save(order);
 
-        // Lignes de commande depuis le panier
+        // Lignes de commande depuis le panier (persistées par cascade depuis la commande)
         for (CartItem ci : cart.getItems()) {
             OrderItem oi = new OrderItem();
             oi.setOrder(order);
             oi.setProduct(ci.getProduct());
             oi.setQuantity(ci.getQuantity());
             oi.setUnitPrice(ci.getProduct().getPrice());
-            orderItemRepository.save(oi);
             order.getItems().add(oi);
         }
 
@@ -59,17 +70,22 @@ public class CheckoutService {
             }
         }
  
-        // Livraison (zone + frais)
-        BigDecimal fee = deliveryService.quoteShippingFee(zone);
-        Delivery delivery = deliveryService.attachDelivery(order, shippingAddress, zone, fee);
-        order.setDelivery(delivery);
+        // Livraison (zone + frais), persistée par cascade elle aussi
+        int quantity = order.getItems().stream().mapToInt(OrderItem::getQuantity).sum();
+        BigDecimal fee = deliveryService.quoteShippingFee(zone, quantity);
+        order.setDelivery(deliveryService.newDelivery(order, shippingAddress, zone, fee));
 
-        // Totaux
         orderService.computeTotals(order);
-        orderRepository.save(order);
+        order = orderRepository.save(order);
+        if (idempotencyKey != null) {
+            idempotencyService.record(user.getId(), idempotencyKey, order.getId());
+        }
+
+        // Réserver le stock en dernier : les lignes produits restent verrouillées le moins longtemps possible
+        stockReservationService.hold(order);
 
-        // Nettoyer le panier
-        cartService.clear(user);
+        // Vider le panier en un DELETE ; déclenche l'unique flush de la commande
+        cartService.purge(cart);
 
         return order;
     }
@@ -5,6 +5,7 @@ import java.time.LocalDateTime;
 import java.util.Optional;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.pneumaliback.www.entity.Commission;
 import com.pneumaliback.www.entity.Influenceur;
@@ -12,6 +13,7 @@ import com.pneumaliback.www.entity.Order;
 import com.pneumaliback.www.entity.Promotion;
 import com.pneumaliback.www.enums.CommissionStatus;
 import com.pneumaliback.www.repository.CommissionRepository;
+import com.pneumaliback.www.service.commission.CommissionLedgerService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -20,7 +22,9 @@ import lombok.RequiredArgsConstructor;
 public class CommissionService {
 
     private final CommissionRepository commissionRepository;
+    private final CommissionLedgerService ledgerService;
 
+    @Transactional
     public void createIfEligible(Order order) {
         if (order == null) return;
         Promotion promo = order.getPromotion();
@@ -44,14 +48,15 @@ public class CommissionService {
         c.setAmount(amount);
         c.setStatus(CommissionStatus.PENDING);
         c.setPaidAt(null);
-        commissionRepository.save(c);
+        ledgerService.earned(commissionRepository.save(c));
     }
 
+    @Transactional
     public void markPaid(Commission commission) {
-        if (commission == null) return;
+        if (commission == null || commission.getStatus() == CommissionStatus.PAID) return; // idempotent
         commission.setStatus(CommissionStatus.PAID);
         commission.setPaidAt(LocalDateTime.now());
-        commissionRepository.save(commission);
+        ledgerService.paid(commissionRepository.save(commission));
     }
 
     private BigDecimal defaultZero(BigDecimal v) {
@@ -3,6 +3,7 @@ package com.pneumaliback.www.service;
 import com.pneumaliback.www.entity.User;
 import com.pneumaliback.www.enums.Role;
 import com.pneumaliback.www.repository.UserRepository;
+import com.pneumaliback.www.service.auth.VerificationCodes;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
@@ -132,9 +133,7 @@ public class DataInitializationService implements CommandLineRunner {
                                 || existing.getVerificationSentAt() != null
                                 || existing.getOtpAttempts() != null || existing.getOtpLockedUntil() != null
                                 || existing.getOtpResendCount() != null)) {
-                    existing.setVerificationCode(null);
-                    existing.setVerificationExpiry(null);
-                    existing.setVerificationSentAt(null);
+                    VerificationCodes.clear(existing);
                     existing.setOtpAttempts(0);
                     existing.setOtpLockedUntil(null);
                     existing.setOtpResendCount(0);
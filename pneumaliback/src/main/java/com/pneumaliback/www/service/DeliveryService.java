@@ -5,35 +5,52 @@ import com.pneumaliback.www.entity.Delivery;
 import com.pneumaliback.www.entity.Order;
 import com.pneumaliback.www.enums.DeliveryStatus;
 import com.pneumaliback.www.repository.DeliveryRepository;
+import com.pneumaliback.www.service.delivery.ShippingTariff;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 public class DeliveryService {
 
     private final DeliveryRepository deliveryRepository;
+    private final ShippingTariff shippingTariff;
 
-    // Simple quote logic; you can later back this by a Zone table/config
     public BigDecimal quoteShippingFee(String zone) {
-        if (zone == null || zone.isBlank()) return BigDecimal.ZERO;
-        String z = zone.trim().toLowerCase();
-        if (z.contains("bamako")) return new BigDecimal("2000");
-        return new BigDecimal("5000");
+        return quoteShippingFee(zone, 1);
+    }
+
+    /**
+     * Frais de livraison d'après la grille en mémoire (zone + nombre d'articles).
+     */
+    public BigDecimal quoteShippingFee(String zone, int quantity) {
+        return shippingTariff.quote(zone, quantity).fee();
+    }
+
+    public List<ShippingTariff.Quote> quoteAll(List<ShippingTariff.Request> requests) {
+        return shippingTariff.quoteAll(requests);
     }
 
     @Transactional
     public Delivery attachDelivery(Order order, Address address, String zone, BigDecimal fee) {
+        return deliveryRepository.save(newDelivery(order, address, zone, fee));
+    }
+
+    /**
+     * Livraison non enregistrée : persistée par cascade avec une commande encore en construction.
+     */
+    public Delivery newDelivery(Order order, Address address, String zone, BigDecimal fee) {
         Delivery d = new Delivery();
         d.setOrder(order);
         d.setAddress(address);
         d.setZone(zone);
         d.setShippingFee(fee);
         d.setStatus(DeliveryStatus.PENDING);
-        return deliveryRepository.save(d);
+        return d;
     }
 
     @Transactional
@@ -15,8 +15,6 @@ public class InfluenceurService {
 
     public Optional<Influenceur> findByPromoCode(String code) {
         if (code == null || code.isBlank()) return Optional.empty();
-        return influenceurRepository.findAll().stream()
-                .filter(i -> code.equalsIgnoreCase(i.getPromoCode()))
-                .findFirst();
+        return influenceurRepository.findFirstByPromoCodeIgnoreCase(code.trim());
     }
 }
@@ -1,7 +1,11 @@
 package com.pneumaliback.www.service;
 
+import com.pneumaliback.www.entity.User;
+import com.pneumaliback.www.enums.Role;
+import com.pneumaliback.www.security.ParsedToken;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -11,6 +15,7 @@ import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Service
@@ -23,9 +28,44 @@ public class JwtService {
     @Value("${jwt.expiration}")
     private long jwtExpiration;
 
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_VERSION = "ver";
+    public static final String CLAIM_FAMILY = "fid";
+
+    // Clé et parser sont immuables et thread-safe : construits une fois
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secretKey.getBytes());
+        parser = Jwts.parser().verifyWith(signingKey).build();
+    }
+
     private SecretKey getSigningKey() {
-        byte[] keyBytes = secretKey.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signingKey;
+    }
+
+    /**
+     * Vérifie le jeton (signature, expiration) et en lit les claims en une passe.
+     */
+    public ParsedToken parse(String token) {
+        Claims claims = extractAllClaims(token);
+        Object role = claims.get(CLAIM_ROLE);
+        return new ParsedToken(
+                claims.getId(),
+                claims.getSubject(),
+                asLong(claims.get(CLAIM_USER_ID)),
+                role instanceof String r ? Role.valueOf(r) : null,
+                claims.get(CLAIM_VERSION) instanceof Number v ? v.intValue() : null,
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null,
+                claims.get(CLAIM_FAMILY) instanceof String f ? f : null);
+    }
+
+    private static Long asLong(Object value) {
+        return value instanceof Number n ? n.longValue() : null;
     }
 
     public String extractUsername(String token) {
@@ -43,11 +83,7 @@ public class JwtService {
 
     private Claims extractAllClaims(String token) {
         try {
-            return Jwts.parser()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            return parser.parseSignedClaims(token).getPayload();
         } catch (JwtException | IllegalArgumentException e) {
             log.error("Erreur lors de l'extraction des claims JWT: {}", e.getMessage());
             throw new JwtException("Token JWT invalide");
@@ -59,7 +95,20 @@ public class JwtService {
     }
 
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
-        return buildToken(extraClaims, userDetails, jwtExpiration);
+        return buildToken(withIdentity(extraClaims, userDetails), userDetails, jwtExpiration);
+    }
+
+    /**
+     * Ajoute l'identifiant, le rôle et la version des jetons de l'utilisateur, qui
+     * permettent d'authentifier les requêtes sans relire la base.
+     */
+    private static Map<String, Object> withIdentity(Map<String, Object> extraClaims, UserDetails userDetails) {
+        if (!(userDetails instanceof User user) || user.getId() == null || user.getRole() == null) return extraClaims;
+        Map<String, Object> claims = new HashMap<>(extraClaims);
+        claims.put(CLAIM_USER_ID, user.getId());
+        claims.put(CLAIM_ROLE, user.getRole().name());
+        claims.put(CLAIM_VERSION, user.getTokenVersion());
+        return claims;
     }
 
     public String generateRefreshToken(UserDetails userDetails) {
@@ -70,6 +119,7 @@ public class JwtService {
         return Jwts.builder()
                 .setClaims(extraClaims)
                 .setSubject(userDetails.getUsername())
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
                 .signWith(getSigningKey(), SignatureAlgorithm.HS256)
@@ -77,8 +127,8 @@ public class JwtService {
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+        // Le parser rejette déjà les jetons expirés
+        return userDetails.getUsername().equals(parse(token).subject());
     }
 
     public boolean isTokenExpired(String token) {
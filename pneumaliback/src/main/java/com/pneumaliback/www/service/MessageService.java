@@ -1,13 +1,18 @@
 package com.pneumaliback.www.service;
 
+import com.pneumaliback.www.dto.CursorPage;
 import com.pneumaliback.www.entity.Message;
 import com.pneumaliback.www.entity.User;
 import com.pneumaliback.www.repository.MessageRepository;
 import com.pneumaliback.www.repository.UserRepository;
 import com.pneumaliback.www.service.NotificationService;
+import com.pneumaliback.www.service.auth.PrincipalCache;
+import com.pneumaliback.www.service.auth.UserSnapshot;
+import com.pneumaliback.www.service.pagination.SeekCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -26,6 +31,7 @@ public class MessageService {
     private final MessageRepository messageRepository;
     private final UserRepository userRepository;
     private final NotificationService notificationService;
+    private final PrincipalCache principalCache;
 
     public Message send(Long authorId, Long recipientId, String content) {
         log.info("Message: {} -> {}", authorId, recipientId);
@@ -58,6 +64,19 @@ public class MessageService {
         return messageRepository.conversation(utilisateur1, utilisateur2, pageable);
     }
 
+    /**
+     * Historique d'une conversation par curseur (plus récents d'abord), sans COUNT ni OFFSET.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Message> conversation(Long utilisateur1, Long utilisateur2, String cursor, int size) {
+        PageRequest limit = PageRequest.of(0, SeekCursor.checkSize(size) + 1);
+        SeekCursor before = SeekCursor.decode(cursor, "recent");
+        List<Message> rows = before == null
+                ? messageRepository.conversationRecent(utilisateur1, utilisateur2, limit)
+                : messageRepository.conversationBefore(utilisateur1, utilisateur2, before.keyAsDateTime(), before.id(), limit);
+        return CursorPage.of(rows, size, m -> SeekCursor.of("recent", m.getSentAt(), m.getId()).encode());
+    }
+
     public int markConversationRead(Long recipientId, Long authorId) {
         return messageRepository.marquerConversationLue(recipientId, authorId);
     }
@@ -82,9 +101,9 @@ public class MessageService {
                     String apercu = content != null ? content.replace('\n', ' ').replace('\r', ' ').trim() : "";
                     if (apercu.length() > 120)
                         apercu = apercu.substring(0, 119) + "\u2026";
-                    var userOpt = userRepository.findById(interlocuteurId);
-                    String lastName = userOpt.map(u -> u.getLastName()).orElse("");
-                    String firstName = userOpt.map(u -> u.getFirstName()).orElse("");
+                    var userOpt = principalCache.byId(interlocuteurId);
+                    String lastName = userOpt.map(UserSnapshot::lastName).orElse("");
+                    String firstName = userOpt.map(UserSnapshot::firstName).orElse("");
 
                     java.util.Map<String, Object> m = new java.util.HashMap<>();
                     m.put("interlocuteurId", interlocuteurId);
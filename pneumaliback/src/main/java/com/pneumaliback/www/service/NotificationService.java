@@ -1,15 +1,21 @@
 package com.pneumaliback.www.service;
 
+import com.pneumaliback.www.dto.CursorPage;
 import com.pneumaliback.www.dto.NotificationRechercheDTO;
 import com.pneumaliback.www.entity.Notification;
 import com.pneumaliback.www.entity.User;
+import com.pneumaliback.www.enums.Role;
 import com.pneumaliback.www.repository.NotificationRepository;
 import com.pneumaliback.www.repository.UserRepository;
+import com.pneumaliback.www.service.auth.PrincipalCache;
+import com.pneumaliback.www.service.pagination.SeekCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -25,6 +31,7 @@ public class NotificationService {
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
     private final SimpMessagingTemplate messagingTemplate;
+    private final PrincipalCache principalCache;
 
     @Transactional
     public Notification notify(User recipient, String title, String content) {
@@ -47,11 +54,36 @@ public class NotificationService {
         return notification;
     }
 
+    /**
+     * Notifie tous les administrateurs, hors du thread appelant (alertes déclenchées
+     * après commit d'une transaction métier).
+     */
+    @Async
+    @Transactional
+    public void notifyAdmins(String title, String content, String type) {
+        for (User admin : userRepository.findByRole(Role.ADMIN)) {
+            notify(admin, title, content, type);
+        }
+    }
+
     @Transactional(readOnly = true)
     public Page<Notification> list(Long userId, Pageable pageable) {
         return notificationRepository.findByRecipientIdOrderByCreatedAtDesc(userId, pageable);
     }
 
+    /**
+     * Notifications d'un utilisateur par curseur (plus récentes d'abord), sans COUNT ni OFFSET.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Notification> list(Long userId, String cursor, int size) {
+        PageRequest limit = PageRequest.of(0, SeekCursor.checkSize(size) + 1);
+        SeekCursor after = SeekCursor.decode(cursor, "recent");
+        List<Notification> rows = after == null
+                ? notificationRepository.findRecent(userId, limit)
+                : notificationRepository.findRecentAfter(userId, after.keyAsDateTime(), after.id(), limit);
+        return CursorPage.of(rows, size, n -> SeekCursor.of("recent", n.getCreatedAt(), n.getId()).encode());
+    }
+
     @Transactional(readOnly = true)
     public Page<Notification> unread(Long userId, Pageable pageable) {
         return notificationRepository.findNonLues(userId, pageable);
@@ -118,10 +150,20 @@ public class NotificationService {
      * Envoie le count des notifications non lues via WebSocket
      */
     public void sendUnreadCount(User user) {
-        String destination = "/topic/notifications/" + user.getId() + "/count";
-        long count = countUnread(user.getId());
+        sendUnreadCount(user.getId());
+    }
+
+    /**
+     * Variante par identifiant : l'existence de l'utilisateur est vérifiée dans le
+     * cache des utilisateurs, sans charger l'entité.
+     */
+    public void sendUnreadCount(Long userId) {
+        principalCache.byId(userId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + userId));
+        String destination = "/topic/notifications/" + userId + "/count";
+        long count = countUnread(userId);
 
-        log.debug("Sending unread notifications count via WebSocket to user {}: {}", user.getId(), count);
+        log.debug("Sending unread notifications count via WebSocket to user {}: {}", userId, count);
         messagingTemplate.convertAndSend(destination, Map.of("count", count));
     }
 
@@ -2,98 +2,79 @@ package com.pneumaliback.www.service;
 
 import com.pneumaliback.www.entity.Order;
 import com.pneumaliback.www.entity.OrderItem;
-import com.pneumaliback.www.entity.Promotion;
-import com.pneumaliback.www.enums.PromotionType;
 import com.pneumaliback.www.enums.OrderStatus;
+import com.pneumaliback.www.service.pricing.Money;
+import com.pneumaliback.www.service.pricing.PriceLine;
+import com.pneumaliback.www.service.pricing.PriceQuote;
+import com.pneumaliback.www.service.pricing.PricingEngine;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.util.Objects;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class OrderService {
     private final CommissionService commissionService;
+    private final PopularityService popularityService;
+    private final PricingEngine pricingEngine;
+    private final StockReservationService stockReservationService;
 
+    /**
+     * Calcule sous-total, remise, frais de livraison et total via le moteur de prix.
+     */
     public void computeTotals(Order order) {
-        // Subtotal = sum(qty * unitPrice)
-        BigDecimal subtotal = order.getItems().stream()
-                .map(this::lineTotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        List<PriceLine> lines = order.getItems().stream()
+                .map(OrderService::toLine)
+                .toList();
+        BigDecimal shipping = order.getDelivery() != null ? order.getDelivery().getShippingFee() : null;
+        PriceQuote quote = pricingEngine.quote(lines, order.getPromotion(), shipping);
 
-        // Discount from promotion (if any)
-        BigDecimal discount = computeDiscount(subtotal, order.getPromotion());
-
-        // Shipping fee from delivery (if any)
-        BigDecimal shipping = order.getDelivery() != null && order.getDelivery().getShippingFee() != null
-                ? order.getDelivery().getShippingFee()
-                : BigDecimal.ZERO;
-
-        // Total = subtotal - discount + shipping
-        BigDecimal total = subtotal.subtract(discount).add(shipping);
-        if (total.compareTo(BigDecimal.ZERO) < 0) {
-            total = BigDecimal.ZERO; // never negative
-        }
-
-        order.setSubtotal(subtotal);
-        order.setDiscountTotal(discount);
-        order.setShippingFee(shipping);
-        order.setTotalAmount(total);
+        order.setSubtotal(Money.toAmount(quote.subtotal()));
+        order.setDiscountTotal(Money.toAmount(quote.discount()));
+        order.setShippingFee(Money.toAmount(quote.shipping()));
+        order.setTotalAmount(Money.toAmount(quote.total()));
     }
 
-    private BigDecimal lineTotal(OrderItem item) {
-        if (item.getUnitPrice() == null) return BigDecimal.ZERO;
-        BigDecimal qty = BigDecimal.valueOf(item.getQuantity());
-        return item.getUnitPrice().multiply(qty);
+    private static PriceLine toLine(OrderItem item) {
+        return new PriceLine(item.getProduct() != null ? item.getProduct().getId() : null,
+                item.getQuantity(), Money.toMinor(item.getUnitPrice()));
     }
 
-    private BigDecimal computeDiscount(BigDecimal subtotal, Promotion promo) {
-        if (promo == null) return BigDecimal.ZERO;
-        PromotionType type = promo.getType();
-        if (type == null) return BigDecimal.ZERO;
-
-        switch (type) {
-            case PERCENTAGE: {
-                if (promo.getDiscountPercentage() == null) return BigDecimal.ZERO;
-                BigDecimal percent = promo.getDiscountPercentage();
-                BigDecimal value = subtotal.multiply(percent).divide(BigDecimal.valueOf(100));
-                return clampDiscount(subtotal, value);
+    /**
+     * Confirmation manuelle (administrateur) : les réservations de la commande sont
+     * rendues définitives comme pour un paiement. Si une partie du stock ne peut plus
+     * être reprise, rien n'est modifié et la confirmation est refusée.
+     */
+    @Transactional
+    public void confirmReserved(Order order) {
+        if (order.getStatus() != OrderStatus.CONFIRMED) {
+            List<StockReservationService.Shortfall> missing = stockReservationService.commit(order);
+            if (!missing.isEmpty()) {
+                String detail = missing.stream()
+                        .map(s -> "produit " + s.productId() + " x" + s.quantity())
+                        .collect(Collectors.joining(", "));
+                throw new IllegalArgumentException("Stock insuffisant pour confirmer la commande (" + detail + ")");
             }
-            case FIXED_AMOUNT: {
-                if (promo.getDiscountAmount() == null) return BigDecimal.ZERO;
-                return clampDiscount(subtotal, promo.getDiscountAmount());
-            }
-            case BUY_ONE_GET_ONE: {
-                // Minimal implementation: apply zero here; implement line-level BOGO in pricing engine if needed
-                return BigDecimal.ZERO;
-            }
-            case INFLUENCER_CODE: {
-                // Traitement via pourcentage/montant déjà saisi; si aucun, 0
-                BigDecimal viaPercent = promo.getDiscountPercentage() != null
-                        ? subtotal.multiply(promo.getDiscountPercentage()).divide(BigDecimal.valueOf(100))
-                        : BigDecimal.ZERO;
-                BigDecimal viaAmount = Objects.requireNonNullElse(promo.getDiscountAmount(), BigDecimal.ZERO);
-                BigDecimal value = viaPercent.max(viaAmount);
-                return clampDiscount(subtotal, value);
-            }
-            default:
-                return BigDecimal.ZERO;
         }
+        confirm(order);
     }
 
-    private BigDecimal clampDiscount(BigDecimal base, BigDecimal discount) {
-        if (discount == null) return BigDecimal.ZERO;
-        if (discount.compareTo(BigDecimal.ZERO) < 0) return BigDecimal.ZERO;
-        if (discount.compareTo(base) > 0) return base;
-        return discount;
-    }
-
+    /**
+     * Passe la commande en CONFIRMED ; les réservations de stock doivent déjà être
+     * rendues définitives (StockReservationService.commit).
+     */
     public void confirm(Order order) {
         if (order == null) return;
+        boolean alreadyConfirmed = order.getStatus() == OrderStatus.CONFIRMED;
         order.setStatus(OrderStatus.CONFIRMED);
-        computeTotals(order);
+        // Totaux figés au checkout : pas de nouveau calcul s'ils sont déjà présents
+        if (order.getTotalAmount() == null) computeTotals(order);
         commissionService.createIfEligible(order);
+        if (!alreadyConfirmed) popularityService.recordSale(order);
         // Persistence is delegated to the caller to avoid redundant saves
     }
 }
@@ -1,13 +1,16 @@
 package com.pneumaliback.www.service;
 
 import com.pneumaliback.www.enums.PaymentMethod;
+import com.pneumaliback.www.enums.OrderStatus;
 import com.pneumaliback.www.enums.PaymentStatus;
 import com.pneumaliback.www.entity.Payment;
 import com.pneumaliback.www.entity.Order;
 import com.pneumaliback.www.repository.PaymentRepository;
 import com.pneumaliback.www.repository.OrderRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Arrays;
 import java.util.List;
@@ -15,11 +18,14 @@ import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class PaymentService {
 
     private final PaymentRepository paymentRepository;
     private final OrderRepository orderRepository;
     private final OrderService orderService;
+    private final StockReservationService stockReservationService;
+    private final NotificationService notificationService;
 
     // Order chosen to prioritize user experience in Mali
     private static final List<PaymentMethod> ORDERED_METHODS = List.of(
@@ -50,16 +56,61 @@ public class PaymentService {
                 .collect(Collectors.toList());
     }
 
-    public void confirmSuccessByTransaction(String transactionReference) {
-        if (transactionReference == null || transactionReference.isBlank()) return;
-        paymentRepository.findByTransactionReference(transactionReference).ifPresent(payment -> {
+    public enum CallbackOutcome { CONFIRMED, DUPLICATE, UNKNOWN_PAYMENT, REJECTED }
+
+    /**
+     * Applique un callback de succès : paiement PENDING → SUCCESS, puis commande → CONFIRMED.
+     * Rejouer le même callback ne refait rien (DUPLICATE) ; un paiement échoué ou remboursé
+     * n'est pas modifié (REJECTED). La version optimiste du paiement protège des
+     * traitements concurrents sur plusieurs instances.
+     *
+     * Une commande annulée n'est relancée que si l'annulation vient de l'expiration de
+     * ses réservations ; si le stock ne peut plus être repris, elle passe en
+     * PAYMENT_REVIEW (remboursement ou complément manuel) au lieu d'être confirmée.
+     */
+    @Transactional
+    public CallbackOutcome confirmSuccessByTransaction(String transactionReference) {
+        if (transactionReference == null || transactionReference.isBlank()) return CallbackOutcome.UNKNOWN_PAYMENT;
+        Payment payment = paymentRepository.findByTransactionReference(transactionReference).orElse(null);
+        if (payment == null) return CallbackOutcome.UNKNOWN_PAYMENT;
+
+        boolean changed = false;
+        if (payment.getStatus() != PaymentStatus.SUCCESS) {
+            if (!payment.getStatus().canTransitionTo(PaymentStatus.SUCCESS)) return CallbackOutcome.REJECTED;
             payment.setStatus(PaymentStatus.SUCCESS);
-            Payment savedPayment = paymentRepository.save(payment);
-            Order order = savedPayment.getOrder();
-            if (order != null) {
+            changed = true;
+        }
+        Order order = payment.getOrder();
+        if (order != null && awaitsPayment(order)) {
+            List<StockReservationService.Shortfall> missing = stockReservationService.commit(order);
+            if (missing.isEmpty()) {
                 orderService.confirm(order);
-                orderRepository.save(order);
+            } else {
+                flagForReview(order, missing);
             }
-        });
+            orderRepository.save(order);
+            changed = true;
+        }
+        return changed ? CallbackOutcome.CONFIRMED : CallbackOutcome.DUPLICATE;
+    }
+
+    /**
+     * Transitions vers CONFIRMED autorisées par un paiement : PENDING, ou CANCELED
+     * uniquement à l'expiration des réservations (garde explicite).
+     */
+    private boolean awaitsPayment(Order order) {
+        return order.getStatus() == OrderStatus.PENDING || stockReservationService.isCanceledByExpiry(order);
+    }
+
+    private void flagForReview(Order order, List<StockReservationService.Shortfall> missing) {
+        order.setStatus(OrderStatus.PAYMENT_REVIEW);
+        String detail = missing.stream()
+                .map(s -> "produit " + s.productId() + " x" + s.quantity())
+                .collect(Collectors.joining(", "));
+        log.error("Commande {} payée après expiration de sa réservation, stock insuffisant ({}) : à rembourser ou compléter",
+                order.getId(), detail);
+        notificationService.notifyAdmins("Commande payée sans stock",
+                "Commande " + order.getId() + " payée mais stock insuffisant (" + detail + ") : remboursement ou complément requis",
+                "COMMANDE");
     }
 }
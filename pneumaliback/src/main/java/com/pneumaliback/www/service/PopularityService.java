@@ -0,0 +1,146 @@
+package com.pneumaliback.www.service;
+
+import com.pneumaliback.www.entity.Order;
+import com.pneumaliback.www.entity.OrderItem;
+import com.pneumaliback.www.entity.ProductSalesStats;
+import com.pneumaliback.www.repository.ProductSalesStatsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Popularité des produits par ventes confirmées, sur fenêtres glissantes à
+ * décroissance exponentielle (7 et 30 jours).
+ *
+ * Les compteurs sont persistés dans product_sales_stats et mis à jour de façon
+ * incrémentale et atomique par OrderService.confirm. En mémoire, chaque fenêtre est classée par
+ * score « forward decay » (valeur ramenée à une date de référence fixe) : la
+ * décroissance ne modifie pas l'ordre relatif, une vente ne déplace donc qu'un seul
+ * produit dans le classement et le top N est servi tel quel.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@org.springframework.core.annotation.Order(3)
+public class PopularityService implements CommandLineRunner {
+
+    public enum Window {
+        WEEK(Duration.ofDays(7)),
+        MONTH(Duration.ofDays(30));
+
+        private final double tauSeconds;
+
+        Window(Duration tau) {
+            this.tauSeconds = tau.getSeconds();
+        }
+    }
+
+    private static final int TOP_N = 100;
+
+    private final ProductSalesStatsRepository statsRepository;
+
+    private final LocalDateTime epoch = LocalDateTime.now();
+    private final Map<Window, Ranking> rankings = initRankings();
+
+    /**
+     * Classement d'une fenêtre : scores forward decay et top N figé.
+     */
+    private static final class Ranking {
+        final Map<Long, Double> scores = new HashMap<>();
+        final TreeSet<Long> ordered = new TreeSet<>(
+                Comparator.<Long>comparingDouble(id -> -scores.get(id)).thenComparing(Function.identity()));
+        volatile List<Long> top = List.of();
+
+        synchronized void update(Long productId, double score) {
+            if (scores.containsKey(productId)) ordered.remove(productId);
+            scores.put(productId, score);
+            ordered.add(productId);
+            List<Long> head = new ArrayList<>(Math.min(TOP_N, ordered.size()));
+            for (Long id : ordered) {
+                if (head.size() == TOP_N) break;
+                head.add(id);
+            }
+            top = List.copyOf(head);
+        }
+    }
+
+    private static Map<Window, Ranking> initRankings() {
+        Map<Window, Ranking> map = new EnumMap<>(Window.class);
+        for (Window w : Window.values()) map.put(w, new Ranking());
+        return map;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void run(String... args) {
+        try {
+            List<ProductSalesStats> all = statsRepository.findAll();
+            all.forEach(this::rank);
+            log.info("Classement de popularité chargé: {} produits vendus", all.size());
+        } catch (Exception e) {
+            log.error("Impossible de charger les statistiques de ventes", e);
+        }
+    }
+
+    /**
+     * Identifiants des produits les plus vendus sur la fenêtre, du plus au moins vendu
+     * (au plus TOP_N). Liste partagée, non modifiable.
+     */
+    public List<Long> topProductIds(Window window) {
+        return rankings.get(window).top;
+    }
+
+    /**
+     * Ajoute les lignes d'une commande confirmée aux compteurs de ventes.
+     * Chaque produit est mis à jour par un upsert atomique (décroissance calculée en
+     * base), dans l'ordre des identifiants pour que deux confirmations concurrentes
+     * verrouillent les lignes dans le même ordre. Le classement en mémoire n'est mis
+     * à jour qu'après le commit.
+     */
+    @Transactional
+    public void recordSale(Order order) {
+        if (order == null || order.getItems().isEmpty()) return;
+        LocalDateTime now = LocalDateTime.now();
+
+        Map<Long, long[]> units = new TreeMap<>();
+        Map<Long, BigDecimal> revenue = new HashMap<>();
+        for (OrderItem item : order.getItems()) {
+            Long productId = item.getProduct().getId();
+            units.computeIfAbsent(productId, k -> new long[1])[0] += item.getQuantity();
+            BigDecimal line = item.getUnitPrice() != null
+                    ? item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity()))
+                    : BigDecimal.ZERO;
+            revenue.merge(productId, line, BigDecimal::add);
+        }
+
+        units.forEach((productId, qty) -> statsRepository.addSale(productId, qty[0], revenue.get(productId), now,
+                Window.WEEK.tauSeconds, Window.MONTH.tauSeconds));
+        List<ProductSalesStats> updated = statsRepository.findByProductIdIn(units.keySet());
+        TransactionHooks.afterCommit(() -> updated.forEach(this::rank));
+    }
+
+    private void rank(ProductSalesStats stats) {
+        if (stats.getLastSaleAt() == null) return;
+        Long productId = stats.getProduct().getId();
+        double sinceEpoch = Duration.between(epoch, stats.getLastSaleAt()).getSeconds();
+        rankings.get(Window.WEEK).update(productId,
+                stats.getUnits7d() * Math.exp(sinceEpoch / Window.WEEK.tauSeconds));
+        rankings.get(Window.MONTH).update(productId,
+                stats.getUnits30d() * Math.exp(sinceEpoch / Window.MONTH.tauSeconds));
+    }
+}
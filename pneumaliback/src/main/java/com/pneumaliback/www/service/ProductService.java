@@ -1,54 +1,194 @@
 package com.pneumaliback.www.service;
 
+import com.pneumaliback.www.dto.CursorPage;
+import com.pneumaliback.www.dto.ProductSummaryDTO;
 import com.pneumaliback.www.entity.Category;
 import com.pneumaliback.www.entity.Product;
 import com.pneumaliback.www.repository.ProductRepository;
+import com.pneumaliback.www.service.catalog.AutocompleteIndex;
+import com.pneumaliback.www.service.catalog.CatalogIndex;
+import com.pneumaliback.www.service.catalog.ProductSearchIndex;
+import com.pneumaliback.www.service.catalog.TireDimensionIndex;
+import com.pneumaliback.www.service.catalog.TireSize;
+import com.pneumaliback.www.service.pagination.SeekCursor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService {
 
     private final ProductRepository productRepository;
+    private final CatalogIndex catalogIndex;
+    private final TireDimensionIndex tireDimensionIndex;
+    private final ProductSearchIndex productSearchIndex;
+    private final AutocompleteIndex autocompleteIndex;
+    private final PopularityService popularityService;
+    private final StockAlertService stockAlertService;
 
-    public Page<Product> listActive(Pageable pageable) {
-        return productRepository.findByActiveTrue(pageable);
+    public Page<ProductSummaryDTO> listActive(Pageable pageable) {
+        return productRepository.findActiveSummaries(pageable);
     }
 
-    public Page<Product> findWithFilters(Category category,
-                                         String brand,
-                                         String size,
-                                         String season,
-                                         BigDecimal minPrice,
-                                         BigDecimal maxPrice,
-                                         Pageable pageable) {
-        return productRepository.findWithFilters(category, brand, size, season, minPrice, maxPrice, pageable);
+    /**
+     * Produits actifs par curseur, sans COUNT ni OFFSET.
+     * Tris : recent (date de création décroissante), price_asc, price_desc.
+     */
+    public CursorPage<ProductSummaryDTO> listActive(String sort, String cursor, int size) {
+        PageRequest limit = PageRequest.of(0, SeekCursor.checkSize(size) + 1);
+        SeekCursor after = SeekCursor.decode(cursor, sort);
+        List<ProductSummaryDTO> rows = switch (sort) {
+            case "recent" -> after == null ? productRepository.findActiveRecent(limit)
+                    : productRepository.findActiveRecentAfter(after.keyAsDateTime(), after.id(), limit);
+            case "price_asc" -> after == null ? productRepository.findActiveByPriceAsc(limit)
+                    : productRepository.findActiveByPriceAscAfter(after.keyAsDecimal(), after.id(), limit);
+            case "price_desc" -> after == null ? productRepository.findActiveByPriceDesc(limit)
+                    : productRepository.findActiveByPriceDescAfter(after.keyAsDecimal(), after.id(), limit);
+            default -> throw new IllegalArgumentException("Tri invalide (recent, price_asc, price_desc)");
+        };
+        return CursorPage.of(rows, size, p -> ("recent".equals(sort)
+                ? SeekCursor.of(sort, p.createdAt(), p.id())
+                : SeekCursor.of(sort, p.price(), p.id())).encode());
     }
 
-    public Page<Product> searchActive(String searchTerm, Pageable pageable) {
-        return productRepository.searchProducts(searchTerm, pageable);
+    public Page<ProductSummaryDTO> findWithFilters(Category category,
+                                                   String brand,
+                                                   String size,
+                                                   String season,
+                                                   BigDecimal minPrice,
+                                                   BigDecimal maxPrice,
+                                                   Pageable pageable) {
+        CatalogIndex.Query query = new CatalogIndex.Query(category != null ? category.getId() : null,
+                brand, size, season, null, minPrice, maxPrice);
+        return catalogIndex.findWithFilters(query, pageable)
+                .orElseGet(() -> productRepository.findWithFilters(category, brand, size, season, minPrice, maxPrice, pageable));
+    }
+
+    public Page<ProductSummaryDTO> searchActive(String searchTerm, Pageable pageable) {
+        if (searchTerm == null || searchTerm.isBlank()) throw new IllegalArgumentException("Terme de recherche requis");
+        if (productSearchIndex.isReady()) {
+            Optional<Page<ProductSummaryDTO>> page = catalogIndex.rankedPage(productSearchIndex.search(searchTerm), pageable);
+            if (page.isPresent()) return page.get();
+        }
+        return productRepository.searchProducts(searchTerm.trim(), pageable);
+    }
+
+    public List<AutocompleteIndex.Suggestion> autocomplete(String prefix, int limit) {
+        if (limit < 1 || limit > AutocompleteIndex.MAX_SUGGESTIONS) {
+            throw new IllegalArgumentException("Limite invalide (1-" + AutocompleteIndex.MAX_SUGGESTIONS + ")");
+        }
+        return autocompleteIndex.suggest(prefix, limit);
     }
 
     public Product save(Product product) {
-        return productRepository.save(product);
+        TireSize.fill(product);
+        Product saved = productRepository.save(product);
+        // Recharger pour indexer la catégorie complète (le corps JSON ne porte souvent que son id)
+        Product indexed = productRepository.findById(saved.getId()).orElse(saved);
+        catalogIndex.upsert(indexed);
+        tireDimensionIndex.upsert(indexed);
+        productSearchIndex.upsert(indexed);
+        autocompleteIndex.upsert(indexed);
+        stockAlertService.observe(indexed);
+        return saved;
     }
 
-    public Page<Product> popular(Pageable pageable) {
-        return productRepository.findPopular(pageable);
+    @Transactional
+    public boolean decreaseStock(Long productId, int quantity) {
+        if (quantity <= 0) throw new IllegalArgumentException("Quantité invalide");
+        boolean updated = productRepository.decreaseStock(productId, quantity) > 0;
+        if (updated) TransactionHooks.afterCommit(() -> {
+            catalogIndex.adjustStock(productId, -quantity);
+            catalogIndex.get(productId).ifPresent(stockAlertService::observe);
+        });
+        return updated;
+    }
+
+    @Transactional
+    public void increaseStock(Long productId, int quantity) {
+        if (quantity <= 0) throw new IllegalArgumentException("Quantité invalide");
+        productRepository.increaseStock(productId, quantity);
+        TransactionHooks.afterCommit(() -> {
+            catalogIndex.adjustStock(productId, quantity);
+            catalogIndex.get(productId).ifPresent(stockAlertService::observe);
+        });
+    }
+
+    /**
+     * Produits les plus vendus sur la fenêtre, lus dans le classement précalculé.
+     * Tant qu'aucune vente n'est enregistrée, renvoie simplement les produits actifs.
+     */
+    public Page<ProductSummaryDTO> popular(PopularityService.Window window, Pageable pageable) {
+        List<Long> top = popularityService.topProductIds(window);
+        if (top.isEmpty()) return productRepository.findActiveSummaries(pageable);
+        return catalogIndex.rankedPage(top, pageable)
+                .orElseGet(() -> {
+                    List<ProductSummaryDTO> ordered = new ArrayList<>(productRepository.findActiveSummariesByIdIn(top));
+                    ordered.sort(Comparator.comparingInt(p -> top.indexOf(p.id())));
+                    int from = (int) Math.min(pageable.getOffset(), ordered.size());
+                    int to = pageable.isPaged() ? Math.min(from + pageable.getPageSize(), ordered.size()) : ordered.size();
+                    return new PageImpl<>(ordered.subList(from, to), pageable, ordered.size());
+                });
     }
 
     public List<String> brands() {
         return productRepository.findAllDistinctBrands();
     }
 
-    public Page<Product> findByDimensions(String width, String profile, String diameter, Pageable pageable) {
-        return productRepository.findByDimensions(width, profile, diameter, pageable);
+    public Page<ProductSummaryDTO> findByDimensions(String width, String profile, String diameter, Pageable pageable) {
+        Integer w = parseDimension(width, "Largeur invalide");
+        Integer ar = parseDimension(profile, "Profil invalide");
+        BigDecimal rim = parseRim(diameter);
+        if (w == null && ar == null && rim == null) {
+            // Sans critère, la requête JPQL renvoie tout le catalogue actif en stock,
+            // y compris les produits dont la taille n'est pas reconnue
+            return findWithFilters(null, null, null, null, null, null, pageable);
+        }
+        if (tireDimensionIndex.isReady()) {
+            Optional<Page<ProductSummaryDTO>> page = catalogIndex.findAmong(tireDimensionIndex.exact(w, ar, rim), pageable);
+            if (page.isPresent()) return page.get();
+        }
+        return productRepository.findByDimensions(w, ar, rim, pageable);
+    }
+
+    /**
+     * Dimensions équivalentes : diamètre extérieur à ±tolerancePercent de la dimension demandée.
+     */
+    public Page<ProductSummaryDTO> findEquivalentSizes(String size, double tolerancePercent, Pageable pageable) {
+        TireSize reference = TireSize.parse(size).orElseThrow(() -> new IllegalArgumentException("Dimension invalide"));
+        if (tolerancePercent < 0 || tolerancePercent > 10) throw new IllegalArgumentException("Tolérance invalide (0-10 %)");
+        return catalogIndex.findAmong(tireDimensionIndex.equivalents(reference, tolerancePercent), pageable)
+                .orElseGet(() -> productRepository.findByDimensions(reference.width(), reference.aspectRatio(),
+                        reference.rimDiameter(), pageable));
     }
-}
 
+    private Integer parseDimension(String value, String error) {
+        if (value == null || value.isBlank()) return null;
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    private BigDecimal parseRim(String value) {
+        if (value == null || value.isBlank()) return null;
+        try {
+            String normalized = value.trim().toUpperCase().replaceFirst("^Z?R", "").replace(',', '.');
+            return new BigDecimal(normalized).setScale(1, java.math.RoundingMode.UNNECESSARY);
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("Diamètre invalide");
+        }
+    }
+}
\ No newline at end of file
@@ -5,10 +5,10 @@ import com.pneumaliback.www.entity.Influenceur;
 import com.pneumaliback.www.dto.PromotionCreateDTO;
 import com.pneumaliback.www.repository.PromotionRepository;
 import com.pneumaliback.www.repository.InfluenceurRepository;
+import com.pneumaliback.www.service.promotion.PromoCodeIndex;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDate;
 import java.util.Optional;
 
 @Service
@@ -16,29 +16,21 @@ import java.util.Optional;
 public class PromotionService {
 
     private final PromotionRepository promotionRepository;
-    private final InfluenceurService influenceurService;
     private final InfluenceurRepository influenceurRepository;
+    private final PromoCodeIndex promoCodeIndex;
 
+    /**
+     * Promotion valide aujourd'hui pour ce code (insensible à la casse), sans accès base.
+     */
     public Optional<Promotion> findValidByCode(String code) {
-        if (code == null || code.isBlank()) return Optional.empty();
-        String normalized = code.trim();
-        LocalDate today = LocalDate.now();
-        return promotionRepository.findAll().stream()
-                .filter(p -> normalized.equalsIgnoreCase(p.getCode()))
-                .filter(p -> (p.getStartDate() == null || !today.isBefore(p.getStartDate())))
-                .filter(p -> (p.getEndDate() == null || !today.isAfter(p.getEndDate())))
-                .findFirst();
+        return promoCodeIndex.findByCode(code);
     }
 
+    /**
+     * Promotion valide aujourd'hui rattachée à l'influenceur qui porte ce code.
+     */
     public Optional<Promotion> resolveFromInfluencerCode(String code) {
-        if (code == null || code.isBlank()) return Optional.empty();
-        LocalDate today = LocalDate.now();
-        return influenceurService.findByPromoCode(code)
-                .flatMap(inf -> promotionRepository.findAll().stream()
-                        .filter(p -> p.getInfluenceur() != null && p.getInfluenceur().getId().equals(inf.getId()))
-                        .filter(p -> (p.getStartDate() == null || !today.isBefore(p.getStartDate())))
-                        .filter(p -> (p.getEndDate() == null || !today.isAfter(p.getEndDate())))
-                        .findFirst());
+        return promoCodeIndex.findByInfluencerCode(code);
     }
 
     public Promotion create(PromotionCreateDTO dto) {
@@ -79,6 +71,8 @@ public class PromotionService {
             p.setInfluenceur(inf);
         }
 
-        return promotionRepository.save(p);
+        Promotion saved = promotionRepository.save(p);
+        promoCodeIndex.invalidate();
+        return saved;
     }
 }
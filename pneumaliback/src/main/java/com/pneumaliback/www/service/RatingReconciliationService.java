@@ -0,0 +1,25 @@
+package com.pneumaliback.www.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RatingReconciliationService {
+
+    private final ReviewService reviewService;
+
+    @Scheduled(cron = "0 30 2 * * ?") // Tous les jours à 2h30 du matin
+    public void reconcileRatings() {
+        log.info("Début de la réconciliation des notes produits...");
+        try {
+            int fixed = reviewService.reconcileRatings();
+            log.info("Réconciliation des notes terminée: {} produit(s) corrigé(s)", fixed);
+        } catch (Exception e) {
+            log.error("Erreur lors de la réconciliation des notes produits", e);
+        }
+    }
+}
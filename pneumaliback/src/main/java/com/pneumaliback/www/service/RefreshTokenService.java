@@ -3,18 +3,33 @@ package com.pneumaliback.www.service;
 import com.pneumaliback.www.entity.RefreshToken;
 import com.pneumaliback.www.entity.User;
 import com.pneumaliback.www.repository.RefreshTokenRepository;
+import com.pneumaliback.www.security.exceptions.AuthenticationException;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.HexFormat;
 import java.util.Optional;
 import java.util.UUID;
 
+/**
+ * Refresh tokens par famille (une famille = une session d'appareil).
+ *
+ * - Une connexion ouvre une nouvelle famille sans toucher aux sessions des autres
+ * appareils.
+ * - Un renouvellement échange le jeton contre un successeur de la même famille
+ * (rotation) ; présenter de nouveau un jeton déjà échangé trahit une copie du jeton :
+ * toute la famille est alors révoquée.
+ * - Seule l'empreinte SHA-256 du jeton est stockée, retrouvée par index unique.
+ * - Les jetons expirés sont purgés par lots courts (TokenCleanupService).
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -25,57 +40,72 @@ public class RefreshTokenService {
     @Value("${jwt.refresh-expiration:604800000}") // 7 jours par défaut
     private long refreshTokenDurationMs;
 
+    @Value("${app.auth.refresh-purge-batch:500}")
+    private int purgeBatchSize;
+
+    @Value("${app.auth.refresh-purge-pause-ms:100}")
+    private long purgePauseMs;
+
+    @Value("${app.auth.refresh-purge-max-batches:20}")
+    private int purgeMaxBatches;
+
     /**
-     * Crée un nouveau refresh token pour l'utilisateur
-     * 
-     * IMPORTANT (conforme au document Gestion.md) :
-     * - Supprime TOUJOURS les tokens existants AVANT de créer un nouveau
-     * - Un utilisateur ne peut avoir qu'UN SEUL refresh token actif à la fois
-     * - Évite les erreurs de contrainte unique sur user_id
+     * Ouvre une nouvelle session (famille) pour l'utilisateur.
      */
     @Transactional
     public RefreshToken createRefreshToken(User user) {
-        // Supprimer d'abord tous les tokens existants pour cet utilisateur
-        // (conformément au principe : pas de doublons)
-        deleteByUser(user);
-
-        // Créer le nouveau token
-        RefreshToken refreshToken = RefreshToken.builder()
-                .user(user)
-                .token(UUID.randomUUID().toString())
-                .expiryDate(Instant.now().plusMillis(refreshTokenDurationMs))
-                .revoked(false)
-                .build();
-
+        RefreshToken token = issue(user, UUID.randomUUID().toString());
         log.info("Nouveau refresh token créé pour l'utilisateur ID: {}", user.getId());
-        return refreshTokenRepository.save(refreshToken);
+        return token;
     }
 
-    public Optional<RefreshToken> findByToken(String token) {
-        return refreshTokenRepository.findByToken(token);
-    }
+    /**
+     * Échange un refresh token valide contre son successeur dans la même famille.
+     * Un refus n'annule pas la révocation de famille qui l'accompagne.
+     */
+    @Transactional(dontRollbackOn = AuthenticationException.class)
+    public RefreshToken rotate(String presented) {
+        RefreshToken current = findByToken(presented)
+                .orElseThrow(() -> new AuthenticationException("Refresh token invalide"));
 
-    public RefreshToken verifyExpiration(RefreshToken token) {
-        if (token.getExpiryDate().compareTo(Instant.now()) < 0) {
-            refreshTokenRepository.delete(token);
-            throw new RuntimeException("Refresh token expiré. Veuillez vous reconnecter.");
+        if (current.isRevoked()) {
+            if (current.getRotatedAt() != null && current.getFamilyId() != null) {
+                int revoked = refreshTokenRepository.revokeFamily(current.getFamilyId());
+                log.warn("Réutilisation d'un refresh token déjà échangé (utilisateur ID: {}), famille révoquée ({} jetons)",
+                        current.getUser().getId(), revoked);
+            }
+            throw new AuthenticationException("Refresh token invalide");
         }
-        return token;
+        if (current.getExpiryDate().isBefore(Instant.now())) {
+            throw new AuthenticationException("Refresh token expiré. Veuillez vous reconnecter.");
+        }
+        if (refreshTokenRepository.markRotated(current.getId(), Instant.now()) == 0) {
+            // Renouvellement concurrent avec le même jeton : un seul l'emporte
+            throw new AuthenticationException("Refresh token invalide");
+        }
+
+        // Les jetons antérieurs aux familles en ouvrent une
+        String familyId = current.getFamilyId() != null ? current.getFamilyId() : UUID.randomUUID().toString();
+        return issue(current.getUser(), familyId);
+    }
+
+    public Optional<RefreshToken> findByToken(String token) {
+        if (token == null || token.isBlank()) return Optional.empty();
+        // Les jetons hérités (UUID en clair) sont convertis en empreintes au démarrage
+        return refreshTokenRepository.findByToken(fingerprint(token));
     }
 
     /**
-     * Supprime tous les refresh tokens d'un utilisateur
-     * Utilisé pour nettoyer avant de créer un nouveau token
+     * Révoque la session (famille) d'un appareil.
      */
     @Transactional
-    public void deleteByUser(User user) {
-        refreshTokenRepository.deleteByUser(user);
-        log.debug("Tokens supprimés pour l'utilisateur ID: {}", user.getId());
+    public void revokeFamily(String familyId) {
+        int revoked = refreshTokenRepository.revokeFamily(familyId);
+        log.debug("Famille {} révoquée ({} jetons)", familyId, revoked);
     }
 
     /**
-     * Révoque tous les refresh tokens d'un utilisateur
-     * Utilisé lors de la déconnexion
+     * Révoque tous les refresh tokens d'un utilisateur (toutes ses sessions).
      */
     @Transactional
     public void revokeByUser(User user) {
@@ -83,11 +113,47 @@ public class RefreshTokenService {
         log.debug("Tokens révoqués pour l'utilisateur ID: {}", user.getId());
     }
 
-    @Scheduled(fixedRate = 86400000) // Exécution quotidienne
-    @Transactional
-    public void cleanupExpiredTokens() {
-        log.info("Nettoyage des refresh tokens expirés...");
-        refreshTokenRepository.deleteByExpiryDateBefore(Instant.now());
-        log.info("Nettoyage terminé");
+    /**
+     * Supprime les jetons expirés par lots, chaque lot dans sa propre transaction et
+     * espacé du suivant, pour ne jamais verrouiller la table longtemps.
+     */
+    public int purgeExpired() {
+        Instant now = Instant.now();
+        int total = 0;
+        for (int batch = 0; batch < purgeMaxBatches; batch++) {
+            int deleted = refreshTokenRepository.deleteExpiredBatch(now, purgeBatchSize);
+            total += deleted;
+            if (deleted < purgeBatchSize) break;
+            try {
+                Thread.sleep(purgePauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return total;
+    }
+
+    private RefreshToken issue(User user, String familyId) {
+        String plain = UUID.randomUUID().toString() + UUID.randomUUID();
+        RefreshToken token = RefreshToken.builder()
+                .user(user)
+                .token(fingerprint(plain))
+                .familyId(familyId)
+                .expiryDate(Instant.now().plusMillis(refreshTokenDurationMs))
+                .revoked(false)
+                .build();
+        RefreshToken saved = refreshTokenRepository.save(token);
+        saved.setPlainToken(plain);
+        return saved;
+    }
+
+    static String fingerprint(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
     }
 }
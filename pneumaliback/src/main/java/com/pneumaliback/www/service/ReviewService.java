@@ -1,22 +1,38 @@
 package com.pneumaliback.www.service;
 
+import com.pneumaliback.www.dto.ProductRatingDTO;
+import com.pneumaliback.www.dto.RatingAggregate;
 import com.pneumaliback.www.entity.Product;
 import com.pneumaliback.www.entity.Review;
 import com.pneumaliback.www.entity.User;
 import com.pneumaliback.www.repository.ProductRepository;
 import com.pneumaliback.www.repository.ReviewRepository;
+import com.pneumaliback.www.service.catalog.CatalogIndex;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class ReviewService {
 
+    public static final int MAX_RATINGS_BATCH = 100;
+
     private final ReviewRepository reviewRepository;
     private final ProductRepository productRepository;
+    private final CatalogIndex catalogIndex;
 
     public List<Review> listByProduct(Long productId) {
         Product p = productRepository.findById(productId).orElseThrow(() -> new RuntimeException("Produit introuvable"));
@@ -32,6 +48,55 @@ public class ReviewService {
         r.setProduct(p);
         r.setRating(rating);
         r.setComment(comment);
-        return reviewRepository.save(r);
+        Review saved = reviewRepository.save(r);
+        // Même transaction que l'avis : l'agrégat ne peut pas diverger en cas d'échec
+        productRepository.addRating(productId, rating);
+        List<RatingAggregate> aggregates = productRepository.findRatingAggregates(List.of(productId));
+        TransactionHooks.afterCommit(() -> aggregates.forEach(catalogIndex::applyRating));
+        return saved;
+    }
+
+    /**
+     * Notes d'un lot de produits (une page de catalogue) en une seule requête,
+     * dans l'ordre des identifiants demandés. Les identifiants inconnus sont ignorés.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductRatingDTO> ratings(Collection<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) throw new IllegalArgumentException("Identifiants de produits requis");
+        LinkedHashSet<Long> ids = productIds.stream().filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (ids.size() > MAX_RATINGS_BATCH) {
+            throw new IllegalArgumentException("Trop de produits (max " + MAX_RATINGS_BATCH + ")");
+        }
+        Map<Long, RatingAggregate> byId = productRepository.findRatingAggregates(ids).stream()
+                .collect(Collectors.toMap(RatingAggregate::productId, Function.identity()));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).map(ProductRatingDTO::from).toList();
+    }
+
+    /**
+     * Recalcule les agrégats de notes depuis la table des avis (un seul GROUP BY) et
+     * corrige les produits qui ont divergé. Renvoie le nombre de produits corrigés.
+     */
+    @Transactional
+    public int reconcileRatings() {
+        Map<Long, RatingAggregate> expected = new HashMap<>();
+        reviewRepository.aggregateByProduct().forEach(a -> expected.put(a.productId(), a));
+        Map<Long, RatingAggregate> stored = new HashMap<>();
+        productRepository.findRatedAggregates().forEach(a -> stored.put(a.productId(), a));
+        List<Long> unrated = expected.keySet().stream().filter(id -> !stored.containsKey(id)).toList();
+        if (!unrated.isEmpty()) {
+            productRepository.findRatingAggregates(unrated).forEach(a -> stored.put(a.productId(), a));
+        }
+
+        List<RatingAggregate> corrected = new ArrayList<>();
+        for (RatingAggregate current : stored.values()) {
+            RatingAggregate target = expected.getOrDefault(current.productId(), RatingAggregate.empty(current.productId()));
+            if (current.sameValues(target)) continue;
+            productRepository.setRatingAggregate(target.productId(), target.count(), target.sum(),
+                    target.rating1(), target.rating2(), target.rating3(), target.rating4(), target.rating5());
+            corrected.add(target);
+        }
+        TransactionHooks.afterCommit(() -> corrected.forEach(catalogIndex::applyRating));
+        return corrected.size();
     }
 }
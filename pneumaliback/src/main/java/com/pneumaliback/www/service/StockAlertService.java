@@ -0,0 +1,106 @@
+package com.pneumaliback.www.service;
+
+import com.pneumaliback.www.entity.Product;
+import com.pneumaliback.www.service.catalog.CatalogIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Surveillance incrémentale du stock : chaque mutation (réservation, remise en stock,
+ * enregistrement d'un produit) est observée après commit et comparée au dernier
+ * niveau connu. Seul le franchissement d'un seuil à la baisse déclenche une alerte
+ * (notification aux admins et diffusion sur /topic/admin/stock-alerts) ; l'ensemble
+ * des produits en alerte reste en mémoire, sans balayage périodique de la table.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockAlertService {
+
+    public static final String TOPIC = "/topic/admin/stock-alerts";
+
+    public enum Level { OK, LOW, OUT }
+
+    public record StockAlert(Long productId, String name, int stock, int threshold, Level level) {
+    }
+
+    private final NotificationService notificationService;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    @Value("${app.stock.low-threshold:5}")
+    private int defaultThreshold;
+
+    private final Map<Long, StockAlert> flagged = new ConcurrentHashMap<>();
+
+    /**
+     * Initialise l'ensemble des produits en alerte sans rien notifier (démarrage).
+     */
+    public void rebuild(Collection<Product> all) {
+        flagged.clear();
+        for (Product p : all) {
+            StockAlert state = evaluate(CatalogIndex.Entry.of(p));
+            if (state.level() != Level.OK) flagged.put(p.getId(), state);
+        }
+        log.info("Surveillance du stock initialisée: {} produit(s) en alerte", flagged.size());
+    }
+
+    /**
+     * Observe le stock courant d'un produit et alerte si un seuil vient d'être franchi.
+     */
+    public void observe(Product product) {
+        if (product == null || product.getId() == null) return;
+        observe(CatalogIndex.Entry.of(product));
+    }
+
+    public void observe(CatalogIndex.Entry product) {
+        if (product == null || product.id() == null) return;
+        StockAlert state = evaluate(product);
+        StockAlert[] previous = new StockAlert[1];
+        flagged.compute(product.id(), (id, old) -> {
+            previous[0] = old;
+            return state.level() == Level.OK ? null : state;
+        });
+        Level before = previous[0] != null ? previous[0].level() : Level.OK;
+        if (state.level().compareTo(before) > 0) publish(state);
+    }
+
+    /**
+     * Produits actuellement en rupture ou sous leur seuil, ruptures d'abord.
+     */
+    public List<StockAlert> current() {
+        return flagged.values().stream()
+                .sorted(Comparator.comparing(StockAlert::level).reversed().thenComparingInt(StockAlert::stock))
+                .toList();
+    }
+
+    private StockAlert evaluate(CatalogIndex.Entry p) {
+        int threshold = p.lowStockThreshold() != null ? p.lowStockThreshold() : defaultThreshold;
+        Level level;
+        if (!p.active()) level = Level.OK;
+        else if (p.stock() <= 0) level = Level.OUT;
+        else if (p.stock() <= threshold) level = Level.LOW;
+        else level = Level.OK;
+        return new StockAlert(p.id(), p.name(), p.stock(), threshold, level);
+    }
+
+    private void publish(StockAlert alert) {
+        log.warn("Alerte stock {} pour le produit {} ({}): {} restant(s)", alert.level(), alert.productId(), alert.name(), alert.stock());
+        try {
+            messagingTemplate.convertAndSend(TOPIC, alert);
+        } catch (Exception e) {
+            log.warn("Diffusion de l'alerte stock impossible: {}", e.getMessage());
+        }
+        String title = alert.level() == Level.OUT ? "Rupture de stock" : "Stock faible";
+        String content = alert.name() + " : " + alert.stock() + " en stock (seuil " + alert.threshold() + ")";
+        notificationService.notifyAdmins(title, content, "STOCK");
+    }
+}
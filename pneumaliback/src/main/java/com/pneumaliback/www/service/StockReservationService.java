@@ -0,0 +1,137 @@
+package com.pneumaliback.www.service;
+
+import com.pneumaliback.www.entity.Order;
+import com.pneumaliback.www.entity.OrderItem;
+import com.pneumaliback.www.entity.Product;
+import com.pneumaliback.www.entity.StockReservation;
+import com.pneumaliback.www.enums.OrderStatus;
+import com.pneumaliback.www.enums.ReservationStatus;
+import com.pneumaliback.www.repository.StockReservationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Réservations de stock à durée limitée pour les commandes en attente de paiement.
+ *
+ * Une réservation décrémente le stock par UPDATE conditionnel (stock >= quantité) :
+ * pas de lecture préalable ni de verrou applicatif, deux commandes concurrentes ne
+ * peuvent pas vendre la même unité. Les produits sont réservés par id croissant pour
+ * éviter les interblocages entre paniers qui se recouvrent.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockReservationService {
+
+    private static final int EXPIRY_BATCH = 100;
+
+    /**
+     * Quantité d'un produit qui n'a pas pu être reprise au commit (réservation expirée,
+     * stock revendu entre-temps).
+     */
+    public record Shortfall(Long productId, int quantity) {
+    }
+
+    private final StockReservationRepository reservationRepository;
+    private final ProductService productService;
+
+    @Value("${app.stock.hold-ttl-minutes:15}")
+    private long holdTtlMinutes;
+
+    /**
+     * Réserve le stock de toutes les lignes de la commande, ou échoue sans rien réserver
+     * (la transaction appelante est annulée).
+     */
+    @Transactional
+    public List<StockReservation> hold(Order order) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        Map<Long, Product> products = new LinkedHashMap<>();
+        for (OrderItem item : order.getItems()) {
+            Product p = item.getProduct();
+            quantities.merge(p.getId(), item.getQuantity(), Integer::sum);
+            products.putIfAbsent(p.getId(), p);
+        }
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(holdTtlMinutes);
+        List<StockReservation> reservations = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> {
+            Product p = products.get(productId);
+            if (!productService.decreaseStock(productId, quantity)) {
+                throw new IllegalArgumentException("Stock insuffisant pour " + p.getName());
+            }
+            StockReservation r = new StockReservation();
+            r.setOrder(order);
+            r.setProduct(p);
+            r.setQuantity(quantity);
+            r.setExpiresAt(expiresAt);
+            reservations.add(r);
+        });
+        return reservationRepository.saveAll(reservations);
+    }
+
+    /**
+     * Rend définitives les réservations d'une commande payée. Une réservation déjà
+     * expirée est reprise si le stock le permet encore ; sinon elle reste EXPIRED et
+     * figure dans la liste renvoyée. Liste vide = tout le stock de la commande est acquis,
+     * à l'appelant de décider du sort de la commande dans le cas contraire.
+     */
+    @Transactional
+    public List<Shortfall> commit(Order order) {
+        List<StockReservation> reservations = reservationRepository.findByOrderIdAndStatusIn(order.getId(),
+                List.of(ReservationStatus.HELD, ReservationStatus.EXPIRED));
+        List<Shortfall> shortfalls = new ArrayList<>();
+        for (StockReservation r : reservations) {
+            if (r.getStatus() == ReservationStatus.HELD
+                    && reservationRepository.transition(r.getId(), ReservationStatus.HELD, ReservationStatus.COMMITTED) == 1) {
+                continue;
+            }
+            // Expirée (ou expirée entre-temps) : le stock a été rendu, il faut le reprendre
+            if (reservationRepository.transition(r.getId(), ReservationStatus.EXPIRED, ReservationStatus.COMMITTED) != 1) continue;
+            if (!productService.decreaseStock(r.getProduct().getId(), r.getQuantity())) {
+                reservationRepository.transition(r.getId(), ReservationStatus.COMMITTED, ReservationStatus.EXPIRED);
+                shortfalls.add(new Shortfall(r.getProduct().getId(), r.getQuantity()));
+            }
+        }
+        return shortfalls;
+    }
+
+    /**
+     * Vrai si la commande a été annulée par l'expiration de ses réservations (seule
+     * cause d'annulation aujourd'hui) et qu'aucune n'a déjà été rendue définitive.
+     */
+    public boolean isCanceledByExpiry(Order order) {
+        if (order.getStatus() != OrderStatus.CANCELED) return false;
+        List<ReservationStatus> statuses = reservationRepository.findStatusesByOrderId(order.getId());
+        return statuses.contains(ReservationStatus.EXPIRED) && !statuses.contains(ReservationStatus.COMMITTED);
+    }
+
+    /**
+     * Rend le stock des réservations échues et annule les commandes restées en attente.
+     */
+    @Scheduled(fixedDelayString = "${app.stock.expiry-check-ms:60000}")
+    @Transactional
+    public void expireDue() {
+        List<StockReservation> due = reservationRepository.findExpired(LocalDateTime.now(), PageRequest.of(0, EXPIRY_BATCH));
+        if (due.isEmpty()) return;
+        int expired = 0;
+        for (StockReservation r : due) {
+            if (reservationRepository.transition(r.getId(), ReservationStatus.HELD, ReservationStatus.EXPIRED) != 1) continue;
+            productService.increaseStock(r.getProduct().getId(), r.getQuantity());
+            Order order = r.getOrder();
+            if (order.getStatus() == OrderStatus.PENDING) order.setStatus(OrderStatus.CANCELED);
+            expired++;
+        }
+        log.info("Réservations de stock expirées: {}", expired);
+    }
+}
@@ -12,12 +12,13 @@ public class TokenCleanupService {
 
     private final RefreshTokenService refreshTokenService;
 
-    @Scheduled(cron = "0 0 2 * * ?") // Tous les jours à 2h du matin
+    // Toutes les heures : des lots plus petits qu'une seule purge nocturne
+    @Scheduled(cron = "${app.auth.refresh-purge-cron:0 15 * * * ?}")
     public void cleanupExpiredTokens() {
-        log.info("Début du nettoyage automatique des tokens expirés...");
+        log.debug("Début du nettoyage automatique des tokens expirés...");
         try {
-            refreshTokenService.cleanupExpiredTokens();
-            log.info("Nettoyage automatique des tokens expirés terminé avec succès");
+            int deleted = refreshTokenService.purgeExpired();
+            if (deleted > 0) log.info("Nettoyage des refresh tokens expirés: {} supprimés", deleted);
         } catch (Exception e) {
             log.error("Erreur lors du nettoyage automatique des tokens expirés", e);
         }
@@ -0,0 +1,31 @@
+package com.pneumaliback.www.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Actions à différer après le commit de la transaction courante : mises à jour des
+ * caches et index en mémoire, qu'un rollback ne doit pas fausser.
+ */
+public final class TransactionHooks {
+
+    private TransactionHooks() {
+    }
+
+    /**
+     * Exécute l'action après le commit, ou immédiatement hors transaction. Rien n'est
+     * exécuté si la transaction est annulée.
+     */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -3,8 +3,10 @@ package com.pneumaliback.www.service;
 import com.pneumaliback.www.dto.UpdateProfileRequest;
 import com.pneumaliback.www.entity.User;
 import com.pneumaliback.www.repository.UserRepository;
+import com.pneumaliback.www.security.TokenVersionRegistry;
+import com.pneumaliback.www.service.auth.PrincipalCache;
+import com.pneumaliback.www.service.auth.VerificationCodes;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,9 +17,18 @@ import java.time.Instant;
 @RequiredArgsConstructor
 public class UserService {
 
+    /**
+     * Profil mis à jour ; emailChallenge est le défi à présenter avec le code reçu
+     * lorsque l'email a changé (null sinon).
+     */
+    public record ProfileUpdate(User user, String emailChallenge) {
+    }
+
     private final UserRepository userRepository;
     private final MailService mailService;
-    private final PasswordEncoder passwordEncoder;
+    private final VerificationCodes verificationCodes;
+    private final TokenVersionRegistry tokenVersions;
+    private final PrincipalCache principalCache;
 
     /**
      * Met à jour le profil de l'utilisateur et retourne l'utilisateur modifié
@@ -34,10 +45,10 @@ public class UserService {
      * - Seul l'email change, c'est comme un "renommage" du compte
      * - Aucune duplication n'est possible
      * 
-     * @return l'utilisateur mis à jour
+     * @return l'utilisateur mis à jour, avec le défi de vérification du nouvel email
      */
     @Transactional
-    public User updateProfile(String email, UpdateProfileRequest request) {
+    public ProfileUpdate updateProfile(String email, UpdateProfileRequest request) {
         // Récupérer le compte existant (jamais de création)
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -55,6 +66,7 @@ public class UserService {
         }
 
         // Mise à jour de l'email si fourni et différent
+        String challenge = null;
         if (request.getEmail() != null && !request.getEmail().trim().isEmpty()
                 && !request.getEmail().trim().equals(user.getEmail())) {
 
@@ -72,15 +84,13 @@ public class UserService {
             // Toutes les données restent : prénom, nom, adresses, commandes, etc.
             user.setEmail(newEmail);
             user.setEnabled(false); // Désactiver temporairement jusqu'à vérification
+            tokenVersions.revokeTokens(user); // Les jetons émis pour l'ancien email ne sont plus valides
 
             // Générer un code de vérification à 6 chiffres
             String plainCode = generateVerificationCode();
 
-            // Hash le code avant de le stocker (sécurité)
-            String hashedCode = passwordEncoder.encode(plainCode);
-            user.setVerificationCode(hashedCode);
-            user.setVerificationExpiry(Instant.now().plusSeconds(15 * 60)); // 15 minutes
-            user.setVerificationSentAt(Instant.now());
+            // Hash le code avant de le stocker (sécurité), avec sa clé de recherche
+            challenge = verificationCodes.assign(user, plainCode, Instant.now().plusSeconds(15 * 60)); // 15 minutes
             user.setOtpAttempts(0);
             user.setOtpResendCount(0);
 
@@ -89,7 +99,9 @@ public class UserService {
         }
 
         // Sauvegarder les modifications du compte existant
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        principalCache.evict(saved);
+        return new ProfileUpdate(saved, challenge);
     }
 
     /**
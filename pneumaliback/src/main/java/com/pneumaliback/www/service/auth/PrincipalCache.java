@@ -0,0 +1,186 @@
+package com.pneumaliback.www.service.auth;
+
+import com.pneumaliback.www.entity.User;
+import com.pneumaliback.www.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Cache borné (LRU + durée de vie) des utilisateurs, indexé par identifiant et par
+ * email normalisé. Les entrées sont des UserSnapshot immuables : un utilisateur
+ * actif ne coûte plus une requête par appel.
+ *
+ * Toute modification d'un champ repris dans le snapshot (verrouillage, rôle, statut,
+ * profil, email) doit appeler evict, qui retire l'entrée tout de suite puis de
+ * nouveau après le commit, pour écarter une relecture concurrente de l'ancien état.
+ * Chaque éviction reçoit un numéro de génération par identifiant : un chargement
+ * commencé avant l'éviction n'insère pas son snapshot, devenu potentiellement périmé.
+ */
+@Component
+@Slf4j
+public class PrincipalCache {
+
+    public record Stats(int size, long hits, long misses, double hitRate) {
+    }
+
+    private record Entry(UserSnapshot user, long expiresAt) {
+    }
+
+    private final UserRepository userRepository;
+    private final long ttlMillis;
+    private final Map<Long, Entry> byId;
+    private final Map<String, Long> idByEmail = new HashMap<>();
+    private final Map<Long, Long> evictedAt;
+    private long generation;
+    private long forgottenGeneration;
+    private final Counter hits;
+    private final Counter misses;
+
+    public PrincipalCache(UserRepository userRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.auth.principal-cache-size:10000}") int maxSize,
+                          @Value("${app.auth.principal-cache-ttl-seconds:300}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.byId = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() <= maxSize) return false;
+                idByEmail.remove(normalize(eldest.getValue().user().email()));
+                return true;
+            }
+        };
+        this.evictedAt = new LinkedHashMap<>(256) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                if (size() <= maxSize) return false;
+                // Génération oubliée : tout chargement antérieur est écarté par prudence
+                forgottenGeneration = Math.max(forgottenGeneration, eldest.getValue());
+                return true;
+            }
+        };
+        this.hits = meterRegistry.counter("auth.principal.cache", "result", "hit");
+        this.misses = meterRegistry.counter("auth.principal.cache", "result", "miss");
+        meterRegistry.gauge("auth.principal.cache.size", this, c -> c.stats().size());
+    }
+
+    public Optional<UserSnapshot> byId(Long userId) {
+        if (userId == null) return Optional.empty();
+        synchronized (this) {
+            UserSnapshot cached = lookup(userId);
+            if (cached != null) return Optional.of(cached);
+        }
+        return load(() -> userRepository.findById(userId));
+    }
+
+    public Optional<UserSnapshot> byEmail(String email) {
+        String key = normalize(email);
+        if (key.isEmpty()) return Optional.empty();
+        synchronized (this) {
+            Long id = idByEmail.get(key);
+            UserSnapshot cached = id != null ? lookup(id) : null;
+            if (cached != null) return Optional.of(cached);
+        }
+        return load(() -> userRepository.findByEmailIgnoreCase(key));
+    }
+
+    /**
+     * Retire l'utilisateur du cache (identifiant, email courant et email précédent).
+     */
+    public void evict(User user) {
+        if (user == null) return;
+        Long id = user.getId();
+        String email = user.getEmail();
+        String previousEmail = user.getPreviousEmail();
+        Runnable eviction = () -> {
+            synchronized (this) {
+                generation++;
+                if (id != null) invalidate(id);
+                for (String e : new String[] { email, previousEmail }) {
+                    Long cachedId = idByEmail.get(normalize(e));
+                    if (cachedId != null) invalidate(cachedId);
+                }
+            }
+        };
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    public synchronized Stats stats() {
+        long h = (long) hits.count();
+        long m = (long) misses.count();
+        return new Stats(byId.size(), h, m, h + m == 0 ? 0 : (double) h / (h + m));
+    }
+
+    // ===== Internes =====
+
+    private Optional<UserSnapshot> load(Supplier<Optional<User>> query) {
+        misses.increment();
+        long startedAt;
+        synchronized (this) {
+            startedAt = generation;
+        }
+        Optional<UserSnapshot> loaded = query.get().map(UserSnapshot::of);
+        loaded.ifPresent(user -> put(user, startedAt));
+        return loaded;
+    }
+
+    /** À appeler sous verrou. */
+    private UserSnapshot lookup(Long id) {
+        Entry entry = byId.get(id);
+        if (entry == null) return null;
+        if (entry.expiresAt() < System.currentTimeMillis()) {
+            remove(id);
+            return null;
+        }
+        hits.increment();
+        return entry.user();
+    }
+
+    /**
+     * Insère le snapshot, sauf si l'utilisateur a été évincé depuis le début du
+     * chargement (génération startedAt).
+     */
+    private synchronized void put(UserSnapshot user, long startedAt) {
+        if (forgottenGeneration > startedAt || evictedAt.getOrDefault(user.id(), 0L) > startedAt) return;
+        remove(user.id());
+        byId.put(user.id(), new Entry(user, System.currentTimeMillis() + ttlMillis));
+        idByEmail.put(normalize(user.email()), user.id());
+    }
+
+    /** À appeler sous verrou. */
+    private void invalidate(Long id) {
+        remove(id);
+        evictedAt.remove(id);
+        evictedAt.put(id, generation);
+    }
+
+    /** À appeler sous verrou. */
+    private void remove(Long id) {
+        Entry entry = byId.remove(id);
+        if (entry != null) idByEmail.remove(normalize(entry.user().email()));
+    }
+
+    private static String normalize(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,24 @@
+package com.pneumaliback.www.service.auth;
+
+import com.pneumaliback.www.entity.User;
+import com.pneumaliback.www.enums.Role;
+
+/**
+ * Copie immuable des champs d'un utilisateur utiles à l'authentification et à
+ * l'affichage, détachée de toute session JPA.
+ */
+public record UserSnapshot(
+        Long id,
+        String email,
+        String firstName,
+        String lastName,
+        Role role,
+        boolean enabled,
+        boolean accountNonLocked,
+        int tokenVersion) {
+
+    public static UserSnapshot of(User user) {
+        return new UserSnapshot(user.getId(), user.getEmail(), user.getFirstName(), user.getLastName(),
+                user.getRole(), user.isEnabled(), user.isAccountNonLocked(), user.getTokenVersion());
+    }
+}
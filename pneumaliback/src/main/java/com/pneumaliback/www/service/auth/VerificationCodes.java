@@ -0,0 +1,101 @@
+package com.pneumaliback.www.service.auth;
+
+import com.pneumaliback.www.entity.User;
+import com.pneumaliback.www.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Codes de vérification (OTP) à 6 chiffres.
+ *
+ * Le code est haché en BCrypt. Chaque émission reçoit aussi un identifiant de défi
+ * aléatoire (128 bits), renvoyé au client et stocké sous forme de clé de recherche
+ * HMAC-SHA256 indexée : retrouver le titulaire d'un code sans connaître son email
+ * (changement d'email) exige ce défi, et non le seul code à 6 chiffres, qui
+ * s'énumère. Le code n'est ensuite comparé que pour ce titulaire.
+ */
+@Component
+public class VerificationCodes {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> mac;
+
+    public VerificationCodes(UserRepository userRepository,
+                             PasswordEncoder passwordEncoder,
+                             @Value("${app.auth.otp-lookup-secret:${jwt.secret}}") String secret) {
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        this.mac = ThreadLocal.withInitial(this::newMac);
+    }
+
+    /**
+     * Enregistre un nouveau code sur l'utilisateur (sans sauvegarder) et renvoie
+     * l'identifiant de défi à présenter avec le code.
+     */
+    public String assign(User user, String code, Instant expiry) {
+        byte[] bytes = new byte[16];
+        RANDOM.nextBytes(bytes);
+        String challenge = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        user.setVerificationCode(passwordEncoder.encode(code));
+        user.setVerificationLookup(lookupKey(challenge));
+        user.setVerificationExpiry(expiry);
+        user.setVerificationSentAt(Instant.now());
+        return challenge;
+    }
+
+    /**
+     * Efface le code courant de l'utilisateur (sans sauvegarder).
+     */
+    public static void clear(User user) {
+        user.setVerificationCode(null);
+        user.setVerificationLookup(null);
+        user.setVerificationExpiry(null);
+        user.setVerificationSentAt(null);
+    }
+
+    public boolean matches(User user, String code) {
+        return code != null && user.getVerificationCode() != null
+                && passwordEncoder.matches(code, user.getVerificationCode());
+    }
+
+    /**
+     * Utilisateur dont le code actif a été émis sous ce défi, s'il est unique. Le code
+     * lui-même est à vérifier par l'appelant (matches), sous compteur de tentatives.
+     */
+    public Optional<User> findHolder(String challenge) {
+        if (challenge == null || challenge.isBlank()) return Optional.empty();
+        List<User> candidates = userRepository.findByVerificationLookup(lookupKey(challenge), Instant.now());
+        return candidates.size() == 1 ? Optional.of(candidates.get(0)) : Optional.empty();
+    }
+
+    String lookupKey(String challenge) {
+        return HexFormat.of().formatHex(mac.get().doFinal(challenge.trim().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac m = Mac.getInstance("HmacSHA256");
+            m.init(key);
+            return m;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 indisponible", e);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.pneumaliback.www.service.cart;
+
+import com.pneumaliback.www.dto.CartQuoteDTO;
+import com.pneumaliback.www.entity.Promotion;
+import com.pneumaliback.www.repository.CartItemRepository;
+import com.pneumaliback.www.service.DeliveryService;
+import com.pneumaliback.www.service.PromotionService;
+import com.pneumaliback.www.service.catalog.CatalogIndex;
+import com.pneumaliback.www.service.pricing.Money;
+import com.pneumaliback.www.service.pricing.PriceLine;
+import com.pneumaliback.www.service.pricing.PriceQuote;
+import com.pneumaliback.www.service.pricing.PricingEngine;
+import com.pneumaliback.www.service.TransactionHooks;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Récapitulatif chiffré des paniers, tenu en mémoire par utilisateur.
+ *
+ * Les lignes d'un panier sont chargées une fois depuis la base puis mises à jour
+ * par CartService à chaque modification validée : une lecture ne touche ni carts
+ * ni cart_items. Le chiffrage (moteur de prix, code promo, frais de livraison) est
+ * gardé tant que les lignes, les prix catalogue, la promotion et les frais ne
+ * changent pas.
+ */
+@Service
+@RequiredArgsConstructor
+public class CartQuoteService {
+
+    private static final int MAX_CARTS = 20_000;
+
+    private static final class CartState {
+        final Map<Long, PriceLine> lines = new LinkedHashMap<>();
+        PriceQuote quote;
+        String quotedFor;
+        boolean promotionApplied;
+    }
+
+    private final CartItemRepository cartItemRepository;
+    private final PricingEngine pricingEngine;
+    private final PromotionService promotionService;
+    private final DeliveryService deliveryService;
+    private final CatalogIndex catalogIndex;
+
+    // Compteur de modifications validées : un chargement concurrent d'une écriture n'est pas mis en cache
+    private final AtomicLong writes = new AtomicLong();
+    private final Map<Long, CartState> states = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CartState> eldest) {
+            return size() > MAX_CARTS;
+        }
+    };
+
+    /**
+     * Chiffre le panier de l'utilisateur avec un code promo et une zone de livraison
+     * facultatifs.
+     */
+    public CartQuoteDTO quote(Long userId, String promoCode, String zone) {
+        Promotion promo = resolvePromotion(promoCode);
+        CartState state = stateFor(userId);
+        synchronized (state) {
+            boolean repriced = reprice(state);
+            int quantity = state.lines.values().stream().mapToInt(PriceLine::quantity).sum();
+            BigDecimal shipping = deliveryService.quoteShippingFee(zone, quantity);
+            String quotedFor = (promo != null ? promo.getId() + ":" + promo.getVersion() : "-") + "|" + Money.toMinor(shipping);
+            if (state.quote == null || repriced || !quotedFor.equals(state.quotedFor)) {
+                state.quote = pricingEngine.quote(new ArrayList<>(state.lines.values()), promo, shipping);
+                state.promotionApplied = promo != null;
+                state.quotedFor = quotedFor;
+            }
+            return CartQuoteDTO.from(state.quote, state.promotionApplied);
+        }
+    }
+
+    /**
+     * Nouvelle quantité d'une ligne (0 = ligne retirée), appliquée après le commit.
+     */
+    public void itemChanged(Long userId, Long productId, int quantity, BigDecimal unitPrice) {
+        apply(userId, state -> {
+            if (quantity <= 0) {
+                state.lines.remove(productId);
+            } else {
+                state.lines.put(productId, new PriceLine(productId, quantity, Money.toMinor(unitPrice)));
+            }
+        });
+    }
+
+    /**
+     * Panier vidé (checkout ou suppression), appliqué après le commit.
+     */
+    public void cleared(Long userId) {
+        apply(userId, state -> state.lines.clear());
+    }
+
+    // ===== Internes =====
+
+    private Promotion resolvePromotion(String code) {
+        if (code == null || code.isBlank()) return null;
+        return promotionService.findValidByCode(code)
+                .or(() -> promotionService.resolveFromInfluencerCode(code))
+                .orElse(null);
+    }
+
+    private CartState stateFor(Long userId) {
+        synchronized (states) {
+            CartState cached = states.get(userId);
+            if (cached != null) return cached;
+        }
+        long seen = writes.get();
+        CartState loaded = new CartState();
+        for (Object[] row : cartItemRepository.findQuoteLinesByUserId(userId)) {
+            Long productId = (Long) row[0];
+            loaded.lines.put(productId, new PriceLine(productId, (Integer) row[1], Money.toMinor((BigDecimal) row[2])));
+        }
+        synchronized (states) {
+            CartState cached = states.get(userId);
+            if (cached != null) return cached;
+            if (writes.get() == seen) states.put(userId, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * Aligne les prix unitaires sur le catalogue en mémoire ; vrai si un prix a changé.
+     */
+    private boolean reprice(CartState state) {
+        boolean changed = false;
+        for (Map.Entry<Long, PriceLine> e : state.lines.entrySet()) {
+            PriceLine line = e.getValue();
+            Long price = catalogIndex.get(line.productId()).map(CatalogIndex.Entry::price).map(Money::toMinor).orElse(null);
+            if (price != null && !Objects.equals(price, line.unitPrice())) {
+                e.setValue(new PriceLine(line.productId(), line.quantity(), price));
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private void apply(Long userId, Consumer<CartState> change) {
+        TransactionHooks.afterCommit(() -> {
+            writes.incrementAndGet();
+            CartState state;
+            synchronized (states) {
+                state = states.get(userId);
+            }
+            if (state == null) return;
+            synchronized (state) {
+                change.accept(state);
+                state.quote = null;
+            }
+        });
+    }
+}
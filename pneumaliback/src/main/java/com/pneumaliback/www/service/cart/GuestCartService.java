@@ -0,0 +1,128 @@
+package com.pneumaliback.www.service.cart;
+
+import com.pneumaliback.www.dto.CartQuoteDTO;
+import com.pneumaliback.www.entity.Promotion;
+import com.pneumaliback.www.entity.User;
+import com.pneumaliback.www.repository.ProductRepository;
+import com.pneumaliback.www.service.CartService;
+import com.pneumaliback.www.service.DeliveryService;
+import com.pneumaliback.www.service.PromotionService;
+import com.pneumaliback.www.service.catalog.CatalogIndex;
+import com.pneumaliback.www.service.pricing.Money;
+import com.pneumaliback.www.service.pricing.PriceLine;
+import com.pneumaliback.www.service.pricing.PricingEngine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Panier des visiteurs non connectés. Les lignes vivent dans GuestCartStore et les
+ * produits sont lus dans le catalogue en mémoire : naviguer et remplir un panier
+ * invité n'écrit rien en base. À la connexion, le panier est fusionné dans le panier
+ * persistant de l'utilisateur en une seule transaction.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GuestCartService {
+
+    private final GuestCartStore store;
+    private final CatalogIndex catalogIndex;
+    private final ProductRepository productRepository;
+    private final PricingEngine pricingEngine;
+    private final PromotionService promotionService;
+    private final DeliveryService deliveryService;
+    private final CartService cartService;
+
+    /**
+     * Jeton d'un nouveau panier ; le panier lui-même n'existe qu'au premier article.
+     */
+    public String create() {
+        return store.create();
+    }
+
+    public CartQuoteDTO addItem(String token, Long productId, int quantity, String client) {
+        if (quantity <= 0) throw new IllegalArgumentException("Quantité invalide");
+        requireProduct(productId);
+        store.add(token, productId, quantity, client);
+        return quote(token, null, null);
+    }
+
+    public CartQuoteDTO updateItem(String token, Long productId, int quantity, String client) {
+        if (quantity < 0) throw new IllegalArgumentException("Quantité invalide");
+        if (quantity > 0) requireProduct(productId);
+        store.set(token, productId, quantity, client);
+        return quote(token, null, null);
+    }
+
+    public void clear(String token) {
+        store.remove(token);
+    }
+
+    /**
+     * Chiffre le panier invité aux prix catalogue courants ; les produits retirés de la
+     * vente sont ignorés.
+     */
+    public CartQuoteDTO quote(String token, String promoCode, String zone) {
+        Map<Long, Integer> lines = store.lines(token);
+        Map<Long, CatalogIndex.Entry> products = products(lines.keySet());
+        List<PriceLine> priced = new ArrayList<>(lines.size());
+        lines.forEach((productId, quantity) -> {
+            CatalogIndex.Entry p = products.get(productId);
+            if (p != null && p.active()) {
+                priced.add(new PriceLine(productId, quantity, Money.toMinor(p.price())));
+            }
+        });
+        Promotion promo = promoCode == null || promoCode.isBlank() ? null
+                : promotionService.findValidByCode(promoCode)
+                        .or(() -> promotionService.resolveFromInfluencerCode(promoCode))
+                        .orElse(null);
+        int quantity = priced.stream().mapToInt(PriceLine::quantity).sum();
+        return CartQuoteDTO.from(pricingEngine.quote(priced, promo, deliveryService.quoteShippingFee(zone, quantity)),
+                promo != null);
+    }
+
+    /**
+     * Fusionne le panier invité dans le panier de l'utilisateur qui vient de se
+     * connecter, puis l'oublie. Un jeton absent ou expiré est ignoré.
+     */
+    public void mergeInto(String token, User user) {
+        if (token == null || token.isBlank() || user == null) return;
+        Map<Long, Integer> lines;
+        try {
+            lines = store.lines(token);
+        } catch (IllegalArgumentException e) {
+            log.debug("Panier invité {} absent à la connexion de {}", token, user.getEmail());
+            return;
+        }
+        if (!lines.isEmpty()) cartService.mergeGuestCart(user, lines);
+        store.remove(token);
+    }
+
+    // ===== Internes =====
+
+    private void requireProduct(Long productId) {
+        CatalogIndex.Entry p = products(List.of(productId)).get(productId);
+        if (p == null || !p.active()) throw new IllegalArgumentException("Produit introuvable");
+    }
+
+    private Map<Long, CatalogIndex.Entry> products(Collection<Long> ids) {
+        Map<Long, CatalogIndex.Entry> found = new HashMap<>(ids.size() * 2);
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            Optional<CatalogIndex.Entry> p = catalogIndex.get(id);
+            if (p.isPresent()) found.put(id, p.get());
+            else missing.add(id);
+        }
+        // Index pas encore chargé ou produit absent : lecture seule en base
+        if (!missing.isEmpty()) productRepository.findAllById(missing).forEach(p -> found.put(p.getId(), CatalogIndex.Entry.of(p)));
+        return found;
+    }
+}
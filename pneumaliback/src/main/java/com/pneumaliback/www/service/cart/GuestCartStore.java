@@ -0,0 +1,214 @@
+package com.pneumaliback.www.service.cart;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Paniers des visiteurs anonymes, uniquement en mémoire et indexés par jeton.
+ *
+ * Chaque panier tient dans deux tableaux parallèles (ids produits, quantités) : pas
+ * d'entité ni d'objet par ligne. Le stock est borné (nombre de paniers, lignes par
+ * panier) ; les paniers les moins récemment utilisés sont évincés au-delà de la
+ * capacité, et ceux inactifs depuis plus de app.cart.guest-ttl-hours sont purgés.
+ *
+ * Émettre un jeton ne réserve rien : le panier n'est créé qu'au premier article
+ * ajouté, et chaque client (adresse IP) ne peut en créer que
+ * app.cart.guest-carts-per-hour par heure, pour qu'une boucle de requêtes ne puisse
+ * pas évincer les paniers des vrais visiteurs.
+ */
+@Component
+@Slf4j
+public class GuestCartStore {
+
+    public static final int MAX_LINES = 50;
+    public static final int MAX_QUANTITY = 99;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Pattern TOKEN = Pattern.compile("[A-Za-z0-9_-]{22}");
+    private static final int MAX_TRACKED_CLIENTS = 10_000;
+    private static final long CREATION_WINDOW_MILLIS = 3_600_000L;
+
+    /**
+     * Panier compact ; accès protégé par le verrou du store.
+     */
+    private static final class GuestCart {
+        long[] productIds = new long[4];
+        int[] quantities = new int[4];
+        int size;
+        long lastAccess = System.currentTimeMillis();
+
+        int indexOf(long productId) {
+            for (int i = 0; i < size; i++) {
+                if (productIds[i] == productId) return i;
+            }
+            return -1;
+        }
+
+        void set(long productId, int quantity) {
+            int i = indexOf(productId);
+            if (quantity <= 0) {
+                if (i < 0) return;
+                // Dernière ligne déplacée dans le trou
+                size--;
+                productIds[i] = productIds[size];
+                quantities[i] = quantities[size];
+                return;
+            }
+            if (i < 0) {
+                if (size == MAX_LINES) throw new IllegalArgumentException("Panier plein (" + MAX_LINES + " articles maximum)");
+                if (size == productIds.length) {
+                    productIds = Arrays.copyOf(productIds, size * 2);
+                    quantities = Arrays.copyOf(quantities, size * 2);
+                }
+                i = size++;
+                productIds[i] = productId;
+            }
+            quantities[i] = quantity;
+        }
+
+        Map<Long, Integer> snapshot() {
+            Map<Long, Integer> lines = new LinkedHashMap<>(size * 2);
+            for (int i = 0; i < size; i++) lines.put(productIds[i], quantities[i]);
+            return lines;
+        }
+    }
+
+    /**
+     * Créations de paniers de la fenêtre en cours, par client.
+     */
+    private static final class CreationWindow {
+        long start;
+        int count;
+    }
+
+    private final Map<String, GuestCart> carts;
+    private final Map<String, CreationWindow> creations;
+    private final long ttlMillis;
+    private final int cartsPerHour;
+
+    public GuestCartStore(@Value("${app.cart.guest-max-carts:50000}") int maxCarts,
+                          @Value("${app.cart.guest-ttl-hours:72}") long ttlHours,
+                          @Value("${app.cart.guest-carts-per-hour:20}") int cartsPerHour) {
+        this.ttlMillis = ttlHours * 3_600_000L;
+        this.cartsPerHour = cartsPerHour;
+        this.carts = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, GuestCart> eldest) {
+                return size() > maxCarts;
+            }
+        };
+        this.creations = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CreationWindow> eldest) {
+                return size() > MAX_TRACKED_CLIENTS;
+            }
+        };
+    }
+
+    /**
+     * Émet un jeton de panier (128 bits aléatoires, base64url) sans rien stocker.
+     */
+    public String create() {
+        byte[] bytes = new byte[16];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Lignes du panier (productId → quantité), dans l'ordre d'ajout approximatif.
+     * Vide si le panier n'a pas encore d'article ou a expiré.
+     */
+    public Map<Long, Integer> lines(String token) {
+        synchronized (carts) {
+            GuestCart cart = find(token);
+            return cart != null ? cart.snapshot() : Map.of();
+        }
+    }
+
+    /**
+     * Ajoute delta à la quantité d'un produit (plafonnée à MAX_QUANTITY) et renvoie la
+     * nouvelle quantité. Crée le panier au premier article, dans la limite du client.
+     */
+    public int add(String token, long productId, int delta, String client) {
+        if (delta <= 0) throw new IllegalArgumentException("Quantité invalide");
+        int capped = Math.min(delta, MAX_QUANTITY);
+        synchronized (carts) {
+            GuestCart cart = findOrCreate(token, client);
+            int i = cart.indexOf(productId);
+            int quantity = Math.min(MAX_QUANTITY, (i < 0 ? 0 : cart.quantities[i]) + capped);
+            cart.set(productId, quantity);
+            return quantity;
+        }
+    }
+
+    /**
+     * Fixe la quantité d'un produit (0 = ligne retirée).
+     */
+    public void set(String token, long productId, int quantity, String client) {
+        synchronized (carts) {
+            GuestCart cart = quantity > 0 ? findOrCreate(token, client) : find(token);
+            if (cart != null) cart.set(productId, Math.min(MAX_QUANTITY, quantity));
+        }
+    }
+
+    public void remove(String token) {
+        synchronized (carts) {
+            carts.remove(token);
+        }
+    }
+
+    @Scheduled(fixedDelay = 3_600_000L)
+    public void purgeIdle() {
+        long limit = System.currentTimeMillis() - ttlMillis;
+        int before;
+        int after;
+        synchronized (carts) {
+            before = carts.size();
+            carts.values().removeIf(c -> c.lastAccess < limit);
+            after = carts.size();
+        }
+        if (before > after) log.info("{} paniers invités inactifs purgés", before - after);
+    }
+
+    private GuestCart find(String token) {
+        if (token == null || !TOKEN.matcher(token).matches()) {
+            throw new IllegalArgumentException("Panier invité introuvable");
+        }
+        GuestCart cart = carts.get(token);
+        if (cart == null) return null;
+        long now = System.currentTimeMillis();
+        if (cart.lastAccess < now - ttlMillis) {
+            carts.remove(token);
+            return null;
+        }
+        cart.lastAccess = now;
+        return cart;
+    }
+
+    private GuestCart findOrCreate(String token, String client) {
+        GuestCart cart = find(token);
+        if (cart != null) return cart;
+        long now = System.currentTimeMillis();
+        CreationWindow window = creations.computeIfAbsent(client != null ? client : "", k -> new CreationWindow());
+        if (now - window.start >= CREATION_WINDOW_MILLIS) {
+            window.start = now;
+            window.count = 0;
+        }
+        if (window.count >= cartsPerHour) {
+            throw new IllegalArgumentException("Trop de paniers créés depuis cette adresse, réessayez plus tard");
+        }
+        window.count++;
+        cart = new GuestCart();
+        carts.put(token, cart);
+        return cart;
+    }
+}
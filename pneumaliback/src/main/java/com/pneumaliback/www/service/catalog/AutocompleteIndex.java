@@ -0,0 +1,232 @@
+package com.pneumaliback.www.service.catalog;
+
+import com.pneumaliback.www.entity.Product;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Suggestions de saisie (marques, tailles, noms de produits actifs) dans un arbre
+ * radix compressé. Chaque nœud garde la liste figée de ses MAX_SUGGESTIONS
+ * meilleures suggestions, recalculée sur le chemin modifié à chaque mise à jour :
+ * une requête se résume à descendre l'arbre et renvoyer cette liste.
+ * Le poids d'une suggestion est le nombre de produits actifs qui la portent.
+ */
+@Component
+public class AutocompleteIndex {
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    public enum SuggestionType { BRAND, SIZE, PRODUCT }
+
+    public record Suggestion(String text, SuggestionType type, long weight) {
+    }
+
+    private record Entry(String key, String text, SuggestionType type) {
+    }
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    private static final Comparator<Suggestion> RANKING = Comparator.comparingLong(Suggestion::weight).reversed()
+            .thenComparing(Suggestion::text);
+
+    private static final class Node {
+        String edge;
+        final TreeMap<Character, Node> children = new TreeMap<>();
+        final Map<SuggestionType, Suggestion> terminals = new HashMap<>(2);
+        List<Suggestion> top = List.of();
+
+        Node(String edge) {
+            this.edge = edge;
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Node root = new Node("");
+    private final Map<Long, List<Entry>> entriesByProduct = new HashMap<>();
+
+    public void rebuild(Collection<Product> all) {
+        lock.writeLock().lock();
+        try {
+            root.children.clear();
+            root.terminals.clear();
+            root.top = List.of();
+            entriesByProduct.clear();
+            for (Product p : all) {
+                if (p.getId() != null) indexLocked(p, false);
+            }
+            refreshAll(root);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void upsert(Product product) {
+        if (product == null || product.getId() == null) return;
+        lock.writeLock().lock();
+        try {
+            upsertLocked(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Meilleures suggestions commençant par le préfixe saisi (insensible à la casse
+     * et aux accents). La liste renvoyée est partagée et non modifiable.
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = fold(prefix);
+        if (key.isEmpty() || limit <= 0) return List.of();
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int pos = 0;
+            while (pos < key.length()) {
+                Node child = node.children.get(key.charAt(pos));
+                if (child == null) return List.of();
+                int common = commonPrefix(child.edge, key, pos);
+                if (pos + common == key.length()) {
+                    node = child;
+                    break;
+                }
+                if (common < child.edge.length()) return List.of();
+                pos += common;
+                node = child;
+            }
+            List<Suggestion> top = node.top;
+            return top.size() <= limit ? top : top.subList(0, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Minuscules, accents retirés, espaces normalisés.
+     */
+    static String fold(String text) {
+        if (text == null) return "";
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SPACES.matcher(folded.toLowerCase(Locale.ROOT).trim()).replaceAll(" ");
+    }
+
+    // ===== Internes =====
+
+    private void upsertLocked(Product p) {
+        removeLocked(p.getId());
+        indexLocked(p, true);
+    }
+
+    private void indexLocked(Product p, boolean refresh) {
+        if (!p.isActive()) return;
+        List<Entry> entries = new ArrayList<>(3);
+        addEntry(entries, p.getBrand(), SuggestionType.BRAND);
+        addEntry(entries, p.getSize(), SuggestionType.SIZE);
+        addEntry(entries, p.getName(), SuggestionType.PRODUCT);
+        entries.forEach(e -> adjust(e, 1, refresh));
+        entriesByProduct.put(p.getId(), entries);
+    }
+
+    private static void addEntry(List<Entry> entries, String text, SuggestionType type) {
+        String key = fold(text);
+        if (!key.isEmpty()) entries.add(new Entry(key, text.trim(), type));
+    }
+
+    private void removeLocked(Long productId) {
+        List<Entry> entries = entriesByProduct.remove(productId);
+        if (entries != null) entries.forEach(e -> adjust(e, -1, true));
+    }
+
+    /**
+     * Ajuste le poids d'une suggestion puis, si demandé, recalcule les listes figées
+     * du nœud terminal jusqu'à la racine.
+     */
+    private void adjust(Entry entry, long delta, boolean refresh) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        String key = entry.key();
+        int pos = 0;
+        while (pos < key.length()) {
+            char c = key.charAt(pos);
+            Node child = node.children.get(c);
+            if (child == null) {
+                if (delta < 0) return;
+                child = new Node(key.substring(pos));
+                node.children.put(c, child);
+            } else {
+                int common = commonPrefix(child.edge, key, pos);
+                if (common < child.edge.length()) {
+                    if (delta < 0) return;
+                    child = split(node, child, common);
+                }
+            }
+            pos += child.edge.length();
+            node = child;
+            path.add(node);
+        }
+
+        Suggestion current = node.terminals.get(entry.type());
+        long weight = (current != null ? current.weight() : 0) + delta;
+        if (weight > 0) {
+            // Graphie du dernier produit ajouté
+            String text = delta > 0 || current == null ? entry.text() : current.text();
+            node.terminals.put(entry.type(), new Suggestion(text, entry.type(), weight));
+        } else {
+            node.terminals.remove(entry.type());
+        }
+        if (!refresh) return;
+        for (int i = path.size() - 1; i >= 0; i--) {
+            refreshTop(path.get(i));
+        }
+    }
+
+    private static void refreshAll(Node node) {
+        node.children.values().forEach(AutocompleteIndex::refreshAll);
+        refreshTop(node);
+    }
+
+    private static Node split(Node parent, Node child, int at) {
+        Node middle = new Node(child.edge.substring(0, at));
+        child.edge = child.edge.substring(at);
+        middle.children.put(child.edge.charAt(0), child);
+        parent.children.put(middle.edge.charAt(0), middle);
+        return middle;
+    }
+
+    private static void refreshTop(Node node) {
+        List<Suggestion> candidates = new ArrayList<>(node.terminals.values());
+        for (Node child : node.children.values()) {
+            candidates.addAll(child.top);
+        }
+        candidates.sort(RANKING);
+        node.top = List.copyOf(candidates.size() > MAX_SUGGESTIONS ? candidates.subList(0, MAX_SUGGESTIONS) : candidates);
+    }
+
+    private static int commonPrefix(String edge, String key, int from) {
+        int max = Math.min(edge.length(), key.length() - from);
+        int i = 0;
+        while (i < max && edge.charAt(i) == key.charAt(from + i)) i++;
+        return i;
+    }
+}
@@ -0,0 +1,476 @@
+package com.pneumaliback.www.service.catalog;
+
+import com.pneumaliback.www.dto.ProductSummaryDTO;
+import com.pneumaliback.www.dto.RatingAggregate;
+import com.pneumaliback.www.entity.Product;
+import com.pneumaliback.www.enums.TireSeason;
+import com.pneumaliback.www.enums.VehicleType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Index facetté en mémoire du catalogue.
+ * Chaque produit occupe un slot dense ; les facettes (catégorie, marque, taille,
+ * saison, type de véhicule) sont des listes de postings sous forme de BitSet et
+ * le prix est un tableau trié de slots. Les requêtes de filtre et de comptage
+ * sont résolues par intersection de BitSet, sans aller-retour en base.
+ * L'index ne garde que des instantanés immuables (Entry) : aucune entité JPA
+ * partagée ne sort de l'index, une mise à jour remplace l'instantané du slot.
+ */
+@Component
+@Slf4j
+public class CatalogIndex {
+
+    /**
+     * Critères de filtrage, mêmes sémantiques que ProductRepository.findWithFilters
+     * (null = pas de filtre).
+     */
+    public record Query(Long categoryId,
+                        String brand,
+                        String size,
+                        String season,
+                        VehicleType vehicleType,
+                        BigDecimal minPrice,
+                        BigDecimal maxPrice) {
+    }
+
+    /**
+     * Instantané immuable d'un produit, détaché de toute session JPA.
+     */
+    public record Entry(Long id,
+                        String name,
+                        BigDecimal price,
+                        int stock,
+                        Integer lowStockThreshold,
+                        String brand,
+                        String size,
+                        TireSeason season,
+                        VehicleType vehicleType,
+                        String imageUrl,
+                        Long categoryId,
+                        String categoryName,
+                        boolean active,
+                        long ratingCount,
+                        long ratingSum,
+                        LocalDateTime createdAt,
+                        LocalDateTime updatedAt) {
+
+        public static Entry of(Product p) {
+            return new Entry(p.getId(), p.getName(), p.getPrice(), p.getStock(), p.getLowStockThreshold(),
+                    p.getBrand(), p.getSize(), p.getSeason(), p.getVehicleType(), p.getImageUrl(),
+                    p.getCategory() != null ? p.getCategory().getId() : null,
+                    p.getCategory() != null ? p.getCategory().getName() : null,
+                    p.isActive(), p.getRatingCount(), p.getRatingSum(), p.getCreatedAt(), p.getUpdatedAt());
+        }
+
+        Entry withStock(int newStock) {
+            return new Entry(id, name, price, newStock, lowStockThreshold, brand, size, season, vehicleType, imageUrl,
+                    categoryId, categoryName, active, ratingCount, ratingSum, createdAt, updatedAt);
+        }
+
+        Entry withRating(long count, long sum) {
+            return new Entry(id, name, price, stock, lowStockThreshold, brand, size, season, vehicleType, imageUrl,
+                    categoryId, categoryName, active, count, sum, createdAt, updatedAt);
+        }
+
+        public ProductSummaryDTO toSummary() {
+            return new ProductSummaryDTO(id, name, price, stock, brand, size, season, imageUrl, categoryName,
+                    ratingCount, ratingSum, createdAt);
+        }
+    }
+
+    private static final Set<String> SORTABLE = Set.of("id", "name", "price", "stock", "brand", "size", "createdAt", "updatedAt");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private final List<Entry> entries = new ArrayList<>();
+    private final BitSet freeSlots = new BitSet();
+
+    private final BitSet active = new BitSet();
+    private final BitSet inStock = new BitSet();
+    private final Map<Long, BitSet> byCategory = new HashMap<>();
+    private final Map<String, BitSet> byBrand = new HashMap<>();
+    private final Map<String, BitSet> bySize = new HashMap<>();
+    private final Map<String, BitSet> bySeason = new HashMap<>();
+    private final Map<VehicleType, BitSet> byVehicleType = new HashMap<>();
+
+    private long[] priceBySlot = new long[0];
+    private int[] slotsByPrice = new int[0];
+    private long[] sortedPrices = new long[0];
+    private volatile boolean priceDirty = true;
+    private volatile boolean ready = false;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void rebuild(Collection<Product> all) {
+        lock.writeLock().lock();
+        try {
+            slotById.clear();
+            entries.clear();
+            freeSlots.clear();
+            active.clear();
+            inStock.clear();
+            byCategory.clear();
+            byBrand.clear();
+            bySize.clear();
+            bySeason.clear();
+            byVehicleType.clear();
+            priceBySlot = new long[Math.max(16, all.size())];
+            for (Product p : all) {
+                if (p.getId() != null) upsertLocked(Entry.of(p));
+            }
+            priceDirty = true;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Index catalogue construit: {} produits", all.size());
+    }
+
+    public void upsert(Product product) {
+        if (product == null || product.getId() == null) return;
+        lock.writeLock().lock();
+        try {
+            upsertLocked(Entry.of(product));
+            priceDirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        if (productId == null) return;
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.remove(productId);
+            if (slot == null) return;
+            clearPostings(slot);
+            entries.set(slot, null);
+            freeSlots.set(slot);
+            priceDirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Répercute une mise à jour atomique du stock (decreaseStock / increaseStock)
+     * sans recharger le produit.
+     */
+    public void adjustStock(Long productId, int delta) {
+        if (productId == null || delta == 0) return;
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.get(productId);
+            if (slot == null) return;
+            Entry e = entries.get(slot).withStock(Math.max(0, entries.get(slot).stock() + delta));
+            entries.set(slot, e);
+            inStock.set(slot, e.stock() > 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remplace l'instantané du produit par un instantané portant les agrégats de
+     * notes recalculés en base.
+     */
+    public void applyRating(RatingAggregate rating) {
+        if (rating == null || rating.productId() == null) return;
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.get(rating.productId());
+            if (slot == null) return;
+            entries.set(slot, entries.get(slot).withRating(rating.count(), rating.sum()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<Entry> get(Long productId) {
+        lock.readLock().lock();
+        try {
+            Integer slot = productId != null ? slotById.get(productId) : null;
+            return slot == null ? Optional.empty() : Optional.of(entries.get(slot));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Page de produits actifs en stock correspondant aux critères.
+     * Vide si l'index n'est pas prêt ou si le tri demandé n'est pas supporté :
+     * l'appelant retombe alors sur la requête JPQL.
+     */
+    public Optional<Page<ProductSummaryDTO>> findWithFilters(Query query, Pageable pageable) {
+        if (!ready || !isSortSupported(pageable.getSort())) return Optional.empty();
+        readLockWithPriceOrder();
+        try {
+            return Optional.of(page(match(query), pageable));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Page des produits actifs en stock parmi les identifiants fournis (résultats
+     * d'un index secondaire comme TireDimensionIndex).
+     */
+    public Optional<Page<ProductSummaryDTO>> findAmong(Collection<Long> productIds, Pageable pageable) {
+        if (!ready || !isSortSupported(pageable.getSort())) return Optional.empty();
+        lock.readLock().lock();
+        try {
+            BitSet hits = new BitSet(entries.size());
+            for (Long id : productIds) {
+                Integer slot = slotById.get(id);
+                if (slot != null) hits.set(slot);
+            }
+            hits.and(active);
+            hits.and(inStock);
+            return Optional.of(page(hits, pageable));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Page des produits actifs dans l'ordre de pertinence fourni (ProductSearchIndex),
+     * ou selon le tri demandé s'il y en a un.
+     */
+    public Optional<Page<ProductSummaryDTO>> rankedPage(List<Long> rankedIds, Pageable pageable) {
+        if (!ready || !isSortSupported(pageable.getSort())) return Optional.empty();
+        lock.readLock().lock();
+        try {
+            List<Entry> matched = new ArrayList<>(rankedIds.size());
+            for (Long id : rankedIds) {
+                Integer slot = slotById.get(id);
+                if (slot != null && active.get(slot)) matched.add(entries.get(slot));
+            }
+            if (pageable.getSort().isSorted()) matched.sort(comparator(pageable.getSort()));
+            return Optional.of(slice(matched, pageable));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Nombre de produits correspondant aux critères, -1 si l'index n'est pas prêt.
+     */
+    public long count(Query query) {
+        if (!ready) return -1;
+        readLockWithPriceOrder();
+        try {
+            return match(query).cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===== Internes =====
+
+    private Page<ProductSummaryDTO> page(BitSet hits, Pageable pageable) {
+        List<Entry> matched = new ArrayList<>(hits.cardinality());
+        for (int slot = hits.nextSetBit(0); slot >= 0; slot = hits.nextSetBit(slot + 1)) {
+            matched.add(entries.get(slot));
+        }
+        matched.sort(comparator(pageable.getSort()));
+        return slice(matched, pageable);
+    }
+
+    private static Page<ProductSummaryDTO> slice(List<Entry> matched, Pageable pageable) {
+        int total = matched.size();
+        int from = pageable.isUnpaged() ? 0 : (int) Math.min(pageable.getOffset(), total);
+        int to = pageable.isUnpaged() ? total : Math.min(from + pageable.getPageSize(), total);
+        List<ProductSummaryDTO> content = new ArrayList<>(to - from);
+        for (Entry e : matched.subList(from, to)) content.add(e.toSummary());
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    private void upsertLocked(Entry e) {
+        Integer slot = slotById.get(e.id());
+        if (slot == null) {
+            slot = allocateSlot();
+            slotById.put(e.id(), slot);
+        } else {
+            clearPostings(slot);
+        }
+        entries.set(slot, e);
+        active.set(slot, e.active());
+        inStock.set(slot, e.stock() > 0);
+        if (e.categoryId() != null) posting(byCategory, e.categoryId()).set(slot);
+        if (e.brand() != null) posting(byBrand, e.brand().toLowerCase(Locale.ROOT)).set(slot);
+        if (e.size() != null) posting(bySize, e.size()).set(slot);
+        if (e.season() != null) posting(bySeason, e.season().name().toLowerCase(Locale.ROOT)).set(slot);
+        if (e.vehicleType() != null) posting(byVehicleType, e.vehicleType()).set(slot);
+        priceBySlot[slot] = toCents(e.price(), RoundingMode.HALF_UP);
+    }
+
+    private int allocateSlot() {
+        int slot = freeSlots.nextSetBit(0);
+        if (slot >= 0) {
+            freeSlots.clear(slot);
+            return slot;
+        }
+        slot = entries.size();
+        entries.add(null);
+        if (slot >= priceBySlot.length) {
+            priceBySlot = Arrays.copyOf(priceBySlot, Math.max(16, priceBySlot.length * 2));
+        }
+        return slot;
+    }
+
+    private void clearPostings(int slot) {
+        active.clear(slot);
+        inStock.clear(slot);
+        byCategory.values().forEach(b -> b.clear(slot));
+        byBrand.values().forEach(b -> b.clear(slot));
+        bySize.values().forEach(b -> b.clear(slot));
+        bySeason.values().forEach(b -> b.clear(slot));
+        byVehicleType.values().forEach(b -> b.clear(slot));
+    }
+
+    private static <K> BitSet posting(Map<K, BitSet> facet, K key) {
+        return facet.computeIfAbsent(key, k -> new BitSet());
+    }
+
+    private BitSet match(Query q) {
+        BitSet hits = (BitSet) active.clone();
+        hits.and(inStock);
+        if (q == null) return hits;
+        if (q.categoryId() != null) and(hits, byCategory.get(q.categoryId()));
+        if (q.brand() != null) and(hits, byBrand.get(q.brand().toLowerCase(Locale.ROOT)));
+        if (q.size() != null) and(hits, bySize.get(q.size()));
+        if (q.season() != null) and(hits, bySeason.get(q.season().toLowerCase(Locale.ROOT)));
+        if (q.vehicleType() != null) and(hits, byVehicleType.get(q.vehicleType()));
+        if (q.minPrice() != null || q.maxPrice() != null) hits.and(priceRange(q.minPrice(), q.maxPrice()));
+        return hits;
+    }
+
+    private static void and(BitSet hits, BitSet posting) {
+        if (posting == null) hits.clear();
+        else hits.and(posting);
+    }
+
+    private BitSet priceRange(BigDecimal min, BigDecimal max) {
+        long lo = min != null ? toCents(min, RoundingMode.CEILING) : Long.MIN_VALUE;
+        long hi = max != null ? toCents(max, RoundingMode.FLOOR) : Long.MAX_VALUE;
+        BitSet range = new BitSet(entries.size());
+        if (lo > hi) return range;
+        for (int i = lowerBound(sortedPrices, lo); i < sortedPrices.length && sortedPrices[i] <= hi; i++) {
+            range.set(slotsByPrice[i]);
+        }
+        return range;
+    }
+
+    private static int lowerBound(long[] sorted, long value) {
+        int lo = 0, hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < value) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Prend le verrou de lecture avec un ordre par prix à jour. La reconstruction se fait
+     * sous le verrou d'écriture, rétrogradé ensuite en lecture sans le relâcher : aucun
+     * upsert ne peut rendre l'ordre périmé entre la reconstruction et la requête.
+     */
+    private void readLockWithPriceOrder() {
+        lock.readLock().lock();
+        if (!priceDirty) return;
+        lock.readLock().unlock();
+        lock.writeLock().lock();
+        try {
+            if (priceDirty) rebuildPriceOrder();
+            lock.readLock().lock();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void rebuildPriceOrder() {
+        int n = slotById.size();
+        Integer[] slots = slotById.values().toArray(new Integer[0]);
+        long[] prices = priceBySlot;
+        Arrays.sort(slots, Comparator.comparingLong(s -> prices[s]));
+        int[] ordered = new int[n];
+        long[] sorted = new long[n];
+        for (int i = 0; i < n; i++) {
+            ordered[i] = slots[i];
+            sorted[i] = prices[slots[i]];
+        }
+        slotsByPrice = ordered;
+        sortedPrices = sorted;
+        priceDirty = false;
+    }
+
+    private static long toCents(BigDecimal amount, RoundingMode mode) {
+        if (amount == null) return 0L;
+        return amount.setScale(2, mode).unscaledValue().longValue();
+    }
+
+    private static boolean isSortSupported(Sort sort) {
+        for (Sort.Order o : sort) {
+            if (!SORTABLE.contains(o.getProperty()) || o.isIgnoreCase()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Comparateur équivalent à l'ORDER BY PostgreSQL (NULLS LAST en ASC, NULLS FIRST
+     * en DESC). Sans tri explicite, ordre par identifiant.
+     */
+    private static Comparator<Entry> comparator(Sort sort) {
+        Comparator<Entry> result = null;
+        for (Sort.Order o : sort) {
+            Comparator<Entry> c = switch (o.getProperty()) {
+                case "name" -> keyed(Entry::name, o);
+                case "price" -> keyed(Entry::price, o);
+                case "stock" -> keyed(Entry::stock, o);
+                case "brand" -> keyed(Entry::brand, o);
+                case "size" -> keyed(Entry::size, o);
+                case "createdAt" -> keyed(Entry::createdAt, o);
+                case "updatedAt" -> keyed(Entry::updatedAt, o);
+                default -> keyed(Entry::id, o);
+            };
+            result = result == null ? c : result.thenComparing(c);
+        }
+        Comparator<Entry> byId = Comparator.comparing(Entry::id);
+        return result == null ? byId : result.thenComparing(byId);
+    }
+
+    private static <T extends Comparable<? super T>> Comparator<Entry> keyed(Function<Entry, T> key, Sort.Order order) {
+        Comparator<T> natural = Comparator.naturalOrder();
+        Comparator<T> values = order.isAscending()
+                ? Comparator.nullsLast(natural)
+                : Comparator.nullsFirst(natural.reversed());
+        return Comparator.comparing(key, values);
+    }
+}
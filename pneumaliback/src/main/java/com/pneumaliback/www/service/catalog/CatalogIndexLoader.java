@@ -0,0 +1,47 @@
+package com.pneumaliback.www.service.catalog;
+
+import com.pneumaliback.www.entity.Product;
+import com.pneumaliback.www.repository.ProductRepository;
+import com.pneumaliback.www.service.StockAlertService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Construit les index catalogue au démarrage (après les migrations et
+ * l'initialisation des données). En cas d'échec, les recherches retombent
+ * sur les requêtes JPQL.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@Order(3)
+public class CatalogIndexLoader implements CommandLineRunner {
+
+    private final ProductRepository productRepository;
+    private final CatalogIndex catalogIndex;
+    private final TireDimensionIndex tireDimensionIndex;
+    private final ProductSearchIndex productSearchIndex;
+    private final AutocompleteIndex autocompleteIndex;
+    private final StockAlertService stockAlertService;
+
+    @Override
+    @Transactional(readOnly = true)
+    public void run(String... args) {
+        try {
+            List<Product> products = productRepository.findAll();
+            catalogIndex.rebuild(products);
+            tireDimensionIndex.rebuild(products);
+            productSearchIndex.rebuild(products);
+            autocompleteIndex.rebuild(products);
+            stockAlertService.rebuild(products);
+        } catch (Exception e) {
+            log.error("Impossible de construire l'index catalogue", e);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.pneumaliback.www.service.catalog;
+
+import com.pneumaliback.www.entity.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Index inversé plein texte des produits actifs (nom, marque, taille, catégorie).
+ * Les termes sont repliés (minuscules, sans accents) ; une requête exige que chaque
+ * mot corresponde à un terme exact, à un préfixe ou, à défaut, à un terme proche
+ * (distance d'édition 1, ou 2 au-delà de 7 lettres). Les résultats sont classés par
+ * pertinence : poids du champ × qualité de la correspondance.
+ */
+@Component
+@Slf4j
+public class ProductSearchIndex {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{Alnum}]+");
+
+    private static final float WEIGHT_NAME = 3f;
+    private static final float WEIGHT_BRAND = 2f;
+    private static final float WEIGHT_SIZE = 2f;
+    private static final float WEIGHT_CATEGORY = 1f;
+
+    private static final float EXACT = 1f;
+    private static final float PREFIX = 0.7f;
+    private static final float FUZZY = 0.4f;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Map<Integer, Float>> postings = new TreeMap<>();
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private final Map<Integer, Set<String>> termsBySlot = new HashMap<>();
+    private final List<Long> idBySlot = new ArrayList<>();
+    private final BitSet freeSlots = new BitSet();
+    private volatile boolean ready = false;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void rebuild(Collection<Product> all) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            slotById.clear();
+            termsBySlot.clear();
+            idBySlot.clear();
+            freeSlots.clear();
+            all.forEach(this::upsertLocked);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Index de recherche construit: {} termes", postings.size());
+    }
+
+    public void upsert(Product product) {
+        if (product == null || product.getId() == null) return;
+        lock.writeLock().lock();
+        try {
+            upsertLocked(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Identifiants des produits correspondant à la recherche, du plus pertinent au
+     * moins pertinent (à pertinence égale, dans l'ordre d'indexation).
+     */
+    public List<Long> search(String text) {
+        List<String> tokens = tokenize(text);
+        if (tokens.isEmpty()) return List.of();
+        lock.readLock().lock();
+        try {
+            int slots = idBySlot.size();
+            float[] total = null;
+            for (String token : tokens) {
+                float[] best = scoreToken(token, slots);
+                if (total == null) {
+                    total = best;
+                } else {
+                    for (int i = 0; i < slots; i++) {
+                        total[i] = best[i] > 0 && total[i] > 0 ? total[i] + best[i] : 0;
+                    }
+                }
+            }
+            // Tri par score décroissant : score inversé en poids fort, slot en poids faible
+            long[] ranked = new long[slots];
+            int n = 0;
+            for (int i = 0; i < slots; i++) {
+                if (total[i] > 0) {
+                    ranked[n++] = ((long) (Integer.MAX_VALUE - Float.floatToIntBits(total[i])) << 32) | i;
+                }
+            }
+            Arrays.sort(ranked, 0, n);
+            List<Long> ids = new ArrayList<>(n);
+            for (int k = 0; k < n; k++) {
+                ids.add(idBySlot.get((int) ranked[k]));
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Minuscules, accents retirés, découpage sur tout caractère non alphanumérique.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) return tokens;
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        for (String t : SEPARATORS.split(folded)) {
+            if (!t.isEmpty()) tokens.add(t);
+        }
+        return tokens;
+    }
+
+    // ===== Internes =====
+
+    private float[] scoreToken(String token, int slots) {
+        float[] best = new float[slots];
+        boolean found = accumulate(best, postings.get(token), EXACT);
+        for (Map<Integer, Float> docs : postings.subMap(token, false, token + Character.MAX_VALUE, false).values()) {
+            found |= accumulate(best, docs, PREFIX);
+        }
+        if (!found && token.length() >= 4) {
+            int maxDistance = token.length() >= 8 ? 2 : 1;
+            char first = token.charAt(0);
+            for (Map.Entry<String, Map<Integer, Float>> e
+                    : postings.subMap(String.valueOf(first), true, first + String.valueOf(Character.MAX_VALUE), false).entrySet()) {
+                if (withinDistance(token, e.getKey(), maxDistance)) accumulate(best, e.getValue(), FUZZY);
+            }
+        }
+        return best;
+    }
+
+    private static boolean accumulate(float[] best, Map<Integer, Float> docs, float factor) {
+        if (docs == null || docs.isEmpty()) return false;
+        for (Map.Entry<Integer, Float> e : docs.entrySet()) {
+            int slot = e.getKey();
+            best[slot] = Math.max(best[slot], e.getValue() * factor);
+        }
+        return true;
+    }
+
+    private void upsertLocked(Product p) {
+        removeLocked(p.getId());
+        if (!p.isActive()) return;
+        Map<String, Float> weights = new HashMap<>();
+        index(weights, p.getName(), WEIGHT_NAME);
+        index(weights, p.getBrand(), WEIGHT_BRAND);
+        index(weights, p.getSize(), WEIGHT_SIZE);
+        if (p.getSize() != null) {
+            // "205/55R16" est aussi cherchable d'un seul tenant
+            String compact = String.join("", tokenize(p.getSize()));
+            if (!compact.isEmpty()) weights.merge(compact, WEIGHT_SIZE, Math::max);
+        }
+        if (p.getCategory() != null) index(weights, p.getCategory().getName(), WEIGHT_CATEGORY);
+        int slot = allocateSlot(p.getId());
+        weights.forEach((term, w) -> postings.computeIfAbsent(term, k -> new HashMap<>()).put(slot, w));
+        termsBySlot.put(slot, new HashSet<>(weights.keySet()));
+    }
+
+    private static void index(Map<String, Float> weights, String text, float weight) {
+        for (String token : tokenize(text)) {
+            weights.merge(token, weight, Math::max);
+        }
+    }
+
+    private int allocateSlot(Long productId) {
+        int slot = freeSlots.nextSetBit(0);
+        if (slot >= 0) {
+            freeSlots.clear(slot);
+            idBySlot.set(slot, productId);
+        } else {
+            slot = idBySlot.size();
+            idBySlot.add(productId);
+        }
+        slotById.put(productId, slot);
+        return slot;
+    }
+
+    private void removeLocked(Long productId) {
+        Integer slot = slotById.remove(productId);
+        if (slot == null) return;
+        for (String term : termsBySlot.remove(slot)) {
+            Map<Integer, Float> docs = postings.get(term);
+            if (docs == null) continue;
+            docs.remove(slot);
+            if (docs.isEmpty()) postings.remove(term);
+        }
+        freeSlots.set(slot);
+    }
+
+    /**
+     * Distance de Levenshtein bornée : abandonne dès que toute la ligne dépasse la borne.
+     */
+    private static boolean withinDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) return false;
+        int[] prev = new int[b.length() + 1];
+        int[] curr = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) prev[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            curr[0] = i;
+            int rowMin = curr[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                curr[j] = Math.min(Math.min(curr[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+                rowMin = Math.min(rowMin, curr[j]);
+            }
+            if (rowMin > max) return false;
+            int[] tmp = prev;
+            prev = curr;
+            curr = tmp;
+        }
+        return prev[b.length()] <= max;
+    }
+}
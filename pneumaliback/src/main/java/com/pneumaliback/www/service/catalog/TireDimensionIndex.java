@@ -0,0 +1,140 @@
+package com.pneumaliback.www.service.catalog;
+
+import com.pneumaliback.www.entity.Product;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index des dimensions de pneus en mémoire.
+ * Les produits sont regroupés par dimension (largeur, série, jante) ; les
+ * dimensions sont en plus triées par diamètre extérieur pour répondre aux
+ * recherches d'équivalences (montages de substitution à ±x %).
+ */
+@Component
+public class TireDimensionIndex {
+
+    private record Dimension(int width, int aspectRatio, int rimTenths) {
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Dimension> dimensionByProduct = new HashMap<>();
+    private final Map<Dimension, Set<Long>> productsByDimension = new HashMap<>();
+    private final NavigableMap<Integer, Set<Dimension>> dimensionsByDiameter = new TreeMap<>();
+    private volatile boolean ready = false;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void rebuild(Collection<Product> all) {
+        lock.writeLock().lock();
+        try {
+            dimensionByProduct.clear();
+            productsByDimension.clear();
+            dimensionsByDiameter.clear();
+            all.forEach(this::upsertLocked);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void upsert(Product product) {
+        if (product == null || product.getId() == null) return;
+        lock.writeLock().lock();
+        try {
+            upsertLocked(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Produits dont la dimension correspond exactement aux critères fournis
+     * (null = critère ignoré). Seuls les produits à taille reconnue sont indexés :
+     * sans aucun critère, interroger le catalogue complet plutôt que cet index.
+     */
+    public Set<Long> exact(Integer width, Integer aspectRatio, BigDecimal rimDiameter) {
+        Integer rimTenths = rimDiameter != null ? rimDiameter.movePointRight(1).intValue() : null;
+        lock.readLock().lock();
+        try {
+            if (width != null && aspectRatio != null && rimTenths != null) {
+                return new HashSet<>(productsByDimension.getOrDefault(new Dimension(width, aspectRatio, rimTenths), Set.of()));
+            }
+            Set<Long> ids = new HashSet<>();
+            productsByDimension.forEach((d, products) -> {
+                if ((width == null || d.width() == width)
+                        && (aspectRatio == null || d.aspectRatio() == aspectRatio)
+                        && (rimTenths == null || d.rimTenths() == rimTenths)) {
+                    ids.addAll(products);
+                }
+            });
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Produits dont le diamètre extérieur est à ±tolerancePercent de la dimension de
+     * référence (la dimension elle-même incluse).
+     */
+    public Set<Long> equivalents(TireSize reference, double tolerancePercent) {
+        int diameter = reference.overallDiameterTenthsMm();
+        int delta = (int) Math.round(diameter * tolerancePercent / 100.0);
+        lock.readLock().lock();
+        try {
+            Set<Long> ids = new HashSet<>();
+            dimensionsByDiameter.subMap(diameter - delta, true, diameter + delta, true).values()
+                    .forEach(dims -> dims.forEach(d -> ids.addAll(productsByDimension.get(d))));
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void upsertLocked(Product p) {
+        removeLocked(p.getId());
+        if (p.getWidth() == null || p.getAspectRatio() == null || p.getRimDiameter() == null) return;
+        TireSize size = new TireSize(p.getWidth(), p.getAspectRatio(), p.getRimDiameter(), null, null);
+        Dimension d = new Dimension(size.width(), size.aspectRatio(), size.rimTenths());
+        dimensionByProduct.put(p.getId(), d);
+        productsByDimension.computeIfAbsent(d, k -> new HashSet<>()).add(p.getId());
+        dimensionsByDiameter.computeIfAbsent(size.overallDiameterTenthsMm(), k -> new HashSet<>()).add(d);
+    }
+
+    private void removeLocked(Long productId) {
+        Dimension d = dimensionByProduct.remove(productId);
+        if (d == null) return;
+        Set<Long> products = productsByDimension.get(d);
+        products.remove(productId);
+        if (!products.isEmpty()) return;
+        productsByDimension.remove(d);
+        int diameter = new TireSize(d.width(), d.aspectRatio(), BigDecimal.valueOf(d.rimTenths(), 1), null, null)
+                .overallDiameterTenthsMm();
+        Set<Dimension> dims = dimensionsByDiameter.get(diameter);
+        if (dims != null) {
+            dims.remove(d);
+            if (dims.isEmpty()) dimensionsByDiameter.remove(diameter);
+        }
+    }
+}
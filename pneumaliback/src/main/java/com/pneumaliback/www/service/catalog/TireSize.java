@@ -0,0 +1,60 @@
+package com.pneumaliback.www.service.catalog;
+
+import com.pneumaliback.www.entity.Product;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Dimension de pneu structurée, extraite du libellé libre Product.size
+ * (ex: "205/55R16 91V", "205/55 ZR16", "215/75R17.5 135J").
+ */
+public record TireSize(int width, int aspectRatio, BigDecimal rimDiameter, Integer loadIndex, String speedRating) {
+
+    private static final Pattern FORMAT = Pattern.compile(
+            "^(\\d{3})/(\\d{2,3})(?:Z?R|-|D|B)?(\\d{2}(?:\\.\\d)?)(?:(\\d{2,3})(?:/\\d{2,3})?([A-Z]))?");
+
+    public static Optional<TireSize> parse(String raw) {
+        if (raw == null || raw.isBlank()) return Optional.empty();
+        String normalized = raw.toUpperCase(Locale.ROOT).replace(',', '.').replaceAll("\\s+", "");
+        Matcher m = FORMAT.matcher(normalized);
+        if (!m.find()) return Optional.empty();
+        Integer load = m.group(4) != null ? Integer.valueOf(m.group(4)) : null;
+        return Optional.of(new TireSize(
+                Integer.parseInt(m.group(1)),
+                Integer.parseInt(m.group(2)),
+                new BigDecimal(m.group(3)).setScale(1, RoundingMode.UNNECESSARY),
+                load,
+                m.group(5)));
+    }
+
+    /**
+     * Renseigne les colonnes structurées du produit à partir de son libellé de taille
+     * (toutes à null si le libellé n'est pas reconnu).
+     */
+    public static void fill(Product product) {
+        Optional<TireSize> parsed = parse(product.getSize());
+        product.setWidth(parsed.map(TireSize::width).orElse(null));
+        product.setAspectRatio(parsed.map(TireSize::aspectRatio).orElse(null));
+        product.setRimDiameter(parsed.map(TireSize::rimDiameter).orElse(null));
+        product.setLoadIndex(parsed.map(TireSize::loadIndex).orElse(null));
+        product.setSpeedRating(parsed.map(TireSize::speedRating).orElse(null));
+    }
+
+    /**
+     * Diamètre extérieur en dixièmes de millimètre : jante + 2 flancs.
+     */
+    public int overallDiameterTenthsMm() {
+        double rimMm = rimDiameter.doubleValue() * 25.4;
+        double sidewallMm = width * aspectRatio / 100.0;
+        return (int) Math.round((rimMm + 2 * sidewallMm) * 10);
+    }
+
+    public int rimTenths() {
+        return rimDiameter.movePointRight(1).intValue();
+    }
+}
@@ -0,0 +1,51 @@
+package com.pneumaliback.www.service.catalog;
+
+import com.pneumaliback.www.entity.Product;
+import com.pneumaliback.www.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Renseigne au démarrage les colonnes de dimensions des produits existants,
+ * par lots parcourus par identifiant croissant (une transaction par lot).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@Order(2)
+public class TireSizeBackfill implements CommandLineRunner {
+
+    private static final int BATCH_SIZE = 200;
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public void run(String... args) {
+        try {
+            long lastId = 0L;
+            int parsed = 0;
+            while (true) {
+                final long afterId = lastId;
+                List<Product> batch = transactionTemplate.execute(status -> {
+                    List<Product> products = productRepository.findUnparsedSizes(afterId, PageRequest.of(0, BATCH_SIZE));
+                    products.forEach(TireSize::fill);
+                    return products;
+                });
+                if (batch == null || batch.isEmpty()) break;
+                parsed += (int) batch.stream().filter(p -> p.getWidth() != null).count();
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+            if (parsed > 0) log.info("Dimensions structurées renseignées pour {} produits", parsed);
+        } catch (Exception e) {
+            log.error("Erreur lors du calcul des dimensions structurées", e);
+        }
+    }
+}
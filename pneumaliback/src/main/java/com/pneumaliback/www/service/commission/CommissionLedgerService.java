@@ -0,0 +1,97 @@
+package com.pneumaliback.www.service.commission;
+
+import com.pneumaliback.www.entity.Commission;
+import com.pneumaliback.www.entity.CommissionLedgerEntry;
+import com.pneumaliback.www.entity.InfluenceurBalance;
+import com.pneumaliback.www.enums.LedgerEntryType;
+import com.pneumaliback.www.repository.CommissionLedgerRepository;
+import com.pneumaliback.www.repository.CommissionRepository;
+import com.pneumaliback.www.repository.InfluenceurBalanceRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+/**
+ * Grand livre des commissions et soldes matérialisés par influenceur.
+ *
+ * Chaque mouvement (commission acquise, commission payée) ajoute une écriture et
+ * applique le delta au solde de l'influenceur par un upsert atomique, dans la
+ * transaction de CommissionService : solde et statistiques se lisent ensuite en une
+ * ligne. Au premier démarrage, l'historique est repris depuis la table commissions.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Order(4)
+public class CommissionLedgerService implements CommandLineRunner {
+
+    private final CommissionLedgerRepository ledgerRepository;
+    private final InfluenceurBalanceRepository balanceRepository;
+    private final CommissionRepository commissionRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public void run(String... args) {
+        // La reprise a sa propre transaction : un échec l'annule entièrement sans
+        // remonter d'UnexpectedRollbackException au démarrage.
+        try {
+            transactionTemplate.executeWithoutResult(status -> backfill());
+        } catch (Exception e) {
+            log.error("Impossible d'initialiser le grand livre des commissions", e);
+        }
+    }
+
+    @Transactional
+    public void earned(Commission commission) {
+        BigDecimal amount = commission.getAmount();
+        append(commission, LedgerEntryType.EARNED, amount);
+        balanceRepository.apply(commission.getInfluenceur().getId(), amount, amount, BigDecimal.ZERO, 1);
+    }
+
+    @Transactional
+    public void paid(Commission commission) {
+        BigDecimal amount = commission.getAmount();
+        append(commission, LedgerEntryType.PAID, amount);
+        balanceRepository.apply(commission.getInfluenceur().getId(), BigDecimal.ZERO, amount.negate(), amount, 0);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<InfluenceurBalance> balance(Long influenceurId) {
+        return balanceRepository.findByInfluenceurId(influenceurId);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<InfluenceurBalance> balanceOf(String userEmail) {
+        return balanceRepository.findByUserEmail(userEmail);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<CommissionLedgerEntry> entries(Long influenceurId, Pageable pageable) {
+        return ledgerRepository.findByInfluenceurIdOrderByIdDesc(influenceurId, pageable);
+    }
+
+    private void backfill() {
+        if (ledgerRepository.count() > 0 || commissionRepository.count() == 0) return;
+        int entries = ledgerRepository.backfillFromCommissions();
+        int balances = balanceRepository.rebuildFromCommissions();
+        log.info("Grand livre des commissions initialisé: {} écritures, {} soldes", entries, balances);
+    }
+
+    private void append(Commission commission, LedgerEntryType type, BigDecimal amount) {
+        CommissionLedgerEntry entry = new CommissionLedgerEntry();
+        entry.setInfluenceur(commission.getInfluenceur());
+        entry.setCommission(commission);
+        entry.setType(type);
+        entry.setAmount(amount);
+        ledgerRepository.save(entry);
+    }
+}
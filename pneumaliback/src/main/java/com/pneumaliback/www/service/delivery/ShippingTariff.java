@@ -0,0 +1,196 @@
+package com.pneumaliback.www.service.delivery;
+
+import com.pneumaliback.www.entity.ShippingRate;
+import com.pneumaliback.www.entity.ShippingZone;
+import com.pneumaliback.www.repository.ShippingRateRepository;
+import com.pneumaliback.www.repository.ShippingZoneRepository;
+import com.pneumaliback.www.service.pricing.Money;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Grille tarifaire de livraison en mémoire : zones (mots-clés), tranches de quantité
+ * et frais, chargés depuis shipping_zones / shipping_rates dans un instantané
+ * immuable remplacé d'un bloc à chaque rechargement (périodique ou à la demande).
+ * Un devis ne touche jamais la base : recherche exacte du mot-clé, sinon premier
+ * mot-clé contenu (du plus long au plus court), puis recherche dichotomique de la
+ * tranche.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@Order(4)
+public class ShippingTariff implements CommandLineRunner {
+
+    public record Request(String zone, Integer quantity) {
+    }
+
+    public record Quote(String zone, String zoneCode, int quantity, BigDecimal fee) {
+    }
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private record Zone(String code, int[] minQuantities, long[] fees) {
+        long fee(int quantity) {
+            int lo = 0;
+            int hi = minQuantities.length - 1;
+            int found = 0;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (minQuantities[mid] <= quantity) {
+                    found = mid;
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return fees[found];
+        }
+    }
+
+    private record Table(Map<String, Zone> byKeyword, List<Map.Entry<String, Zone>> bySpecificity, Zone fallback) {
+    }
+
+    private final ShippingZoneRepository zoneRepository;
+    private final ShippingRateRepository rateRepository;
+
+    // Grille historique (Bamako 2000, ailleurs 5000) tant que la table n'est pas chargée
+    private volatile Table table = build(Map.of("bamako", new Zone("BAMAKO", new int[]{1}, new long[]{2000})),
+            new Zone("DEFAULT", new int[]{1}, new long[]{5000}));
+
+    @Override
+    public void run(String... args) {
+        try {
+            if (zoneRepository.count() == 0) seedDefaults();
+            reload();
+        } catch (Exception e) {
+            log.error("Impossible de charger la grille de livraison, grille par défaut conservée", e);
+        }
+    }
+
+    /**
+     * Frais pour une zone saisie et un nombre d'articles. Zone vide = pas de livraison (0) ;
+     * zone inconnue = zone par défaut, ou IllegalArgumentException s'il n'y en a pas.
+     */
+    public Quote quote(String zone, int quantity) {
+        return quote(table, zone, quantity);
+    }
+
+    /**
+     * Devis groupés, tous calculés sur le même instantané de la grille.
+     */
+    public List<Quote> quoteAll(Collection<Request> requests) {
+        Table snapshot = table;
+        List<Quote> quotes = new ArrayList<>(requests.size());
+        for (Request r : requests) {
+            quotes.add(quote(snapshot, r.zone(), r.quantity() != null ? r.quantity() : 1));
+        }
+        return quotes;
+    }
+
+    /**
+     * Relit zones et tranches actives et remplace la grille en mémoire.
+     */
+    @Scheduled(fixedDelayString = "${app.shipping.reload-ms:300000}", initialDelayString = "${app.shipping.reload-ms:300000}")
+    public void reload() {
+        Map<Long, ShippingZone> zones = new LinkedHashMap<>();
+        Map<Long, List<ShippingRate>> rates = new HashMap<>();
+        for (ShippingRate r : rateRepository.findActiveRates()) {
+            zones.putIfAbsent(r.getZone().getId(), r.getZone());
+            rates.computeIfAbsent(r.getZone().getId(), k -> new ArrayList<>()).add(r);
+        }
+        Map<String, Zone> byKeyword = new HashMap<>();
+        Zone fallback = null;
+        for (ShippingZone z : zones.values()) {
+            List<ShippingRate> bands = rates.get(z.getId());
+            int[] mins = new int[bands.size()];
+            long[] fees = new long[bands.size()];
+            for (int i = 0; i < bands.size(); i++) {
+                mins[i] = bands.get(i).getMinQuantity();
+                fees[i] = Money.toMinor(bands.get(i).getFee());
+            }
+            Zone zone = new Zone(z.getCode(), mins, fees);
+            if (z.isDefaultZone()) fallback = zone;
+            byKeyword.putIfAbsent(fold(z.getCode()), zone);
+            if (z.getKeywords() != null) {
+                for (String keyword : z.getKeywords().split(",")) {
+                    String key = fold(keyword);
+                    if (!key.isEmpty()) byKeyword.putIfAbsent(key, zone);
+                }
+            }
+        }
+        table = build(byKeyword, fallback);
+        log.info("Grille de livraison chargée: {} zones, {} mots-clés", zones.size(), byKeyword.size());
+    }
+
+    // ===== Internes =====
+
+    private static Quote quote(Table t, String zone, int quantity) {
+        // Panier vide : tarif de la première tranche
+        quantity = Math.max(1, quantity);
+        String key = fold(zone);
+        if (key.isEmpty()) return new Quote(zone, null, quantity, Money.toAmount(0));
+        Zone z = t.byKeyword().get(key);
+        if (z == null) {
+            for (Map.Entry<String, Zone> e : t.bySpecificity()) {
+                if (key.contains(e.getKey())) {
+                    z = e.getValue();
+                    break;
+                }
+            }
+        }
+        if (z == null) z = t.fallback();
+        if (z == null) throw new IllegalArgumentException("Zone de livraison non desservie: " + zone);
+        return new Quote(zone, z.code(), quantity, Money.toAmount(z.fee(quantity)));
+    }
+
+    private static Table build(Map<String, Zone> byKeyword, Zone fallback) {
+        List<Map.Entry<String, Zone>> bySpecificity = new ArrayList<>(byKeyword.entrySet());
+        bySpecificity.sort(Comparator.<Map.Entry<String, Zone>>comparingInt(e -> -e.getKey().length())
+                .thenComparing(Map.Entry::getKey));
+        return new Table(Map.copyOf(byKeyword), List.copyOf(bySpecificity), fallback);
+    }
+
+    private static String fold(String text) {
+        if (text == null) return "";
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SPACES.matcher(folded.toLowerCase(Locale.ROOT).trim()).replaceAll(" ");
+    }
+
+    private void seedDefaults() {
+        seed("BAMAKO", "Bamako", "bamako", false, new BigDecimal("2000"));
+        seed("DEFAULT", "Autres zones", null, true, new BigDecimal("5000"));
+        log.info("Grille de livraison initialisée avec les tarifs historiques");
+    }
+
+    private void seed(String code, String name, String keywords, boolean defaultZone, BigDecimal fee) {
+        ShippingZone z = new ShippingZone();
+        z.setCode(code);
+        z.setName(name);
+        z.setKeywords(keywords);
+        z.setDefaultZone(defaultZone);
+        ShippingZone saved = zoneRepository.save(z);
+        ShippingRate r = new ShippingRate();
+        r.setZone(saved);
+        r.setMinQuantity(1);
+        r.setFee(fee);
+        rateRepository.save(r);
+    }
+}
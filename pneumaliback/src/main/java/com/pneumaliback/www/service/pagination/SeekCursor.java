@@ -0,0 +1,66 @@
+package com.pneumaliback.www.service.pagination;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position de reprise d'une pagination par curseur : valeur de la clé de tri et id
+ * du dernier élément renvoyé. Sérialisé en jeton opaque (base64 url) qui porte aussi
+ * le tri pour refuser un curseur réutilisé sur un autre ordre.
+ */
+public record SeekCursor(String sort, String key, long id) {
+
+    public static final int MAX_SIZE = 100;
+
+    public static SeekCursor of(String sort, LocalDateTime key, Long id) {
+        return new SeekCursor(sort, key.toString(), id);
+    }
+
+    public static SeekCursor of(String sort, BigDecimal key, Long id) {
+        return new SeekCursor(sort, key.toPlainString(), id);
+    }
+
+    public String encode() {
+        String raw = sort + "|" + key + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Décode un jeton ; null ou vide = première page (renvoie null).
+     */
+    public static SeekCursor decode(String token, String expectedSort) {
+        if (token == null || token.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length != 3 || !parts[0].equals(expectedSort)) throw new IllegalArgumentException("Curseur invalide");
+            return new SeekCursor(parts[0], parts[1], Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException et erreurs base64 comprises
+            throw new IllegalArgumentException("Curseur invalide");
+        }
+    }
+
+    public LocalDateTime keyAsDateTime() {
+        try {
+            return LocalDateTime.parse(key);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Curseur invalide");
+        }
+    }
+
+    public BigDecimal keyAsDecimal() {
+        try {
+            return new BigDecimal(key);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Curseur invalide");
+        }
+    }
+
+    public static int checkSize(int size) {
+        if (size < 1 || size > MAX_SIZE) throw new IllegalArgumentException("Taille de page invalide (1-" + MAX_SIZE + ")");
+        return size;
+    }
+}
@@ -0,0 +1,40 @@
+package com.pneumaliback.www.service.payment;
+
+import com.pneumaliback.www.enums.PaymentMethod;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Prestataire local (développement, tests) : renvoie l'état enregistré pour une
+ * référence via define(), PENDING sinon. Actif uniquement si
+ * app.payment.reconciliation.provider=local est demandé explicitement ; la
+ * réconciliation le signale au démarrage.
+ */
+@Component
+@ConditionalOnProperty(name = "app.payment.reconciliation.provider", havingValue = "local")
+public class LocalPaymentStatusProvider implements PaymentStatusProvider {
+
+    private final Map<String, Status> statuses = new ConcurrentHashMap<>();
+
+    @Override
+    public String name() {
+        return "local";
+    }
+
+    @Override
+    public boolean supports(PaymentMethod method) {
+        return method != PaymentMethod.CASH_ON_DELIVERY;
+    }
+
+    @Override
+    public Status fetchStatus(PendingPayment payment) {
+        return statuses.getOrDefault(payment.transactionReference(), Status.PENDING);
+    }
+
+    public void define(String transactionReference, Status status) {
+        statuses.put(transactionReference, status);
+    }
+}
@@ -0,0 +1,152 @@
+package com.pneumaliback.www.service.payment;
+
+import com.pneumaliback.www.enums.CallbackStatus;
+import com.pneumaliback.www.repository.PaymentCallbackRepository;
+import com.pneumaliback.www.repository.PaymentRepository;
+import com.pneumaliback.www.service.PaymentService;
+import com.pneumaliback.www.service.TransactionHooks;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Réception asynchrone des callbacks de paiement.
+ *
+ * receive() écrit le callback dans payment_callbacks (un seul enregistrement par
+ * référence de transaction : les doublons sont écartés à l'insertion) et rend la main ;
+ * le traitement se fait sur un pool borné. Les callbacks d'une même commande sont
+ * traités l'un après l'autre (verrous répartis par id de commande). Un callback non
+ * traité (file pleine, redémarrage) ou en échec est repris par le balayage périodique.
+ */
+@Service
+@Slf4j
+public class PaymentCallbackService {
+
+    private static final int LOCK_STRIPES = 64;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final int SWEEP_BATCH = 100;
+
+    private final PaymentCallbackRepository callbackRepository;
+    private final PaymentRepository paymentRepository;
+    private final PaymentService paymentService;
+    private final ThreadPoolExecutor workers;
+    private final ReentrantLock[] orderLocks = new ReentrantLock[LOCK_STRIPES];
+
+    public PaymentCallbackService(PaymentCallbackRepository callbackRepository,
+                                  PaymentRepository paymentRepository,
+                                  PaymentService paymentService,
+                                  @Value("${app.payment.callback-workers:2}") int workerCount,
+                                  @Value("${app.payment.callback-queue:500}") int queueCapacity) {
+        this.callbackRepository = callbackRepository;
+        this.paymentRepository = paymentRepository;
+        this.paymentService = paymentService;
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "payment-callback-" + threads.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        for (int i = 0; i < LOCK_STRIPES; i++) orderLocks[i] = new ReentrantLock();
+    }
+
+    /**
+     * Enregistre durablement le callback puis planifie son traitement. Renvoie faux pour
+     * un doublon déjà reçu.
+     */
+    public boolean receive(String transactionReference) {
+        if (transactionReference == null || transactionReference.isBlank() || transactionReference.length() > 100) {
+            throw new IllegalArgumentException("Référence de transaction invalide");
+        }
+        String ref = transactionReference.trim();
+        if (callbackRepository.insertIfAbsent(ref) == 0) {
+            log.info("Callback de paiement en double ignoré: {}", ref);
+            return false;
+        }
+        dispatch(ref);
+        return true;
+    }
+
+    /**
+     * Enregistre un lot de confirmations (réconciliation) dans une seule transaction et
+     * planifie leur traitement après le commit. Un callback déjà écarté ou en échec est
+     * rouvert avec un compteur de tentatives remis à zéro, le prestataire ayant confirmé
+     * le paiement. Renvoie le nombre de callbacks (re)planifiés.
+     */
+    @Transactional
+    public int receiveAll(Collection<String> transactionReferences) {
+        List<String> inserted = new ArrayList<>();
+        for (String ref : transactionReferences) {
+            if (callbackRepository.insertOrReopen(ref) == 1) inserted.add(ref);
+        }
+        if (inserted.isEmpty()) return 0;
+        TransactionHooks.afterCommit(() -> inserted.forEach(this::dispatch));
+        return inserted.size();
+    }
+
+    /**
+     * Reprend les callbacks restés en attente ou en échec (sous le plafond de tentatives).
+     */
+    @Scheduled(fixedDelayString = "${app.payment.callback-sweep-ms:30000}")
+    public void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        List<String> pending = callbackRepository.findPending(now.minusSeconds(30), now.minusMinutes(1),
+                MAX_ATTEMPTS, PageRequest.of(0, SWEEP_BATCH));
+        pending.forEach(this::dispatch);
+        if (!pending.isEmpty()) log.info("{} callbacks de paiement replanifiés", pending.size());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    // ===== Internes =====
+
+    private void dispatch(String ref) {
+        try {
+            workers.execute(() -> process(ref));
+        } catch (RejectedExecutionException e) {
+            // File pleine : le callback reste RECEIVED et sera repris par le balayage
+            log.warn("File des callbacks de paiement pleine, {} différé", ref);
+        }
+    }
+
+    private void process(String ref) {
+        Long orderId = paymentRepository.findOrderIdByTransactionReference(ref).orElse(null);
+        ReentrantLock lock = orderLocks[Math.floorMod(orderId != null ? orderId.hashCode() : ref.hashCode(), LOCK_STRIPES)];
+        lock.lock();
+        try {
+            PaymentService.CallbackOutcome outcome = paymentService.confirmSuccessByTransaction(ref);
+            CallbackStatus status = outcome == PaymentService.CallbackOutcome.UNKNOWN_PAYMENT
+                    || outcome == PaymentService.CallbackOutcome.REJECTED ? CallbackStatus.IGNORED : CallbackStatus.PROCESSED;
+            callbackRepository.markAttempt(ref, status, outcome.name(), null, LocalDateTime.now());
+            log.info("Callback de paiement {} traité: {}", ref, outcome);
+        } catch (Exception e) {
+            String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            callbackRepository.markAttempt(ref, CallbackStatus.FAILED, null,
+                    error.length() > 500 ? error.substring(0, 500) : error, LocalDateTime.now());
+            log.warn("Échec du traitement du callback de paiement {}: {}", ref, error);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.pneumaliback.www.service.payment;
+
+import com.pneumaliback.www.enums.PaymentStatus;
+import com.pneumaliback.www.repository.PaymentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Réconciliation des paiements restés sans callback.
+ *
+ * Les paiements PENDING / PROCESSING plus anciens que app.payment.reconciliation.min-age-minutes
+ * sont parcourus par blocs (pagination par id). L'état de chaque transaction est demandé
+ * au prestataire correspondant sur un pool borné ; les succès passent par la boîte de
+ * réception des callbacks (même traitement idempotent qu'un vrai callback), les échecs
+ * sont appliqués par un UPDATE groupé par bloc. Compteurs et temps de réponse par
+ * prestataire sont publiés dans Micrometer et résumés pour l'administration.
+ */
+@Service
+@Slf4j
+public class PaymentReconciliationService {
+
+    private static final int CHUNK_SIZE = 200;
+    private static final List<PaymentStatus> OPEN = List.of(PaymentStatus.PENDING, PaymentStatus.PROCESSING);
+
+    public record ProviderSummary(long checked, long confirmed, long failed, long pending, long errors,
+                                  double perSecond) {
+    }
+
+    public record RunSummary(LocalDateTime startedAt, long durationMs, long scanned, long unsupported,
+                             Map<String, ProviderSummary> providers) {
+    }
+
+    private static final class Counts {
+        long checked, confirmed, failed, pending, errors;
+    }
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentCallbackService callbackService;
+    private final List<PaymentStatusProvider> providers;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor pool;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @Value("${app.payment.reconciliation.min-age-minutes:15}")
+    private long minAgeMinutes;
+
+    @Value("${app.payment.reconciliation.max-chunks:50}")
+    private int maxChunks;
+
+    @Value("${app.payment.reconciliation.call-timeout-ms:10000}")
+    private long callTimeoutMs;
+
+    private volatile RunSummary lastRun;
+
+    public PaymentReconciliationService(PaymentRepository paymentRepository,
+                                        PaymentCallbackService callbackService,
+                                        ObjectProvider<PaymentStatusProvider> providers,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${app.payment.reconciliation.concurrency:4}") int concurrency) {
+        this.paymentRepository = paymentRepository;
+        this.callbackService = callbackService;
+        this.providers = providers.orderedStream().toList();
+        this.meterRegistry = meterRegistry;
+        AtomicInteger threads = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                // Marge pour les appels annulés encore en file au bloc suivant
+                new ArrayBlockingQueue<>(2 * CHUNK_SIZE),
+                r -> {
+                    Thread t = new Thread(r, "payment-reconcile-" + threads.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    public RunSummary lastRun() {
+        return lastRun;
+    }
+
+    @Scheduled(fixedDelayString = "${app.payment.reconciliation.interval-ms:600000}", initialDelay = 120_000L)
+    public void reconcile() {
+        if (!running.compareAndSet(false, true)) return;
+        try {
+            lastRun = run();
+            if (lastRun.scanned() > 0) {
+                log.info("Réconciliation des paiements: {} examinés en {} ms ({})",
+                        lastRun.scanned(), lastRun.durationMs(), lastRun.providers());
+            }
+        } catch (Exception e) {
+            log.error("Réconciliation des paiements interrompue", e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Sans vrai prestataire, les paiements sans callback ne sont jamais réconciliés :
+     * le signaler dès le démarrage plutôt qu'à la première réclamation.
+     */
+    @PostConstruct
+    void checkProviders() {
+        if (providers.isEmpty()) {
+            log.warn("AUCUN prestataire de paiement configuré pour la réconciliation : les paiements restés "
+                    + "sans callback ne seront jamais confirmés ni annulés (app.payment.reconciliation.provider)");
+        } else if (providers.stream().anyMatch(LocalPaymentStatusProvider.class::isInstance)) {
+            log.warn("Prestataire de paiement LOCAL actif pour la réconciliation : réservé au développement, "
+                    + "les transactions réelles restent PENDING");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // ===== Internes =====
+
+    private record Check(PendingPayment payment, PaymentStatusProvider provider,
+                         Future<PaymentStatusProvider.Status> status) {
+    }
+
+    RunSummary run() throws InterruptedException {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long start = System.nanoTime();
+        LocalDateTime cutoff = startedAt.minusMinutes(minAgeMinutes);
+        Map<String, Counts> counts = new TreeMap<>();
+        long scanned = 0;
+        long unsupported = 0;
+        long afterId = 0;
+
+        for (int chunkNo = 0; chunkNo < maxChunks; chunkNo++) {
+            List<PendingPayment> chunk = paymentRepository.findPendingAfter(OPEN, cutoff, afterId, PageRequest.of(0, CHUNK_SIZE));
+            if (chunk.isEmpty()) break;
+            afterId = chunk.get(chunk.size() - 1).id();
+            scanned += chunk.size();
+
+            List<Check> checks = new ArrayList<>(chunk.size());
+            for (PendingPayment p : chunk) {
+                PaymentStatusProvider provider = providerFor(p);
+                if (provider == null) {
+                    unsupported++;
+                    continue;
+                }
+                Timer timer = meterRegistry.timer("payment.reconciliation.provider.calls", "provider", provider.name());
+                checks.add(new Check(p, provider, pool.submit(() -> timer.recordCallable(() -> provider.fetchStatus(p)))));
+            }
+
+            List<String> confirmed = new ArrayList<>();
+            List<Long> failed = new ArrayList<>();
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(callTimeoutMs);
+            for (Check check : checks) {
+                Counts c = counts.computeIfAbsent(check.provider().name(), k -> new Counts());
+                c.checked++;
+                PaymentStatusProvider.Status status;
+                try {
+                    status = check.status().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (ExecutionException | TimeoutException e) {
+                    check.status().cancel(true);
+                    c.errors++;
+                    record(check.provider(), "ERROR");
+                    log.debug("Statut indisponible pour {} chez {}: {}", check.payment().transactionReference(),
+                            check.provider().name(), e.getMessage());
+                    continue;
+                }
+                record(check.provider(), status.name());
+                switch (status) {
+                    case SUCCESS -> {
+                        c.confirmed++;
+                        confirmed.add(check.payment().transactionReference());
+                    }
+                    case FAILED -> {
+                        c.failed++;
+                        failed.add(check.payment().id());
+                    }
+                    default -> c.pending++;
+                }
+            }
+
+            if (!confirmed.isEmpty()) callbackService.receiveAll(confirmed);
+            if (!failed.isEmpty()) {
+                paymentRepository.transitionAll(failed, OPEN, PaymentStatus.FAILED, LocalDateTime.now());
+            }
+            if (chunk.size() < CHUNK_SIZE) break;
+        }
+
+        long elapsed = System.nanoTime() - start;
+        Map<String, ProviderSummary> summaries = new LinkedHashMap<>();
+        counts.forEach((name, c) -> summaries.put(name, new ProviderSummary(c.checked, c.confirmed, c.failed,
+                c.pending, c.errors, c.checked * 1e9 / Math.max(1, elapsed))));
+        return new RunSummary(startedAt, TimeUnit.NANOSECONDS.toMillis(elapsed), scanned, unsupported, summaries);
+    }
+
+    private PaymentStatusProvider providerFor(PendingPayment payment) {
+        for (PaymentStatusProvider p : providers) {
+            if (p.supports(payment.method())) return p;
+        }
+        return null;
+    }
+
+    private void record(PaymentStatusProvider provider, String result) {
+        meterRegistry.counter("payment.reconciliation.results", "provider", provider.name(), "result", result).increment();
+    }
+}
@@ -0,0 +1,22 @@
+package com.pneumaliback.www.service.payment;
+
+import com.pneumaliback.www.enums.PaymentMethod;
+
+/**
+ * Interrogation de l'état d'une transaction chez un prestataire de paiement
+ * (Orange Money, Moov, Malitel...). Une implémentation par prestataire ; les appels
+ * peuvent être bloquants, la réconciliation les exécute sur son propre pool.
+ */
+public interface PaymentStatusProvider {
+
+    enum Status { SUCCESS, FAILED, PENDING, UNKNOWN }
+
+    /**
+     * Nom court utilisé dans les métriques.
+     */
+    String name();
+
+    boolean supports(PaymentMethod method);
+
+    Status fetchStatus(PendingPayment payment);
+}
@@ -0,0 +1,12 @@
+package com.pneumaliback.www.service.payment;
+
+import com.pneumaliback.www.enums.PaymentMethod;
+
+import java.time.LocalDateTime;
+
+/**
+ * Paiement en attente tel que lu par la réconciliation (sans la commande).
+ */
+public record PendingPayment(Long id, String transactionReference, PaymentMethod method, String provider,
+                             LocalDateTime createdAt) {
+}
@@ -0,0 +1,31 @@
+package com.pneumaliback.www.service.pricing;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversions montant ↔ unités mineures. Le franc CFA n'a pas de subdivision :
+ * une unité mineure vaut 1 FCFA et tous les calculs de prix se font en long.
+ */
+public final class Money {
+
+    private Money() {
+    }
+
+    public static long toMinor(BigDecimal amount) {
+        if (amount == null) return 0L;
+        return amount.setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    public static BigDecimal toAmount(long minor) {
+        return BigDecimal.valueOf(minor).setScale(2);
+    }
+
+    /**
+     * Pourcentage (ex. 12.5) en points de base (1250).
+     */
+    public static long toBasisPoints(BigDecimal percentage) {
+        if (percentage == null) return 0L;
+        return percentage.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+}
@@ -0,0 +1,11 @@
+package com.pneumaliback.www.service.pricing;
+
+/**
+ * Ligne à chiffrer : produit, quantité et prix unitaire en unités mineures.
+ */
+public record PriceLine(Long productId, int quantity, long unitPrice) {
+
+    public long total() {
+        return Math.multiplyExact(unitPrice, (long) quantity);
+    }
+}
@@ -0,0 +1,13 @@
+package com.pneumaliback.www.service.pricing;
+
+import java.util.List;
+
+/**
+ * Résultat d'un chiffrage, en unités mineures. La remise totale comprend les remises
+ * de ligne (pourcentage, BOGO) et la remise de commande (montant fixe).
+ */
+public record PriceQuote(long subtotal, long discount, long shipping, long total, List<Line> lines) {
+
+    public record Line(Long productId, int quantity, long unitPrice, long total, long discount) {
+    }
+}
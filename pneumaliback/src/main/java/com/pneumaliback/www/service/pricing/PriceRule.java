@@ -0,0 +1,65 @@
+package com.pneumaliback.www.service.pricing;
+
+import java.util.Arrays;
+
+/**
+ * Règle de remise compilée à partir d'une promotion. Immuable, partagée entre threads.
+ */
+sealed interface PriceRule {
+
+    PriceRule NONE = new Fixed(0);
+
+    /**
+     * Remplit lineDiscounts (remises de ligne, chacune plafonnée au total de sa ligne)
+     * et renvoie la remise totale avant plafonnement au sous-total.
+     */
+    long apply(PriceLine[] lines, long[] lineDiscounts);
+
+    /** Pourcentage appliqué ligne par ligne, arrondi à l'unité inférieure. */
+    record Percentage(long basisPoints) implements PriceRule {
+        @Override
+        public long apply(PriceLine[] lines, long[] lineDiscounts) {
+            long sum = 0;
+            for (int i = 0; i < lines.length; i++) {
+                long total = lines[i].total();
+                lineDiscounts[i] = Math.min(total, Math.multiplyExact(total, basisPoints) / 10_000);
+                sum += lineDiscounts[i];
+            }
+            return sum;
+        }
+    }
+
+    /** Montant fixe sur la commande. */
+    record Fixed(long amount) implements PriceRule {
+        @Override
+        public long apply(PriceLine[] lines, long[] lineDiscounts) {
+            return amount;
+        }
+    }
+
+    /** Un article offert pour un acheté, par ligne ; cap > 0 plafonne la remise totale. */
+    record BuyOneGetOne(long cap) implements PriceRule {
+        @Override
+        public long apply(PriceLine[] lines, long[] lineDiscounts) {
+            long sum = 0;
+            for (int i = 0; i < lines.length; i++) {
+                long free = Math.multiplyExact(lines[i].unitPrice(), (long) (lines[i].quantity() / 2));
+                if (cap > 0) free = Math.min(free, cap - sum);
+                lineDiscounts[i] = free;
+                sum += free;
+            }
+            return sum;
+        }
+    }
+
+    /** Code influenceur : la plus avantageuse des deux remises saisies. */
+    record BestOf(Percentage percentage, Fixed fixed) implements PriceRule {
+        @Override
+        public long apply(PriceLine[] lines, long[] lineDiscounts) {
+            long viaPercent = percentage.apply(lines, lineDiscounts);
+            if (viaPercent >= fixed.amount()) return viaPercent;
+            Arrays.fill(lineDiscounts, 0L);
+            return fixed.amount();
+        }
+    }
+}
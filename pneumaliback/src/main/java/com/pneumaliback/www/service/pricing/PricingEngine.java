@@ -0,0 +1,73 @@
+package com.pneumaliback.www.service.pricing;
+
+import com.pneumaliback.www.entity.Promotion;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Moteur de prix : chaque promotion est compilée une fois en règle immuable
+ * (recompilée quand sa version change), puis appliquée ligne par ligne en
+ * unités mineures. Sans état par appel, il peut être interrogé à chaque
+ * modification du panier.
+ */
+@Component
+public class PricingEngine {
+
+    private record Compiled(Integer version, PriceRule rule) {
+    }
+
+    private final ConcurrentHashMap<Long, Compiled> compiled = new ConcurrentHashMap<>();
+
+    /**
+     * Chiffre des lignes avec une promotion éventuelle (null = aucune) et des frais de
+     * livraison. Remise plafonnée au sous-total, total jamais négatif.
+     */
+    public PriceQuote quote(List<PriceLine> lines, Promotion promotion, long shipping) {
+        PriceLine[] arr = lines.toArray(new PriceLine[0]);
+        long[] lineDiscounts = new long[arr.length];
+        long subtotal = 0;
+        for (PriceLine line : arr) {
+            subtotal = Math.addExact(subtotal, line.total());
+        }
+        long discount = Math.max(0, Math.min(subtotal, ruleFor(promotion).apply(arr, lineDiscounts)));
+        long total = Math.max(0, subtotal - discount + shipping);
+
+        List<PriceQuote.Line> quoted = new ArrayList<>(arr.length);
+        for (int i = 0; i < arr.length; i++) {
+            PriceLine l = arr[i];
+            quoted.add(new PriceQuote.Line(l.productId(), l.quantity(), l.unitPrice(), l.total(), lineDiscounts[i]));
+        }
+        return new PriceQuote(subtotal, discount, shipping, total, List.copyOf(quoted));
+    }
+
+    public PriceQuote quote(List<PriceLine> lines, Promotion promotion, BigDecimal shipping) {
+        return quote(lines, promotion, Money.toMinor(shipping));
+    }
+
+    PriceRule ruleFor(Promotion promotion) {
+        if (promotion == null || promotion.getType() == null) return PriceRule.NONE;
+        if (promotion.getId() == null) return compile(promotion);
+        Compiled c = compiled.get(promotion.getId());
+        if (c == null || !Objects.equals(c.version(), promotion.getVersion())) {
+            c = new Compiled(promotion.getVersion(), compile(promotion));
+            compiled.put(promotion.getId(), c);
+        }
+        return c.rule();
+    }
+
+    static PriceRule compile(Promotion promo) {
+        long basisPoints = Math.max(0, Money.toBasisPoints(promo.getDiscountPercentage()));
+        long amount = Math.max(0, Money.toMinor(promo.getDiscountAmount()));
+        return switch (promo.getType()) {
+            case PERCENTAGE -> new PriceRule.Percentage(basisPoints);
+            case FIXED_AMOUNT -> new PriceRule.Fixed(amount);
+            case BUY_ONE_GET_ONE -> new PriceRule.BuyOneGetOne(amount);
+            case INFLUENCER_CODE -> new PriceRule.BestOf(new PriceRule.Percentage(basisPoints), new PriceRule.Fixed(amount));
+        };
+    }
+}
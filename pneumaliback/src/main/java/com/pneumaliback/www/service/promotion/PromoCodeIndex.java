@@ -0,0 +1,103 @@
+package com.pneumaliback.www.service.promotion;
+
+import com.pneumaliback.www.entity.Promotion;
+import com.pneumaliback.www.repository.PromotionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Résolution des codes promo en mémoire : deux tables de hachage insensibles à la
+ * casse (code promotion → promotion, code influenceur → promotion), limitées aux
+ * promotions valides du jour. L'instantané est reconstruit au changement de date,
+ * après invalidation (création d'une promotion sur cette instance) et périodiquement
+ * (app.promo.reload-ms) pour les écritures faites par les autres instances ;
+ * entre-temps une résolution ne fait aucun accès à la base.
+ *
+ * Les promotions renvoyées sont détachées et partagées : à lire, pas à modifier.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PromoCodeIndex {
+
+    private record Snapshot(LocalDate day, long generation,
+                            Map<String, Promotion> byCode, Map<String, Promotion> byInfluencerCode) {
+    }
+
+    private final PromotionRepository promotionRepository;
+
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    public Optional<Promotion> findByCode(String code) {
+        String key = normalize(code);
+        return key == null ? Optional.empty() : Optional.ofNullable(current().byCode().get(key));
+    }
+
+    public Optional<Promotion> findByInfluencerCode(String code) {
+        String key = normalize(code);
+        return key == null ? Optional.empty() : Optional.ofNullable(current().byInfluencerCode().get(key));
+    }
+
+    /**
+     * À appeler après toute écriture sur les promotions : la prochaine résolution rechargera.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Recharge l'instantané : invalidate() ne touche que l'instance qui a écrit.
+     */
+    @Scheduled(fixedDelayString = "${app.promo.reload-ms:60000}", initialDelayString = "${app.promo.reload-ms:60000}")
+    public void reload() {
+        generation.incrementAndGet();
+        rebuild(LocalDate.now());
+    }
+
+    private Snapshot current() {
+        LocalDate today = LocalDate.now();
+        Snapshot s = snapshot;
+        if (s != null && s.day().equals(today) && s.generation() == generation.get()) return s;
+        return rebuild(today);
+    }
+
+    private synchronized Snapshot rebuild(LocalDate today) {
+        long gen = generation.get();
+        Snapshot s = snapshot;
+        if (s != null && s.day().equals(today) && s.generation() == gen) return s;
+
+        List<Promotion> active = new ArrayList<>(promotionRepository.findActivePromotions(today));
+        // À code égal (casse près), la plus ancienne promotion l'emporte
+        active.sort(Comparator.comparing(Promotion::getId));
+        Map<String, Promotion> byCode = new HashMap<>();
+        Map<String, Promotion> byInfluencerCode = new HashMap<>();
+        for (Promotion p : active) {
+            String code = normalize(p.getCode());
+            if (code != null) byCode.putIfAbsent(code, p);
+            String infCode = p.getInfluenceur() != null ? normalize(p.getInfluenceur().getPromoCode()) : null;
+            if (infCode != null) byInfluencerCode.putIfAbsent(infCode, p);
+        }
+        s = new Snapshot(today, gen, Map.copyOf(byCode), Map.copyOf(byInfluencerCode));
+        snapshot = s;
+        log.info("Index des codes promo chargé pour le {}: {} promotion(s) active(s)", today, active.size());
+        return s;
+    }
+
+    private static String normalize(String code) {
+        if (code == null || code.isBlank()) return null;
+        return code.trim().toLowerCase(Locale.ROOT);
+    }
+}
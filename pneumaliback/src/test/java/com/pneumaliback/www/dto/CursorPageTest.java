@@ -0,0 +1,36 @@
+package com.pneumaliback.www.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CursorPageTest {
+
+    @Test
+    void extraRowSignalsNextPageAndIsDropped() {
+        CursorPage<Integer> page = CursorPage.of(List.of(1, 2, 3), 2, i -> "after-" + i);
+
+        assertThat(page.items()).containsExactly(1, 2);
+        assertThat(page.hasNext()).isTrue();
+        assertThat(page.nextCursor()).isEqualTo("after-2");
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        CursorPage<Integer> page = CursorPage.of(List.of(1, 2), 2, i -> "after-" + i);
+
+        assertThat(page.items()).containsExactly(1, 2);
+        assertThat(page.hasNext()).isFalse();
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void mapKeepsCursor() {
+        CursorPage<String> page = CursorPage.of(List.of(1, 2, 3), 2, i -> "after-" + i).map(String::valueOf);
+
+        assertThat(page.items()).containsExactly("1", "2");
+        assertThat(page.nextCursor()).isEqualTo("after-2");
+    }
+}
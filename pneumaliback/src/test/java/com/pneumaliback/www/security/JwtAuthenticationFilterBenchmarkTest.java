@@ -0,0 +1,158 @@
+package com.pneumaliback.www.security;
+
+import com.pneumaliback.www.entity.User;
+import com.pneumaliback.www.enums.Role;
+import com.pneumaliback.www.repository.RevokedTokenRepository;
+import com.pneumaliback.www.repository.UserRepository;
+import com.pneumaliback.www.service.JwtService;
+import com.pneumaliback.www.service.auth.PrincipalCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Mesure du filtre JWT : requêtes en base et temps CPU par requête authentifiée,
+ * chemin rapide (claims du jeton) contre l'ancien chemin (trois lectures du jeton et
+ * un chargement de l'utilisateur par requête). Le dépôt est simulé : le temps CPU
+ * mesuré n'inclut pas l'aller-retour réseau d'une vraie requête SQL.
+ */
+class JwtAuthenticationFilterBenchmarkTest {
+
+    private static final int WARMUP = 5_000;
+    private static final int ITERATIONS = 20_000;
+
+    private final AtomicLong userQueries = new AtomicLong();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private JwtService jwtService;
+    private JwtAuthenticationFilter filter;
+    private UserRepository userRepository;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secretKey", "cle-de-mesure-jwt-suffisamment-longue-pour-hs256");
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 3_600_000L);
+        ReflectionTestUtils.invokeMethod(jwtService, "init");
+
+        user = new User();
+        user.setId(42L);
+        user.setEmail("client@pneumali.ml");
+        user.setRole(Role.CLIENT);
+
+        userRepository = mock(UserRepository.class, withSettings().stubOnly());
+        when(userRepository.findByEmailIgnoreCase(anyString())).thenAnswer(inv -> {
+            userQueries.incrementAndGet();
+            return Optional.of(user);
+        });
+        when(userRepository.findById(any())).thenAnswer(inv -> {
+            userQueries.incrementAndGet();
+            return Optional.of(user);
+        });
+        when(userRepository.findTokenVersions()).thenReturn(List.of());
+
+        RevokedTokenRepository revokedRepository = mock(RevokedTokenRepository.class, withSettings().stubOnly());
+        when(revokedRepository.findActive(any())).thenReturn(List.of());
+        TokenRevocationList revocations = new TokenRevocationList(revokedRepository, 1_000, 30_000);
+        revocations.run();
+        TokenVersionRegistry versions = new TokenVersionRegistry(userRepository);
+        versions.run();
+        PrincipalCache cache = new PrincipalCache(userRepository, new SimpleMeterRegistry(), 1_000, 300);
+
+        filter = new JwtAuthenticationFilter(jwtService, cache, versions, revocations);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void fastPathAuthenticatesWithoutQueriesAndLessCpu() throws Exception {
+        String token = jwtService.generateToken(user);
+
+        Result legacy = measure(() -> legacyAuthentication(token));
+        Result fast = measure(() -> authenticate(token));
+
+        System.out.printf("Filtre JWT - ancien chemin : %.2f requêtes/requête, %d ns CPU/requête%n",
+                legacy.queriesPerRequest(), legacy.cpuNanosPerRequest());
+        System.out.printf("Filtre JWT - chemin rapide : %.2f requêtes/requête, %d ns CPU/requête%n",
+                fast.queriesPerRequest(), fast.cpuNanosPerRequest());
+
+        assertThat(legacy.queriesPerRequest()).isEqualTo(1.0);
+        assertThat(fast.queriesPerRequest()).isZero();
+        assertThat(fast.cpuNanosPerRequest()).isLessThan(legacy.cpuNanosPerRequest());
+    }
+
+    @Test
+    void tokensWithoutClaimsAreServedFromThePrincipalCache() throws Exception {
+        // Jeton d'avant les claims d'identité : l'utilisateur est relu via PrincipalCache
+        String token = jwtService.generateToken(org.springframework.security.core.userdetails.User
+                .withUsername(user.getEmail()).password("x").roles("CLIENT").build());
+
+        Result cached = measure(() -> authenticate(token));
+
+        System.out.printf("Filtre JWT - jeton sans claims : %.4f requêtes/requête, %d ns CPU/requête%n",
+                cached.queriesPerRequest(), cached.cpuNanosPerRequest());
+        assertThat(cached.queriesPerRequest()).isLessThan(0.01);
+    }
+
+    // ===== Internes =====
+
+    private record Result(double queriesPerRequest, long cpuNanosPerRequest) {
+    }
+
+    private interface Request {
+        void run() throws Exception;
+    }
+
+    private Result measure(Request request) throws Exception {
+        for (int i = 0; i < WARMUP; i++) request.run();
+        userQueries.set(0);
+        long cpuStart = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < ITERATIONS; i++) request.run();
+        long cpu = threads.getCurrentThreadCpuTime() - cpuStart;
+        return new Result((double) userQueries.get() / ITERATIONS, cpu / ITERATIONS);
+    }
+
+    private void authenticate(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null) throw new IllegalStateException("Requête non authentifiée");
+    }
+
+    /**
+     * Ancien filtre : extractUsername, chargement de l'utilisateur, isTokenValid puis
+     * isTokenExpired, soit trois lectures du jeton et une requête.
+     */
+    private void legacyAuthentication(String token) {
+        String email = jwtService.extractUsername(token);
+        User loaded = userRepository.findByEmailIgnoreCase(email).orElseThrow();
+        if (!jwtService.isTokenValid(token, loaded) || jwtService.isTokenExpired(token)) {
+            throw new IllegalStateException("Jeton refusé");
+        }
+    }
+}
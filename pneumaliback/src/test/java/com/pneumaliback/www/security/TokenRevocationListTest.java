@@ -0,0 +1,101 @@
+package com.pneumaliback.www.security;
+
+import com.pneumaliback.www.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TokenRevocationListTest {
+
+    private final RevokedTokenRepository repository = mock(RevokedTokenRepository.class);
+
+    @Test
+    void bloomHasNoFalseNegativesAndAboutOnePercentFalsePositives() {
+        TokenRevocationList.Bloom bloom = new TokenRevocationList.Bloom(10_000);
+        List<String> added = new java.util.ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            String jti = UUID.randomUUID().toString();
+            added.add(jti);
+            bloom.add(jti);
+        }
+
+        assertThat(added).allMatch(bloom::mightContain);
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (bloom.mightContain(UUID.randomUUID().toString())) falsePositives++;
+        }
+        // ~1 % attendu à pleine capacité ; marge pour l'aléa
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+
+    @Test
+    void reloadPicksUpRevocationsFromOtherInstances() {
+        Instant expiry = Instant.now().plusSeconds(600);
+        when(repository.findActive(any())).thenReturn(List.of(revocation(1L, "a", expiry)));
+        TokenRevocationList list = new TokenRevocationList(repository, 1_000, 30_000);
+        list.run();
+        assertThat(list.isRevoked("a")).isTrue();
+        assertThat(list.isRevoked("b")).isFalse();
+
+        when(repository.findActiveSince(eq(1L), any(), any())).thenReturn(List.of(revocation(7L, "b", expiry)));
+        list.reload();
+        assertThat(list.isRevoked("b")).isTrue();
+
+        // Le delta suivant part du dernier id vu
+        when(repository.findActiveSince(eq(7L), any(), any())).thenReturn(List.of(revocation(5L, "c", expiry)));
+        list.reload();
+        assertThat(list.isRevoked("c")).isTrue();
+        assertThat(list.size()).isEqualTo(3);
+    }
+
+    @Test
+    void revocationIsVisibleOnlyAfterCommit() {
+        when(repository.findActive(any())).thenReturn(List.of());
+        when(repository.findActiveSince(anyLong(), any(), any())).thenReturn(List.of());
+        TokenRevocationList list = new TokenRevocationList(repository, 1_000, 30_000);
+        list.run();
+        ParsedToken token = new ParsedToken("jti-1", "client@pneumali.ml", 1L, null, 0,
+                Instant.now(), Instant.now().plusSeconds(600), null);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            list.revoke(token);
+            assertThat(list.isRevoked("jti-1")).isFalse();
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(list.isRevoked("jti-1")).isTrue();
+    }
+
+    private static RevokedTokenRepository.ActiveRevocationProjection revocation(Long id, String jti, Instant expiresAt) {
+        return new RevokedTokenRepository.ActiveRevocationProjection() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getJti() {
+                return jti;
+            }
+
+            @Override
+            public Instant getExpiresAt() {
+                return expiresAt;
+            }
+        };
+    }
+}
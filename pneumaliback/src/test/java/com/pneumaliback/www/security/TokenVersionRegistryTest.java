@@ -0,0 +1,98 @@
+package com.pneumaliback.www.security;
+
+import com.pneumaliback.www.entity.User;
+import com.pneumaliback.www.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenVersionRegistryTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final TokenVersionRegistry registry = new TokenVersionRegistry(userRepository);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(registry, "reloadMillis", 30_000L);
+    }
+
+    @Test
+    void reloadPicksUpVersionsBumpedByOtherInstances() {
+        when(userRepository.findTokenVersions()).thenReturn(rows(new Object[] { 1L, 2 }));
+        registry.run();
+        assertThat(registry.isCurrent(1L, 2)).isTrue();
+        assertThat(registry.isCurrent(7L, 0)).isTrue();
+
+        // Rôle retiré sur une autre instance : la version de l'utilisateur 7 passe à 1
+        when(userRepository.findTokenVersionsUpdatedSince(any())).thenReturn(rows(new Object[] { 7L, 1 }));
+        registry.reload();
+
+        assertThat(registry.isCurrent(7L, 0)).isFalse();
+        assertThat(registry.isCurrent(7L, 1)).isTrue();
+        assertThat(registry.isCurrent(1L, 2)).isTrue();
+    }
+
+    @Test
+    void reloadWindowOverlapsThePreviousLoad() {
+        when(userRepository.findTokenVersions()).thenReturn(List.of());
+        LocalDateTime before = LocalDateTime.now();
+        registry.run();
+        when(userRepository.findTokenVersionsUpdatedSince(any())).thenAnswer(inv -> {
+            // Deux intervalles avant le chargement précédent
+            assertThat(inv.<LocalDateTime>getArgument(0)).isBefore(before.minusSeconds(59));
+            return List.of();
+        });
+
+        registry.reload();
+
+        verify(userRepository).findTokenVersionsUpdatedSince(any());
+    }
+
+    @Test
+    void reloadWaitsForTheInitialLoadAndNeverLowersAVersion() {
+        registry.reload();
+        verify(userRepository, never()).findTokenVersionsUpdatedSince(any());
+
+        when(userRepository.findTokenVersions()).thenReturn(rows(new Object[] { 1L, 3 }));
+        registry.run();
+        when(userRepository.findTokenVersionsUpdatedSince(any())).thenReturn(rows(new Object[] { 1L, 2 }));
+        registry.reload();
+
+        assertThat(registry.isCurrent(1L, 2)).isFalse();
+    }
+
+    @Test
+    void localRevocationIsPublishedAfterCommit() {
+        User user = new User();
+        user.setId(5L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            registry.revokeTokens(user);
+            assertThat(user.getTokenVersion()).isEqualTo(1);
+            assertThat(registry.isCurrent(5L, 0)).isTrue();
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(registry.isCurrent(5L, 0)).isFalse();
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+}
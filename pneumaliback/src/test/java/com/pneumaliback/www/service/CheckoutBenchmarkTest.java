@@ -0,0 +1,211 @@
+package com.pneumaliback.www.service;
+
+import com.pneumaliback.www.entity.Cart;
+import com.pneumaliback.www.entity.CartItem;
+import com.pneumaliback.www.entity.Category;
+import com.pneumaliback.www.entity.Order;
+import com.pneumaliback.www.entity.Product;
+import com.pneumaliback.www.entity.User;
+import com.pneumaliback.www.enums.Role;
+import com.pneumaliback.www.repository.CartRepository;
+import com.pneumaliback.www.repository.CategoryRepository;
+import com.pneumaliback.www.repository.ProductRepository;
+import com.pneumaliback.www.repository.UserRepository;
+import com.pneumaliback.www.service.cart.CartQuoteService;
+import com.pneumaliback.www.service.catalog.AutocompleteIndex;
+import com.pneumaliback.www.service.catalog.CatalogIndex;
+import com.pneumaliback.www.service.catalog.ProductSearchIndex;
+import com.pneumaliback.www.service.catalog.TireDimensionIndex;
+import com.pneumaliback.www.service.delivery.ShippingTariff;
+import com.pneumaliback.www.service.pricing.PricingEngine;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+/**
+ * Mesure du checkout sur une vraie base (H2 embarquée) : requêtes envoyées et latence
+ * p99 pour des paniers de 1, 10 et 50 lignes. « Avant » désactive les lots JDBC sur la
+ * session (un aller-retour par ligne, comme avec les ids IDENTITY) ; « après » garde la
+ * configuration de l'application (ids de séquence, hibernate.jdbc.batch_size).
+ *
+ * Relevé (H2, 200 checkouts par taille après 30 de chauffe, machine partagée : seules
+ * les latences relatives comptent) :
+ * <pre>
+ *  lignes | requêtes avant | requêtes après | p99 avant | p99 après
+ *       1 |             10 |             10 |    ~53 ms |    ~27 ms
+ *      10 |             39 |             21 |    ~49 ms |    ~36 ms
+ *      50 |            159 |             61 |   ~104 ms |    ~80 ms
+ * </pre>
+ * Les requêtes restantes sont les lectures du panier, les UPDATE conditionnels de stock
+ * (un par produit) et les appels de séquence.
+ */
+@DataJpaTest(showSql = false, properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.pneumaliback.www.service.CheckoutBenchmarkTest$CountingInspector" })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ CheckoutService.class, CheckoutIdempotencyService.class, CartService.class, DeliveryService.class,
+        OrderService.class, StockReservationService.class, ProductService.class, PricingEngine.class })
+class CheckoutBenchmarkTest {
+
+    private static final int WARMUP = 30;
+    private static final int RUNS = 200;
+
+    /**
+     * Compte les requêtes préparées par Hibernate : une par INSERT sans lots, une par
+     * lot avec.
+     */
+    public static class CountingInspector implements StatementInspector {
+        static final AtomicInteger STATEMENTS = new AtomicInteger();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.incrementAndGet();
+            return sql;
+        }
+    }
+
+    private record Measure(int statements, double p99Millis) {
+    }
+
+    @MockitoBean
+    private CatalogIndex catalogIndex;
+    @MockitoBean
+    private TireDimensionIndex tireDimensionIndex;
+    @MockitoBean
+    private ProductSearchIndex productSearchIndex;
+    @MockitoBean
+    private AutocompleteIndex autocompleteIndex;
+    @MockitoBean
+    private PopularityService popularityService;
+    @MockitoBean
+    private StockAlertService stockAlertService;
+    @MockitoBean
+    private CommissionService commissionService;
+    @MockitoBean
+    private PromotionService promotionService;
+    @MockitoBean
+    private CartQuoteService cartQuoteService;
+    @MockitoBean
+    private ShippingTariff shippingTariff;
+
+    @Autowired
+    private CheckoutService checkoutService;
+    @Autowired
+    private CartRepository cartRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate tx;
+    private final List<Product> products = new ArrayList<>();
+    private User buyer;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        when(shippingTariff.quote(any(), anyInt()))
+                .thenReturn(new ShippingTariff.Quote("Bamako", "BKO", 1, new BigDecimal("2000")));
+
+        Category category = new Category();
+        category.setName("Tourisme");
+        category = categoryRepository.save(category);
+        for (int i = 0; i < 50; i++) {
+            Product p = new Product();
+            p.setName("Pneu " + i);
+            p.setPrice(new BigDecimal("49.90"));
+            p.setStock(1_000_000);
+            p.setCategory(category);
+            products.add(productRepository.save(p));
+        }
+        User u = new User();
+        u.setEmail("bench@pneumali.ml");
+        u.setPassword("Kz9#vLq2!mWp");
+        u.setFirstName("Awa");
+        u.setLastName("Traoré");
+        u.setRole(Role.CLIENT);
+        buyer = userRepository.save(u);
+        Cart cart = new Cart();
+        cart.setUser(buyer);
+        cartRepository.save(cart);
+    }
+
+    @Test
+    void batchedCheckoutSendsFewerStatementsForLargeCarts() {
+        for (int lines : new int[] { 1, 10, 50 }) {
+            Measure before = measure(lines, false);
+            Measure after = measure(lines, true);
+            System.out.printf("checkout %2d lignes : requêtes %d -> %d, p99 %.2f ms -> %.2f ms%n",
+                    lines, before.statements(), after.statements(), before.p99Millis(), after.p99Millis());
+
+            assertThat(after.statements()).isLessThanOrEqualTo(before.statements());
+            if (lines > 1) {
+                // Lignes de commande et réservations groupées : au plus un lot par tranche de batch_size
+                assertThat(after.statements()).isLessThan(before.statements());
+            }
+        }
+    }
+
+    private Measure measure(int lines, boolean batched) {
+        long[] nanos = new long[RUNS];
+        int statements = 0;
+        for (int run = -WARMUP; run < RUNS; run++) {
+            fillCart(lines);
+            String key = "bench-" + lines + "-" + batched + "-" + run;
+            int startCount = CountingInspector.STATEMENTS.get();
+            long start = System.nanoTime();
+            Order order = tx.execute(status -> {
+                if (!batched) entityManager.unwrap(Session.class).setJdbcBatchSize(1);
+                return checkoutService.createOrder(buyer, null, "Bamako", null, key);
+            });
+            long elapsed = System.nanoTime() - start;
+            assertThat(order.getItems()).hasSize(lines);
+            if (run >= 0) {
+                nanos[run] = elapsed;
+                statements = CountingInspector.STATEMENTS.get() - startCount;
+            }
+        }
+        Arrays.sort(nanos);
+        return new Measure(statements, nanos[(int) Math.ceil(RUNS * 0.99) - 1] / 1_000_000.0);
+    }
+
+    private void fillCart(int lines) {
+        tx.executeWithoutResult(status -> {
+            Cart cart = cartRepository.findByUser(buyer).orElseThrow();
+            for (int i = 0; i < lines; i++) {
+                CartItem item = new CartItem();
+                item.setCart(cart);
+                item.setProduct(products.get(i));
+                item.setQuantity(1);
+                cart.getItems().add(item);
+            }
+        });
+    }
+}
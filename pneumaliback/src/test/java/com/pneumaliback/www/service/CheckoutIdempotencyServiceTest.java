@@ -0,0 +1,198 @@
+package com.pneumaliback.www.service;
+
+import com.pneumaliback.www.entity.IdempotencyKey;
+import com.pneumaliback.www.entity.Order;
+import com.pneumaliback.www.repository.IdempotencyKeyRepository;
+import com.pneumaliback.www.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CheckoutIdempotencyServiceTest {
+
+    private final IdempotencyKeyRepository keyRepository = mock(IdempotencyKeyRepository.class);
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final CheckoutIdempotencyService service = new CheckoutIdempotencyService(keyRepository, orderRepository);
+
+    private final AtomicInteger checkouts = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "ttlHours", 24L);
+        when(keyRepository.findByUserIdAndKeyAndExpiresAtAfter(anyLong(), any(), any())).thenReturn(Optional.empty());
+        when(orderRepository.findWithItemsById(anyLong())).thenAnswer(inv -> Optional.of(order(inv.getArgument(0))));
+    }
+
+    @Test
+    void concurrentRetriesOfTheSameKeyRunTheCheckoutOnce() throws Exception {
+        int retries = 16;
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<Order> slowCheckout = () -> {
+            started.countDown();
+            await(release);
+            return order(100L + checkouts.incrementAndGet());
+        };
+        ExecutorService pool = Executors.newFixedThreadPool(retries);
+        try {
+            List<Future<Order>> results = new ArrayList<>();
+            results.add(pool.submit(() -> service.execute(1L, "k-1", slowCheckout)));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            // Les autres tentatives arrivent pendant que la première est en cours
+            for (int i = 1; i < retries; i++) {
+                results.add(pool.submit(() -> service.execute(1L, "k-1", slowCheckout)));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<Order> f : results) {
+                assertThat(f.get(5, TimeUnit.SECONDS).getId()).isEqualTo(101L);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(checkouts).hasValue(1);
+    }
+
+    @Test
+    void differentUsersWithTheSameKeyAreIndependent() {
+        Order first = service.execute(1L, "k-1", () -> order(100L + checkouts.incrementAndGet()));
+        Order second = service.execute(2L, "k-1", () -> order(100L + checkouts.incrementAndGet()));
+
+        assertThat(first.getId()).isNotEqualTo(second.getId());
+        assertThat(checkouts).hasValue(2);
+    }
+
+    @Test
+    void aFailedAttemptIsPropagatedToWaitersAndCanBeRetried() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Order> leader = pool.submit(() -> service.execute(1L, "k-1", () -> {
+                started.countDown();
+                await(release);
+                throw new IllegalArgumentException("Stock insuffisant pour Pneu");
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<Order> waiter = pool.submit(() -> service.execute(1L, "k-1", () -> {
+                throw new IllegalArgumentException("Stock insuffisant pour Pneu");
+            }));
+            Thread.sleep(100);
+            release.countDown();
+
+            assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalArgumentException.class);
+            // La tentative en attente reçoit l'échec du premier (ou rejoue et échoue de même)
+            assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("Stock insuffisant");
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // La clé n'a pas été retenue : une nouvelle tentative relance le checkout
+        Order retried = service.execute(1L, "k-1", () -> order(100L + checkouts.incrementAndGet()));
+        assertThat(retried.getId()).isEqualTo(101L);
+    }
+
+    @Test
+    void aKnownKeyReturnsTheFirstOrderUntilItExpires() {
+        Order first = service.execute(1L, "k-1", () -> order(100L + checkouts.incrementAndGet()));
+        Order replay = service.execute(1L, "k-1", () -> order(100L + checkouts.incrementAndGet()));
+
+        assertThat(replay.getId()).isEqualTo(first.getId());
+        assertThat(checkouts).hasValue(1);
+    }
+
+    @Test
+    void anExpiredKeyCanBeReusedForANewCheckout() {
+        ReflectionTestUtils.setField(service, "ttlHours", 0L);
+        Order first = service.execute(1L, "k-1", () -> order(100L + checkouts.incrementAndGet()));
+
+        service.purgeExpired();
+        Order reused = service.execute(1L, "k-1", () -> order(100L + checkouts.incrementAndGet()));
+
+        verify(keyRepository).deleteExpired(any(LocalDateTime.class));
+        assertThat(reused.getId()).isNotEqualTo(first.getId());
+        assertThat(checkouts).hasValue(2);
+    }
+
+    @Test
+    void aKeyStoredByAnotherInstanceIsServedFromTheTable() {
+        IdempotencyKey stored = key(1L, "k-1", 42L, LocalDateTime.now().plusHours(1));
+        when(keyRepository.findByUserIdAndKeyAndExpiresAtAfter(eq(1L), eq("k-1"), any())).thenReturn(Optional.of(stored));
+
+        Order order = service.execute(1L, "k-1", () -> order(100L + checkouts.incrementAndGet()));
+
+        assertThat(order.getId()).isEqualTo(42L);
+        assertThat(checkouts).hasValue(0);
+    }
+
+    @Test
+    void aDuplicateInsertFromAnotherInstanceReturnsTheWinningOrder() {
+        IdempotencyKey winner = key(1L, "k-1", 42L, LocalDateTime.now().plusHours(1));
+        when(keyRepository.findByUserIdAndKeyAndExpiresAtAfter(eq(1L), eq("k-1"), any()))
+                .thenReturn(Optional.empty(), Optional.empty(), Optional.of(winner));
+
+        Order order = service.execute(1L, "k-1", () -> {
+            checkouts.incrementAndGet();
+            throw new DataIntegrityViolationException("uk_idempotency_user_key");
+        });
+
+        assertThat(order.getId()).isEqualTo(42L);
+        assertThat(checkouts).hasValue(1);
+    }
+
+    @Test
+    void validationRejectsBlankAndOversizedKeys() {
+        assertThatThrownBy(() -> CheckoutIdempotencyService.validate(" ")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CheckoutIdempotencyService.validate("x".repeat(CheckoutIdempotencyService.MAX_KEY_LENGTH + 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        CheckoutIdempotencyService.validate("x".repeat(CheckoutIdempotencyService.MAX_KEY_LENGTH));
+    }
+
+    private static Order order(Long id) {
+        Order o = new Order();
+        o.setId(id);
+        return o;
+    }
+
+    private static IdempotencyKey key(Long userId, String key, Long orderId, LocalDateTime expiresAt) {
+        IdempotencyKey k = new IdempotencyKey();
+        k.setUserId(userId);
+        k.setKey(key);
+        k.setOrderId(orderId);
+        k.setExpiresAt(expiresAt);
+        return k;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
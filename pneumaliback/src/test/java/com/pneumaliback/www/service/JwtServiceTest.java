@@ -0,0 +1,108 @@
+package com.pneumaliback.www.service;
+
+import com.pneumaliback.www.entity.User;
+import com.pneumaliback.www.enums.Role;
+import com.pneumaliback.www.security.ParsedToken;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtServiceTest {
+
+    private static final String SECRET = "cle-de-test-jwt-suffisamment-longue-pour-hs256";
+
+    private JwtService jwtService;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = service(SECRET, 60_000L);
+    }
+
+    @Test
+    void parsesIdentityClaimsInOnePass() {
+        User user = user();
+        user.setTokenVersion(3);
+
+        String token = jwtService.generateToken(Map.of(JwtService.CLAIM_FAMILY, "famille-1"), user);
+        ParsedToken parsed = jwtService.parse(token);
+
+        assertThat(parsed.subject()).isEqualTo("client@pneumali.ml");
+        assertThat(parsed.userId()).isEqualTo(42L);
+        assertThat(parsed.role()).isEqualTo(Role.CLIENT);
+        assertThat(parsed.version()).isEqualTo(3);
+        assertThat(parsed.familyId()).isEqualTo("famille-1");
+        assertThat(parsed.jti()).isNotBlank();
+        assertThat(parsed.expiresAt()).isAfter(parsed.issuedAt());
+        assertThat(parsed.isSelfContained()).isTrue();
+    }
+
+    @Test
+    void tokensWithoutIdentityAreNotSelfContained() {
+        // Jeton émis pour un UserDetails qui n'est pas une entité User (ancien format)
+        UserDetails details = org.springframework.security.core.userdetails.User
+                .withUsername("ancien@pneumali.ml").password("x").roles("CLIENT").build();
+
+        ParsedToken parsed = jwtService.parse(jwtService.generateToken(details));
+
+        assertThat(parsed.subject()).isEqualTo("ancien@pneumali.ml");
+        assertThat(parsed.userId()).isNull();
+        assertThat(parsed.role()).isNull();
+        assertThat(parsed.version()).isNull();
+        assertThat(parsed.familyId()).isNull();
+        assertThat(parsed.isSelfContained()).isFalse();
+    }
+
+    @Test
+    void rejectsForeignSignatureExpiryAndGarbage() {
+        String foreign = service("une-autre-cle-de-test-jwt-assez-longue-pour-hs256", 60_000L).generateToken(user());
+        String expired = Jwts.builder()
+                .subject("client@pneumali.ml")
+                .issuedAt(Date.from(Instant.now().minusSeconds(120)))
+                .expiration(Date.from(Instant.now().minusSeconds(60)))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .compact();
+
+        assertThatThrownBy(() -> jwtService.parse(foreign)).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> jwtService.parse(expired)).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> jwtService.parse("pas.un.jeton")).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> jwtService.parse("")).isInstanceOf(JwtException.class);
+        assertThat(jwtService.isTokenExpired(expired)).isTrue();
+    }
+
+    @Test
+    void validatesTokenAgainstItsSubject() {
+        User user = user();
+        String token = jwtService.generateToken(user);
+
+        assertThat(jwtService.isTokenValid(token, user)).isTrue();
+        user.setEmail("autre@pneumali.ml");
+        assertThat(jwtService.isTokenValid(token, user)).isFalse();
+    }
+
+    private static JwtService service(String secret, long expiration) {
+        JwtService service = new JwtService();
+        ReflectionTestUtils.setField(service, "secretKey", secret);
+        ReflectionTestUtils.setField(service, "jwtExpiration", expiration);
+        service.init();
+        return service;
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setId(42L);
+        user.setEmail("client@pneumali.ml");
+        user.setRole(Role.CLIENT);
+        return user;
+    }
+}
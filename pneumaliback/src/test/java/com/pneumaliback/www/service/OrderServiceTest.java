@@ -0,0 +1,70 @@
+package com.pneumaliback.www.service;
+
+import com.pneumaliback.www.entity.Order;
+import com.pneumaliback.www.enums.OrderStatus;
+import com.pneumaliback.www.service.pricing.PricingEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderServiceTest {
+
+    private final CommissionService commissionService = mock(CommissionService.class);
+    private final PopularityService popularityService = mock(PopularityService.class);
+    private final StockReservationService reservations = mock(StockReservationService.class);
+    private final OrderService service = new OrderService(commissionService, popularityService,
+            mock(PricingEngine.class), reservations);
+
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        order = new Order();
+        order.setId(10L);
+        order.setStatus(OrderStatus.PENDING);
+        order.setTotalAmount(new BigDecimal("100.00"));
+    }
+
+    @Test
+    void manualConfirmationCommitsReservations() {
+        when(reservations.commit(order)).thenReturn(List.of());
+
+        service.confirmReserved(order);
+
+        verify(reservations).commit(order);
+        verify(popularityService).recordSale(order);
+        assertThat(order.getStatus()).isEqualTo(OrderStatus.CONFIRMED);
+    }
+
+    @Test
+    void manualConfirmationIsRefusedWithoutStock() {
+        order.setStatus(OrderStatus.CANCELED);
+        when(reservations.commit(order)).thenReturn(List.of(new StockReservationService.Shortfall(3L, 2)));
+
+        assertThatThrownBy(() -> service.confirmReserved(order))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("produit 3 x2");
+        assertThat(order.getStatus()).isEqualTo(OrderStatus.CANCELED);
+        verify(commissionService, never()).createIfEligible(any());
+    }
+
+    @Test
+    void alreadyConfirmedOrderIsNotCommittedAgain() {
+        order.setStatus(OrderStatus.CONFIRMED);
+
+        service.confirmReserved(order);
+
+        verify(reservations, never()).commit(any());
+        verify(popularityService, never()).recordSale(any());
+    }
+}
@@ -0,0 +1,102 @@
+package com.pneumaliback.www.service;
+
+import com.pneumaliback.www.entity.Order;
+import com.pneumaliback.www.entity.Payment;
+import com.pneumaliback.www.enums.OrderStatus;
+import com.pneumaliback.www.enums.PaymentStatus;
+import com.pneumaliback.www.repository.OrderRepository;
+import com.pneumaliback.www.repository.PaymentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaymentServiceTest {
+
+    private final PaymentRepository paymentRepository = mock(PaymentRepository.class);
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final OrderService orderService = mock(OrderService.class);
+    private final StockReservationService reservations = mock(StockReservationService.class);
+    private final NotificationService notificationService = mock(NotificationService.class);
+    private final PaymentService service = new PaymentService(paymentRepository, orderRepository, orderService,
+            reservations, notificationService);
+
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        order = new Order();
+        order.setId(10L);
+        Payment payment = new Payment();
+        payment.setStatus(PaymentStatus.PENDING);
+        payment.setOrder(order);
+        when(paymentRepository.findByTransactionReference("TX-1")).thenReturn(Optional.of(payment));
+    }
+
+    @Test
+    void confirmsPendingOrderOnce() {
+        order.setStatus(OrderStatus.PENDING);
+        when(reservations.commit(order)).thenReturn(List.of());
+
+        assertThat(service.confirmSuccessByTransaction("TX-1")).isEqualTo(PaymentService.CallbackOutcome.CONFIRMED);
+
+        verify(orderService).confirm(order);
+        verify(orderRepository).save(order);
+    }
+
+    @Test
+    void doesNotReviveOrderCanceledByCustomer() {
+        order.setStatus(OrderStatus.CANCELED);
+        when(reservations.isCanceledByExpiry(order)).thenReturn(false);
+
+        assertThat(service.confirmSuccessByTransaction("TX-1")).isEqualTo(PaymentService.CallbackOutcome.CONFIRMED);
+
+        verify(reservations, never()).commit(any());
+        verify(orderService, never()).confirm(any());
+        assertThat(order.getStatus()).isEqualTo(OrderStatus.CANCELED);
+    }
+
+    @Test
+    void revivesOrderCanceledByExpiryWhenStockIsRetaken() {
+        order.setStatus(OrderStatus.CANCELED);
+        when(reservations.isCanceledByExpiry(order)).thenReturn(true);
+        when(reservations.commit(order)).thenReturn(List.of());
+
+        service.confirmSuccessByTransaction("TX-1");
+
+        verify(orderService).confirm(order);
+    }
+
+    @Test
+    void flagsOrderForReviewWhenStockIsGone() {
+        order.setStatus(OrderStatus.CANCELED);
+        when(reservations.isCanceledByExpiry(order)).thenReturn(true);
+        when(reservations.commit(order)).thenReturn(List.of(new StockReservationService.Shortfall(3L, 2)));
+
+        service.confirmSuccessByTransaction("TX-1");
+
+        verify(orderService, never()).confirm(any());
+        assertThat(order.getStatus()).isEqualTo(OrderStatus.PAYMENT_REVIEW);
+        verify(orderRepository).save(order);
+        verify(notificationService).notifyAdmins(anyString(), anyString(), eq("COMMANDE"));
+    }
+
+    @Test
+    void replayedCallbackIsDuplicate() {
+        order.setStatus(OrderStatus.PAYMENT_REVIEW);
+        service.confirmSuccessByTransaction("TX-1");
+
+        assertThat(service.confirmSuccessByTransaction("TX-1")).isEqualTo(PaymentService.CallbackOutcome.DUPLICATE);
+        verify(reservations, never()).commit(any());
+    }
+}
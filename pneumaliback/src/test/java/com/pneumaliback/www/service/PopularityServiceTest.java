@@ -0,0 +1,121 @@
+package com.pneumaliback.www.service;
+
+import com.pneumaliback.www.entity.Order;
+import com.pneumaliback.www.entity.OrderItem;
+import com.pneumaliback.www.entity.Product;
+import com.pneumaliback.www.entity.ProductSalesStats;
+import com.pneumaliback.www.repository.ProductSalesStatsRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PopularityServiceTest {
+
+    private final ProductSalesStatsRepository repository = mock(ProductSalesStatsRepository.class);
+    private final PopularityService service = new PopularityService(repository);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void olderSalesWeighLessOnTheShortWindowThanOnTheLongOne() {
+        LocalDateTime now = LocalDateTime.now();
+        // 10 ventes il y a 14 jours contre 4 aujourd'hui ; les compteurs valent à la date de la dernière vente.
+        // Semaine : 10·e^-2 ≈ 1,4 < 4 ; mois : 10·e^-0,47 ≈ 6,3 > 4
+        ProductSalesStats old = stats(1L, 10, 10, now.minusDays(14));
+        ProductSalesStats recent = stats(2L, 4, 4, now);
+        when(repository.findAll()).thenReturn(List.of(old, recent));
+
+        service.run();
+
+        assertThat(service.topProductIds(PopularityService.Window.WEEK)).containsExactly(2L, 1L);
+        assertThat(service.topProductIds(PopularityService.Window.MONTH)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void scoresStayComparableAcrossSaleDates() {
+        LocalDateTime now = LocalDateTime.now();
+        // Même valeur décrue à aujourd'hui : 8 ventes d'il y a 7 jours valent 8/e ventes d'aujourd'hui
+        ProductSalesStats lastWeek = stats(1L, 8, 8, now.minusDays(7));
+        ProductSalesStats today = stats(2L, 8 * Math.exp(-1) + 0.01, 1, now);
+        when(repository.findAll()).thenReturn(List.of(lastWeek, today));
+
+        service.run();
+
+        assertThat(service.topProductIds(PopularityService.Window.WEEK)).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void aSaleMovesOnlyTheSoldProductAfterCommit() {
+        LocalDateTime now = LocalDateTime.now();
+        when(repository.findAll()).thenReturn(List.of(stats(1L, 5, 5, now), stats(2L, 3, 3, now), stats(3L, 1, 1, now)));
+        service.run();
+        when(repository.findByProductIdIn(any())).thenReturn(List.of(stats(3L, 9, 9, now)));
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.recordSale(order(line(3L, 8, "10.00")));
+        assertThat(service.topProductIds(PopularityService.Window.WEEK)).containsExactly(1L, 2L, 3L);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(service.topProductIds(PopularityService.Window.WEEK)).containsExactly(3L, 1L, 2L);
+    }
+
+    @Test
+    void linesOfTheSameProductAreSummedAndUpsertedInIdOrder() {
+        when(repository.findByProductIdIn(any())).thenReturn(List.of());
+
+        service.recordSale(order(line(9L, 1, "50.00"), line(4L, 2, "20.00"), line(9L, 3, "50.00")));
+
+        InOrder order = inOrder(repository);
+        order.verify(repository).addSale(eq(4L), eq(2L), eq(new BigDecimal("40.00")), any(), anyDouble(), anyDouble());
+        order.verify(repository).addSale(eq(9L), eq(4L), eq(new BigDecimal("200.00")), any(), anyDouble(), anyDouble());
+    }
+
+    private static ProductSalesStats stats(Long productId, double units7d, double units30d, LocalDateTime lastSaleAt) {
+        ProductSalesStats s = new ProductSalesStats();
+        s.setProduct(product(productId));
+        s.setUnits7d(units7d);
+        s.setUnits30d(units30d);
+        s.setLastSaleAt(lastSaleAt);
+        return s;
+    }
+
+    private static Order order(OrderItem... lines) {
+        Order o = new Order();
+        o.setItems(new ArrayList<>(List.of(lines)));
+        return o;
+    }
+
+    private static OrderItem line(Long productId, int quantity, String unitPrice) {
+        OrderItem item = new OrderItem();
+        item.setProduct(product(productId));
+        item.setQuantity(quantity);
+        item.setUnitPrice(new BigDecimal(unitPrice));
+        return item;
+    }
+
+    private static Product product(Long id) {
+        Product p = new Product();
+        p.setId(id);
+        return p;
+    }
+}
@@ -0,0 +1,172 @@
+package com.pneumaliback.www.service;
+
+import com.pneumaliback.www.dto.CursorPage;
+import com.pneumaliback.www.dto.ProductSummaryDTO;
+import com.pneumaliback.www.entity.Category;
+import com.pneumaliback.www.entity.Product;
+import com.pneumaliback.www.enums.TireSeason;
+import com.pneumaliback.www.repository.CategoryRepository;
+import com.pneumaliback.www.repository.ProductRepository;
+import com.pneumaliback.www.service.catalog.AutocompleteIndex;
+import com.pneumaliback.www.service.catalog.CatalogIndex;
+import com.pneumaliback.www.service.catalog.ProductSearchIndex;
+import com.pneumaliback.www.service.catalog.TireDimensionIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Projections ProductSummaryDTO sur une vraie base (H2 embarquée) : listes paginées,
+ * curseurs et repli SQL des filtres quand l'index catalogue n'est pas prêt.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(ProductService.class)
+class ProductSummaryTest {
+
+    // Les mocks renvoient Optional.empty() : l'index n'est pas prêt, tout passe par SQL
+    @MockitoBean
+    private CatalogIndex catalogIndex;
+    @MockitoBean
+    private TireDimensionIndex tireDimensionIndex;
+    @MockitoBean
+    private ProductSearchIndex productSearchIndex;
+    @MockitoBean
+    private AutocompleteIndex autocompleteIndex;
+    @MockitoBean
+    private PopularityService popularityService;
+    @MockitoBean
+    private StockAlertService stockAlertService;
+
+    @Autowired
+    private ProductService service;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+        categoryRepository.deleteAll();
+        Category c = new Category();
+        c.setName("Tourisme");
+        category = categoryRepository.save(c);
+    }
+
+    @Test
+    void summariesCarryTheCategoryNameAndTheStoredRating() {
+        Product p = product("Primacy 4", "49.90", 8, true);
+        product("Ancien modèle", "19.90", 8, false);
+        new TransactionTemplate(transactionManager).executeWithoutResult(s ->
+                productRepository.setRatingAggregate(p.getId(), 4, 15, 0, 0, 1, 1, 2));
+
+        Page<ProductSummaryDTO> page = service.listActive(PageRequest.of(0, 10));
+
+        assertThat(page.getTotalElements()).isEqualTo(1);
+        ProductSummaryDTO summary = page.getContent().get(0);
+        assertThat(summary.id()).isEqualTo(p.getId());
+        assertThat(summary.name()).isEqualTo("Primacy 4");
+        assertThat(summary.brand()).isEqualTo("Michelin");
+        assertThat(summary.season()).isEqualTo(TireSeason.ETE);
+        assertThat(summary.categoryName()).isEqualTo("Tourisme");
+        assertThat(summary.ratingCount()).isEqualTo(4);
+        assertThat(summary.averageRating()).isEqualTo(3.75);
+        assertThat(summary.createdAt()).isNotNull();
+    }
+
+    @Test
+    void priceCursorWalksEveryActiveProductOnceDespiteTies() {
+        List<Long> expected = new ArrayList<>();
+        for (String price : List.of("30.00", "50.00", "50.00", "50.00", "70.00", "90.00", "90.00")) {
+            expected.add(product("Pneu " + price, price, 5, true).getId());
+        }
+        product("Retiré", "40.00", 5, false);
+
+        List<Long> walked = new ArrayList<>();
+        String cursor = null;
+        CursorPage<ProductSummaryDTO> page;
+        do {
+            page = service.listActive("price_asc", cursor, 2);
+            page.items().forEach(s -> walked.add(s.id()));
+            cursor = page.nextCursor();
+        } while (page.hasNext());
+
+        // Prix croissant, puis id croissant à prix égal
+        assertThat(walked).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void recentCursorStopsOnTheLastPage() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) ids.add(product("Pneu " + i, "60.00", 5, true).getId());
+
+        CursorPage<ProductSummaryDTO> first = service.listActive("recent", null, 2);
+        CursorPage<ProductSummaryDTO> last = service.listActive("recent", first.nextCursor(), 2);
+
+        assertThat(first.hasNext()).isTrue();
+        assertThat(last.hasNext()).isFalse();
+        assertThat(last.nextCursor()).isNull();
+        List<Long> walked = new ArrayList<>();
+        first.items().forEach(s -> walked.add(s.id()));
+        last.items().forEach(s -> walked.add(s.id()));
+        assertThat(walked).containsExactlyInAnyOrderElementsOf(ids).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void aCursorIsOnlyValidForItsOwnSort() {
+        product("Pneu A", "60.00", 5, true);
+        product("Pneu B", "70.00", 5, true);
+        String cursor = service.listActive("price_asc", null, 1).nextCursor();
+
+        assertThatThrownBy(() -> service.listActive("recent", cursor, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.listActive("name", null, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void sqlFiltersSkipInactiveAndOutOfStockProducts() {
+        Product match = product("Primacy 4", "49.90", 8, true);
+        product("Primacy 4 épuisé", "49.90", 0, true);
+        product("Primacy 4 retiré", "49.90", 8, false);
+        product("Primacy 4 cher", "149.90", 8, true);
+
+        Page<ProductSummaryDTO> page = service.findWithFilters(category, "MICHELIN", null, "ete",
+                null, new BigDecimal("100.00"), PageRequest.of(0, 10));
+
+        assertThat(page.getTotalElements()).isEqualTo(1);
+        assertThat(page.getContent()).extracting(ProductSummaryDTO::id).containsExactly(match.getId());
+    }
+
+    private Product product(String name, String price, int stock, boolean active) {
+        Product p = new Product();
+        p.setName(name);
+        p.setPrice(new BigDecimal(price));
+        p.setStock(stock);
+        p.setActive(active);
+        p.setBrand("Michelin");
+        p.setSize("205/55R16");
+        p.setSeason(TireSeason.ETE);
+        p.setCategory(category);
+        return productRepository.save(p);
+    }
+}
@@ -0,0 +1,131 @@
+package com.pneumaliback.www.service;
+
+import com.pneumaliback.www.entity.RefreshToken;
+import com.pneumaliback.www.entity.User;
+import com.pneumaliback.www.enums.Role;
+import com.pneumaliback.www.repository.RefreshTokenRepository;
+import com.pneumaliback.www.repository.UserRepository;
+import com.pneumaliback.www.security.exceptions.AuthenticationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Rotation et purge des refresh tokens sur une vraie base (H2 embarquée) : l'unicité
+ * du renouvellement ne repose que sur l'UPDATE conditionnel markRotated.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(RefreshTokenService.class)
+class RefreshTokenConcurrencyTest {
+
+    private static final int CONCURRENT_REFRESHES = 20;
+
+    @Autowired
+    private RefreshTokenService service;
+    @Autowired
+    private RefreshTokenRepository repository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+        userRepository.deleteAll();
+        User u = new User();
+        u.setEmail("client@pneumali.ml");
+        u.setPassword("Kz9#vLq2!mWp");
+        u.setFirstName("Awa");
+        u.setLastName("Traoré");
+        u.setRole(Role.CLIENT);
+        user = userRepository.save(u);
+    }
+
+    @Test
+    void concurrentRefreshesOfTheSameTokenProduceOneSuccessor() throws Exception {
+        String plain = service.createRefreshToken(user).getPlainToken();
+        AtomicInteger refused = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(CONCURRENT_REFRESHES);
+        List<Future<RefreshToken>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < CONCURRENT_REFRESHES; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        return service.rotate(plain);
+                    } catch (AuthenticationException e) {
+                        refused.incrementAndGet();
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+            List<RefreshToken> issued = new ArrayList<>();
+            for (Future<RefreshToken> f : results) {
+                RefreshToken t = f.get(30, TimeUnit.SECONDS);
+                if (t != null) issued.add(t);
+            }
+
+            assertThat(issued).hasSize(1);
+            assertThat(refused).hasValue(CONCURRENT_REFRESHES - 1);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void replayingARotatedTokenRevokesTheSuccessorToo() {
+        RefreshToken first = service.createRefreshToken(user);
+        RefreshToken second = service.rotate(first.getPlainToken());
+        RefreshToken otherDevice = service.createRefreshToken(user);
+
+        // Le jeton d'origine, copié par un tiers, est présenté de nouveau
+        assertThatThrownBy(() -> service.rotate(first.getPlainToken())).isInstanceOf(AuthenticationException.class);
+
+        assertThat(repository.findById(second.getId()).orElseThrow().isRevoked()).isTrue();
+        assertThatThrownBy(() -> service.rotate(second.getPlainToken())).isInstanceOf(AuthenticationException.class);
+        // La session d'un autre appareil n'est pas touchée
+        assertThat(repository.findById(otherDevice.getId()).orElseThrow().isRevoked()).isFalse();
+    }
+
+    @Test
+    void purgeDeletesOnlyExpiredTokensInBatches() {
+        RefreshTokenService target = AopTestUtils.getTargetObject(service);
+        ReflectionTestUtils.setField(target, "purgeBatchSize", 3);
+        ReflectionTestUtils.setField(target, "purgePauseMs", 0L);
+        ReflectionTestUtils.setField(target, "purgeMaxBatches", 20);
+        for (int i = 0; i < 10; i++) {
+            RefreshToken t = service.createRefreshToken(user);
+            t.setExpiryDate(Instant.now().minus(1, ChronoUnit.HOURS));
+            repository.save(t);
+        }
+        RefreshToken alive = service.createRefreshToken(user);
+
+        assertThat(service.purgeExpired()).isEqualTo(10);
+
+        assertThat(repository.findAll()).extracting(RefreshToken::getId).containsExactly(alive.getId());
+    }
+}
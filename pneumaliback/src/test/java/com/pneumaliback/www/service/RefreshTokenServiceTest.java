@@ -0,0 +1,156 @@
+package com.pneumaliback.www.service;
+
+import com.pneumaliback.www.entity.RefreshToken;
+import com.pneumaliback.www.entity.User;
+import com.pneumaliback.www.repository.RefreshTokenRepository;
+import com.pneumaliback.www.security.exceptions.AuthenticationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RefreshTokenServiceTest {
+
+    private final RefreshTokenRepository repository = mock(RefreshTokenRepository.class);
+    private final RefreshTokenService service = new RefreshTokenService(repository);
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "refreshTokenDurationMs", 3_600_000L);
+        ReflectionTestUtils.setField(service, "purgeBatchSize", 100);
+        ReflectionTestUtils.setField(service, "purgePauseMs", 0L);
+        ReflectionTestUtils.setField(service, "purgeMaxBatches", 5);
+        user = new User();
+        user.setId(7L);
+        when(repository.findByToken(anyString())).thenReturn(Optional.empty());
+        when(repository.save(any(RefreshToken.class))).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @Test
+    void findsTokensOnlyByFingerprint() {
+        String plain = "jeton-remis-au-client";
+        String stored = RefreshTokenService.fingerprint(plain);
+        RefreshToken token = new RefreshToken();
+        when(repository.findByToken(stored)).thenReturn(Optional.of(token));
+
+        assertThat(service.findByToken(plain)).containsSame(token);
+        // L'empreinte stockée n'est pas elle-même un jeton valide
+        assertThat(service.findByToken(stored)).isEmpty();
+        assertThat(service.findByToken(" ")).isEmpty();
+    }
+
+    @Test
+    void rotationMarksTheTokenAndIssuesASuccessorInTheSameFamily() {
+        RefreshToken current = stored("ancien", "famille-1", false, null);
+        when(repository.markRotated(eq(current.getId()), any())).thenReturn(1);
+
+        RefreshToken next = service.rotate("ancien");
+
+        verify(repository).markRotated(eq(current.getId()), any(Instant.class));
+        assertThat(next.getFamilyId()).isEqualTo("famille-1");
+        assertThat(next.getUser()).isSameAs(user);
+        assertThat(next.isRevoked()).isFalse();
+        assertThat(next.getPlainToken()).isNotEqualTo("ancien");
+        assertThat(next.getToken()).isEqualTo(RefreshTokenService.fingerprint(next.getPlainToken()));
+    }
+
+    @Test
+    void legacyTokensWithoutFamilyOpenOneOnRotation() {
+        stored("ancien", null, false, null);
+        when(repository.markRotated(anyLong(), any())).thenReturn(1);
+
+        assertThat(service.rotate("ancien").getFamilyId()).isNotBlank();
+    }
+
+    @Test
+    void replayingARotatedTokenRevokesTheWholeFamily() {
+        stored("vole", "famille-1", true, Instant.now().minusSeconds(30));
+
+        assertThatThrownBy(() -> service.rotate("vole")).isInstanceOf(AuthenticationException.class);
+
+        verify(repository).revokeFamily("famille-1");
+        verify(repository, never()).markRotated(anyLong(), any());
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void aTokenRevokedAtLogoutIsRefusedWithoutRevokingTheFamily() {
+        stored("deconnecte", "famille-1", true, null);
+
+        assertThatThrownBy(() -> service.rotate("deconnecte")).isInstanceOf(AuthenticationException.class);
+
+        verify(repository, never()).revokeFamily(anyString());
+    }
+
+    @Test
+    void losingTheRotationRaceIssuesNoToken() {
+        stored("ancien", "famille-1", false, null);
+        // Un renouvellement concurrent a déjà marqué le jeton
+        when(repository.markRotated(anyLong(), any())).thenReturn(0);
+
+        assertThatThrownBy(() -> service.rotate("ancien")).isInstanceOf(AuthenticationException.class);
+
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void expiredTokensAreRefused() {
+        RefreshToken current = stored("ancien", "famille-1", false, null);
+        current.setExpiryDate(Instant.now().minus(1, ChronoUnit.MINUTES));
+
+        assertThatThrownBy(() -> service.rotate("ancien"))
+                .isInstanceOf(AuthenticationException.class)
+                .hasMessageContaining("expiré");
+        verify(repository, never()).markRotated(anyLong(), any());
+    }
+
+    @Test
+    void purgeDeletesInBatchesUntilAPartialBatch() {
+        when(repository.deleteExpiredBatch(any(Instant.class), eq(100))).thenReturn(100, 100, 42);
+
+        assertThat(service.purgeExpired()).isEqualTo(242);
+
+        verify(repository, times(3)).deleteExpiredBatch(any(Instant.class), anyInt());
+    }
+
+    @Test
+    void purgeStopsAfterTheBatchLimit() {
+        when(repository.deleteExpiredBatch(any(Instant.class), eq(100))).thenReturn(100);
+
+        assertThat(service.purgeExpired()).isEqualTo(500);
+
+        verify(repository, times(5)).deleteExpiredBatch(any(Instant.class), anyInt());
+    }
+
+    private RefreshToken stored(String plain, String familyId, boolean revoked, Instant rotatedAt) {
+        RefreshToken token = RefreshToken.builder()
+                .id((long) plain.hashCode())
+                .user(user)
+                .token(RefreshTokenService.fingerprint(plain))
+                .familyId(familyId)
+                .expiryDate(Instant.now().plus(1, ChronoUnit.HOURS))
+                .revoked(revoked)
+                .rotatedAt(rotatedAt)
+                .build();
+        when(repository.findByToken(token.getToken())).thenReturn(Optional.of(token));
+        return token;
+    }
+}
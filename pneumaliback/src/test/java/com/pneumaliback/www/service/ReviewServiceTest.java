@@ -0,0 +1,178 @@
+package com.pneumaliback.www.service;
+
+import com.pneumaliback.www.dto.ProductRatingDTO;
+import com.pneumaliback.www.dto.RatingAggregate;
+import com.pneumaliback.www.entity.Category;
+import com.pneumaliback.www.entity.Product;
+import com.pneumaliback.www.entity.User;
+import com.pneumaliback.www.enums.Role;
+import com.pneumaliback.www.repository.CategoryRepository;
+import com.pneumaliback.www.repository.ProductRepository;
+import com.pneumaliback.www.repository.ReviewRepository;
+import com.pneumaliback.www.repository.UserRepository;
+import com.pneumaliback.www.service.catalog.CatalogIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Agrégats de notes sur une vraie base (H2 embarquée) : les colonnes dénormalisées de
+ * Product ne sont écrites que par les UPDATE de ProductRepository.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(ReviewService.class)
+class ReviewServiceTest {
+
+    @MockitoBean
+    private CatalogIndex catalogIndex;
+
+    @Autowired
+    private ReviewService service;
+    @Autowired
+    private ReviewRepository reviewRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Category category;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        reviewRepository.deleteAll();
+        productRepository.deleteAll();
+        categoryRepository.deleteAll();
+        userRepository.deleteAll();
+        Category c = new Category();
+        c.setName("Tourisme");
+        category = categoryRepository.save(c);
+        User u = new User();
+        u.setEmail("client@pneumali.ml");
+        u.setPassword("Kz9#vLq2!mWp");
+        u.setFirstName("Awa");
+        u.setLastName("Traoré");
+        u.setRole(Role.CLIENT);
+        user = userRepository.save(u);
+    }
+
+    @Test
+    void eachReviewUpdatesCountSumAndHistogram() {
+        Product p = product("Primacy 4");
+
+        service.addReview(user, p.getId(), 5, "Parfait");
+        service.addReview(user, p.getId(), 3, null);
+        service.addReview(user, p.getId(), 5, "Très bien");
+
+        assertThat(aggregate(p)).isEqualTo(new RatingAggregate(p.getId(), 3, 13, 0, 0, 1, 0, 2));
+        // L'index n'est mis à jour qu'avec l'agrégat relu en base, après le commit
+        verify(catalogIndex).applyRating(new RatingAggregate(p.getId(), 3, 13, 0, 0, 1, 0, 2));
+    }
+
+    @Test
+    void invalidRatingsLeaveTheAggregateUntouched() {
+        Product p = product("Pilot Sport 5");
+
+        assertThatThrownBy(() -> service.addReview(user, p.getId(), 6, null)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.addReview(user, p.getId(), 0, null)).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(aggregate(p)).isEqualTo(RatingAggregate.empty(p.getId()));
+        assertThat(reviewRepository.findByProductId(p.getId())).isEmpty();
+        verify(catalogIndex, never()).applyRating(any());
+    }
+
+    @Test
+    void ratingsFollowTheRequestedOrderAndSkipUnknownIds() {
+        Product a = product("Energy Saver");
+        Product b = product("CrossClimate 2");
+        service.addReview(user, a.getId(), 4, null);
+        service.addReview(user, b.getId(), 1, null);
+        service.addReview(user, b.getId(), 2, null);
+
+        List<ProductRatingDTO> ratings = service.ratings(List.of(b.getId(), -1L, a.getId(), b.getId()));
+
+        assertThat(ratings).extracting(ProductRatingDTO::productId).containsExactly(b.getId(), a.getId());
+        assertThat(ratings.get(0).average()).isEqualTo(1.5);
+        assertThat(ratings.get(0).histogram()).containsExactly(1L, 1L, 0L, 0L, 0L);
+        assertThat(ratings.get(1).count()).isEqualTo(1);
+    }
+
+    @Test
+    void ratingsRefuseOversizedBatches() {
+        List<Long> ids = LongStream.rangeClosed(1, ReviewService.MAX_RATINGS_BATCH + 1).boxed().toList();
+
+        assertThatThrownBy(() -> service.ratings(ids)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.ratings(List.of())).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void reconciliationCorrectsOnlyTheProductsThatDrifted() {
+        Product intact = product("Alpin 6");
+        Product inflated = product("Turanza 6");
+        Product unrated = product("Premium Contact 7");
+        Product orphan = product("Ventus Prime 4");
+        service.addReview(user, intact.getId(), 4, null);
+        service.addReview(user, inflated.getId(), 2, null);
+        service.addReview(user, unrated.getId(), 5, null);
+        service.addReview(user, orphan.getId(), 3, null);
+
+        // Divergences : agrégat gonflé, agrégat remis à zéro, avis supprimés sans mise à jour du produit
+        drift(inflated.getId(), new RatingAggregate(inflated.getId(), 9, 30, 1, 1, 1, 1, 5));
+        drift(unrated.getId(), RatingAggregate.empty(unrated.getId()));
+        reviewRepository.deleteAll(reviewRepository.findByProductId(orphan.getId()));
+        clearInvocations(catalogIndex);
+
+        assertThat(service.reconcileRatings()).isEqualTo(3);
+
+        assertThat(aggregate(intact)).isEqualTo(new RatingAggregate(intact.getId(), 1, 4, 0, 0, 0, 1, 0));
+        assertThat(aggregate(inflated)).isEqualTo(new RatingAggregate(inflated.getId(), 1, 2, 0, 1, 0, 0, 0));
+        assertThat(aggregate(unrated)).isEqualTo(new RatingAggregate(unrated.getId(), 1, 5, 0, 0, 0, 0, 1));
+        assertThat(aggregate(orphan)).isEqualTo(RatingAggregate.empty(orphan.getId()));
+        verify(catalogIndex).applyRating(RatingAggregate.empty(orphan.getId()));
+        verify(catalogIndex, never()).applyRating(new RatingAggregate(intact.getId(), 1, 4, 0, 0, 0, 1, 0));
+
+        // Une seconde passe ne trouve plus rien à corriger
+        assertThat(service.reconcileRatings()).isZero();
+    }
+
+    private Product product(String name) {
+        Product p = new Product();
+        p.setName(name);
+        p.setPrice(new BigDecimal("49.90"));
+        p.setStock(10);
+        p.setCategory(category);
+        return productRepository.save(p);
+    }
+
+    private RatingAggregate aggregate(Product p) {
+        return productRepository.findRatingAggregates(List.of(p.getId())).get(0);
+    }
+
+    private void drift(Long productId, RatingAggregate a) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(s -> productRepository.setRatingAggregate(
+                productId, a.count(), a.sum(), a.rating1(), a.rating2(), a.rating3(), a.rating4(), a.rating5()));
+    }
+}
@@ -0,0 +1,126 @@
+package com.pneumaliback.www.service;
+
+import com.pneumaliback.www.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class StockAlertServiceTest {
+
+    private final NotificationService notificationService = mock(NotificationService.class);
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final StockAlertService service = new StockAlertService(notificationService, messagingTemplate);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "defaultThreshold", 5);
+    }
+
+    @Test
+    void onlyDownwardCrossingsRaiseAnAlert() {
+        service.observe(product(1L, 10, null));
+        service.observe(product(1L, 5, null));
+        service.observe(product(1L, 3, null));
+        service.observe(product(1L, 0, null));
+
+        // OK → LOW puis LOW → OUT : deux alertes, la baisse 5 → 3 reste dans LOW
+        verify(notificationService).notifyAdmins(eq("Stock faible"), anyString(), eq("STOCK"));
+        verify(notificationService).notifyAdmins(eq("Rupture de stock"), anyString(), eq("STOCK"));
+        verify(messagingTemplate, times(2)).convertAndSend(eq(StockAlertService.TOPIC), any(Object.class));
+    }
+
+    @Test
+    void aPartialRestockDoesNotAlertButAFullOneRearms() {
+        service.observe(product(1L, 0, null));
+        clearInvocations(notificationService, messagingTemplate);
+
+        service.observe(product(1L, 2, null));
+        verifyNoInteractions(notificationService, messagingTemplate);
+        assertThat(service.current()).extracting(StockAlertService.StockAlert::level)
+                .containsExactly(StockAlertService.Level.LOW);
+
+        service.observe(product(1L, 20, null));
+        assertThat(service.current()).isEmpty();
+
+        service.observe(product(1L, 4, null));
+        verify(notificationService).notifyAdmins(eq("Stock faible"), anyString(), eq("STOCK"));
+    }
+
+    @Test
+    void theProductThresholdOverridesTheGlobalOne() {
+        service.observe(product(1L, 8, 10));
+        service.observe(product(2L, 8, null));
+
+        assertThat(service.current()).extracting(StockAlertService.StockAlert::productId).containsExactly(1L);
+        assertThat(service.current().get(0).threshold()).isEqualTo(10);
+    }
+
+    @Test
+    void inactiveProductsAreNeverFlagged() {
+        Product p = product(1L, 0, null);
+        p.setActive(false);
+
+        service.observe(p);
+
+        assertThat(service.current()).isEmpty();
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    void rebuildFlagsWithoutNotifyingAndLaterDropsCompareToIt() {
+        service.rebuild(List.of(product(1L, 3, null), product(2L, 0, null), product(3L, 50, null)));
+
+        verifyNoInteractions(notificationService, messagingTemplate);
+        // Ruptures d'abord, puis stock croissant
+        assertThat(service.current()).extracting(StockAlertService.StockAlert::productId).containsExactly(2L, 1L);
+
+        service.observe(product(1L, 1, null));
+        verifyNoInteractions(notificationService);
+        service.observe(product(1L, 0, null));
+        verify(notificationService).notifyAdmins(eq("Rupture de stock"), anyString(), eq("STOCK"));
+    }
+
+    @Test
+    void aBroadcastFailureStillNotifiesTheAdmins() {
+        doThrow(new MessagingException("broker indisponible"))
+                .when(messagingTemplate).convertAndSend(eq(StockAlertService.TOPIC), any(Object.class));
+
+        service.observe(product(1L, 0, null));
+
+        verify(notificationService).notifyAdmins(eq("Rupture de stock"), anyString(), eq("STOCK"));
+    }
+
+    @Test
+    void productsWithoutIdAreIgnored() {
+        service.observe(product(null, 0, null));
+        service.observe((Product) null);
+
+        verify(notificationService, never()).notifyAdmins(anyString(), anyString(), anyString());
+        assertThat(service.current()).isEmpty();
+    }
+
+    private static Product product(Long id, int stock, Integer threshold) {
+        Product p = new Product();
+        p.setId(id);
+        p.setName("Primacy 4");
+        p.setStock(stock);
+        p.setLowStockThreshold(threshold);
+        return p;
+    }
+}
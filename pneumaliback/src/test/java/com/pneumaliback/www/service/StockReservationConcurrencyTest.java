@@ -0,0 +1,225 @@
+package com.pneumaliback.www.service;
+
+import com.pneumaliback.www.entity.Category;
+import com.pneumaliback.www.entity.Order;
+import com.pneumaliback.www.entity.OrderItem;
+import com.pneumaliback.www.entity.Product;
+import com.pneumaliback.www.entity.User;
+import com.pneumaliback.www.enums.OrderStatus;
+import com.pneumaliback.www.enums.ReservationStatus;
+import com.pneumaliback.www.enums.Role;
+import com.pneumaliback.www.repository.CategoryRepository;
+import com.pneumaliback.www.repository.OrderRepository;
+import com.pneumaliback.www.repository.ProductRepository;
+import com.pneumaliback.www.repository.StockReservationRepository;
+import com.pneumaliback.www.repository.UserRepository;
+import com.pneumaliback.www.service.catalog.AutocompleteIndex;
+import com.pneumaliback.www.service.catalog.CatalogIndex;
+import com.pneumaliback.www.service.catalog.ProductSearchIndex;
+import com.pneumaliback.www.service.catalog.TireDimensionIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checkouts concurrents sur une vraie base (H2 embarquée) : le stock n'est protégé que
+ * par les UPDATE conditionnels de ProductRepository et StockReservationRepository.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ StockReservationService.class, ProductService.class })
+class StockReservationConcurrencyTest {
+
+    private static final int CHECKOUTS = 500;
+    private static final int INITIAL_STOCK = 300;
+
+    @MockitoBean
+    private CatalogIndex catalogIndex;
+    @MockitoBean
+    private TireDimensionIndex tireDimensionIndex;
+    @MockitoBean
+    private ProductSearchIndex productSearchIndex;
+    @MockitoBean
+    private AutocompleteIndex autocompleteIndex;
+    @MockitoBean
+    private PopularityService popularityService;
+    @MockitoBean
+    private StockAlertService stockAlertService;
+
+    @Autowired
+    private StockReservationService service;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private StockReservationRepository reservationRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    private Product product;
+    private User buyer;
+
+    @BeforeEach
+    void setUp() {
+        reservationRepository.deleteAll();
+        orderRepository.deleteAll();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+        categoryRepository.deleteAll();
+
+        Category category = new Category();
+        category.setName("Tourisme");
+        category = categoryRepository.save(category);
+        Product p = new Product();
+        p.setName("Primacy 4");
+        p.setPrice(new BigDecimal("49.90"));
+        p.setStock(INITIAL_STOCK);
+        p.setCategory(category);
+        product = productRepository.save(p);
+
+        User u = new User();
+        u.setEmail("client@pneumali.ml");
+        u.setPassword("Kz9#vLq2!mWp");
+        u.setFirstName("Awa");
+        u.setLastName("Traoré");
+        u.setRole(Role.CLIENT);
+        buyer = userRepository.save(u);
+    }
+
+    @Test
+    void fiveHundredConcurrentCheckoutsNeverOversell() throws Exception {
+        List<Order> orders = placeOrders(CHECKOUTS);
+        AtomicInteger held = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+
+        runConcurrently(CHECKOUTS, i -> {
+            try {
+                service.hold(orders.get(i));
+                held.addAndGet(orders.get(i).getItems().get(0).getQuantity());
+            } catch (IllegalArgumentException e) {
+                assertThat(e).hasMessageContaining("Stock insuffisant");
+                refused.incrementAndGet();
+            }
+        });
+
+        int stock = currentStock();
+        int reserved = reservationRepository.findAll().stream().mapToInt(r -> r.getQuantity()).sum();
+        assertThat(stock).isBetween(0, 2);
+        assertThat(reserved).isEqualTo(held.get());
+        assertThat(reserved + stock).isEqualTo(INITIAL_STOCK);
+        assertThat(refused.get()).isPositive();
+    }
+
+    @Test
+    void commitsRacingExpiryAndOtherBuyersKeepStockConsistent() throws Exception {
+        StockReservationService target = AopTestUtils.getTargetObject(service);
+        ReflectionTestUtils.setField(target, "holdTtlMinutes", -1L);
+        int committers = 100;
+        List<Order> orders = placeOrders(committers);
+        for (Order order : orders) service.hold(order);
+        int afterHolds = currentStock();
+        int heldUnits = INITIAL_STOCK - afterHolds;
+
+        AtomicInteger shortfalls = new AtomicInteger();
+        AtomicInteger bought = new AtomicInteger();
+        runConcurrently(committers + 2, i -> {
+            if (i == committers) {
+                // Planificateur : expire tout ce qui est encore retenu
+                while (!reservationRepository.findExpired(java.time.LocalDateTime.now(),
+                        org.springframework.data.domain.PageRequest.of(0, 1)).isEmpty()) {
+                    service.expireDue();
+                }
+            } else if (i == committers + 1) {
+                // Autres clients : achètent une unité à la fois tant qu'il en reste
+                int misses = 0;
+                while (misses < 200) {
+                    if (productService.decreaseStock(product.getId(), 1)) bought.incrementAndGet();
+                    else misses++;
+                }
+            } else {
+                shortfalls.addAndGet(service.commit(orders.get(i)).size());
+            }
+        });
+
+        int committedUnits = reservationRepository.findAll().stream()
+                .filter(r -> r.getStatus() == ReservationStatus.COMMITTED)
+                .mapToInt(r -> r.getQuantity()).sum();
+        long expired = reservationRepository.findAll().stream()
+                .filter(r -> r.getStatus() == ReservationStatus.EXPIRED).count();
+        assertThat(heldUnits).isPositive();
+        assertThat(expired).isEqualTo(shortfalls.get());
+        assertThat(currentStock()).isGreaterThanOrEqualTo(0);
+        assertThat(currentStock() + bought.get() + committedUnits).isEqualTo(INITIAL_STOCK);
+    }
+
+    // ===== Internes =====
+
+    private int currentStock() {
+        return productRepository.findById(product.getId()).orElseThrow().getStock();
+    }
+
+    private List<Order> placeOrders(int count) {
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Order order = new Order();
+            order.setUser(buyer);
+            order.setStatus(OrderStatus.PENDING);
+            order = orderRepository.save(order);
+            OrderItem item = new OrderItem();
+            item.setProduct(product);
+            item.setQuantity(1 + i % 3);
+            item.setUnitPrice(product.getPrice());
+            order.getItems().add(item);
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    private interface Task {
+        void run(int index) throws Exception;
+    }
+
+    private static void runConcurrently(int tasks, Task task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < tasks; i++) {
+                int index = i;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    task.run(index);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) f.get(60, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
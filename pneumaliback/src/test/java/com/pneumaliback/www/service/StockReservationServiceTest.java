@@ -0,0 +1,254 @@
+package com.pneumaliback.www.service;
+
+import com.pneumaliback.www.entity.Order;
+import com.pneumaliback.www.entity.OrderItem;
+import com.pneumaliback.www.entity.Product;
+import com.pneumaliback.www.entity.StockReservation;
+import com.pneumaliback.www.enums.OrderStatus;
+import com.pneumaliback.www.enums.ReservationStatus;
+import com.pneumaliback.www.repository.StockReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Logique de réservation, avec stock et statuts simulés par des compare-and-set en
+ * mémoire. Les UPDATE conditionnels réels sont éprouvés sur base embarquée par
+ * StockReservationConcurrencyTest.
+ */
+class StockReservationServiceTest {
+
+    private static final Long PRODUCT_ID = 1L;
+
+    private final AtomicInteger stock = new AtomicInteger();
+    private final Map<Long, StockReservation> reservations = new ConcurrentHashMap<>();
+    private final Map<Long, ReservationStatus> statuses = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final Product product = new Product();
+
+    private StockReservationService service;
+
+    @BeforeEach
+    void setUp() {
+        product.setId(PRODUCT_ID);
+        product.setName("Primacy 4");
+
+        ProductService productService = mock(ProductService.class, withSettings().stubOnly());
+        when(productService.decreaseStock(anyLong(), anyInt())).thenAnswer(inv -> take(inv.getArgument(1)));
+        doAnswer(inv -> stock.addAndGet(inv.getArgument(1))).when(productService).increaseStock(anyLong(), anyInt());
+
+        StockReservationRepository repository = mock(StockReservationRepository.class, withSettings().stubOnly());
+        when(repository.saveAll(any())).thenAnswer(inv -> {
+            List<StockReservation> saved = new ArrayList<>();
+            for (StockReservation r : inv.<Iterable<StockReservation>>getArgument(0)) {
+                r.setId(ids.incrementAndGet());
+                statuses.put(r.getId(), r.getStatus());
+                reservations.put(r.getId(), r);
+                saved.add(r);
+            }
+            return saved;
+        });
+        when(repository.transition(anyLong(), any(), any())).thenAnswer(inv ->
+                statuses.replace(inv.getArgument(0), inv.getArgument(1), inv.getArgument(2)) ? 1 : 0);
+        when(repository.findByOrderIdAndStatusIn(anyLong(), any())).thenAnswer(inv ->
+                snapshot(r -> r.getOrder().getId().equals(inv.getArgument(0))
+                        && inv.<Collection<ReservationStatus>>getArgument(1).contains(statuses.get(r.getId()))));
+        when(repository.findExpired(any(), any())).thenAnswer(inv -> snapshot(r ->
+                statuses.get(r.getId()) == ReservationStatus.HELD && r.getExpiresAt().isBefore(inv.getArgument(0))));
+
+        service = new StockReservationService(repository, productService);
+        ReflectionTestUtils.setField(service, "holdTtlMinutes", 15L);
+    }
+
+    @Test
+    void concurrentHoldsNeverOversell() throws Exception {
+        stock.set(50);
+        int buyers = 200;
+        AtomicInteger held = new AtomicInteger();
+
+        runConcurrently(buyers, i -> {
+            int quantity = 1 + i % 3;
+            try {
+                service.hold(order(i, quantity));
+                held.addAndGet(quantity);
+            } catch (IllegalArgumentException e) {
+                assertThat(e).hasMessageContaining("Stock insuffisant");
+            }
+        });
+
+        assertThat(stock.get()).isGreaterThanOrEqualTo(0).isLessThan(3);
+        assertThat(held.get() + stock.get()).isEqualTo(50);
+        assertThat(reservations.values()).extracting(StockReservation::getQuantity)
+                .allSatisfy(q -> assertThat(q).isPositive());
+    }
+
+    @Test
+    void commitRacingExpiryAndNewBuyersKeepsStockConsistent() throws Exception {
+        int orders = 60;
+        stock.set(orders * 2 + 30);
+        ReflectionTestUtils.setField(service, "holdTtlMinutes", -1L);
+        List<Order> placed = new ArrayList<>();
+        for (int i = 0; i < orders; i++) {
+            Order order = order(i, 2);
+            service.hold(order);
+            placed.add(order);
+        }
+        assertThat(stock.get()).isEqualTo(30);
+
+        AtomicInteger shortfalls = new AtomicInteger();
+        AtomicInteger bought = new AtomicInteger();
+        runConcurrently(orders + 2, i -> {
+            if (i == orders) {
+                // Planificateur : expire tout ce qui est encore retenu
+                while (statuses.containsValue(ReservationStatus.HELD)) service.expireDue();
+            } else if (i == orders + 1) {
+                // Autres clients : achètent une unité à la fois tant qu'il en reste
+                int misses = 0;
+                while (misses < 1000) {
+                    if (take(1)) bought.incrementAndGet();
+                    else misses++;
+                }
+            } else {
+                List<StockReservationService.Shortfall> missing = service.commit(placed.get(i));
+                missing.forEach(s -> assertThat(s).isEqualTo(new StockReservationService.Shortfall(PRODUCT_ID, 2)));
+                shortfalls.addAndGet(missing.size());
+            }
+        });
+
+        long committed = statuses.values().stream().filter(s -> s == ReservationStatus.COMMITTED).count();
+        long expired = statuses.values().stream().filter(s -> s == ReservationStatus.EXPIRED).count();
+        assertThat(committed + expired).isEqualTo(orders);
+        assertThat(expired).isEqualTo(shortfalls.get());
+        assertThat(stock.get()).isGreaterThanOrEqualTo(0);
+        assertThat(stock.get() + bought.get() + committed * 2).isEqualTo(orders * 2 + 30);
+    }
+
+    @Test
+    void commitReportsShortfallAndLeavesReservationExpired() {
+        stock.set(2);
+        ReflectionTestUtils.setField(service, "holdTtlMinutes", -1L);
+        Order order = order(1, 2);
+        service.hold(order);
+        service.expireDue();
+        assertThat(order.getStatus()).isEqualTo(OrderStatus.CANCELED);
+        assertThat(take(2)).isTrue();
+
+        List<StockReservationService.Shortfall> missing = service.commit(order);
+
+        assertThat(missing).containsExactly(new StockReservationService.Shortfall(PRODUCT_ID, 2));
+        assertThat(statuses.values()).containsExactly(ReservationStatus.EXPIRED);
+        assertThat(stock.get()).isZero();
+    }
+
+    @Test
+    void commitRetakesExpiredReservationWhenStockAllows() {
+        stock.set(5);
+        ReflectionTestUtils.setField(service, "holdTtlMinutes", -1L);
+        Order order = order(1, 2);
+        service.hold(order);
+        service.expireDue();
+        assertThat(stock.get()).isEqualTo(5);
+
+        assertThat(service.commit(order)).isEmpty();
+        assertThat(service.commit(order)).isEmpty();
+
+        assertThat(statuses.values()).containsExactly(ReservationStatus.COMMITTED);
+        assertThat(stock.get()).isEqualTo(3);
+    }
+
+    @Test
+    void holdFailsWhenStockIsShort() {
+        stock.set(1);
+
+        assertThatThrownBy(() -> service.hold(order(1, 2)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Stock insuffisant pour Primacy 4");
+        assertThat(stock.get()).isEqualTo(1);
+    }
+
+    // ===== Internes =====
+
+    private boolean take(int quantity) {
+        int current;
+        do {
+            current = stock.get();
+            if (current < quantity) return false;
+        } while (!stock.compareAndSet(current, current - quantity));
+        return true;
+    }
+
+    private List<StockReservation> snapshot(Predicate<StockReservation> filter) {
+        List<StockReservation> found = new ArrayList<>();
+        for (StockReservation r : reservations.values()) {
+            if (!filter.test(r)) continue;
+            StockReservation copy = new StockReservation();
+            copy.setId(r.getId());
+            copy.setOrder(r.getOrder());
+            copy.setProduct(r.getProduct());
+            copy.setQuantity(r.getQuantity());
+            copy.setExpiresAt(r.getExpiresAt());
+            copy.setStatus(statuses.get(r.getId()));
+            found.add(copy);
+        }
+        return found;
+    }
+
+    private Order order(long id, int quantity) {
+        Order order = new Order();
+        order.setId(1000 + id);
+        order.setStatus(OrderStatus.PENDING);
+        OrderItem item = new OrderItem();
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        order.getItems().add(item);
+        return order;
+    }
+
+    private interface Task {
+        void run(int index) throws Exception;
+    }
+
+    private static void runConcurrently(int tasks, Task task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(tasks, 16));
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < tasks; i++) {
+                int index = i;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    task.run(index);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) f.get(30, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.pneumaliback.www.service.auth;
+
+import com.pneumaliback.www.entity.User;
+import com.pneumaliback.www.enums.Role;
+import com.pneumaliback.www.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PrincipalCacheTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final PrincipalCache cache = new PrincipalCache(userRepository, new SimpleMeterRegistry(), 2, 300);
+
+    @Test
+    void servesRepeatedLookupsFromCache() {
+        User user = user(1L, "a@pneumali.ml");
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        assertThat(cache.byId(1L)).isPresent();
+        assertThat(cache.byEmail("A@pneumali.ml ")).isPresent();
+
+        verify(userRepository, times(1)).findById(1L);
+        assertThat(cache.stats().hits()).isEqualTo(1);
+    }
+
+    @Test
+    void loadRacingAnEvictionDoesNotCacheTheStaleSnapshot() {
+        User user = user(1L, "a@pneumali.ml");
+        // L'éviction survient pendant la requête : le snapshot lu est peut-être périmé
+        when(userRepository.findById(1L)).thenAnswer(inv -> {
+            cache.evict(user);
+            return Optional.of(user);
+        }).thenReturn(Optional.of(user));
+
+        assertThat(cache.byId(1L)).isPresent();
+        assertThat(cache.stats().size()).isZero();
+
+        assertThat(cache.byId(1L)).isPresent();
+        assertThat(cache.stats().size()).isEqualTo(1);
+    }
+
+    @Test
+    void evictionOfAnotherUserDoesNotBlockTheLoad() {
+        User user = user(1L, "a@pneumali.ml");
+        User other = user(2L, "b@pneumali.ml");
+        when(userRepository.findById(1L)).thenAnswer(inv -> {
+            cache.evict(other);
+            return Optional.of(user);
+        });
+
+        cache.byId(1L);
+
+        assertThat(cache.stats().size()).isEqualTo(1);
+    }
+
+    @Test
+    void forgottenEvictionsStillRejectOlderLoads() {
+        User user = user(1L, "a@pneumali.ml");
+        // Plus d'évictions que la capacité (2) : celle de l'utilisateur 1 est oubliée
+        when(userRepository.findById(1L)).thenAnswer(inv -> {
+            cache.evict(user);
+            cache.evict(user(2L, "b@pneumali.ml"));
+            cache.evict(user(3L, "c@pneumali.ml"));
+            return Optional.of(user);
+        });
+
+        cache.byId(1L);
+
+        assertThat(cache.stats().size()).isZero();
+    }
+
+    private static User user(Long id, String email) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(email);
+        user.setRole(Role.CLIENT);
+        return user;
+    }
+}
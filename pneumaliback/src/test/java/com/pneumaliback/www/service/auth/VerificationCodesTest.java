@@ -0,0 +1,72 @@
+package com.pneumaliback.www.service.auth;
+
+import com.pneumaliback.www.entity.User;
+import com.pneumaliback.www.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class VerificationCodesTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final VerificationCodes codes = new VerificationCodes(userRepository, new BCryptPasswordEncoder(4),
+            "secret-de-test-suffisamment-long-pour-hmac");
+
+    @Test
+    void lookupKeyIsBoundToTheChallengeNotTheCode() {
+        User first = new User();
+        User second = new User();
+
+        String c1 = codes.assign(first, "123456", Instant.now().plusSeconds(60));
+        String c2 = codes.assign(second, "123456", Instant.now().plusSeconds(60));
+
+        // Même code, défis distincts : aucune clé ne se déduit du code seul
+        assertThat(c1).isNotEqualTo(c2).hasSize(22);
+        assertThat(first.getVerificationLookup()).isEqualTo(codes.lookupKey(c1))
+                .isNotEqualTo(second.getVerificationLookup())
+                .isNotEqualTo(codes.lookupKey("123456"));
+        assertThat(codes.matches(first, "123456")).isTrue();
+        assertThat(codes.matches(first, "654321")).isFalse();
+    }
+
+    @Test
+    void findsTheSingleHolderOfAChallenge() {
+        User user = new User();
+        String challenge = codes.assign(user, "123456", Instant.now().plusSeconds(60));
+        when(userRepository.findByVerificationLookup(eq(codes.lookupKey(challenge)), any())).thenReturn(List.of(user));
+
+        assertThat(codes.findHolder(challenge)).containsSame(user);
+        assertThat(codes.findHolder("inconnu")).isEmpty();
+        assertThat(codes.findHolder(" ")).isEmpty();
+        assertThat(codes.findHolder(null)).isEmpty();
+    }
+
+    @Test
+    void rejectsAmbiguousChallenges() {
+        when(userRepository.findByVerificationLookup(eq(codes.lookupKey("defi")), any()))
+                .thenReturn(List.of(new User(), new User()));
+
+        assertThat(codes.findHolder("defi")).isEmpty();
+    }
+
+    @Test
+    void clearRemovesEveryTraceOfTheCode() {
+        User user = new User();
+        codes.assign(user, "123456", Instant.now().plusSeconds(60));
+
+        VerificationCodes.clear(user);
+
+        assertThat(user.getVerificationCode()).isNull();
+        assertThat(user.getVerificationLookup()).isNull();
+        assertThat(user.getVerificationExpiry()).isNull();
+        assertThat(codes.matches(user, "123456")).isFalse();
+    }
+}
@@ -0,0 +1,182 @@
+package com.pneumaliback.www.service.cart;
+
+import com.pneumaliback.www.dto.CartQuoteDTO;
+import com.pneumaliback.www.entity.Product;
+import com.pneumaliback.www.entity.Promotion;
+import com.pneumaliback.www.enums.PromotionType;
+import com.pneumaliback.www.repository.CartItemRepository;
+import com.pneumaliback.www.service.DeliveryService;
+import com.pneumaliback.www.service.PromotionService;
+import com.pneumaliback.www.service.catalog.CatalogIndex;
+import com.pneumaliback.www.service.pricing.PricingEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CartQuoteServiceTest {
+
+    private static final Long USER = 7L;
+
+    private final CartItemRepository cartItemRepository = mock(CartItemRepository.class);
+    private final PricingEngine pricingEngine = spy(new PricingEngine());
+    private final PromotionService promotionService = mock(PromotionService.class);
+    private final DeliveryService deliveryService = mock(DeliveryService.class);
+    private final CatalogIndex catalogIndex = mock(CatalogIndex.class);
+    private final CartQuoteService service = new CartQuoteService(cartItemRepository, pricingEngine,
+            promotionService, deliveryService, catalogIndex);
+
+    @BeforeEach
+    void setUp() {
+        when(cartItemRepository.findQuoteLinesByUserId(USER)).thenReturn(rows(row(1L, 2, "45000"), row(2L, 1, "12500")));
+        when(deliveryService.quoteShippingFee(any(), anyInt())).thenReturn(new BigDecimal("2000"));
+        when(catalogIndex.get(anyLong())).thenReturn(Optional.empty());
+        when(promotionService.findValidByCode(anyString())).thenReturn(Optional.empty());
+        when(promotionService.resolveFromInfluencerCode(anyString())).thenReturn(Optional.empty());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void anUnchangedCartIsLoadedAndPricedOnce() {
+        CartQuoteDTO first = service.quote(USER, null, "BAMAKO");
+        CartQuoteDTO second = service.quote(USER, null, "BAMAKO");
+
+        assertThat(second).isEqualTo(first);
+        assertThat(first.total()).isEqualByComparingTo("104500");
+        assertThat(first.itemCount()).isEqualTo(3);
+        verify(cartItemRepository, times(1)).findQuoteLinesByUserId(USER);
+        verify(pricingEngine, times(1)).quote(any(), any(), any(BigDecimal.class));
+    }
+
+    @Test
+    void aLineChangeIsAppliedOnlyAfterCommit() {
+        service.quote(USER, null, "BAMAKO");
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.itemChanged(USER, 1L, 1, new BigDecimal("45000"));
+        assertThat(service.quote(USER, null, "BAMAKO").itemCount()).isEqualTo(3);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        CartQuoteDTO after = service.quote(USER, null, "BAMAKO");
+        assertThat(after.itemCount()).isEqualTo(2);
+        assertThat(after.subtotal()).isEqualByComparingTo("57500");
+        // Le panier reste en mémoire : aucune relecture de cart_items
+        verify(cartItemRepository, times(1)).findQuoteLinesByUserId(USER);
+    }
+
+    @Test
+    void aRolledBackChangeLeavesTheQuoteUntouched() {
+        CartQuoteDTO before = service.quote(USER, null, "BAMAKO");
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.cleared(USER);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertThat(service.quote(USER, null, "BAMAKO")).isEqualTo(before);
+    }
+
+    @Test
+    void removedLinesAndClearedCartsDropOutOfTheQuote() {
+        service.quote(USER, null, "BAMAKO");
+
+        service.itemChanged(USER, 2L, 0, new BigDecimal("12500"));
+        assertThat(service.quote(USER, null, "BAMAKO").lines()).extracting(CartQuoteDTO.Line::productId).containsExactly(1L);
+
+        service.cleared(USER);
+        CartQuoteDTO empty = service.quote(USER, null, "BAMAKO");
+        assertThat(empty.lines()).isEmpty();
+        assertThat(empty.subtotal()).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void aCatalogPriceChangeRepricesTheCart() {
+        service.quote(USER, null, "BAMAKO");
+        CatalogIndex.Entry repriced = CatalogIndex.Entry.of(product(1L, "40000"));
+        when(catalogIndex.get(1L)).thenReturn(Optional.of(repriced));
+
+        CartQuoteDTO quote = service.quote(USER, null, "BAMAKO");
+
+        assertThat(quote.subtotal()).isEqualByComparingTo("92500");
+        verify(pricingEngine, times(2)).quote(any(), any(), any(BigDecimal.class));
+    }
+
+    @Test
+    void aNewPromotionVersionOrShippingFeeTriggersARequote() {
+        Promotion promo = new Promotion();
+        promo.setId(3L);
+        promo.setVersion(1);
+        promo.setType(PromotionType.PERCENTAGE);
+        promo.setDiscountPercentage(new BigDecimal("10"));
+        when(promotionService.findValidByCode("PNEU10")).thenReturn(Optional.of(promo));
+
+        CartQuoteDTO withPromo = service.quote(USER, "PNEU10", "BAMAKO");
+        assertThat(withPromo.promotionApplied()).isTrue();
+        assertThat(withPromo.discount()).isEqualByComparingTo("10250");
+        service.quote(USER, "PNEU10", "BAMAKO");
+        verify(pricingEngine, times(1)).quote(any(), any(), any(BigDecimal.class));
+
+        promo.setVersion(2);
+        promo.setDiscountPercentage(new BigDecimal("20"));
+        assertThat(service.quote(USER, "PNEU10", "BAMAKO").discount()).isEqualByComparingTo("20500");
+
+        when(deliveryService.quoteShippingFee(eq("KAYES"), anyInt())).thenReturn(new BigDecimal("5000"));
+        assertThat(service.quote(USER, "PNEU10", "KAYES").shippingFee()).isEqualByComparingTo("5000");
+
+        assertThat(service.quote(USER, null, "KAYES").promotionApplied()).isFalse();
+        verify(pricingEngine, times(4)).quote(any(), any(), any(BigDecimal.class));
+    }
+
+    @Test
+    void aLoadRacingACommittedWriteIsNotCached() {
+        // Une écriture validée pendant la lecture de cart_items rendrait l'état chargé périmé
+        when(cartItemRepository.findQuoteLinesByUserId(USER)).thenAnswer(inv -> {
+            service.itemChanged(USER, 1L, 5, new BigDecimal("45000"));
+            return rows(row(1L, 2, "45000"));
+        });
+
+        service.quote(USER, null, "BAMAKO");
+        service.quote(USER, null, "BAMAKO");
+
+        verify(cartItemRepository, times(2)).findQuoteLinesByUserId(USER);
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+
+    private static Object[] row(Long productId, int quantity, String price) {
+        return new Object[] { productId, quantity, new BigDecimal(price) };
+    }
+
+    private static Product product(Long id, String price) {
+        Product p = new Product();
+        p.setId(id);
+        p.setPrice(new BigDecimal(price));
+        return p;
+    }
+}
@@ -0,0 +1,52 @@
+package com.pneumaliback.www.service.cart;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GuestCartStoreTest {
+
+    private final GuestCartStore store = new GuestCartStore(100, 72, 2);
+
+    @Test
+    void tokenIsStoredOnlyOnFirstItem() {
+        String token = store.create();
+        assertThat(store.lines(token)).isEmpty();
+
+        store.set(token, 1L, 0, "1.2.3.4");
+        store.add(token, 1L, 3, "1.2.3.4");
+
+        assertThat(store.lines(token)).containsEntry(1L, 3);
+    }
+
+    @Test
+    void limitsNewCartsPerClient() {
+        store.add(store.create(), 1L, 1, "1.2.3.4");
+        store.add(store.create(), 1L, 1, "1.2.3.4");
+        String third = store.create();
+
+        assertThatThrownBy(() -> store.add(third, 1L, 1, "1.2.3.4"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Trop de paniers");
+        // Un autre client n'est pas concerné, ni les paniers déjà créés
+        store.add(third, 1L, 1, "5.6.7.8");
+        assertThat(store.lines(third)).containsEntry(1L, 1);
+    }
+
+    @Test
+    void hugeDeltaIsCappedInsteadOfOverflowing() {
+        String token = store.create();
+        store.add(token, 1L, 5, "1.2.3.4");
+
+        assertThat(store.add(token, 1L, Integer.MAX_VALUE, "1.2.3.4")).isEqualTo(GuestCartStore.MAX_QUANTITY);
+        assertThat(store.lines(token)).containsEntry(1L, GuestCartStore.MAX_QUANTITY);
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        assertThatThrownBy(() -> store.lines("abc"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("introuvable");
+    }
+}
@@ -0,0 +1,88 @@
+package com.pneumaliback.www.service.catalog;
+
+import com.pneumaliback.www.entity.Product;
+import com.pneumaliback.www.service.catalog.AutocompleteIndex.Suggestion;
+import com.pneumaliback.www.service.catalog.AutocompleteIndex.SuggestionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AutocompleteIndexTest {
+
+    private final AutocompleteIndex index = new AutocompleteIndex();
+
+    @BeforeEach
+    void setUp() {
+        index.rebuild(List.of(
+                product(1L, "Michelin Primacy 4", "Michelin", "205/55R16", true),
+                product(2L, "Pilot Sport 5", "Michelin", "225/45R17", true),
+                product(3L, "Été Contact", "Continental", "205/55R16", true),
+                product(4L, "Alpin 6", "Michelin", "205/60R16", false)));
+    }
+
+    @Test
+    void ranksByWeightThenText() {
+        assertThat(index.suggest("mi", 10)).containsExactly(
+                new Suggestion("Michelin", SuggestionType.BRAND, 2),
+                new Suggestion("Michelin Primacy 4", SuggestionType.PRODUCT, 1));
+        assertThat(index.suggest("205", 10)).containsExactly(new Suggestion("205/55R16", SuggestionType.SIZE, 2));
+    }
+
+    @Test
+    void foldsCaseAccentsAndSpaces() {
+        assertThat(index.suggest("  ÉTÉ   c", 10)).extracting(Suggestion::text).containsExactly("Été Contact");
+        assertThat(index.suggest("CONT", 10)).extracting(Suggestion::text).containsExactly("Continental");
+    }
+
+    @Test
+    void resolvesPrefixesEndingInsideAnEdge() {
+        // "michelin" et "michelin primacy 4" partagent l'arête "michelin"
+        assertThat(index.suggest("miche", 10)).hasSize(2);
+        assertThat(index.suggest("michelin p", 10)).extracting(Suggestion::text).containsExactly("Michelin Primacy 4");
+        assertThat(index.suggest("michelinx", 10)).isEmpty();
+        assertThat(index.suggest("x", 10)).isEmpty();
+        assertThat(index.suggest("", 10)).isEmpty();
+    }
+
+    @Test
+    void honoursLimit() {
+        assertThat(index.suggest("2", 1)).containsExactly(new Suggestion("205/55R16", SuggestionType.SIZE, 2));
+    }
+
+    @Test
+    void updatesWeightsOnRemoveAndUpsert() {
+        assertThat(index.suggest("alpin", 10)).isEmpty();
+
+        index.remove(2L);
+        assertThat(index.suggest("mi", 10)).first().isEqualTo(new Suggestion("Michelin", SuggestionType.BRAND, 1));
+        assertThat(index.suggest("pilot", 10)).isEmpty();
+
+        index.upsert(product(4L, "Alpin 6", "Michelin", "205/60R16", true));
+        assertThat(index.suggest("mi", 10)).first().isEqualTo(new Suggestion("Michelin", SuggestionType.BRAND, 2));
+        assertThat(index.suggest("205/6", 10)).extracting(Suggestion::text).containsExactly("205/60R16");
+    }
+
+    @Test
+    void keepsOnlyTheBestSuggestionsPerNode() {
+        for (long id = 10; id < 30; id++) {
+            index.upsert(product(id, "Pneu " + id, null, null, true));
+        }
+
+        List<Suggestion> top = index.suggest("pneu", AutocompleteIndex.MAX_SUGGESTIONS + 5);
+        assertThat(top).hasSize(AutocompleteIndex.MAX_SUGGESTIONS);
+        assertThat(top.get(0).text()).isEqualTo("Pneu 10");
+    }
+
+    private static Product product(Long id, String name, String brand, String size, boolean active) {
+        Product p = new Product();
+        p.setId(id);
+        p.setName(name);
+        p.setBrand(brand);
+        p.setSize(size);
+        p.setActive(active);
+        return p;
+    }
+}
@@ -0,0 +1,134 @@
+package com.pneumaliback.www.service.catalog;
+
+import com.pneumaliback.www.dto.ProductSummaryDTO;
+import com.pneumaliback.www.dto.RatingAggregate;
+import com.pneumaliback.www.entity.Category;
+import com.pneumaliback.www.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogIndexTest {
+
+    private CatalogIndex index;
+    private Product summer;
+    private Product winter;
+
+    @BeforeEach
+    void setUp() {
+        Category category = new Category();
+        category.setId(1L);
+        category.setName("Tourisme");
+        summer = product(1L, "Primacy 4", "49.90", 10, "Michelin", category);
+        winter = product(2L, "Alpin 6", "59.90", 0, "Michelin", category);
+        index = new CatalogIndex();
+        index.rebuild(List.of(summer, winter));
+    }
+
+    @Test
+    void filtersOnlyActiveProductsInStock() {
+        CatalogIndex.Query query = new CatalogIndex.Query(1L, "michelin", null, null, null, null, null);
+
+        Page<ProductSummaryDTO> page = index.findWithFilters(query, PageRequest.of(0, 10)).orElseThrow();
+
+        assertThat(page.getContent()).extracting(ProductSummaryDTO::id).containsExactly(1L);
+        assertThat(page.getContent().get(0).categoryName()).isEqualTo("Tourisme");
+    }
+
+    @Test
+    void filtersOnPriceRangeAndSorts() {
+        index.adjustStock(2L, 5);
+        CatalogIndex.Query query = new CatalogIndex.Query(null, null, null, null, null, new BigDecimal("40"), null);
+
+        Page<ProductSummaryDTO> page = index.findWithFilters(query, PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "price")))
+                .orElseThrow();
+
+        assertThat(page.getContent()).extracting(ProductSummaryDTO::id).containsExactly(2L, 1L);
+        assertThat(index.count(new CatalogIndex.Query(null, null, null, null, null, null, new BigDecimal("50")))).isEqualTo(1);
+    }
+
+    @Test
+    void updatesReplaceSnapshotsWithoutTouchingEntities() {
+        CatalogIndex.Entry before = index.get(1L).orElseThrow();
+
+        index.adjustStock(1L, -4);
+        index.applyRating(new RatingAggregate(1L, 2, 9, 0, 0, 0, 1, 1));
+
+        CatalogIndex.Entry after = index.get(1L).orElseThrow();
+        assertThat(after.stock()).isEqualTo(6);
+        assertThat(after.toSummary().averageRating()).isEqualTo(4.5);
+        assertThat(before.stock()).isEqualTo(10);
+        assertThat(before.ratingCount()).isZero();
+        assertThat(summer.getStock()).isEqualTo(10);
+        assertThat(summer.getRatingCount()).isZero();
+    }
+
+    @Test
+    void entityChangesAreInvisibleUntilUpsert() {
+        summer.setPrice(new BigDecimal("1.00"));
+        assertThat(index.get(1L).orElseThrow().price()).isEqualByComparingTo("49.90");
+
+        index.upsert(summer);
+        assertThat(index.get(1L).orElseThrow().price()).isEqualByComparingTo("1.00");
+    }
+
+    @Test
+    void stockNeverGoesNegativeAndRemovedProductsDisappear() {
+        index.adjustStock(1L, -50);
+        assertThat(index.get(1L).orElseThrow().stock()).isZero();
+
+        index.remove(1L);
+        assertThat(index.get(1L)).isEmpty();
+        assertThat(index.count(null)).isZero();
+    }
+
+    @Test
+    void priceFilterNeverUsesAStalePriceOrder() throws Exception {
+        Category category = summer.getCategory();
+        List<Product> products = new ArrayList<>();
+        for (long id = 10; id < 60; id++) products.add(product(id, "P" + id, "40.00", 5, "Kleber", category));
+        index.rebuild(products);
+        CatalogIndex.Query cheap = new CatalogIndex.Query(null, null, null, null, null, null, new BigDecimal("50"));
+        AtomicBoolean stop = new AtomicBoolean();
+
+        // Un écrivain fait passer les prix d'un côté à l'autre du filtre pendant les lectures
+        Thread writer = new Thread(() -> {
+            for (int round = 0; !stop.get(); round++) {
+                for (Product p : products) {
+                    p.setPrice(new BigDecimal(round % 2 == 0 ? "60.00" : "40.00"));
+                    index.upsert(p);
+                }
+            }
+        });
+        writer.start();
+        try {
+            for (int i = 0; i < 2_000; i++) {
+                Page<ProductSummaryDTO> page = index.findWithFilters(cheap, PageRequest.of(0, 100)).orElseThrow();
+                assertThat(page.getContent()).allSatisfy(dto -> assertThat(dto.price()).isLessThanOrEqualTo(new BigDecimal("50")));
+            }
+        } finally {
+            stop.set(true);
+            writer.join();
+        }
+    }
+
+    private static Product product(Long id, String name, String price, int stock, String brand, Category category) {
+        Product p = new Product();
+        p.setId(id);
+        p.setName(name);
+        p.setPrice(new BigDecimal(price));
+        p.setStock(stock);
+        p.setBrand(brand);
+        p.setCategory(category);
+        return p;
+    }
+}
@@ -0,0 +1,89 @@
+package com.pneumaliback.www.service.catalog;
+
+import com.pneumaliback.www.entity.Category;
+import com.pneumaliback.www.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductSearchIndexTest {
+
+    private final ProductSearchIndex index = new ProductSearchIndex();
+
+    @BeforeEach
+    void setUp() {
+        index.rebuild(List.of(
+                product(1L, "Michelin Primacy 4", "Michelin", "205/55R16 91V", true),
+                product(2L, "Pilot Sport 5", "Michelin", "225/45R17 94Y", true),
+                product(3L, "Été Contact", "Continental", "205/55R16 91H", true),
+                product(4L, "Alpin 6", "Michelin", "205/55R16 91H", false)));
+    }
+
+    @Test
+    void tokenizeFoldsCaseAndAccents() {
+        assertThat(ProductSearchIndex.tokenize("Été  205/55R16-91V")).containsExactly("ete", "205", "55r16", "91v");
+        assertThat(ProductSearchIndex.tokenize(null)).isEmpty();
+    }
+
+    @Test
+    void ranksNameMatchesAboveBrandMatches() {
+        assertThat(index.search("michelin")).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void requiresEveryWordToMatch() {
+        assertThat(index.search("michelin pilot")).containsExactly(2L);
+        assertThat(index.search("michelin contact")).isEmpty();
+    }
+
+    @Test
+    void matchesSizesSplitOrCompact() {
+        assertThat(index.search("205/55R16")).containsExactly(1L, 3L);
+        assertThat(index.search("20555r16")).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void matchesPrefixesAccentsAndTypos() {
+        assertThat(index.search("conti")).containsExactly(3L);
+        assertThat(index.search("ETE")).containsExactly(3L);
+        assertThat(index.search("michlin")).containsExactly(1L, 2L);
+        assertThat(index.search("tourism")).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void exactMatchesRankAboveFuzzyOnes() {
+        index.upsert(product(5L, "Primacy", "Michelin", null, true));
+
+        // "primacy" exact sur les deux ; "primacu" ne trouve que des termes proches
+        assertThat(index.search("primacy")).containsExactly(1L, 5L);
+        assertThat(index.search("primacu")).containsExactly(1L, 5L);
+        assertThat(index.search("prim")).containsExactly(1L, 5L);
+    }
+
+    @Test
+    void skipsInactiveAndRemovedProducts() {
+        assertThat(index.search("alpin")).isEmpty();
+
+        index.remove(1L);
+        assertThat(index.search("primacy")).isEmpty();
+
+        index.upsert(product(4L, "Alpin 6", "Michelin", "205/55R16 91H", true));
+        assertThat(index.search("alpin")).containsExactly(4L);
+    }
+
+    private static Product product(Long id, String name, String brand, String size, boolean active) {
+        Category category = new Category();
+        category.setName("Tourisme");
+        Product p = new Product();
+        p.setId(id);
+        p.setName(name);
+        p.setBrand(brand);
+        p.setSize(size);
+        p.setActive(active);
+        p.setCategory(category);
+        return p;
+    }
+}
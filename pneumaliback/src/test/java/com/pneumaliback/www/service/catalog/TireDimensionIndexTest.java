@@ -0,0 +1,60 @@
+package com.pneumaliback.www.service.catalog;
+
+import com.pneumaliback.www.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TireDimensionIndexTest {
+
+    private final TireDimensionIndex index = new TireDimensionIndex();
+
+    @BeforeEach
+    void setUp() {
+        index.rebuild(List.of(
+                product(1L, "205/55R16 91V"),
+                product(2L, "205/55R16 94W"),
+                product(3L, "225/45R17 94W"),
+                product(4L, "195/65R15 91H"),
+                product(5L, "Chambre à air")));
+    }
+
+    @Test
+    void matchesExactAndPartialCriteria() {
+        assertThat(index.exact(205, 55, new BigDecimal("16.0"))).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(index.exact(null, null, new BigDecimal("17"))).containsExactly(3L);
+        assertThat(index.exact(205, 60, null)).isEmpty();
+    }
+
+    @Test
+    void findsEquivalentSizesWithinTolerance() {
+        TireSize reference = TireSize.parse("205/55R16").orElseThrow();
+
+        // 225/45R17 (634,3 mm) et 195/65R15 (634,5 mm) sont à moins de 1 % de 631,9 mm
+        assertThat(index.equivalents(reference, 1)).containsExactlyInAnyOrder(1L, 2L, 3L, 4L);
+        assertThat(index.equivalents(reference, 0)).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    void upsertMovesProductToItsNewDimension() {
+        index.upsert(product(1L, "225/45R17 94W"));
+
+        assertThat(index.exact(205, 55, new BigDecimal("16"))).containsExactly(2L);
+        assertThat(index.exact(225, 45, new BigDecimal("17"))).containsExactlyInAnyOrder(1L, 3L);
+
+        index.remove(2L);
+        assertThat(index.exact(205, 55, new BigDecimal("16"))).isEmpty();
+    }
+
+    private static Product product(Long id, String size) {
+        Product p = new Product();
+        p.setId(id);
+        p.setSize(size);
+        TireSize.fill(p);
+        return p;
+    }
+}
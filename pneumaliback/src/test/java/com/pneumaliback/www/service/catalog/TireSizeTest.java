@@ -0,0 +1,69 @@
+package com.pneumaliback.www.service.catalog;
+
+import com.pneumaliback.www.entity.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TireSizeTest {
+
+    @ParameterizedTest
+    @CsvSource(nullValues = "-", value = {
+            "'205/55R16 91V',     205, 55, 16.0, 91,  V",
+            "'205/55 ZR16',       205, 55, 16.0, -,   -",
+            "'215/75R17.5 135J',  215, 75, 17.5, 135, J",
+            "'215/75r17,5 135/133j', 215, 75, 17.5, 135, J",
+            "'185/65-14',         185, 65, 14.0, -,   -",
+            "'225/45R17 94W XL',  225, 45, 17.0, 94,  W",
+            "'195/65R15',         195, 65, 15.0, -,   -",
+            "'205/55R16 1',       205, 55, 16.0, -,   -",
+    })
+    void parsesSupportedFormats(String raw, int width, int aspectRatio, String rim, Integer loadIndex, String speedRating) {
+        TireSize size = TireSize.parse(raw).orElseThrow();
+
+        assertThat(size.width()).isEqualTo(width);
+        assertThat(size.aspectRatio()).isEqualTo(aspectRatio);
+        assertThat(size.rimDiameter()).isEqualTo(new BigDecimal(rim));
+        assertThat(size.loadIndex()).isEqualTo(loadIndex);
+        assertThat(size.speedRating()).isEqualTo(speedRating);
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = {"   ", "abc", "205/55", "LT265/70R17", "20/55R16", "205/5R16"})
+    void rejectsUnrecognizedLabels(String raw) {
+        assertThat(TireSize.parse(raw)).isEmpty();
+    }
+
+    @Test
+    void computesOverallDiameter() {
+        TireSize size = TireSize.parse("205/55R16").orElseThrow();
+
+        // 16" = 406,4 mm + 2 x 112,75 mm de flanc
+        assertThat(size.overallDiameterTenthsMm()).isEqualTo(6319);
+        assertThat(size.rimTenths()).isEqualTo(160);
+    }
+
+    @Test
+    void fillClearsDimensionsOfUnrecognizedSize() {
+        Product product = new Product();
+        product.setSize("225/45R17 94W");
+        TireSize.fill(product);
+        assertThat(product.getWidth()).isEqualTo(225);
+        assertThat(product.getSpeedRating()).isEqualTo("W");
+
+        product.setSize("Pneu agricole");
+        TireSize.fill(product);
+        assertThat(product.getWidth()).isNull();
+        assertThat(product.getAspectRatio()).isNull();
+        assertThat(product.getRimDiameter()).isNull();
+        assertThat(product.getLoadIndex()).isNull();
+        assertThat(product.getSpeedRating()).isNull();
+    }
+}
@@ -0,0 +1,152 @@
+package com.pneumaliback.www.service.commission;
+
+import com.pneumaliback.www.entity.Commission;
+import com.pneumaliback.www.entity.CommissionLedgerEntry;
+import com.pneumaliback.www.entity.Influenceur;
+import com.pneumaliback.www.enums.LedgerEntryType;
+import com.pneumaliback.www.repository.CommissionLedgerRepository;
+import com.pneumaliback.www.repository.CommissionRepository;
+import com.pneumaliback.www.repository.InfluenceurBalanceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Les upserts natifs (INSERT … ON CONFLICT DO UPDATE) sont propres à PostgreSQL et ne
+ * passent pas sur H2 : on vérifie ici les deltas envoyés, cumulés comme le ferait la base.
+ */
+class CommissionLedgerServiceTest {
+
+    private final CommissionLedgerRepository ledgerRepository = mock(CommissionLedgerRepository.class);
+    private final InfluenceurBalanceRepository balanceRepository = mock(InfluenceurBalanceRepository.class);
+    private final CommissionRepository commissionRepository = mock(CommissionRepository.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final CommissionLedgerService service = new CommissionLedgerService(ledgerRepository, balanceRepository,
+            commissionRepository, transactionTemplate);
+
+    // Soldes tels que l'upsert les accumule : [total, pending, paid, orders]
+    private final Map<Long, BigDecimal[]> balances = new HashMap<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(balanceRepository.apply(anyLong(), any(), any(), any(), anyLong())).thenAnswer(inv -> {
+            BigDecimal[] b = balances.computeIfAbsent(inv.getArgument(0),
+                    k -> new BigDecimal[] { BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO });
+            b[0] = b[0].add(inv.getArgument(1));
+            b[1] = b[1].add(inv.getArgument(2));
+            b[2] = b[2].add(inv.getArgument(3));
+            b[3] = b[3].add(BigDecimal.valueOf((long) inv.getArgument(4)));
+            return 1;
+        });
+        doAnswer(inv -> {
+            ((Consumer<TransactionStatus>) inv.getArgument(0)).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void earnedAndPaidMovementsKeepTheBalanceConsistent() {
+        Commission first = commission(1L, "1500.00");
+        Commission second = commission(1L, "2500.00");
+
+        service.earned(first);
+        service.earned(second);
+        service.paid(first);
+
+        BigDecimal[] b = balances.get(1L);
+        assertThat(b[0]).isEqualByComparingTo("4000.00");
+        assertThat(b[1]).isEqualByComparingTo("2500.00");
+        assertThat(b[2]).isEqualByComparingTo("1500.00");
+        // Un paiement ne compte pas une commande de plus
+        assertThat(b[3]).isEqualByComparingTo("2");
+    }
+
+    @Test
+    void eachMovementAppendsOneLedgerEntry() {
+        Commission c = commission(3L, "900.00");
+
+        service.earned(c);
+        service.paid(c);
+
+        ArgumentCaptor<CommissionLedgerEntry> entries = ArgumentCaptor.forClass(CommissionLedgerEntry.class);
+        verify(ledgerRepository, times(2)).save(entries.capture());
+        assertThat(entries.getAllValues()).extracting(CommissionLedgerEntry::getType)
+                .containsExactly(LedgerEntryType.EARNED, LedgerEntryType.PAID);
+        assertThat(entries.getAllValues()).allSatisfy(e -> {
+            assertThat(e.getCommission()).isSameAs(c);
+            assertThat(e.getInfluenceur()).isSameAs(c.getInfluenceur());
+            assertThat(e.getAmount()).isEqualByComparingTo("900.00");
+        });
+    }
+
+    @Test
+    void balancesOfDifferentInfluencersStayApart() {
+        service.earned(commission(1L, "100.00"));
+        service.earned(commission(2L, "300.00"));
+
+        assertThat(balances.get(1L)[0]).isEqualByComparingTo("100.00");
+        assertThat(balances.get(2L)[0]).isEqualByComparingTo("300.00");
+    }
+
+    @Test
+    void backfillRunsOnceOnAnEmptyLedger() {
+        when(ledgerRepository.count()).thenReturn(0L);
+        when(commissionRepository.count()).thenReturn(12L);
+
+        service.run();
+
+        verify(ledgerRepository).backfillFromCommissions();
+        verify(balanceRepository).rebuildFromCommissions();
+    }
+
+    @Test
+    void backfillIsSkippedWhenTheLedgerIsAlreadyFilledOrThereIsNothingToCopy() {
+        when(ledgerRepository.count()).thenReturn(5L);
+        when(commissionRepository.count()).thenReturn(12L);
+        service.run();
+
+        when(ledgerRepository.count()).thenReturn(0L);
+        when(commissionRepository.count()).thenReturn(0L);
+        service.run();
+
+        verify(ledgerRepository, never()).backfillFromCommissions();
+        verify(balanceRepository, never()).rebuildFromCommissions();
+    }
+
+    @Test
+    void aFailedBackfillDoesNotStopTheStartup() {
+        when(ledgerRepository.count()).thenReturn(0L);
+        when(commissionRepository.count()).thenReturn(12L);
+        when(balanceRepository.rebuildFromCommissions()).thenThrow(new IllegalStateException("base indisponible"));
+
+        assertThatCode(service::run).doesNotThrowAnyException();
+    }
+
+    private static Commission commission(Long influenceurId, String amount) {
+        Influenceur influenceur = new Influenceur();
+        influenceur.setId(influenceurId);
+        Commission c = new Commission();
+        c.setInfluenceur(influenceur);
+        c.setAmount(new BigDecimal(amount));
+        return c;
+    }
+}
@@ -0,0 +1,142 @@
+package com.pneumaliback.www.service.delivery;
+
+import com.pneumaliback.www.entity.ShippingRate;
+import com.pneumaliback.www.entity.ShippingZone;
+import com.pneumaliback.www.repository.ShippingRateRepository;
+import com.pneumaliback.www.repository.ShippingZoneRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ShippingTariffTest {
+
+    private final ShippingZoneRepository zoneRepository = mock(ShippingZoneRepository.class);
+    private final ShippingRateRepository rateRepository = mock(ShippingRateRepository.class);
+    private final ShippingTariff tariff = new ShippingTariff(zoneRepository, rateRepository);
+
+    private long nextZoneId = 1;
+
+    @Test
+    void historicalFeesApplyUntilTheTableIsLoaded() {
+        assertThat(tariff.quote("Bamako", 2).fee()).isEqualByComparingTo("2000");
+        assertThat(tariff.quote("Sikasso", 2).fee()).isEqualByComparingTo("5000");
+    }
+
+    @Test
+    void quantityBandsAreFoundByTheirLowerBound() {
+        ShippingZone bamako = zone("BAMAKO", "bamako", false);
+        load(rate(bamako, 1, "2000"), rate(bamako, 4, "1500"), rate(bamako, 10, "1000"));
+
+        assertThat(fees("bamako", 0, 1, 3, 4, 9, 10, 50)).containsExactly("2000", "2000", "2000", "1500", "1500", "1000", "1000");
+        // Panier vide : première tranche, quantité ramenée à 1
+        assertThat(tariff.quote("bamako", 0).quantity()).isEqualTo(1);
+    }
+
+    @Test
+    void keywordsMatchIgnoringCaseAccentsAndSpaces() {
+        ShippingZone segou = zone("SEGOU", "ségou, san", false);
+        load(rate(segou, 1, "3500"));
+
+        assertThat(tariff.quote("  SEGOU ", 1).zoneCode()).isEqualTo("SEGOU");
+        assertThat(tariff.quote("Ségou", 1).zoneCode()).isEqualTo("SEGOU");
+        assertThat(tariff.quote("san", 1).zoneCode()).isEqualTo("SEGOU");
+        // Le code de la zone sert aussi de mot-clé
+        assertThat(tariff.quote("segou", 1).fee()).isEqualByComparingTo("3500");
+    }
+
+    @Test
+    void theLongestContainedKeywordWins() {
+        ShippingZone city = zone("BAMAKO", "bamako", false);
+        ShippingZone rightBank = zone("BAMAKO_RD", "bamako rive droite", false);
+        load(rate(city, 1, "2000"), rate(rightBank, 1, "2500"));
+
+        assertThat(tariff.quote("Kalaban Coura, Bamako Rive  Droite", 1).zoneCode()).isEqualTo("BAMAKO_RD");
+        assertThat(tariff.quote("Hippodrome, Bamako", 1).zoneCode()).isEqualTo("BAMAKO");
+    }
+
+    @Test
+    void unknownZonesFallBackToTheDefaultZoneOrAreRefused() {
+        ShippingZone bamako = zone("BAMAKO", "bamako", false);
+        load(rate(bamako, 1, "2000"));
+
+        assertThatThrownBy(() -> tariff.quote("Kidal", 1)).isInstanceOf(IllegalArgumentException.class);
+
+        ShippingZone other = zone("DEFAULT", null, true);
+        load(rate(bamako, 1, "2000"), rate(other, 1, "6000"));
+
+        ShippingTariff.Quote quote = tariff.quote("Kidal", 1);
+        assertThat(quote.zoneCode()).isEqualTo("DEFAULT");
+        assertThat(quote.fee()).isEqualByComparingTo("6000");
+    }
+
+    @Test
+    void aBlankZoneMeansNoDelivery() {
+        ShippingTariff.Quote quote = tariff.quote("  ", 3);
+
+        assertThat(quote.zoneCode()).isNull();
+        assertThat(quote.fee()).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void groupedQuotesDefaultToOneItem() {
+        ShippingZone bamako = zone("BAMAKO", "bamako", false);
+        load(rate(bamako, 1, "2000"), rate(bamako, 4, "1500"));
+
+        List<ShippingTariff.Quote> quotes = tariff.quoteAll(List.of(
+                new ShippingTariff.Request("Bamako", null), new ShippingTariff.Request("Bamako", 5)));
+
+        assertThat(quotes).extracting(ShippingTariff.Quote::quantity).containsExactly(1, 5);
+        assertThat(quotes).extracting(q -> q.fee().toPlainString()).containsExactly("2000.00", "1500.00");
+    }
+
+    @Test
+    void startupSeedsTheHistoricalGridOnAnEmptyTable() {
+        when(zoneRepository.count()).thenReturn(0L);
+        when(zoneRepository.save(any(ShippingZone.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(rateRepository.findActiveRates()).thenReturn(List.of());
+
+        tariff.run();
+
+        verify(zoneRepository, times(2)).save(any(ShippingZone.class));
+        verify(rateRepository, times(2)).save(any(ShippingRate.class));
+        verify(rateRepository).findActiveRates();
+    }
+
+    private List<String> fees(String zone, int... quantities) {
+        return Arrays.stream(quantities).mapToObj(q -> tariff.quote(zone, q).fee().stripTrailingZeros().toPlainString()).toList();
+    }
+
+    private void load(ShippingRate... rates) {
+        when(rateRepository.findActiveRates()).thenReturn(new ArrayList<>(List.of(rates)));
+        tariff.reload();
+    }
+
+    private ShippingZone zone(String code, String keywords, boolean defaultZone) {
+        ShippingZone z = new ShippingZone();
+        z.setId(nextZoneId++);
+        z.setCode(code);
+        z.setName(code);
+        z.setKeywords(keywords);
+        z.setDefaultZone(defaultZone);
+        return z;
+    }
+
+    private static ShippingRate rate(ShippingZone zone, int minQuantity, String fee) {
+        ShippingRate r = new ShippingRate();
+        r.setZone(zone);
+        r.setMinQuantity(minQuantity);
+        r.setFee(new BigDecimal(fee));
+        return r;
+    }
+}
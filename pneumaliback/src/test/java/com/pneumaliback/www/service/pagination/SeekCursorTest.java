@@ -0,0 +1,84 @@
+package com.pneumaliback.www.service.pagination;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SeekCursorTest {
+
+    @Test
+    void roundTripsDateTimeKeys() {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 3, 14, 9, 26, 53, 589_000_000);
+        String token = SeekCursor.of("recent", createdAt, 42L).encode();
+
+        SeekCursor decoded = SeekCursor.decode(token, "recent");
+
+        assertThat(decoded.id()).isEqualTo(42L);
+        assertThat(decoded.keyAsDateTime()).isEqualTo(createdAt);
+        assertThat(token).doesNotContain("=", "+", "/");
+    }
+
+    @Test
+    void roundTripsDecimalKeysWithoutExponent() {
+        String token = SeekCursor.of("price_asc", new BigDecimal("1E+2"), 7L).encode();
+
+        SeekCursor decoded = SeekCursor.decode(token, "price_asc");
+
+        assertThat(decoded.key()).isEqualTo("100");
+        assertThat(decoded.keyAsDecimal()).isEqualByComparingTo("100");
+    }
+
+    @Test
+    void emptyTokenMeansFirstPage() {
+        assertThat(SeekCursor.decode(null, "recent")).isNull();
+        assertThat(SeekCursor.decode("  ", "recent")).isNull();
+    }
+
+    @Test
+    void rejectsCursorIssuedForAnotherSort() {
+        String token = SeekCursor.of("price_asc", new BigDecimal("49.90"), 7L).encode();
+
+        assertThatThrownBy(() -> SeekCursor.decode(token, "price_desc"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Curseur invalide");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"%%%", "recent|2025-01-01T00:00", "recent|2025-01-01T00:00|abc", "recent"})
+    void rejectsMalformedTokens(String raw) {
+        String token = "%%%".equals(raw) ? raw
+                : Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> SeekCursor.decode(token, "recent"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Curseur invalide");
+    }
+
+    @Test
+    void rejectsKeysOfTheWrongType() {
+        SeekCursor cursor = SeekCursor.decode(SeekCursor.of("recent", LocalDateTime.now(), 1L).encode(), "recent");
+
+        assertThatThrownBy(cursor::keyAsDecimal).hasMessage("Curseur invalide");
+        assertThatThrownBy(new SeekCursor("price_asc", "12.5", 1L)::keyAsDateTime).hasMessage("Curseur invalide");
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, -1, SeekCursor.MAX_SIZE + 1})
+    void rejectsPageSizesOutOfRange(int size) {
+        assertThatThrownBy(() -> SeekCursor.checkSize(size)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void acceptsPageSizesInRange() {
+        assertThat(SeekCursor.checkSize(1)).isEqualTo(1);
+        assertThat(SeekCursor.checkSize(SeekCursor.MAX_SIZE)).isEqualTo(SeekCursor.MAX_SIZE);
+    }
+}
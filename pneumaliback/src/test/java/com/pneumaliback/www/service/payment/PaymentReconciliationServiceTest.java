@@ -0,0 +1,140 @@
+package com.pneumaliback.www.service.payment;
+
+import com.pneumaliback.www.enums.PaymentMethod;
+import com.pneumaliback.www.enums.PaymentStatus;
+import com.pneumaliback.www.repository.PaymentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaymentReconciliationServiceTest {
+
+    private final PaymentRepository paymentRepository = mock(PaymentRepository.class);
+    private final PaymentCallbackService callbackService = mock(PaymentCallbackService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LocalPaymentStatusProvider local = new LocalPaymentStatusProvider();
+    private final CountDownLatch hang = new CountDownLatch(1);
+
+    private PaymentReconciliationService service;
+
+    @AfterEach
+    void tearDown() {
+        hang.countDown();
+        if (service != null) service.shutdown();
+    }
+
+    @Test
+    void confirmedTransactionsGoThroughTheCallbackInbox() throws Exception {
+        service = service(local);
+        local.define("OM-1", PaymentStatusProvider.Status.SUCCESS);
+        pending(payment(1L, "OM-1", PaymentMethod.ORANGE_MONEY), payment(2L, "OM-2", PaymentMethod.ORANGE_MONEY));
+
+        PaymentReconciliationService.RunSummary summary = service.run();
+
+        verify(callbackService).receiveAll(List.of("OM-1"));
+        verify(paymentRepository, never()).transitionAll(anyCollection(), anyCollection(), any(), any());
+        PaymentReconciliationService.ProviderSummary s = summary.providers().get("local");
+        assertThat(summary.scanned()).isEqualTo(2);
+        assertThat(s.checked()).isEqualTo(2);
+        assertThat(s.confirmed()).isEqualTo(1);
+        assertThat(s.pending()).isEqualTo(1);
+    }
+
+    @Test
+    void failedTransactionsAreClosedInOneUpdate() throws Exception {
+        service = service(local);
+        local.define("MV-1", PaymentStatusProvider.Status.FAILED);
+        local.define("MV-2", PaymentStatusProvider.Status.FAILED);
+        pending(payment(1L, "MV-1", PaymentMethod.MOOV_MONEY), payment(2L, "MV-2", PaymentMethod.MOOV_MONEY),
+                payment(3L, "CASH-1", PaymentMethod.CASH_ON_DELIVERY));
+
+        PaymentReconciliationService.RunSummary summary = service.run();
+
+        verify(paymentRepository).transitionAll(eq(List.of(1L, 2L)),
+                eq(List.of(PaymentStatus.PENDING, PaymentStatus.PROCESSING)), eq(PaymentStatus.FAILED), any());
+        verify(callbackService, never()).receiveAll(anyCollection());
+        assertThat(summary.providers().get("local").failed()).isEqualTo(2);
+        assertThat(summary.unsupported()).isEqualTo(1);
+    }
+
+    @Test
+    void aProviderThatDoesNotAnswerInTimeCountsAsAnError() throws Exception {
+        PaymentStatusProvider slow = new PaymentStatusProvider() {
+            @Override
+            public String name() {
+                return "slow";
+            }
+
+            @Override
+            public boolean supports(PaymentMethod method) {
+                return true;
+            }
+
+            @Override
+            public Status fetchStatus(PendingPayment payment) {
+                try {
+                    hang.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return Status.SUCCESS;
+            }
+        };
+        service = service(slow);
+        ReflectionTestUtils.setField(service, "callTimeoutMs", 100L);
+        pending(payment(1L, "OM-1", PaymentMethod.ORANGE_MONEY));
+
+        long start = System.nanoTime();
+        PaymentReconciliationService.RunSummary summary = service.run();
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(2_000);
+        assertThat(summary.providers().get("slow").errors()).isEqualTo(1);
+        assertThat(summary.providers().get("slow").confirmed()).isZero();
+        verify(callbackService, never()).receiveAll(anyCollection());
+        verify(paymentRepository, never()).transitionAll(anyCollection(), anyCollection(), any(), any());
+        assertThat(meterRegistry.counter("payment.reconciliation.results", "provider", "slow", "result", "ERROR").count())
+                .isEqualTo(1.0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private PaymentReconciliationService service(PaymentStatusProvider... providers) {
+        ObjectProvider<PaymentStatusProvider> provider = mock(ObjectProvider.class);
+        when(provider.orderedStream()).thenReturn(Stream.of(providers));
+        PaymentReconciliationService s = new PaymentReconciliationService(paymentRepository, callbackService,
+                provider, meterRegistry, 2);
+        ReflectionTestUtils.setField(s, "minAgeMinutes", 15L);
+        ReflectionTestUtils.setField(s, "maxChunks", 50);
+        ReflectionTestUtils.setField(s, "callTimeoutMs", 1_000L);
+        return s;
+    }
+
+    private void pending(PendingPayment... payments) {
+        when(paymentRepository.findPendingAfter(anyCollection(), any(LocalDateTime.class), eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(payments));
+        when(paymentRepository.findPendingAfter(anyCollection(), any(LocalDateTime.class),
+                eq(payments[payments.length - 1].id()), any(Pageable.class))).thenReturn(List.of());
+    }
+
+    private static PendingPayment payment(Long id, String reference, PaymentMethod method) {
+        return new PendingPayment(id, reference, method, null, LocalDateTime.now().minusHours(1));
+    }
+}
@@ -0,0 +1,82 @@
+package com.pneumaliback.www.service.pricing;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PriceRuleTest {
+
+    @Test
+    void percentageRoundsDownPerLine() {
+        PriceLine[] lines = {new PriceLine(1L, 1, 999), new PriceLine(2L, 3, 333)};
+        long[] discounts = new long[2];
+
+        // 12,5 % de 999 = 124,875 et de 999 (3 x 333) = 124,875 : chaque ligne arrondie à 124
+        long total = new PriceRule.Percentage(1250).apply(lines, discounts);
+
+        assertThat(discounts).containsExactly(124, 124);
+        assertThat(total).isEqualTo(248);
+    }
+
+    @Test
+    void percentageIsCappedAtLineTotal() {
+        PriceLine[] lines = {new PriceLine(1L, 2, 5_000)};
+        long[] discounts = new long[1];
+
+        assertThat(new PriceRule.Percentage(15_000).apply(lines, discounts)).isEqualTo(10_000);
+        assertThat(discounts).containsExactly(10_000);
+    }
+
+    @Test
+    void buyOneGetOneOffersOneItemPerPair() {
+        PriceLine[] lines = {new PriceLine(1L, 1, 10_000), new PriceLine(2L, 3, 20_000), new PriceLine(3L, 4, 5_000)};
+        long[] discounts = new long[3];
+
+        long total = new PriceRule.BuyOneGetOne(0).apply(lines, discounts);
+
+        assertThat(discounts).containsExactly(0, 20_000, 10_000);
+        assertThat(total).isEqualTo(30_000);
+    }
+
+    @Test
+    void buyOneGetOneCapIsSharedAcrossLines() {
+        PriceLine[] lines = {new PriceLine(1L, 2, 20_000), new PriceLine(2L, 2, 20_000), new PriceLine(3L, 2, 20_000)};
+        long[] discounts = new long[3];
+
+        long total = new PriceRule.BuyOneGetOne(30_000).apply(lines, discounts);
+
+        assertThat(discounts).containsExactly(20_000, 10_000, 0);
+        assertThat(total).isEqualTo(30_000);
+    }
+
+    @Test
+    void fixedDiscountHasNoLineBreakdown() {
+        PriceLine[] lines = {new PriceLine(1L, 1, 10_000)};
+        long[] discounts = new long[1];
+
+        assertThat(new PriceRule.Fixed(2_500).apply(lines, discounts)).isEqualTo(2_500);
+        assertThat(discounts).containsExactly(0);
+    }
+
+    @Test
+    void bestOfKeepsTheLargerDiscount() {
+        PriceLine[] lines = {new PriceLine(1L, 2, 10_000)};
+        PriceRule.BestOf rule = new PriceRule.BestOf(new PriceRule.Percentage(1000), new PriceRule.Fixed(1_500));
+
+        long[] viaPercent = new long[1];
+        assertThat(rule.apply(lines, viaPercent)).isEqualTo(2_000);
+        assertThat(viaPercent).containsExactly(2_000);
+
+        PriceLine[] small = {new PriceLine(1L, 1, 10_000)};
+        long[] viaFixed = new long[1];
+        assertThat(rule.apply(small, viaFixed)).isEqualTo(1_500);
+        assertThat(viaFixed).containsExactly(0);
+    }
+
+    @Test
+    void lineTotalOverflowIsRejected() {
+        assertThatThrownBy(() -> new PriceLine(1L, 2, Long.MAX_VALUE / 2 + 1).total())
+                .isInstanceOf(ArithmeticException.class);
+    }
+}
@@ -0,0 +1,108 @@
+package com.pneumaliback.www.service.pricing;
+
+import com.pneumaliback.www.entity.Promotion;
+import com.pneumaliback.www.enums.PromotionType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PricingEngineTest {
+
+    private final PricingEngine engine = new PricingEngine();
+
+    private final List<PriceLine> cart = List.of(new PriceLine(1L, 2, 45_000), new PriceLine(2L, 1, 12_500));
+
+    @Test
+    void quotesWithoutPromotion() {
+        PriceQuote quote = engine.quote(cart, null, 2_000);
+
+        assertThat(quote.subtotal()).isEqualTo(102_500);
+        assertThat(quote.discount()).isZero();
+        assertThat(quote.shipping()).isEqualTo(2_000);
+        assertThat(quote.total()).isEqualTo(104_500);
+        assertThat(quote.lines()).extracting(PriceQuote.Line::total).containsExactly(90_000L, 12_500L);
+    }
+
+    @Test
+    void appliesPercentagePerLine() {
+        PriceQuote quote = engine.quote(cart, promotion(1L, PromotionType.PERCENTAGE, "12.5", null), 0);
+
+        // 12,5 % de 90 000 = 11 250 ; de 12 500 = 1 562,5 arrondi à 1 562
+        assertThat(quote.lines()).extracting(PriceQuote.Line::discount).containsExactly(11_250L, 1_562L);
+        assertThat(quote.discount()).isEqualTo(12_812);
+        assertThat(quote.total()).isEqualTo(89_688);
+    }
+
+    @Test
+    void capsFixedDiscountAtSubtotalButStillChargesShipping() {
+        PriceQuote quote = engine.quote(cart, promotion(2L, PromotionType.FIXED_AMOUNT, null, "500000"), 2_000);
+
+        assertThat(quote.discount()).isEqualTo(102_500);
+        assertThat(quote.total()).isEqualTo(2_000);
+    }
+
+    @Test
+    void appliesBuyOneGetOneWithCap() {
+        PriceQuote uncapped = engine.quote(cart, promotion(3L, PromotionType.BUY_ONE_GET_ONE, null, null), 0);
+        PriceQuote capped = engine.quote(cart, promotion(4L, PromotionType.BUY_ONE_GET_ONE, null, "30000"), 0);
+
+        assertThat(uncapped.discount()).isEqualTo(45_000);
+        assertThat(capped.discount()).isEqualTo(30_000);
+        assertThat(capped.total()).isEqualTo(72_500);
+    }
+
+    @Test
+    void influencerCodeTakesTheBetterOfPercentageAndAmount() {
+        PriceQuote percent = engine.quote(cart, promotion(5L, PromotionType.INFLUENCER_CODE, "10", "5000"), 0);
+        PriceQuote amount = engine.quote(cart, promotion(6L, PromotionType.INFLUENCER_CODE, "2", "5000"), 0);
+
+        assertThat(percent.discount()).isEqualTo(10_250);
+        assertThat(amount.discount()).isEqualTo(5_000);
+        assertThat(amount.lines()).extracting(PriceQuote.Line::discount).containsOnly(0L);
+    }
+
+    @Test
+    void convertsAmountsToMinorUnits() {
+        assertThat(Money.toMinor(new BigDecimal("1234.50"))).isEqualTo(1235);
+        assertThat(Money.toMinor(new BigDecimal("1234.49"))).isEqualTo(1234);
+        assertThat(Money.toMinor(null)).isZero();
+        assertThat(Money.toAmount(1235)).isEqualTo(new BigDecimal("1235.00"));
+        assertThat(Money.toBasisPoints(new BigDecimal("12.345"))).isEqualTo(1235);
+
+        PriceQuote quote = engine.quote(List.of(new PriceLine(1L, 1, 10_000)), null, new BigDecimal("1500.5"));
+        assertThat(quote.shipping()).isEqualTo(1_501);
+    }
+
+    @Test
+    void recompilesRuleOnlyWhenPromotionVersionChanges() {
+        Promotion promo = promotion(7L, PromotionType.PERCENTAGE, "10", null);
+        PriceRule first = engine.ruleFor(promo);
+        assertThat(engine.ruleFor(promo)).isSameAs(first);
+
+        promo.setDiscountPercentage(new BigDecimal("20"));
+        assertThat(engine.ruleFor(promo)).isSameAs(first);
+
+        promo.setVersion(promo.getVersion() + 1);
+        assertThat(engine.ruleFor(promo)).isEqualTo(new PriceRule.Percentage(2000));
+    }
+
+    @Test
+    void negativeValuesNeverIncreaseThePrice() {
+        assertThat(PricingEngine.compile(promotion(8L, PromotionType.PERCENTAGE, "-10", null)))
+                .isEqualTo(new PriceRule.Percentage(0));
+        assertThat(PricingEngine.compile(promotion(9L, PromotionType.FIXED_AMOUNT, null, "-100")))
+                .isEqualTo(new PriceRule.Fixed(0));
+    }
+
+    private static Promotion promotion(Long id, PromotionType type, String percentage, String amount) {
+        Promotion p = new Promotion();
+        p.setId(id);
+        p.setType(type);
+        p.setDiscountPercentage(percentage != null ? new BigDecimal(percentage) : null);
+        p.setDiscountAmount(amount != null ? new BigDecimal(amount) : null);
+        return p;
+    }
+}
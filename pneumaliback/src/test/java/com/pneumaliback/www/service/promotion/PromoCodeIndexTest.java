@@ -0,0 +1,54 @@
+package com.pneumaliback.www.service.promotion;
+
+import com.pneumaliback.www.entity.Promotion;
+import com.pneumaliback.www.repository.PromotionRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PromoCodeIndexTest {
+
+    private final PromotionRepository repository = mock(PromotionRepository.class);
+    private final PromoCodeIndex index = new PromoCodeIndex(repository);
+
+    @Test
+    void resolvesCodesWithoutHittingTheDatabaseAgain() {
+        when(repository.findActivePromotions(any(LocalDate.class))).thenReturn(List.of(promotion(1L, "ETE25")));
+
+        assertThat(index.findByCode(" ete25 ")).map(Promotion::getId).contains(1L);
+        assertThat(index.findByCode("HIVER")).isEmpty();
+
+        verify(repository, times(1)).findActivePromotions(any(LocalDate.class));
+    }
+
+    @Test
+    void periodicReloadPicksUpChangesMadeByAnotherInstance() {
+        when(repository.findActivePromotions(any(LocalDate.class)))
+                .thenReturn(List.of(promotion(1L, "ETE25")))
+                .thenReturn(List.of(promotion(2L, "HIVER")));
+        assertThat(index.findByCode("ETE25")).isPresent();
+
+        // Promotion désactivée et nouvelle promotion créées ailleurs : invisibles jusqu'au rechargement
+        assertThat(index.findByCode("HIVER")).isEmpty();
+        index.reload();
+
+        assertThat(index.findByCode("ETE25")).isEmpty();
+        assertThat(index.findByCode("hiver")).map(Promotion::getId).contains(2L);
+        verify(repository, times(2)).findActivePromotions(any(LocalDate.class));
+    }
+
+    private static Promotion promotion(Long id, String code) {
+        Promotion p = new Promotion();
+        p.setId(id);
+        p.setCode(code);
+        return p;
+    }
+}